@@ -50,6 +50,7 @@ import com.damors.zuji.model.PublishTrandsInfoPO;
 
 import com.damors.zuji.network.RetrofitApiService;
 import com.damors.zuji.model.response.BaseResponse;
+import com.damors.zuji.utils.ImageUploadPipeline;
 import com.damors.zuji.utils.LoadingDialog;
 
 import com.damors.zuji.adapter.ImageGridAdapter;
@@ -57,8 +58,6 @@ import com.damors.zuji.adapter.ImageGridAdapter;
 import org.json.JSONObject;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -95,6 +94,8 @@ public class AddFootprintActivity extends AppCompatActivity implements GeocodeSe
     // 网络服务实例
     private RetrofitApiService apiService;
     private LoadingDialog loadingDialog;
+    private ImageUploadPipeline imageUploadPipeline;
+    private ImageUploadPipeline.Task imagePrepareTask;
     
     // 位置管理器
     private LocationManager locationManager;
@@ -111,6 +112,8 @@ public class AddFootprintActivity extends AppCompatActivity implements GeocodeSe
         apiService = RetrofitApiService.getInstance(this);
         // 初始化加载对话框
         loadingDialog = new LoadingDialog(this);
+        // 初始化上传图片预处理
+        imageUploadPipeline = new ImageUploadPipeline(this);
         
         // 初始化位置管理器
         locationManager = (LocationManager) getSystemService(LOCATION_SERVICE);
@@ -523,38 +526,41 @@ public class AddFootprintActivity extends AppCompatActivity implements GeocodeSe
         // 输出调试信息
         Log.d("AddFootprintActivity", "准备发布足迹 - 城市: " + city + ", 位置: " + location + ", 经纬度: (" + latitude + ", " + longitude + ")");
         
-        // 处理图片文件对象
-        List<File> imageFiles = new ArrayList<>();
-        for (Uri imageUri : selectedImages) {
-            try {
-                // 对于content://类型的URI，需要将图片复制到应用私有目录
-                if ("content".equals(imageUri.getScheme())) {
-                    // 创建临时文件
-                    File tempFile = createTempImageFile(imageUri);
-                    if (tempFile != null && tempFile.exists()) {
-                        imageFiles.add(tempFile);
-                    }
-                } else if ("file".equals(imageUri.getScheme())) {
-                    // 对于file://类型的URI，直接使用路径
-                    String path = imageUri.getPath();
-                    if (path != null) {
-                        File imageFile = new File(path);
-                        if (imageFile.exists()) {
-                            imageFiles.add(imageFile);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                Log.e("AddFootprint", "处理图片URI失败: " + imageUri, e);
-            }
-        }
-        publishInfo.setImages(imageFiles);
-        
         // 显示加载对话框并禁用发布按钮
-        loadingDialog.show("正在发布足迹...");
+        loadingDialog.show(selectedImages.isEmpty() ? "正在发布足迹..." : "正在处理图片...");
         btnPublish.setEnabled(false);
         btnPublish.setText("发布中...");
         
+        // 并行压缩所选图片，完成后再提交
+        imagePrepareTask = imageUploadPipeline.prepare(new ArrayList<>(selectedImages), "images",
+            new ImageUploadPipeline.Callback() {
+                @Override
+                public void onProgress(int done, int total) {
+                    loadingDialog.updateMessage("正在处理图片 " + done + "/" + total + "...");
+                }
+                
+                @Override
+                public void onComplete(List<MultipartBody.Part> parts, List<File> files, int failedCount) {
+                    imagePrepareTask = null;
+                    if (failedCount > 0) {
+                        Toast.makeText(AddFootprintActivity.this,
+                            failedCount + "张图片处理失败，已跳过", Toast.LENGTH_SHORT).show();
+                    }
+                    publishInfo.setImages(files);
+                    loadingDialog.updateMessage("正在发布足迹...");
+                    submitFootprint(publishInfo, parts, files);
+                }
+            });
+    }
+    
+    /**
+     * 提交足迹到服务器
+     * @param publishInfo 发布参数
+     * @param imageParts 已处理好的图片
+     * @param imageFiles 图片对应的临时文件，提交结束后删除
+     */
+    private void submitFootprint(PublishTrandsInfoPO publishInfo, List<MultipartBody.Part> imageParts,
+                                 List<File> imageFiles) {
         // 将PublishTrandsInfoPO转换为Map<String, RequestBody>格式
         Map<String, RequestBody> requestBodyMap = new HashMap<>();
         requestBodyMap.put("userId", RequestBody.create(MediaType.parse("text/plain"), publishInfo.getUserId()));
@@ -567,24 +573,13 @@ public class AddFootprintActivity extends AppCompatActivity implements GeocodeSe
         requestBodyMap.put("lat", RequestBody.create(MediaType.parse("text/plain"), String.valueOf(publishInfo.getLat())));
         requestBodyMap.put("msgType", RequestBody.create(MediaType.parse("text/plain"), String.valueOf(publishInfo.getMsgType())));
         
-        // 准备图片文件列表
-        List<MultipartBody.Part> imageParts = new ArrayList<>();
-        if (publishInfo.getImages() != null) {
-            for (int i = 0; i < publishInfo.getImages().size(); i++) {
-                File imageFile = publishInfo.getImages().get(i);
-                if (imageFile != null && imageFile.exists()) {
-                    RequestBody requestFile = RequestBody.create(MediaType.parse("image/*"), imageFile);
-                    MultipartBody.Part imagePart = MultipartBody.Part.createFormData("images", imageFile.getName(), requestFile);
-                    imageParts.add(imagePart);
-                }
-            }
-        }
-        
         // 调用网络接口发布足迹
         apiService.publishFootprint(requestBodyMap, imageParts,
             new RetrofitApiService.SuccessCallback<BaseResponse<JSONObject>>() {
                 @Override
                 public void onSuccess(BaseResponse<JSONObject> response) {
+                    // 图片已上传或已复制到发件箱，删除临时文件
+                    ImageUploadPipeline.deleteFiles(imageFiles);
                     // 隐藏加载对话框并恢复按钮状态
                     loadingDialog.dismiss();
                     btnPublish.setEnabled(true);
@@ -593,7 +588,9 @@ public class AddFootprintActivity extends AppCompatActivity implements GeocodeSe
                     if (response.getCode() == 200) {
                         // 发布成功
                         runOnUiThread(() -> {
-                            Toast.makeText(AddFootprintActivity.this, "发布成功", Toast.LENGTH_SHORT).show();
+                            // 离线时已保存到发件箱，网络恢复后自动发布
+                            String msg = response.isQueued() ? response.getMsg() : "发布成功";
+                            Toast.makeText(AddFootprintActivity.this, msg, Toast.LENGTH_SHORT).show();
                             setResult(RESULT_OK);
                             finish();
                         });
@@ -609,6 +606,7 @@ public class AddFootprintActivity extends AppCompatActivity implements GeocodeSe
             new RetrofitApiService.ErrorCallback() {
                 @Override
                 public void onError(String errorMessage) {
+                    ImageUploadPipeline.deleteFiles(imageFiles);
                     // 隐藏加载对话框并恢复按钮状态
                     loadingDialog.dismiss();
                     btnPublish.setEnabled(true);
@@ -752,6 +750,10 @@ public class AddFootprintActivity extends AppCompatActivity implements GeocodeSe
         if (geocodeSearch != null) {
             geocodeSearch.setOnGeocodeSearchListener(null);
         }
+        if (imagePrepareTask != null) {
+            imagePrepareTask.cancel();
+            imagePrepareTask = null;
+        }
     }
     
     /**
@@ -798,71 +800,4 @@ public class AddFootprintActivity extends AppCompatActivity implements GeocodeSe
             return null;
         }
     }
-
-    /**
-     * 为content://类型的URI创建临时文件
-     * @param uri 图片URI
-     * @return 临时文件，如果创建失败返回null
-     */
-    private File createTempImageFile(Uri uri) {
-        try {
-            // 获取文件扩展名
-            String fileName = "temp_image_" + System.currentTimeMillis();
-            String extension = getFileExtensionFromUri(uri);
-            if (extension != null) {
-                fileName += "." + extension;
-            } else {
-                fileName += ".jpg"; // 默认扩展名
-            }
-
-            // 在应用私有目录创建临时文件
-            File tempDir = new File(getCacheDir(), "temp_images");
-            if (!tempDir.exists()) {
-                tempDir.mkdirs();
-            }
-            File tempFile = new File(tempDir, fileName);
-
-            // 复制URI内容到临时文件
-            try (InputStream inputStream = getContentResolver().openInputStream(uri);
-                 FileOutputStream outputStream = new FileOutputStream(tempFile)) {
-                
-                if (inputStream != null) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
-                    }
-                    return tempFile;
-                }
-            }
-        } catch (Exception e) {
-            Log.e("AddFootprint", "创建临时图片文件失败: " + uri, e);
-        }
-        return null;
-    }
-
-    /**
-     * 从URI获取文件扩展名
-     * @param uri 图片URI
-     * @return 文件扩展名，如果获取失败返回null
-     */
-    private String getFileExtensionFromUri(Uri uri) {
-        try {
-            String mimeType = getContentResolver().getType(uri);
-            if (mimeType != null) {
-                if (mimeType.equals("image/jpeg")) {
-                    return "jpg";
-                } else if (mimeType.equals("image/png")) {
-                    return "png";
-                } else if (mimeType.equals("image/gif")) {
-                    return "gif";
-                } else if (mimeType.equals("image/webp")) {
-                    return "webp";
-                }
-            }
-        } catch (Exception e) {
-            Log.e("AddFootprint", "获取文件扩展名失败: " + uri, e);
-        }
-        return null;
-    }
 }
\ No newline at end of file
@@ -274,14 +274,19 @@ public class CommentListActivity extends AppCompatActivity implements CommentAda
                     loadingDialog.dismiss();
                     if (response != null && response.getCode() == 200) {
                         String message = currentReplyComment != null ? "回复发表成功" : "评论发表成功";
+                        if (response.isQueued()) {
+                            message = response.getMsg();
+                        }
                         Toast.makeText(CommentListActivity.this, message, Toast.LENGTH_SHORT).show();
                         
                         // 清空输入框和重置回复状态
                         etComment.setText("");
                         resetReplyState();
                         
-                        // 刷新评论列表
-                        loadComments();
+                        // 刷新评论列表，已保存到发件箱的评论提交后才会出现在列表中
+                        if (!response.isQueued()) {
+                            loadComments();
+                        }
                     } else {
                         String msg = response != null ? response.getMsg() : "发表失败";
                         String message = currentReplyComment != null ? "回复发表失败: " : "评论发表失败: ";
@@ -24,21 +24,27 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.damors.zuji.ImagePreviewActivity;
 import com.damors.zuji.CommentListActivity;
+import com.damors.zuji.adapter.FeedImagePreloader;
 import com.damors.zuji.adapter.FootprintMessageAdapter;
+import com.damors.zuji.config.ImageDisplayConfig;
 import com.damors.zuji.data.FootprintEntity;
+import com.damors.zuji.data.MessageFeedRepository;
 import com.damors.zuji.model.FootprintMessage;
 import com.damors.zuji.model.GuluFile;
 import com.damors.zuji.model.response.FootprintMessageResponse;
 import com.damors.zuji.network.ApiConfig;
 import com.damors.zuji.network.RetrofitApiService;
 import com.damors.zuji.model.response.BaseResponse;
+import com.damors.zuji.utils.FeedPrefetchScheduler;
 import com.damors.zuji.utils.LoadingDialog;
 import com.damors.zuji.viewmodel.FootprintViewModel;
 
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 历史记录Fragment
@@ -54,11 +60,13 @@ public class HistoryFragment extends Fragment {
     private SwipeRefreshLayout swipeRefreshLayout;
     private FootprintMessageAdapter adapter;
     private RetrofitApiService apiService;
+    private MessageFeedRepository feedRepository;
     private TextView emptyView;
     private LoadingDialog loadingDialog;
     private int currentPage = 1;
     private boolean isLoading = false;
     private boolean hasMoreData = true; // 是否还有更多数据
+    private FeedPrefetchScheduler prefetchScheduler;
     private List<FootprintMessage> footprintMessages = new ArrayList<>();
 
     @Nullable
@@ -68,6 +76,7 @@ public class HistoryFragment extends Fragment {
         
         // 初始化API服务
         apiService = RetrofitApiService.getInstance(requireContext());
+        feedRepository = MessageFeedRepository.getInstance(requireContext());
         
         // 初始化加载对话框
         loadingDialog = new LoadingDialog(requireContext());
@@ -91,29 +100,37 @@ public class HistoryFragment extends Fragment {
         LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
         recyclerView.setLayoutManager(layoutManager);
         
-        // 添加滚动监听器实现上拉加载更多
-        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+        // 根据滚动速度提前预取下一页，滚动到末尾时直接追加
+        prefetchScheduler = new FeedPrefetchScheduler(feedRepository, PAGE_SIZE, new FeedPrefetchScheduler.Listener() {
             @Override
-            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
-                super.onScrolled(recyclerView, dx, dy);
-                
-                // 检查是否滚动到底部
-                if (!isLoading && hasMoreData && dy > 0) {
-                    int visibleItemCount = layoutManager.getChildCount();
-                    int totalItemCount = layoutManager.getItemCount();
-                    int firstVisibleItemPosition = layoutManager.findFirstVisibleItemPosition();
-                    
-                    // 当滚动到倒数第3个item时开始加载下一页
-                    if ((visibleItemCount + firstVisibleItemPosition) >= totalItemCount - 3) {
-                        loadMoreData();
-                    }
+            public boolean isLoadingPage() {
+                return isLoading;
+            }
+            
+            @Override
+            public void onPageReady(int page, List<FootprintMessage> messages, boolean endReached) {
+                if (!isAdded() || getContext() == null) {
+                    return;
                 }
+                currentPage = Math.max(currentPage, page);
+                applyPage(page, messages, endReached);
+            }
+            
+            @Override
+            public void onPrefetchFailed(int page, String errorMessage) {
+                if (!isAdded() || getContext() == null) {
+                    return;
+                }
+                Toast.makeText(getContext(), "加载更多失败: " + errorMessage, Toast.LENGTH_SHORT).show();
             }
         });
+        prefetchScheduler.attach(recyclerView);
         
         // 初始化适配器，使用足迹动态适配器
         adapter = new FootprintMessageAdapter(requireContext(), footprintMessages);
         recyclerView.setAdapter(adapter);
+        // 滚动时预加载即将出现的动态图片
+        new FeedImagePreloader(requireContext(), adapter, ImageDisplayConfig.PRELOAD_ROW_COUNT).attach(recyclerView);
         
         // 设置点击事件
         adapter.setOnItemClickListener(new FootprintMessageAdapter.OnItemClickListener() {
@@ -178,71 +195,78 @@ public class HistoryFragment extends Fragment {
         viewModel = new ViewModelProvider(requireActivity()).get(FootprintViewModel.class);
         
         // 加载足迹动态数据
-        loadFootprintMessages();
+        loadFootprintMessages(false);
     }
 
     /**
      * 加载足迹动态数据
+     * 先展示本地缓存，缓存过期或强制刷新时再从服务端获取并更新
+     * @param forceRefresh 是否忽略缓存新鲜期强制请求网络
      */
-    private void loadFootprintMessages() {
+    private void loadFootprintMessages(boolean forceRefresh) {
         if (isLoading) {
             return;
         }
         
         isLoading = true;
-        Log.d(TAG, "开始加载足迹动态数据，页码: " + currentPage);
+        final int page = currentPage;
+        Log.d(TAG, "开始加载足迹动态数据，页码: " + page);
         
         // 显示加载状态
-        if (currentPage == 1 && !swipeRefreshLayout.isRefreshing()) {
+        if (page == 1 && !swipeRefreshLayout.isRefreshing() && footprintMessages.isEmpty()) {
             // 首次加载且不是下拉刷新时显示加载对话框
             loadingDialog.show("正在加载足迹动态...");
         }
         
-        apiService.getFootprintMessages(
-            currentPage,
-            PAGE_SIZE,
-            new RetrofitApiService.SuccessCallback<BaseResponse<FootprintMessageResponse.Data>>() {
-                @Override
-                public void onSuccess(BaseResponse<FootprintMessageResponse.Data> response) {
-                    if (!isAdded() || getContext() == null) {
-                        return;
-                    }
-                    
-                    // 停止下拉刷新动画
-                    if (swipeRefreshLayout.isRefreshing()) {
-                        swipeRefreshLayout.setRefreshing(false);
-                    }
-                    // 隐藏加载对话框
-                    loadingDialog.dismiss();
-
-                    isLoading = false;
-                    if (response.getCode() == 200 && response.getData() != null) {
-                        handleFootprintMessagesSuccess(response.getData());
-                    } else {
-                        String msg = response.getMsg() != null ? response.getMsg() : "加载失败";
-                        handleFootprintMessagesError(msg);
-                    }
+        feedRepository.loadMessagePage(page, PAGE_SIZE, forceRefresh, new MessageFeedRepository.PageCallback() {
+            @Override
+            public void onCachedPage(List<FootprintMessage> messages, long cacheAgeMs, boolean revalidating) {
+                if (!isAdded() || getContext() == null) {
+                    return;
                 }
-            },
-            new RetrofitApiService.ErrorCallback() {
-                @Override
-                public void onError(String errorMessage) {
-                    if (!isAdded() || getContext() == null) {
-                        return;
-                    }
-                    
-                    // 停止下拉刷新动画
-                    if (swipeRefreshLayout.isRefreshing()) {
-                        swipeRefreshLayout.setRefreshing(false);
-                    }
-                    // 隐藏加载对话框
-                    loadingDialog.dismiss();
-
-                    isLoading = false;
+                // 缓存数据已可展示，隐藏加载对话框
+                loadingDialog.dismiss();
+                if (!revalidating) {
+                    finishLoading();
+                }
+                Log.d(TAG, "展示缓存足迹动态，页码: " + page + "，缓存年龄: " + cacheAgeMs / 1000 + "秒");
+                applyPage(page, messages, messages.size() < PAGE_SIZE);
+            }
+            
+            @Override
+            public void onRemotePage(List<FootprintMessage> messages, boolean endReached) {
+                if (!isAdded() || getContext() == null) {
+                    return;
+                }
+                finishLoading();
+                applyPage(page, messages, endReached);
+            }
+            
+            @Override
+            public void onError(String errorMessage, boolean servedFromCache) {
+                if (!isAdded() || getContext() == null) {
+                    return;
+                }
+                finishLoading();
+                if (servedFromCache) {
+                    Log.w(TAG, "刷新足迹动态失败，继续显示缓存数据: " + errorMessage);
+                    Toast.makeText(getContext(), "网络不可用，当前显示的是缓存数据", Toast.LENGTH_SHORT).show();
+                } else {
                     handleFootprintMessagesError(errorMessage);
                 }
             }
-        );
+        });
+    }
+    
+    /**
+     * 结束加载状态：停止下拉刷新动画并隐藏加载对话框
+     */
+    private void finishLoading() {
+        isLoading = false;
+        if (swipeRefreshLayout.isRefreshing()) {
+            swipeRefreshLayout.setRefreshing(false);
+        }
+        loadingDialog.dismiss();
     }
     
     /**
@@ -251,26 +275,7 @@ public class HistoryFragment extends Fragment {
      */
     private void handleFootprintMessagesSuccess(FootprintMessageResponse.Data data) {
         if (data != null && data.getRecords() != null) {
-            List<FootprintMessage> newMessages = data.getRecords();
-            
-            if (currentPage == 1) {
-                // 第一页，清空原有数据
-                footprintMessages.clear();
-            }
-            
-            // 添加新数据
-            footprintMessages.addAll(newMessages);
-            
-            // 检查是否还有更多数据
-            hasMoreData = newMessages.size() >= PAGE_SIZE;
-            
-            // 更新适配器
-            adapter.notifyDataSetChanged();
-            
-            // 更新UI显示状态
-            updateUIVisibility();
-            
-            Log.d(TAG, "成功加载 " + newMessages.size() + " 条足迹动态数据，当前页码: " + currentPage + "，是否有更多数据: " + hasMoreData);
+            applyPage(currentPage, data.getRecords(), data.getRecords().size() < PAGE_SIZE);
         } else {
             Log.w(TAG, "获取到的足迹动态数据为空");
             hasMoreData = false;
@@ -278,6 +283,39 @@ public class HistoryFragment extends Fragment {
         }
     }
     
+    /**
+     * 用一页数据替换列表中对应的位置，同一页先后收到缓存和网络数据时不会重复添加
+     * @param page 页码
+     * @param newMessages 该页的足迹动态
+     * @param endReached 是否已到末页
+     */
+    private void applyPage(int page, List<FootprintMessage> newMessages, boolean endReached) {
+        int from = Math.min((page - 1) * PAGE_SIZE, footprintMessages.size());
+        footprintMessages.subList(from, footprintMessages.size()).clear();
+        // 翻页期间有新动态发布时，上一页末尾的条目会出现在下一页，按ID去重
+        Set<Integer> existingIds = new HashSet<>();
+        for (FootprintMessage message : footprintMessages) {
+            existingIds.add(message.getId());
+        }
+        for (FootprintMessage message : newMessages) {
+            if (existingIds.add(message.getId())) {
+                footprintMessages.add(message);
+            }
+        }
+        
+        // 检查是否还有更多数据
+        hasMoreData = !endReached;
+        prefetchScheduler.onPageDisplayed(page, endReached);
+        
+        // 更新适配器，只刷新变化的条目
+        adapter.submitList(footprintMessages);
+        
+        // 更新UI显示状态
+        updateUIVisibility();
+        
+        Log.d(TAG, "成功加载 " + newMessages.size() + " 条足迹动态数据，当前页码: " + page + "，是否有更多数据: " + hasMoreData);
+    }
+    
     /**
      * 处理足迹动态数据获取失败
      * @param errorMessage 错误信息
@@ -320,29 +358,35 @@ public class HistoryFragment extends Fragment {
      * 刷新数据
      */
     public void refreshData() {
-        currentPage = 1;
-        hasMoreData = true;
-        loadFootprintMessages();
+        refreshData(true);
     }
     
     /**
-     * 加载更多数据
+     * 重新加载第一页
+     * @param forceRefresh 是否忽略缓存新鲜期强制请求网络
      */
-    private void loadMoreData() {
-        if (!hasMoreData || isLoading) {
-            return;
-        }
-        
-        currentPage++;
-        Log.d(TAG, "开始加载更多数据，页码: " + currentPage);
-        loadFootprintMessages();
+    private void refreshData(boolean forceRefresh) {
+        prefetchScheduler.reset();
+        currentPage = 1;
+        hasMoreData = true;
+        loadFootprintMessages(forceRefresh);
     }
+    
 
     @Override
     public void onResume() {
         super.onResume();
-        // 每次恢复时刷新数据
-        refreshData();
+        // 每次恢复时先展示缓存，缓存过期时再后台刷新
+        refreshData(false);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (prefetchScheduler != null) {
+            Log.d(TAG, "动态预取统计 - " + prefetchScheduler.getStats());
+            prefetchScheduler.release();
+        }
     }
     
     /**
@@ -383,6 +427,7 @@ public class HistoryFragment extends Fragment {
                 @Override
                 public void onSuccess(BaseResponse<JSONObject> response) {
                     if (response.getCode() == 200) {
+                        feedRepository.updateLike(message.getId(), newLikeStatus, newLikeCount);
                         // API调用成功，显示提示信息
                         String toastMessage = newLikeStatus ? "已点赞" : "已取消点赞";
                         Toast.makeText(requireContext(), toastMessage, Toast.LENGTH_SHORT).show();
@@ -451,9 +496,10 @@ public class HistoryFragment extends Fragment {
                     
                     if (response.getCode() == 200) {
                         // 删除成功，从列表中移除该项
-                        footprintMessages.remove(position);
-                        adapter.notifyItemRemoved(position);
-                        adapter.notifyItemRangeChanged(position, footprintMessages.size());
+                        // 请求期间列表可能已刷新，按ID移除而不是按位置
+                        footprintMessages.removeIf(item -> item.getId() == message.getId());
+                        adapter.submitList(footprintMessages);
+                        feedRepository.evictMessage(message.getId());
                         
                         // 显示成功提示
                         Toast.makeText(requireContext(), "足迹删除成功", Toast.LENGTH_SHORT).show();
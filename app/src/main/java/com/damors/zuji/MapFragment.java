@@ -18,11 +18,15 @@ import android.view.ViewGroup;
 import com.amap.api.maps.model.BitmapDescriptor;
 import com.amap.api.maps.model.CameraPosition;
 import com.damors.zuji.adapter.GridImageAdapter;
+import com.damors.zuji.cluster.Cluster;
+import com.damors.zuji.cluster.ClusterEngine;
+import com.damors.zuji.cluster.MarkerReconciler;
 import com.damors.zuji.config.ImageDisplayConfig;
 import com.damors.zuji.model.GuluFile;
 import com.damors.zuji.network.ApiConfig;
+import com.damors.zuji.network.ViewportMarkLoader;
 import com.damors.zuji.utils.GridSpacingItemDecoration;
-import com.damors.zuji.utils.ImageUtils;
+import com.damors.zuji.utils.MarkerIconCache;
 import com.damors.zuji.CommentListActivity;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
@@ -46,6 +50,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.damors.zuji.data.FootprintEntity;
+import com.damors.zuji.data.MessageFeedRepository;
 
 import com.damors.zuji.viewmodel.FootprintViewModel;
 import com.damors.zuji.network.RetrofitApiService;
@@ -61,6 +66,7 @@ import com.amap.api.maps.CameraUpdateFactory;
 import com.amap.api.maps.MapView;
 import com.amap.api.maps.model.BitmapDescriptorFactory;
 import com.amap.api.maps.model.LatLng;
+import com.amap.api.maps.model.LatLngBounds;
 import com.amap.api.maps.model.Marker;
 import com.amap.api.maps.model.MarkerOptions;
 import com.amap.api.maps.model.MyLocationStyle;
@@ -115,6 +121,7 @@ public class MapFragment extends Fragment {
     // 核心服务
     private FootprintViewModel viewModel;
     private RetrofitApiService apiService;
+    private MessageFeedRepository feedRepository;
     
     // 位置相关
     private AMapLocation lastAMapLocation;
@@ -123,7 +130,6 @@ public class MapFragment extends Fragment {
     // 状态管理 - 优化版本
     private final AtomicBoolean isLocationUpdating = new AtomicBoolean(false);
     private final AtomicBoolean isLoadingFootprints = new AtomicBoolean(false);
-    private final AtomicBoolean isLoadingMessages = new AtomicBoolean(false);
     private final AtomicBoolean isMapInitialized = new AtomicBoolean(false);
     private final AtomicBoolean isFragmentDestroyed = new AtomicBoolean(false);
     private boolean pendingAddFootprint = false; // 标记是否有待处理的添加足迹请求
@@ -135,6 +141,15 @@ public class MapFragment extends Fragment {
     // 缓存管理 - 优化内存使用
     private final java.util.concurrent.ConcurrentHashMap<String, Marker> markerCache = new java.util.concurrent.ConcurrentHashMap<>();
     private final java.util.List<FootprintMessage> cachedMessages = new java.util.ArrayList<>();
+    
+    // 标记聚合
+    private static final int CLUSTER_EXPAND_PADDING_PX = 120;
+    private final ClusterEngine<FootprintMessage> clusterEngine = new ClusterEngine<>();
+    private int renderedClusterZoom = -1;
+    private final MarkerReconciler<MarkerState> markerReconciler = new MarkerReconciler<>();
+    
+    // 按可视区域增量加载mark数据
+    private ViewportMarkLoader viewportMarkLoader;
 
     @Nullable
     @Override
@@ -192,6 +207,22 @@ public class MapFragment extends Fragment {
         
         // 初始化API服务
         apiService = RetrofitApiService.getInstance(requireContext());
+        feedRepository = MessageFeedRepository.getInstance(requireContext());
+        viewportMarkLoader = new ViewportMarkLoader(this::fetchMarksInBounds, new ViewportMarkLoader.Listener() {
+            @Override
+            public void onMarksLoaded(List<FootprintMessage> marks) {
+                handleFootprintMessages(marks);
+            }
+            
+            @Override
+            public void onLoadError(String errorMessage) {
+                Log.e(TAG, "获取地图mark数据失败: " + errorMessage);
+                String displayMessage = errorMessage.contains("timeout") ? "网络连接超时，请重试" :
+                                       errorMessage.contains("network") ? "网络连接失败，请检查网络设置" :
+                                       "获取地图mark数据失败: " + errorMessage;
+                showToast(displayMessage);
+            }
+        });
         
         // 初始化UI组件
         mapView = view.findViewById(R.id.map);
@@ -258,13 +289,37 @@ public class MapFragment extends Fragment {
     private void setupMapListeners() {
         // 设置标记点击监听器
         aMap.setOnMarkerClickListener(marker -> {
-            Object footprintObj = marker.getObject();
+            // 标记中只保存键，从协调器读取最新的足迹动态或聚合对象
+            MarkerState state = marker.getObject() instanceof String
+                    ? markerReconciler.get((String) marker.getObject()) : null;
+            Object footprintObj = state != null ? state.payload : null;
             if (footprintObj instanceof FootprintMessage) {
                 showFootprintMessageInfoCard((FootprintMessage) footprintObj);
                 return true;
             }
+            if (footprintObj instanceof Cluster) {
+                @SuppressWarnings("unchecked")
+                Cluster<FootprintMessage> cluster = (Cluster<FootprintMessage>) footprintObj;
+                expandCluster(cluster);
+                return true;
+            }
             return false;
         });
+        
+        // 缩放级别变化时重新聚合标记，可视区域变化时增量加载mark数据
+        aMap.setOnCameraChangeListener(new AMap.OnCameraChangeListener() {
+            @Override
+            public void onCameraChange(CameraPosition cameraPosition) {
+            }
+            
+            @Override
+            public void onCameraChangeFinish(CameraPosition cameraPosition) {
+                if ((int) cameraPosition.zoom != renderedClusterZoom) {
+                    renderClusters();
+                }
+                requestVisibleMarks(false);
+            }
+        });
 
         aMap.setOnMapTouchListener(new AMap.OnMapTouchListener() {
             @Override
@@ -649,14 +704,9 @@ public class MapFragment extends Fragment {
     
     /**
      * 获取足迹动态列表（优化版本）
-     * 改进了加载逻辑、错误处理和状态管理
+     * 按当前可视区域加载地图mark数据，已缓存的区域不会重复请求
      */
     private void loadFootprintMessages() {
-        if (isLoadingMessages.get()) {
-            Log.d(TAG, "正在加载地图mark数据，跳过重复请求");
-            return;
-        }
-        
         if (!isMapInitialized.get()) {
             Log.w(TAG, "地图未初始化，延迟加载地图mark数据");
             mainHandler.postDelayed(this::loadFootprintMessages, 1000);
@@ -668,55 +718,78 @@ public class MapFragment extends Fragment {
             return;
         }
         
-        isLoadingMessages.set(true);
         Log.d(TAG, "开始获取地图mark数据");
-        
+        requestVisibleMarks(true);
+    }
+    
+    /**
+     * 将当前可视区域交给加载器
+     * @param immediate 是否跳过防抖立即加载
+     */
+    private void requestVisibleMarks(boolean immediate) {
+        if (aMap == null || viewportMarkLoader == null || isFragmentDestroyed.get()) {
+            return;
+        }
         try {
-            // 调用API获取地图页mark数据（使用getMsgListAll接口）
-            apiService.getMsgListAll(
-                1, // 页码
-                50, // 每页大小
-                    response -> {
-                        try {
-                            Log.d(TAG, "获取地图mark数据成功，记录数: " + response.getData().getRecords().size());
-
-                            // 在主线程更新UI
-                            if (mainHandler != null) {
-                                mainHandler.post(() -> {
-                                    try {
-                                        handleFootprintMessages(response.getData().getRecords());
-                                        Log.d(TAG, "地图mark数据显示完成");
-                                    } catch (Exception e) {
-                                        Log.e(TAG, "显示地图mark数据失败: " + e.getMessage(), e);
-                                        showToast("显示地图mark数据失败");
-                                    }
-                                });
-                            }
-                        } catch (Exception e) {
-                            Log.e(TAG, "处理足迹动态响应失败: " + e.getMessage(), e);
-                            showToast("处理数据失败");
-                        } finally {
-                            isLoadingMessages.set(false);
-                        }
-                    },
-                    errorMessage -> {
-                        Log.e(TAG, "获取地图mark数据失败: " + errorMessage);
-
-                        String displayMessage = errorMessage.contains("timeout") ? "网络连接超时，请重试" :
-                                               errorMessage.contains("network") ? "网络连接失败，请检查网络设置" :
-                                               "获取地图mark数据失败: " + errorMessage;
-                        showToast(displayMessage);
-                        isLoadingMessages.set(false);
-                    }
-            );
-            
+            LatLngBounds bounds = aMap.getProjection().getVisibleRegion().latLngBounds;
+            float zoom = aMap.getCameraPosition().zoom;
+            if (immediate) {
+                viewportMarkLoader.loadNow(bounds.southwest.latitude, bounds.southwest.longitude,
+                        bounds.northeast.latitude, bounds.northeast.longitude, zoom);
+            } else {
+                viewportMarkLoader.onViewportChanged(bounds.southwest.latitude, bounds.southwest.longitude,
+                        bounds.northeast.latitude, bounds.northeast.longitude, zoom);
+            }
         } catch (Exception e) {
-            Log.e(TAG, "启动足迹动态加载失败: " + e.getMessage(), e);
-            showToast("启动数据加载失败");
-            isLoadingMessages.set(false);
+            Log.e(TAG, "获取可视区域失败: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 通过区域接口获取mark数据，供ViewportMarkLoader调用
+     * 地图上还没有标记时先用本地缓存渲染；网络数据写回缓存，网络失败时使用缓存兜底
+     */
+    private void fetchMarksInBounds(double minLat, double minLng, double maxLat, double maxLng, int limit,
+                                    ViewportMarkLoader.FetchCallback callback) {
+        if (clusterEngine.getItemCount() == 0) {
+            feedRepository.loadCachedMapMarks(minLat, minLng, maxLat, maxLng, limit, cached -> {
+                if (!cached.isEmpty() && clusterEngine.getItemCount() == 0) {
+                    Log.d(TAG, "先展示缓存的地图mark数据，记录数: " + cached.size());
+                    handleFootprintMessages(cached);
+                }
+            });
+        }
+        apiService.getMsgListByBounds(minLat, minLng, maxLat, maxLng, 1, limit,
+                response -> {
+                    if (response == null || !response.isSuccess() || response.getData() == null) {
+                        callback.onError(response != null && response.getMsg() != null ? response.getMsg() : "响应数据为空");
+                        return;
+                    }
+                    List<FootprintMessage> records = response.getData().getRecords();
+                    if (records == null) {
+                        records = new ArrayList<>();
+                    }
+                    Log.d(TAG, "获取区域mark数据成功，记录数: " + records.size());
+                    feedRepository.cacheMapMarks(records);
+                    if (response.getData().isApproximate()) {
+                        // 本地过滤的全量结果，缩小区域也拿不到更多数据，不拆分
+                        callback.onApproximateResult(records);
+                    } else {
+                        callback.onResult(records, response.getData().getTotal() > records.size());
+                    }
+                },
+                errorMessage -> feedRepository.loadCachedMapMarks(minLat, minLng, maxLat, maxLng, limit, cached -> {
+                    if (cached.isEmpty()) {
+                        callback.onError(errorMessage);
+                        return;
+                    }
+                    // 缓存数据标记为不完整，不拆分请求，也不会覆盖下级瓦片，网络恢复后放大地图仍会重新请求
+                    Log.w(TAG, "获取区域mark数据失败，使用缓存数据: " + errorMessage);
+                    feedRepository.recordOfflineServe();
+                    callback.onApproximateResult(cached);
+                }));
+    }
+    
     /**
      * 处理足迹动态数据 - 优化版本
      * 在地图上显示足迹动态位置标记
@@ -729,96 +802,156 @@ public class MapFragment extends Fragment {
             return;
         }
         
-        if (messages == null || messages.isEmpty()) {
+        if (messages == null) {
             Log.d(TAG, "足迹动态列表为空");
             return;
         }
         
         Log.d(TAG, "开始处理足迹动态数据，共 " + messages.size() + " 条记录");
         
-        // 批量处理标记
-        processBatchMarkers(messages);
+        // 过滤无效坐标后交给聚合引擎，按当前缩放级别渲染；列表为空时清除可视区域内的标记
+        List<FootprintMessage> locatedMessages = new ArrayList<>();
+        for (FootprintMessage message : messages) {
+            if (message.getLat() != 0 && message.getLng() != 0) {
+                locatedMessages.add(message);
+            }
+        }
+        clusterEngine.setItems(locatedMessages);
+        renderClusters();
         
         Log.d(TAG, "足迹动态处理完成");
     }
     
+    /**
+     * 按当前缩放级别渲染聚合标记
+     */
+    private void renderClusters() {
+        if (aMap == null || isFragmentDestroyed.get() || getContext() == null) {
+            return;
+        }
+        float zoom = aMap.getCameraPosition().zoom;
+        renderedClusterZoom = (int) zoom;
+        processBatchMarkers(clusterEngine.getClusters(zoom));
+    }
+    
+    /**
+     * 点击聚合标记时放大地图，展开聚合内的足迹
+     */
+    private void expandCluster(Cluster<FootprintMessage> cluster) {
+        if (aMap == null) {
+            return;
+        }
+        double[] bounds = cluster.getBounds();
+        LatLngBounds latLngBounds = new LatLngBounds(
+                new LatLng(bounds[0], bounds[1]), new LatLng(bounds[2], bounds[3]));
+        aMap.animateCamera(CameraUpdateFactory.newLatLngBounds(latLngBounds, CLUSTER_EXPAND_PADDING_PX));
+    }
+    
     /**
      * 批量处理标记
+     * 将聚合结果转换为标记状态后与已渲染的标记做差量协调，
+     * 单个足迹以足迹动态ID为键，显示分类旗帜图标；聚合以种子足迹ID为键，显示带数量的圆形图标
      */
-    private void processBatchMarkers(List<FootprintMessage> messages) {
-        // 清除现有标记
-        if (aMap != null) {
-            aMap.clear();
+    private void processBatchMarkers(List<Cluster<FootprintMessage>> clusters) {
+        if (aMap == null) {
+            return;
         }
-        markerCache.clear();
         
-        List<MarkerOptions> markerOptionsList = new ArrayList<>();
+        java.util.Map<String, MarkerState> desired = new java.util.LinkedHashMap<>();
+        for (Cluster<FootprintMessage> cluster : clusters) {
+            if (cluster.isSingle()) {
+                FootprintMessage message = cluster.getAnchor();
+                desired.put("m:" + message.getId(), new MarkerState(
+                        message.getLat(), message.getLng(),
+                        message.getCreateBy() + " - " + message.getTag(),
+                        message.getTextContent(),
+                        message.getTag(), 0, message));
+            } else {
+                desired.put("c:" + cluster.getAnchor().getId(), new MarkerState(
+                        cluster.getLatitude(), cluster.getLongitude(),
+                        cluster.getSize() + "条足迹", null,
+                        null, cluster.getSize(), cluster));
+            }
+        }
         
-        for (FootprintMessage message : messages) {
-            if (message.getLat() != 0 && message.getLng() != 0) {
-                LatLng position = new LatLng(message.getLat(), message.getLng());
-                // 创建足迹动态标记，使用旗帜图标
-                MarkerOptions markerOptions = new MarkerOptions()
-                        .position(position)
-                        .title(message.getCreateBy() + " - " + message.getTag())
-                        .snippet(message.getTextContent());
-                switch (message.getTag()){
-                    case "美食":{
-                        markerOptions.icon(BitmapDescriptorFactory.fromBitmap(ImageUtils.getBitmap(getContext(),R.drawable.ic_footprint_food_flag)));
-                    }
-                    break;
-                    case "景点":{
-                        markerOptions.icon(BitmapDescriptorFactory.fromBitmap(ImageUtils.getBitmap(getContext(),R.drawable.ic_footprint_attraction_flag)));
-                    }
-                    break;
-                    default:{
-
-                        markerOptions.icon(BitmapDescriptorFactory.fromBitmap(ImageUtils.getBitmap(getContext(),R.drawable.ic_footprint_flag)));
-                    }
-                    break;
+        MarkerReconciler.Result result = markerReconciler.reconcile(desired, new MarkerReconciler.Sink<MarkerState>() {
+            @Override
+            public void onAdd(List<String> keys) {
+                addMarkersToMap(keys);
+            }
+            
+            @Override
+            public void onRemove(String key) {
+                Marker marker = markerCache.remove(key);
+                if (marker != null) {
+                    marker.remove();
                 }
-
-                
-                markerOptionsList.add(markerOptions);
             }
+            
+            @Override
+            public void onUpdate(String key, MarkerState state) {
+                // 尚未添加到地图的标记会在分批添加时使用最新状态
+                Marker marker = markerCache.get(key);
+                if (marker != null) {
+                    marker.setPosition(new LatLng(state.latitude, state.longitude));
+                    marker.setTitle(state.title);
+                    marker.setSnippet(state.snippet);
+                    marker.setIcon(createMarkerIcon(state));
+                }
+            }
+        });
+        Log.d(TAG, "地图标记协调完成 - " + result + "；图标缓存 - " + MarkerIconCache.getInstance().getStats());
+    }
+    
+    /**
+     * 根据标记状态获取图标，图标由MarkerIconCache统一缓存复用
+     */
+    private BitmapDescriptor createMarkerIcon(MarkerState state) {
+        MarkerIconCache iconCache = MarkerIconCache.getInstance();
+        if (state.clusterSize > 1) {
+            return iconCache.getClusterIcon(requireContext(), state.clusterSize);
         }
-        
-        // 批量添加标记
-        addMarkersToMap(markerOptionsList, messages);
+        return iconCache.getTagIcon(requireContext(), state.tag);
     }
     
     /**
      * 批量添加标记到地图
+     * 分批在主线程执行，执行时读取协调器中的最新状态，期间已被删除的标记会跳过
+     * @param keys 需要新增的标记键
      */
-    private void addMarkersToMap(List<MarkerOptions> markerOptionsList, List<FootprintMessage> messages) {
-        if (markerOptionsList.isEmpty() || aMap == null || messages == null) {
+    private void addMarkersToMap(List<String> keys) {
+        if (keys.isEmpty() || aMap == null) {
             return;
         }
         
         // 分批添加标记以避免UI阻塞
         final int BATCH_SIZE = 20;
-        for (int i = 0; i < markerOptionsList.size(); i += BATCH_SIZE) {
-            final int start = i;
-            final int end = Math.min(i + BATCH_SIZE, markerOptionsList.size());
+        for (int i = 0; i < keys.size(); i += BATCH_SIZE) {
+            final List<String> batch = keys.subList(i, Math.min(i + BATCH_SIZE, keys.size()));
             
             mainHandler.post(() -> {
                 if (!isFragmentDestroyed.get() && aMap != null) {
-                    for (int j = start; j < end; j++) {
-                        if (j < messages.size()) {
-                            MarkerOptions options = markerOptionsList.get(j);
-                            FootprintMessage message = messages.get(j);
+                    for (String key : batch) {
+                        MarkerState state = markerReconciler.get(key);
+                        if (state == null || markerCache.containsKey(key)) {
+                            continue;
+                        }
+                        MarkerOptions options = new MarkerOptions()
+                                .position(new LatLng(state.latitude, state.longitude))
+                                .title(state.title)
+                                .snippet(state.snippet)
+                                .icon(createMarkerIcon(state));
+                        if (state.clusterSize > 1) {
+                            options.anchor(0.5f, 0.5f);
+                        }
+                        
+                        Marker marker = aMap.addMarker(options);
+                        if (marker != null) {
+                            // 标记中只保存键，点击时从协调器读取最新对象
+                            marker.setObject(key);
                             
-                            Marker marker = aMap.addMarker(options);
-                            if (marker != null) {
-                                // 直接将消息对象存储到标记中
-                                marker.setObject(message);
-                                
-                                // 缓存标记对象用于快速访问
-                                String key = options.getPosition().latitude + "," + options.getPosition().longitude;
-                                markerCache.put(key, marker);
-                                
-                                Log.d(TAG, "添加足迹动态标记: " + options.getTitle());
-                            }
+                            // 缓存标记对象用于差量更新
+                            markerCache.put(key, marker);
                         }
                     }
                 }
@@ -826,6 +959,49 @@ public class MapFragment extends Fragment {
         }
     }
     
+    /**
+     * 地图标记状态
+     * 位置、文字、图标相关字段决定标记是否需要更新；payload为点击时使用的足迹动态或聚合对象
+     */
+    private static class MarkerState {
+        final double latitude;
+        final double longitude;
+        final String title;
+        final String snippet;
+        final String tag;
+        final int clusterSize;
+        final Object payload;
+        
+        MarkerState(double latitude, double longitude, String title, String snippet,
+                    String tag, int clusterSize, Object payload) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.title = title;
+            this.snippet = snippet;
+            this.tag = tag;
+            this.clusterSize = clusterSize;
+            this.payload = payload;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MarkerState)) return false;
+            MarkerState that = (MarkerState) o;
+            return Double.compare(latitude, that.latitude) == 0
+                    && Double.compare(longitude, that.longitude) == 0
+                    && clusterSize == that.clusterSize
+                    && java.util.Objects.equals(title, that.title)
+                    && java.util.Objects.equals(snippet, that.snippet)
+                    && java.util.Objects.equals(tag, that.tag);
+        }
+        
+        @Override
+        public int hashCode() {
+            return java.util.Objects.hash(latitude, longitude, title, snippet, tag, clusterSize);
+        }
+    }
+    
     @Override
     public void onDestroy() {
         Log.d(TAG, "MapFragment onDestroy - 开始清理资源");
@@ -868,7 +1044,6 @@ public class MapFragment extends Fragment {
             // 重置状态
             isLocationUpdating.set(false);
             isLoadingFootprints.set(false);
-            isLoadingMessages.set(false);
             isMapInitialized.set(false);
             retryCount = 0;
             
@@ -885,6 +1060,11 @@ public class MapFragment extends Fragment {
             
             // 清理缓存
             if (markerCache != null) markerCache.clear();
+            markerReconciler.clear();
+            if (viewportMarkLoader != null) {
+                viewportMarkLoader.release();
+                viewportMarkLoader = null;
+            }
             if (cachedMessages != null) cachedMessages.clear();
         } catch (Exception e) {
             Log.e(TAG, "清理资源时发生错误: " + e.getMessage(), e);
@@ -962,6 +1142,7 @@ public class MapFragment extends Fragment {
                     @Override
                     public void onSuccess(BaseResponse<JSONObject> response) {
                         if (response != null && response.getCode() == 200) {
+                            feedRepository.updateLike(message.getId(), newLikeStatus, newLikeCount);
                             // API调用成功，显示提示信息
                             String toastMessage = newLikeStatus ? "已点赞" : "已取消点赞";
                             Toast.makeText(requireContext(), toastMessage, Toast.LENGTH_SHORT).show();
@@ -1132,24 +1313,30 @@ public class MapFragment extends Fragment {
             }
         } else if (imageCount >= 4 && gridRecyclerView != null) {
             gridRecyclerView.setVisibility(View.VISIBLE);
-            androidx.recyclerview.widget.GridLayoutManager gridLayoutManager = 
-                new androidx.recyclerview.widget.GridLayoutManager(getContext(), ImageDisplayConfig.GRID_SPAN_COUNT);
-            gridRecyclerView.setLayoutManager(gridLayoutManager);
-            
-            // 添加网格间距装饰器
-            if (gridRecyclerView.getItemDecorationCount() == 0) {
-                gridRecyclerView.addItemDecoration(new GridSpacingItemDecoration(ImageDisplayConfig.GRID_SPAN_COUNT, ImageDisplayConfig.GRID_SPACING_DP, true));
+            // 同一个视图重复设置时复用已有的布局管理器和适配器
+            if (!(gridRecyclerView.getLayoutManager() instanceof androidx.recyclerview.widget.GridLayoutManager)) {
+                gridRecyclerView.setLayoutManager(
+                    new androidx.recyclerview.widget.GridLayoutManager(getContext(), ImageDisplayConfig.GRID_SPAN_COUNT));
             }
             
+            // 添加网格间距装饰器，重复调用不会叠加
+            GridSpacingItemDecoration.apply(gridRecyclerView, ImageDisplayConfig.GRID_SPAN_COUNT, ImageDisplayConfig.GRID_SPACING_DP, true);
+            
             // 计算并设置RecyclerView的高度
             int calculatedHeight = com.damors.zuji.adapter.GridImageAdapter.calculateRecyclerViewHeight(getContext(), imageFiles.size());
             ViewGroup.LayoutParams layoutParams = gridRecyclerView.getLayoutParams();
-            layoutParams.height = calculatedHeight;
-            gridRecyclerView.setLayoutParams(layoutParams);
+            if (layoutParams.height != calculatedHeight) {
+                layoutParams.height = calculatedHeight;
+                gridRecyclerView.setLayoutParams(layoutParams);
+            }
             
-            GridImageAdapter adapter = new GridImageAdapter(getContext(), imageFiles);
-            adapter.setOnImageClickListener((position, files) -> openImagePreview(files, position));
-            gridRecyclerView.setAdapter(adapter);
+            if (gridRecyclerView.getAdapter() instanceof GridImageAdapter) {
+                ((GridImageAdapter) gridRecyclerView.getAdapter()).setImageFiles(imageFiles);
+            } else {
+                GridImageAdapter adapter = new GridImageAdapter(getContext(), new java.util.ArrayList<>(imageFiles));
+                adapter.setOnImageClickListener((position, files) -> openImagePreview(files, position));
+                gridRecyclerView.setAdapter(adapter);
+            }
             
             // Log.d("MapFragment", "设置RecyclerView高度: " + calculatedHeight + "px，图片数量: " + imageFiles.size());
         }
@@ -1179,8 +1366,9 @@ public class MapFragment extends Fragment {
                 return;
             }
             
+            // 由GuluFileUrlLoader按显示尺寸请求缩略图
             com.bumptech.glide.Glide.with(this)
-                .load(imageUrl)
+                .load(imageFile)
                 .diskCacheStrategy(com.bumptech.glide.load.engine.DiskCacheStrategy.ALL)
                 .placeholder(R.drawable.ic_placeholder_image)
                 .error(R.drawable.ic_error_image)
@@ -1,9 +1,15 @@
 package com.damors.zuji;
 
+import android.content.ClipData;
+import android.content.ClipboardManager;
+import android.content.Context;
 import android.content.Intent;
+import android.graphics.Typeface;
 import android.os.Bundle;
 import android.view.WindowManager;
 import android.widget.LinearLayout;
+import android.widget.ScrollView;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
@@ -11,6 +17,11 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
 import com.damors.zuji.manager.UserManager;
+import com.damors.zuji.network.NetworkMetricsRegistry;
+import com.damors.zuji.network.RetrofitApiService;
+
+import org.json.JSONException;
+import org.json.JSONObject;
 
 /**
  * 设置页面Activity
@@ -23,6 +34,7 @@ public class SettingsActivity extends AppCompatActivity {
     // UI组件
     private Toolbar toolbar;
     private LinearLayout layoutLogout;
+    private LinearLayout layoutNetworkMetrics;
     
     // 管理器
     private UserManager userManager;
@@ -47,6 +59,7 @@ public class SettingsActivity extends AppCompatActivity {
     private void initViews() {
         toolbar = findViewById(R.id.toolbar);
         layoutLogout = findViewById(R.id.layout_logout);
+        layoutNetworkMetrics = findViewById(R.id.layout_network_metrics);
         
         // 设置工具栏
         setSupportActionBar(toolbar);
@@ -72,6 +85,50 @@ public class SettingsActivity extends AppCompatActivity {
         
         // 退出登录点击事件
         layoutLogout.setOnClickListener(v -> showLogoutDialog());
+        
+        // 网络诊断点击事件
+        layoutNetworkMetrics.setOnClickListener(v -> showNetworkMetricsDialog());
+    }
+
+    /**
+     * 显示网络指标（JSON），可复制到剪贴板用于反馈问题
+     */
+    private void showNetworkMetricsDialog() {
+        NetworkMetricsRegistry metrics = RetrofitApiService.getInstance(this).getNetworkMetrics();
+        String json = metrics.toJson();
+        String display;
+        try {
+            display = new JSONObject(json).toString(2);
+        } catch (JSONException e) {
+            display = json;
+        }
+        
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        TextView textView = new TextView(this);
+        textView.setText(display);
+        textView.setTypeface(Typeface.MONOSPACE);
+        textView.setTextSize(12);
+        textView.setTextIsSelectable(true);
+        textView.setPadding(padding, padding, padding, padding);
+        ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(textView);
+        
+        new AlertDialog.Builder(this)
+                .setTitle("网络诊断")
+                .setView(scrollView)
+                .setPositiveButton("复制", (dialog, which) -> {
+                    ClipboardManager clipboard = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
+                    if (clipboard != null) {
+                        clipboard.setPrimaryClip(ClipData.newPlainText("network_metrics", json));
+                        Toast.makeText(this, "已复制到剪贴板", Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .setNeutralButton("重置", (dialog, which) -> {
+                    metrics.reset();
+                    Toast.makeText(this, "网络指标已重置", Toast.LENGTH_SHORT).show();
+                })
+                .setNegativeButton("关闭", null)
+                .show();
     }
 
     /**
@@ -13,16 +13,21 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.damors.zuji.ImagePreviewActivity;
 import com.damors.zuji.R;
+import com.damors.zuji.adapter.FeedImagePreloader;
 import com.damors.zuji.adapter.FootprintMessageAdapter;
+import com.damors.zuji.config.ImageDisplayConfig;
+import com.damors.zuji.data.MessageFeedRepository;
 import com.damors.zuji.model.FootprintMessage;
 import com.damors.zuji.model.GuluFile;
-import com.damors.zuji.model.response.FootprintMessageResponse;
 import com.damors.zuji.network.ApiConfig;
 import com.damors.zuji.network.RetrofitApiService;
+import com.damors.zuji.utils.FeedPrefetchScheduler;
 import com.damors.zuji.model.response.BaseResponse;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 足迹动态列表Activity
@@ -36,12 +41,14 @@ public class FootprintMessageListActivity extends AppCompatActivity {
     private FootprintMessageAdapter adapter;
     private List<FootprintMessage> messageList;
     private RetrofitApiService apiService;
+    private MessageFeedRepository feedRepository;
     
     // 分页参数
     private int currentPage = 1;
     private int pageSize = 10;
     private boolean isLoading = false;
     private boolean hasMoreData = true;
+    private FeedPrefetchScheduler prefetchScheduler;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,8 +58,9 @@ public class FootprintMessageListActivity extends AppCompatActivity {
                 WindowManager.LayoutParams.FLAG_FULLSCREEN);
         setContentView(R.layout.activity_footprint_message_list);
         
-        initViews();
+        // 预取调度器依赖数据仓库，先初始化数据
         initData();
+        initViews();
         loadFootprintMessages();
     }
     
@@ -63,6 +71,8 @@ public class FootprintMessageListActivity extends AppCompatActivity {
         messageList = new ArrayList<>();
         adapter = new FootprintMessageAdapter(this, messageList);
         recyclerView.setAdapter(adapter);
+        // 滚动时预加载即将出现的动态图片
+        new FeedImagePreloader(this, adapter, ImageDisplayConfig.PRELOAD_ROW_COUNT).attach(recyclerView);
         
         // 设置点击事件监听器
         adapter.setOnItemClickListener(new FootprintMessageAdapter.OnItemClickListener() {
@@ -106,33 +116,36 @@ public class FootprintMessageListActivity extends AppCompatActivity {
             }
         });
         
-        // 设置滚动监听，实现分页加载
-        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+        // 根据滚动速度提前预取下一页，滚动到末尾时直接追加
+        prefetchScheduler = new FeedPrefetchScheduler(feedRepository, pageSize, new FeedPrefetchScheduler.Listener() {
             @Override
-            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-                super.onScrolled(recyclerView, dx, dy);
-                
-                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
-                if (layoutManager != null && !isLoading && hasMoreData) {
-                    int visibleItemCount = layoutManager.getChildCount();
-                    int totalItemCount = layoutManager.getItemCount();
-                    int firstVisibleItemPosition = layoutManager.findFirstVisibleItemPosition();
-                    
-                    if ((visibleItemCount + firstVisibleItemPosition) >= totalItemCount
-                            && firstVisibleItemPosition >= 0) {
-                        loadMoreData();
-                    }
-                }
+            public boolean isLoadingPage() {
+                return isLoading;
+            }
+            
+            @Override
+            public void onPageReady(int page, List<FootprintMessage> messages, boolean endReached) {
+                currentPage = Math.max(currentPage, page);
+                applyPage(page, messages, endReached);
+            }
+            
+            @Override
+            public void onPrefetchFailed(int page, String errorMessage) {
+                Toast.makeText(FootprintMessageListActivity.this, "加载更多失败: " + errorMessage,
+                    Toast.LENGTH_SHORT).show();
             }
         });
+        prefetchScheduler.attach(recyclerView);
     }
     
     private void initData() {
         apiService = RetrofitApiService.getInstance(getApplicationContext());
+        feedRepository = MessageFeedRepository.getInstance(getApplicationContext());
     }
     
     /**
      * 加载足迹动态列表
+     * 先展示本地缓存，缓存过期时再从服务端获取并更新
      */
     private void loadFootprintMessages() {
         if (isLoading) {
@@ -140,78 +153,71 @@ public class FootprintMessageListActivity extends AppCompatActivity {
         }
         
         isLoading = true;
-        Log.d(TAG, "开始加载足迹动态列表，页码: " + currentPage);
+        final int page = currentPage;
+        Log.d(TAG, "开始加载足迹动态列表，页码: " + page);
         
-        apiService.getFootprintMessages(
-            currentPage,
-            pageSize,
-            new RetrofitApiService.SuccessCallback<BaseResponse<FootprintMessageResponse.Data>>() {
-                @Override
-                public void onSuccess(BaseResponse<FootprintMessageResponse.Data> response) {
-                    isLoading = false;
-                    
-                    if (response.getCode() == 200 && response.getData() != null) {
-                        FootprintMessageResponse.Data data = response.getData();
-                        if (data.getRecords() != null) {
-                            List<FootprintMessage> newMessages = data.getRecords();
-                            Log.d(TAG, "获取到 " + newMessages.size() + " 条足迹动态");
-                            
-                            if (currentPage == 1) {
-                                // 第一页，清空现有数据
-                                messageList.clear();
-                            }
-                            
-                            messageList.addAll(newMessages);
-                            adapter.notifyDataSetChanged();
-                            
-                            // 检查是否还有更多数据
-                            hasMoreData = newMessages.size() >= pageSize;
-                            
-                            Log.d(TAG, "当前共有 " + messageList.size() + " 条足迹动态，是否还有更多: " + hasMoreData);
-                        } else {
-                            Log.w(TAG, "响应数据为空");
-                            hasMoreData = false;
-                        }
-                    } else {
-                        String msg = response.getMsg() != null ? response.getMsg() : "加载失败";
-                        Log.e(TAG, "加载足迹动态列表失败: " + msg);
-                        Toast.makeText(FootprintMessageListActivity.this, 
-                            "加载足迹动态失败: " + msg, 
-                            Toast.LENGTH_SHORT).show();
-                        hasMoreData = false;
-                    }
-                }
-            },
-            new RetrofitApiService.ErrorCallback() {
-                @Override
-                public void onError(String errorMessage) {
+        feedRepository.loadMessagePage(page, pageSize, false, new MessageFeedRepository.PageCallback() {
+            @Override
+            public void onCachedPage(List<FootprintMessage> messages, long cacheAgeMs, boolean revalidating) {
+                if (!revalidating) {
                     isLoading = false;
-                    Log.e(TAG, "加载足迹动态列表失败: " + errorMessage);
-                    
-                    Toast.makeText(FootprintMessageListActivity.this, 
-                        "加载足迹动态失败: " + errorMessage, 
-                        Toast.LENGTH_SHORT).show();
                 }
+                Log.d(TAG, "展示缓存足迹动态 " + messages.size() + " 条，缓存年龄: " + cacheAgeMs / 1000 + "秒");
+                applyPage(page, messages, messages.size() < pageSize);
             }
-        );
+            
+            @Override
+            public void onRemotePage(List<FootprintMessage> messages, boolean endReached) {
+                isLoading = false;
+                Log.d(TAG, "获取到 " + messages.size() + " 条足迹动态");
+                applyPage(page, messages, endReached);
+            }
+            
+            @Override
+            public void onError(String errorMessage, boolean servedFromCache) {
+                isLoading = false;
+                Log.e(TAG, "加载足迹动态列表失败: " + errorMessage);
+                
+                Toast.makeText(FootprintMessageListActivity.this,
+                    servedFromCache ? "网络不可用，当前显示的是缓存数据" : "加载足迹动态失败: " + errorMessage,
+                    Toast.LENGTH_SHORT).show();
+            }
+        });
     }
     
     /**
-     * 加载更多数据
+     * 用一页数据替换列表中对应的位置，同一页先后收到缓存和网络数据时不会重复添加
+     * @param page 页码
+     * @param newMessages 该页的足迹动态
+     * @param endReached 是否已到末页
      */
-    private void loadMoreData() {
-        if (!hasMoreData || isLoading) {
-            return;
+    private void applyPage(int page, List<FootprintMessage> newMessages, boolean endReached) {
+        int from = Math.min((page - 1) * pageSize, messageList.size());
+        messageList.subList(from, messageList.size()).clear();
+        // 翻页期间有新动态发布时，上一页末尾的条目会出现在下一页，按ID去重
+        Set<Integer> existingIds = new HashSet<>();
+        for (FootprintMessage message : messageList) {
+            existingIds.add(message.getId());
+        }
+        for (FootprintMessage message : newMessages) {
+            if (existingIds.add(message.getId())) {
+                messageList.add(message);
+            }
         }
+        adapter.submitList(messageList);
         
-        currentPage++;
-        loadFootprintMessages();
+        // 检查是否还有更多数据
+        hasMoreData = !endReached;
+        prefetchScheduler.onPageDisplayed(page, endReached);
+        
+        Log.d(TAG, "当前共有 " + messageList.size() + " 条足迹动态，是否还有更多: " + hasMoreData);
     }
     
     /**
      * 刷新数据
      */
     public void refreshData() {
+        prefetchScheduler.reset();
         currentPage = 1;
         hasMoreData = true;
         loadFootprintMessages();
@@ -304,9 +310,10 @@ public class FootprintMessageListActivity extends AppCompatActivity {
                 public void onSuccess(BaseResponse<String> response) {
                     if (response.getCode() == 200) {
                         // 删除成功，从列表中移除该项
-                        messageList.remove(position);
-                        adapter.notifyItemRemoved(position);
-                        adapter.notifyItemRangeChanged(position, messageList.size());
+                        // 请求期间列表可能已刷新，按ID移除而不是按位置
+                        messageList.removeIf(item -> item.getId() == message.getId());
+                        adapter.submitList(messageList);
+                        feedRepository.evictMessage(message.getId());
                         
                         // 显示成功提示
                         Toast.makeText(FootprintMessageListActivity.this, "足迹删除成功", Toast.LENGTH_SHORT).show();
@@ -328,4 +335,13 @@ public class FootprintMessageListActivity extends AppCompatActivity {
             }
         );
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (prefetchScheduler != null) {
+            Log.d(TAG, "动态预取统计 - " + prefetchScheduler.getStats());
+            prefetchScheduler.release();
+        }
+    }
+}
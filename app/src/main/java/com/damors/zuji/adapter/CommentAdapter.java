@@ -14,6 +14,8 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -23,15 +25,46 @@ import com.damors.zuji.network.ApiConfig;
 import com.damors.zuji.utils.TimeUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 评论列表适配器
+ * 每条主评论的回复在提交列表时一次性分组，绑定时不再遍历全部评论；
+ * 列表在后台计算差异后只刷新变化的条目，仅回复变化时局部刷新回复区域
  */
 public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentViewHolder> {
+    // 仅回复列表变化时的局部刷新payload
+    private static final Object PAYLOAD_REPLIES = new Object();
+    
+    private static final DiffUtil.ItemCallback<CommentItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<CommentItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CommentItem oldItem, @NonNull CommentItem newItem) {
+            return Objects.equals(oldItem.comment.getId(), newItem.comment.getId());
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull CommentItem oldItem, @NonNull CommentItem newItem) {
+            return isSameComment(oldItem.comment, newItem.comment) && isSameReplies(oldItem.replies, newItem.replies);
+        }
+        
+        @Override
+        public Object getChangePayload(@NonNull CommentItem oldItem, @NonNull CommentItem newItem) {
+            return isSameComment(oldItem.comment, newItem.comment) ? PAYLOAD_REPLIES : null;
+        }
+    };
+    
     private Context context;
-    private List<CommentModel> comments;
-    private List<CommentModel> allComments; // 存储所有评论数据，包括回复
+    private final AsyncListDiffer<CommentItem> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private List<CommentModel> comments = new ArrayList<>();
+    private List<CommentModel> allComments = new ArrayList<>(); // 存储所有评论数据，包括回复
+    // 已展开回复的主评论ID，条目复用或刷新后保持展开状态
+    private final Set<Integer> expandedIds = new HashSet<>();
     private OnCommentClickListener onCommentClickListener;
     
     public interface OnCommentClickListener {
@@ -41,13 +74,12 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
     
     public CommentAdapter(Context context, List<CommentModel> comments, List<CommentModel> allComments) {
         this.context = context;
-        this.comments = comments != null ? comments : new ArrayList<>();
-        this.allComments = allComments != null ? allComments : new ArrayList<>();
+        setHasStableIds(true);
+        setCommentsAndAllComments(comments, allComments);
     }
     
     public void setComments(List<CommentModel> comments) {
-        this.comments = comments != null ? comments : new ArrayList<>();
-        notifyDataSetChanged();
+        setCommentsAndAllComments(comments, allComments);
     }
     
     /**
@@ -55,7 +87,7 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
      * @param allComments 所有评论数据
      */
     public void setAllComments(List<CommentModel> allComments) {
-        this.allComments = allComments != null ? allComments : new ArrayList<>();
+        setCommentsAndAllComments(comments, allComments);
     }
     
     /**
@@ -64,23 +96,57 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
      * @param allComments 所有评论数据（包括回复）
      */
     public void setCommentsAndAllComments(List<CommentModel> comments, List<CommentModel> allComments) {
-        this.comments = comments != null ? comments : new ArrayList<>();
-        this.allComments = allComments != null ? allComments : new ArrayList<>();
-        notifyDataSetChanged();
+        this.comments = comments != null ? new ArrayList<>(comments) : new ArrayList<>();
+        this.allComments = allComments != null ? new ArrayList<>(allComments) : new ArrayList<>();
+        submitItems();
     }
     
     public void addComments(List<CommentModel> newComments) {
         if (newComments != null && !newComments.isEmpty()) {
-            int startPosition = this.comments.size();
             this.comments.addAll(newComments);
-            notifyItemRangeInserted(startPosition, newComments.size());
+            submitItems();
+        }
+    }
+    
+    /**
+     * 按父评论ID分组回复并提交列表
+     */
+    private void submitItems() {
+        Map<Integer, List<CommentModel>> repliesByParent = new HashMap<>();
+        for (CommentModel comment : allComments) {
+            Integer parentId = comment.getParentId();
+            if (parentId == null || parentId == 0) {
+                continue;
+            }
+            List<CommentModel> replies = repliesByParent.get(parentId);
+            if (replies == null) {
+                replies = new ArrayList<>();
+                repliesByParent.put(parentId, replies);
+            }
+            replies.add(comment);
         }
+        
+        List<CommentItem> items = new ArrayList<>(comments.size());
+        Set<Integer> currentIds = new HashSet<>();
+        for (CommentModel comment : comments) {
+            List<CommentModel> replies = comment.getId() != null ? repliesByParent.get(comment.getId()) : null;
+            items.add(new CommentItem(comment, replies != null ? replies : Collections.<CommentModel>emptyList()));
+            currentIds.add(comment.getId());
+        }
+        expandedIds.retainAll(currentIds);
+        differ.submitList(items);
     }
     
     public void setOnCommentClickListener(OnCommentClickListener listener) {
         this.onCommentClickListener = listener;
     }
     
+    @Override
+    public long getItemId(int position) {
+        Integer id = differ.getCurrentList().get(position).comment.getId();
+        return id != null ? id : RecyclerView.NO_ID;
+    }
+    
     @NonNull
     @Override
     public CommentViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -88,9 +154,26 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
         return new CommentViewHolder(view);
     }
     
+    @Override
+    public void onBindViewHolder(@NonNull CommentViewHolder holder, int position, @NonNull List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_REPLIES) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+        }
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            // 只有回复或展开状态变化，不重新加载头像
+            bindReplies(holder, differ.getCurrentList().get(position));
+        }
+    }
+    
     @Override
     public void onBindViewHolder(@NonNull CommentViewHolder holder, int position) {
-        CommentModel comment = comments.get(position);
+        CommentItem item = differ.getCurrentList().get(position);
+        CommentModel comment = item.comment;
         
         // 设置用户头像
         if (!TextUtils.isEmpty(comment.getUserAvatar())) {
@@ -137,13 +220,21 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
         holder.tvDelete.setVisibility(View.VISIBLE); // 暂时显示所有删除按钮，后续可根据用户权限控制
         
         // 处理子评论显示
-        android.util.Log.d("CommentAdapter", "处理评论ID=" + comment.getId() + ", parentId=" + comment.getParentId() + ", 内容=" + comment.getContent());
-        List<CommentModel> replies = getRepliesByParentId(comment.getId());
-        if (replies != null && !replies.isEmpty()) {
+        bindReplies(holder, item);
+    }
+    
+    /**
+     * 绑定回复数量和展开状态
+     * @param holder ViewHolder
+     * @param item 评论条目
+     */
+    private void bindReplies(CommentViewHolder holder, CommentItem item) {
+        List<CommentModel> replies = item.replies;
+        if (!replies.isEmpty()) {
             holder.tvReplyCount.setVisibility(View.VISIBLE);
             
             // 根据展开状态设置文本
-            if (holder.isExpanded) {
+            if (expandedIds.contains(item.comment.getId())) {
                 holder.tvReplyCount.setText("收起回复");
                 showReplies(holder, replies);
             } else {
@@ -152,14 +243,16 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
             }
             
             holder.tvReplyCount.setOnClickListener(v -> {
-                holder.isExpanded = !holder.isExpanded;
-                if (holder.isExpanded) {
-                    holder.tvReplyCount.setText("收起回复");
-                    showReplies(holder, replies);
-                } else {
-                    holder.tvReplyCount.setText(String.format("查看%d条回复", replies.size()));
-                    holder.layoutReplies.setVisibility(View.GONE);
+                int adapterPosition = holder.getAdapterPosition();
+                if (adapterPosition == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                CommentItem current = differ.getCurrentList().get(adapterPosition);
+                Integer id = current.comment.getId();
+                if (!expandedIds.remove(id)) {
+                    expandedIds.add(id);
                 }
+                notifyItemChanged(adapterPosition, PAYLOAD_REPLIES);
             });
         } else {
             holder.tvReplyCount.setVisibility(View.GONE);
@@ -169,32 +262,45 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
     
     @Override
     public int getItemCount() {
-        return comments.size();
+        return differ.getCurrentList().size();
     }
     
-    /**
-     * 根据父评论ID获取回复列表
-     * @param parentId 父评论ID
-     * @return 回复列表
-     */
-    private List<CommentModel> getRepliesByParentId(Integer parentId) {
-        if (allComments == null || parentId == null) {
-            return new ArrayList<>();
+    private static boolean isSameComment(CommentModel oldComment, CommentModel newComment) {
+        return Objects.equals(oldComment.getContent(), newComment.getContent())
+                && Objects.equals(oldComment.getUserName(), newComment.getUserName())
+                && Objects.equals(oldComment.getUserAvatar(), newComment.getUserAvatar())
+                && Objects.equals(oldComment.getCreateTime(), newComment.getCreateTime());
+    }
+    
+    private static boolean isSameReplies(List<CommentModel> oldReplies, List<CommentModel> newReplies) {
+        if (oldReplies.size() != newReplies.size()) {
+            return false;
         }
-        
-        List<CommentModel> replies = new ArrayList<>();
-        for (CommentModel comment : allComments) {
-            if (parentId.equals(comment.getParentId())) {
-                replies.add(comment);
+        for (int i = 0; i < oldReplies.size(); i++) {
+            CommentModel oldReply = oldReplies.get(i);
+            CommentModel newReply = newReplies.get(i);
+            if (!Objects.equals(oldReply.getId(), newReply.getId())
+                    || !Objects.equals(oldReply.getParentUserName(), newReply.getParentUserName())
+                    || !isSameComment(oldReply, newReply)) {
+                return false;
             }
         }
+        return true;
+    }
+    
+    /**
+     * 列表条目：主评论及其回复
+     */
+    private static class CommentItem {
+        final CommentModel comment;
+        final List<CommentModel> replies;
         
-        // 添加调试日志
-        android.util.Log.d("CommentAdapter", "查找parentId=" + parentId + "的回复，找到" + replies.size() + "条回复");
-        
-        return replies;
+        CommentItem(CommentModel comment, List<CommentModel> replies) {
+            this.comment = comment;
+            this.replies = replies;
+        }
     }
-
+    
     /**
      * 显示子评论列表
      * @param holder ViewHolder
@@ -291,7 +397,6 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
         TextView tvDelete;
         TextView tvReplyCount;
         LinearLayout layoutReplies;
-        boolean isExpanded = false;
         
         public CommentViewHolder(@NonNull View itemView) {
             super(itemView);
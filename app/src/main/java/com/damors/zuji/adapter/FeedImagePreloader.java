@@ -0,0 +1,179 @@
+package com.damors.zuji.adapter;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.target.Target;
+import com.damors.zuji.config.ImageDisplayConfig;
+import com.damors.zuji.model.FootprintMessage;
+import com.damors.zuji.model.GuluFile;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * 足迹动态图片预加载器
+ * 参考Glide的RecyclerViewPreloader：按滚动方向对即将进入屏幕的若干条动态提前发起图片请求，
+ * 预热内存缓存和磁盘缓存，条目绑定时直接命中缓存，滚动时不再出现图片逐张弹出。
+ * 预加载和绑定使用同一个thumbnailRequest和ImageDisplayConfig计算的尺寸，两者的缓存键完全一致
+ */
+public class FeedImagePreloader extends RecyclerView.OnScrollListener {
+
+    private final Context context;
+    private final RequestManager requestManager;
+    private final FootprintMessageAdapter adapter;
+    private final int maxPreloadRows;
+    // 进行中的预加载请求，超出上限时取消最早的请求
+    private final ArrayDeque<Target<Drawable>> targets = new ArrayDeque<>();
+    private final int maxTargets;
+
+    // 已经预加载过的范围，避免同一位置重复发起请求
+    private int lastStart = Integer.MAX_VALUE;
+    private int lastEnd;
+    private boolean lastScrollDown = true;
+
+    /**
+     * @param context 上下文
+     * @param adapter 足迹动态适配器
+     * @param maxPreloadRows 向前预加载的动态条数
+     */
+    public FeedImagePreloader(Context context, FootprintMessageAdapter adapter, int maxPreloadRows) {
+        this.context = context;
+        this.requestManager = Glide.with(context);
+        this.adapter = adapter;
+        this.maxPreloadRows = maxPreloadRows;
+        this.maxTargets = maxPreloadRows * ImageDisplayConfig.MAX_GRID_DISPLAY_COUNT;
+        // 列表刷新或删除条目后位置发生变化，重新计算预加载范围
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                resetRange();
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                resetRange();
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                resetRange();
+            }
+        });
+    }
+
+    private void resetRange() {
+        lastStart = Integer.MAX_VALUE;
+        lastEnd = 0;
+    }
+
+    /**
+     * 构建动态缩略图请求，条目绑定和预加载共用
+     * GuluFile由GuluFileUrlLoader按尺寸改写为服务端缩略图URL
+     * @param requestManager Glide请求管理器
+     * @param imageFile 图片文件
+     * @param size ImageDisplayConfig.getThumbnailSize计算的宽高
+     * @return 请求
+     */
+    public static RequestBuilder<Drawable> thumbnailRequest(RequestManager requestManager, GuluFile imageFile, int[] size) {
+        return requestManager
+                .load(imageFile)
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                .override(size[0], size[1])
+                .centerCrop();
+    }
+
+    /**
+     * 监听列表滚动，列表需使用LinearLayoutManager
+     * @param recyclerView 列表
+     */
+    public void attach(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(this);
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager) || dy == 0) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+            return;
+        }
+        boolean scrollDown = dy > 0;
+        if (scrollDown != lastScrollDown) {
+            // 方向改变，之前的预加载已经没有意义
+            lastScrollDown = scrollDown;
+            cancelAll();
+        }
+        if (scrollDown) {
+            preload(last + 1, last + 1 + maxPreloadRows);
+        } else {
+            preload(first, first - maxPreloadRows);
+        }
+    }
+
+    /**
+     * 预加载from（含）到to（不含）之间动态的图片，from大于to时表示向上滚动；跳过上次已经预加载的部分
+     */
+    private void preload(int from, int to) {
+        int start;
+        int end;
+        if (from < to) {
+            start = Math.max(lastEnd, from);
+            end = to;
+        } else {
+            start = to;
+            end = Math.min(lastStart, from);
+        }
+        start = Math.max(0, start);
+        end = Math.min(adapter.getItemCount(), end);
+        if (lastScrollDown) {
+            for (int i = start; i < end; i++) {
+                preloadItem(i);
+            }
+        } else {
+            for (int i = end - 1; i >= start; i--) {
+                preloadItem(i);
+            }
+        }
+        lastStart = start;
+        lastEnd = end;
+    }
+
+    private void preloadItem(int position) {
+        FootprintMessage message = adapter.getItem(position);
+        List<GuluFile> imageFiles = FootprintMessageAdapter.getImageFiles(message);
+        if (imageFiles.isEmpty()) {
+            return;
+        }
+        int[] size = ImageDisplayConfig.getThumbnailSize(context, imageFiles.size());
+        int count = Math.min(imageFiles.size(), ImageDisplayConfig.MAX_GRID_DISPLAY_COUNT);
+        for (int i = 0; i < count; i++) {
+            GuluFile imageFile = imageFiles.get(i);
+            if (imageFile.getFilePath() == null || imageFile.getFilePath().isEmpty()) {
+                continue;
+            }
+            targets.addLast(thumbnailRequest(requestManager, imageFile, size).preload(size[0], size[1]));
+            if (targets.size() > maxTargets) {
+                requestManager.clear(targets.pollFirst());
+            }
+        }
+    }
+
+    private void cancelAll() {
+        while (!targets.isEmpty()) {
+            requestManager.clear(targets.pollFirst());
+        }
+    }
+}
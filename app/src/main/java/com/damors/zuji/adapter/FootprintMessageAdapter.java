@@ -8,10 +8,11 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.target.Target;
 import com.damors.zuji.R;
@@ -23,15 +24,51 @@ import com.damors.zuji.utils.GridSpacingItemDecoration;
 import android.widget.LinearLayout;
 import android.widget.FrameLayout;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 足迹动态列表适配器
+ * 列表更新通过submitList提交，在后台线程计算差异后只刷新变化的条目；
+ * 点赞、评论数变化和时间轴首尾变化使用payload局部刷新，不重新加载图片
  */
 public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessageAdapter.ViewHolder> {
     
+    // 局部刷新的payload，可按位组合
+    private static final int PAYLOAD_LIKE = 1;
+    private static final int PAYLOAD_COMMENT = 1 << 1;
+    private static final int PAYLOAD_TIMELINE = 1 << 2;
+    
+    /**
+     * 以动态ID判断是否同一条目，只有点赞或评论数变化时返回对应的payload
+     */
+    private static final DiffUtil.ItemCallback<FootprintMessage> DIFF_CALLBACK = new DiffUtil.ItemCallback<FootprintMessage>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull FootprintMessage oldItem, @NonNull FootprintMessage newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull FootprintMessage oldItem, @NonNull FootprintMessage newItem) {
+            return isSameDisplayContent(oldItem, newItem) && getCounterPayload(oldItem, newItem) == 0;
+        }
+        
+        @Override
+        public Object getChangePayload(@NonNull FootprintMessage oldItem, @NonNull FootprintMessage newItem) {
+            return isSameDisplayContent(oldItem, newItem) ? getCounterPayload(oldItem, newItem) : null;
+        }
+    };
+    
+    // 九宫格内层列表的复用池上限，约为一屏可见的图片数
+    private static final int GRID_POOL_SIZE = ImageDisplayConfig.MAX_GRID_DISPLAY_COUNT * 3;
+    
     private Context context;
-    private List<FootprintMessage> messageList;
+    private final AsyncListDiffer<FootprintMessage> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    // 所有条目的九宫格共享图片视图，滚动时不必为每个条目重新创建
+    private final RecyclerView.RecycledViewPool gridImagePool = new RecyclerView.RecycledViewPool();
     private OnItemClickListener onItemClickListener;
     
     public interface OnItemClickListener {
@@ -46,7 +83,104 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
     
     public FootprintMessageAdapter(Context context, List<FootprintMessage> messageList) {
         this.context = context;
-        this.messageList = messageList;
+        gridImagePool.setMaxRecycledViews(0, GRID_POOL_SIZE);
+        setHasStableIds(true);
+        differ.addListListener(this::onCurrentListChanged);
+        submitList(messageList);
+    }
+    
+    /**
+     * 提交新的列表，在后台计算差异后刷新变化的条目
+     * 列表会被复制，调用方之后修改自己的列表不影响适配器
+     * @param messages 足迹动态列表
+     */
+    public void submitList(List<FootprintMessage> messages) {
+        differ.submitList(messages != null ? new ArrayList<>(messages) : null);
+    }
+    
+    /**
+     * 获取当前显示的足迹动态
+     * @param position 位置
+     * @return 足迹动态
+     */
+    public FootprintMessage getItem(int position) {
+        return differ.getCurrentList().get(position);
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
+    }
+    
+    /**
+     * 列表变化后刷新首尾变化条目的时间轴线条
+     */
+    private void onCurrentListChanged(@NonNull List<FootprintMessage> previousList, @NonNull List<FootprintMessage> currentList) {
+        if (previousList.isEmpty() || currentList.isEmpty()) {
+            return;
+        }
+        Set<Integer> positions = new LinkedHashSet<>();
+        positions.add(0);
+        positions.add(currentList.size() - 1);
+        positions.add(indexOf(currentList, previousList.get(0).getId()));
+        positions.add(indexOf(currentList, previousList.get(previousList.size() - 1).getId()));
+        for (int position : positions) {
+            if (position >= 0) {
+                notifyItemChanged(position, PAYLOAD_TIMELINE);
+            }
+        }
+    }
+    
+    private static int indexOf(List<FootprintMessage> messages, int id) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 比较除点赞和评论数以外的显示内容
+     */
+    private static boolean isSameDisplayContent(FootprintMessage oldItem, FootprintMessage newItem) {
+        return Objects.equals(oldItem.getCreateTime(), newItem.getCreateTime())
+                && Objects.equals(oldItem.getUserAvatar(), newItem.getUserAvatar())
+                && Objects.equals(oldItem.getLocaltionTitle(), newItem.getLocaltionTitle())
+                && Double.compare(oldItem.getLat(), newItem.getLat()) == 0
+                && Double.compare(oldItem.getLng(), newItem.getLng()) == 0
+                && Objects.equals(oldItem.getTag(), newItem.getTag())
+                && Objects.equals(oldItem.getTextContent(), newItem.getTextContent())
+                && isSameFiles(oldItem.getGuluFiles(), newItem.getGuluFiles());
+    }
+    
+    private static boolean isSameFiles(List<GuluFile> oldFiles, List<GuluFile> newFiles) {
+        int oldSize = oldFiles != null ? oldFiles.size() : 0;
+        int newSize = newFiles != null ? newFiles.size() : 0;
+        if (oldSize != newSize) {
+            return false;
+        }
+        for (int i = 0; i < oldSize; i++) {
+            GuluFile oldFile = oldFiles.get(i);
+            GuluFile newFile = newFiles.get(i);
+            if (oldFile.getId() != newFile.getId()
+                    || !Objects.equals(oldFile.getFilePath(), newFile.getFilePath())
+                    || !Objects.equals(oldFile.getFileType(), newFile.getFileType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static int getCounterPayload(FootprintMessage oldItem, FootprintMessage newItem) {
+        int payload = 0;
+        if (oldItem.getHasLiked() != newItem.getHasLiked() || oldItem.getLikeCount() != newItem.getLikeCount()) {
+            payload |= PAYLOAD_LIKE;
+        }
+        if (oldItem.getCommentCount() != newItem.getCommentCount()) {
+            payload |= PAYLOAD_COMMENT;
+        }
+        return payload;
     }
     
     public void setOnItemClickListener(OnItemClickListener listener) {
@@ -58,12 +192,67 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         // 使用时间轴布局
         View view = LayoutInflater.from(context).inflate(R.layout.item_timeline_footprint, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+        setupGridRecyclerView(holder);
+        return holder;
+    }
+    
+    /**
+     * 初始化九宫格内层列表，每个ViewHolder只执行一次
+     * 布局管理器、间距装饰器和适配器随ViewHolder复用，绑定时只替换图片数据
+     * @param holder ViewHolder
+     */
+    private void setupGridRecyclerView(ViewHolder holder) {
+        androidx.recyclerview.widget.GridLayoutManager gridLayoutManager = 
+            new androidx.recyclerview.widget.GridLayoutManager(context, ImageDisplayConfig.GRID_SPAN_COUNT);
+        // 条目被回收时把图片视图放回共享池，供其他条目使用
+        gridLayoutManager.setRecycleChildrenOnDetach(true);
+        holder.gridRecyclerView.setLayoutManager(gridLayoutManager);
+        holder.gridRecyclerView.setRecycledViewPool(gridImagePool);
+        holder.gridRecyclerView.setHasFixedSize(true);
+        GridSpacingItemDecoration.apply(holder.gridRecyclerView, ImageDisplayConfig.GRID_SPAN_COUNT, ImageDisplayConfig.GRID_SPACING_DP, true);
+        
+        holder.gridAdapter = new GridImageAdapter(context, new java.util.ArrayList<>());
+        holder.gridAdapter.setOnImageClickListener((imageIndex, files) -> {
+            int adapterPosition = holder.getAdapterPosition();
+            if (onItemClickListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                onItemClickListener.onImageClick(getItem(adapterPosition), adapterPosition, imageIndex, files);
+            }
+        });
+        holder.gridRecyclerView.setAdapter(holder.gridAdapter);
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        int flags = 0;
+        for (Object payload : payloads) {
+            if (!(payload instanceof Integer)) {
+                flags = 0;
+                break;
+            }
+            flags |= (Integer) payload;
+        }
+        if (flags == 0) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        
+        // 局部刷新，不重新加载头像和图片
+        FootprintMessage message = getItem(position);
+        if ((flags & PAYLOAD_LIKE) != 0) {
+            updateLikeStatus(holder, message.getHasLiked(), message.getLikeCount());
+        }
+        if ((flags & PAYLOAD_COMMENT) != 0) {
+            holder.tvCommentCount.setText(String.valueOf(message.getCommentCount()));
+        }
+        if ((flags & PAYLOAD_TIMELINE) != 0) {
+            setTimelineLines(holder, position);
+        }
     }
     
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        FootprintMessage message = messageList.get(position);
+        FootprintMessage message = getItem(position);
         
         // 格式化时间显示
         formatDateTime(holder, message.getCreateTime());
@@ -84,12 +273,13 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
         setTimelineLines(holder, position);
         
         // 设置操作栏数据和点击事件
-        setActionBar(holder, message, position);
+        setActionBar(holder, message);
         
         // 设置点击事件
         holder.itemView.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                onItemClickListener.onItemClick(message, position);
+            int adapterPosition = holder.getAdapterPosition();
+            if (onItemClickListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                onItemClickListener.onItemClick(getItem(adapterPosition), adapterPosition);
             }
         });
     }
@@ -116,8 +306,9 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
                     
                 // 设置头像点击事件
                 holder.imageViewAvatar.setOnClickListener(v -> {
-                    if (onItemClickListener != null) {
-                        onItemClickListener.onUserAvatarClick(message, holder.getAdapterPosition());
+                    int adapterPosition = holder.getAdapterPosition();
+                    if (onItemClickListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                        onItemClickListener.onUserAvatarClick(getItem(adapterPosition), adapterPosition);
                     }
                 });
             } else {
@@ -228,15 +419,17 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
             if (!imageFiles.isEmpty()) {
                 holder.gridImageLayout.setVisibility(View.VISIBLE);
                 
+                // 与预加载使用相同的尺寸，命中预热的缓存
+                int[] size = ImageDisplayConfig.getThumbnailSize(context, imageFiles.size());
                 switch (imageFiles.size()) {
                     case 1:
-                        showSingleImage(holder, imageFiles.get(0));
+                        showSingleImage(holder, imageFiles.get(0), size);
                         break;
                     case 2:
-                        showTwoImages(holder, imageFiles);
+                        showTwoImages(holder, imageFiles, size);
                         break;
                     case 3:
-                        showThreeImages(holder, imageFiles);
+                        showThreeImages(holder, imageFiles, size);
                         break;
                     default:
                         showGridImages(holder, imageFiles);
@@ -266,15 +459,16 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
      * 显示单张图片
      * @param holder ViewHolder
      * @param imageFile 图片文件
+     * @param size 缩略图尺寸
      */
-    private void showSingleImage(ViewHolder holder, GuluFile imageFile) {
+    private void showSingleImage(ViewHolder holder, GuluFile imageFile, int[] size) {
         holder.singleImage.setVisibility(View.VISIBLE);
-        loadImageIntoView(holder.singleImage, imageFile);
+        loadImageIntoView(holder.singleImage, imageFile, size);
         
         // 添加图片点击事件
         holder.singleImage.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                FootprintMessage message = messageList.get(holder.getAdapterPosition());
+            if (onItemClickListener != null && holder.getAdapterPosition() != RecyclerView.NO_POSITION) {
+                FootprintMessage message = getItem(holder.getAdapterPosition());
                 List<GuluFile> imageFiles = getImageFiles(message);
                 onItemClickListener.onImageClick(message, holder.getAdapterPosition(), 0, imageFiles);
             }
@@ -287,23 +481,24 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
      * 显示两张图片
      * @param holder ViewHolder
      * @param imageFiles 图片文件列表
+     * @param size 缩略图尺寸
      */
-    private void showTwoImages(ViewHolder holder, java.util.List<GuluFile> imageFiles) {
+    private void showTwoImages(ViewHolder holder, java.util.List<GuluFile> imageFiles, int[] size) {
         holder.twoImagesLayout.setVisibility(View.VISIBLE);
-        loadImageIntoView(holder.image1Of2, imageFiles.get(0));
-        loadImageIntoView(holder.image2Of2, imageFiles.get(1));
+        loadImageIntoView(holder.image1Of2, imageFiles.get(0), size);
+        loadImageIntoView(holder.image2Of2, imageFiles.get(1), size);
         
         // 添加图片点击事件
         holder.image1Of2.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                FootprintMessage message = messageList.get(holder.getAdapterPosition());
+            if (onItemClickListener != null && holder.getAdapterPosition() != RecyclerView.NO_POSITION) {
+                FootprintMessage message = getItem(holder.getAdapterPosition());
                 onItemClickListener.onImageClick(message, holder.getAdapterPosition(), 0, imageFiles);
             }
         });
         
         holder.image2Of2.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                FootprintMessage message = messageList.get(holder.getAdapterPosition());
+            if (onItemClickListener != null && holder.getAdapterPosition() != RecyclerView.NO_POSITION) {
+                FootprintMessage message = getItem(holder.getAdapterPosition());
                 onItemClickListener.onImageClick(message, holder.getAdapterPosition(), 1, imageFiles);
             }
         });
@@ -315,31 +510,32 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
      * 显示三张图片
      * @param holder ViewHolder
      * @param imageFiles 图片文件列表
+     * @param size 缩略图尺寸
      */
-    private void showThreeImages(ViewHolder holder, java.util.List<GuluFile> imageFiles) {
+    private void showThreeImages(ViewHolder holder, java.util.List<GuluFile> imageFiles, int[] size) {
         holder.threeImagesLayout.setVisibility(View.VISIBLE);
-        loadImageIntoView(holder.image1Of3, imageFiles.get(0));
-        loadImageIntoView(holder.image2Of3, imageFiles.get(1));
-        loadImageIntoView(holder.image3Of3, imageFiles.get(2));
+        loadImageIntoView(holder.image1Of3, imageFiles.get(0), size);
+        loadImageIntoView(holder.image2Of3, imageFiles.get(1), size);
+        loadImageIntoView(holder.image3Of3, imageFiles.get(2), size);
         
         // 添加图片点击事件
         holder.image1Of3.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                FootprintMessage message = messageList.get(holder.getAdapterPosition());
+            if (onItemClickListener != null && holder.getAdapterPosition() != RecyclerView.NO_POSITION) {
+                FootprintMessage message = getItem(holder.getAdapterPosition());
                 onItemClickListener.onImageClick(message, holder.getAdapterPosition(), 0, imageFiles);
             }
         });
         
         holder.image2Of3.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                FootprintMessage message = messageList.get(holder.getAdapterPosition());
+            if (onItemClickListener != null && holder.getAdapterPosition() != RecyclerView.NO_POSITION) {
+                FootprintMessage message = getItem(holder.getAdapterPosition());
                 onItemClickListener.onImageClick(message, holder.getAdapterPosition(), 1, imageFiles);
             }
         });
         
         holder.image3Of3.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                FootprintMessage message = messageList.get(holder.getAdapterPosition());
+            if (onItemClickListener != null && holder.getAdapterPosition() != RecyclerView.NO_POSITION) {
+                FootprintMessage message = getItem(holder.getAdapterPosition());
                 onItemClickListener.onImageClick(message, holder.getAdapterPosition(), 2, imageFiles);
             }
         });
@@ -355,34 +551,16 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
     private void showGridImages(ViewHolder holder, java.util.List<GuluFile> imageFiles) {
         holder.gridRecyclerView.setVisibility(View.VISIBLE);
         
-        // 设置网格布局管理器
-        androidx.recyclerview.widget.GridLayoutManager gridLayoutManager = 
-            new androidx.recyclerview.widget.GridLayoutManager(context, ImageDisplayConfig.GRID_SPAN_COUNT);
-        holder.gridRecyclerView.setLayoutManager(gridLayoutManager);
-        
-        // 添加网格间距装饰器
-        if (holder.gridRecyclerView.getItemDecorationCount() == 0) {
-            holder.gridRecyclerView.addItemDecoration(new GridSpacingItemDecoration(ImageDisplayConfig.GRID_SPAN_COUNT, ImageDisplayConfig.GRID_SPACING_DP, true));
-        }
-        
-        // 计算并设置RecyclerView的高度
+        // 计算并设置RecyclerView的高度，高度不变时不触发重新布局
         int calculatedHeight = com.damors.zuji.adapter.GridImageAdapter.calculateRecyclerViewHeight(context, imageFiles.size());
         ViewGroup.LayoutParams layoutParams = holder.gridRecyclerView.getLayoutParams();
-        layoutParams.height = calculatedHeight;
-        holder.gridRecyclerView.setLayoutParams(layoutParams);
-        
-        // 设置适配器
-        GridImageAdapter adapter = new GridImageAdapter(context, imageFiles);
-        
-        // 设置图片点击事件
-        adapter.setOnImageClickListener((position, files) -> {
-            if (onItemClickListener != null) {
-                FootprintMessage message = messageList.get(holder.getAdapterPosition());
-                onItemClickListener.onImageClick(message, holder.getAdapterPosition(), position, imageFiles);
-            }
-        });
+        if (layoutParams.height != calculatedHeight) {
+            layoutParams.height = calculatedHeight;
+            holder.gridRecyclerView.setLayoutParams(layoutParams);
+        }
         
-        holder.gridRecyclerView.setAdapter(adapter);
+        // 复用ViewHolder中的适配器，只替换图片数据
+        holder.gridAdapter.setImageFiles(imageFiles);
         
         // 如果图片数量超过9张，显示更多图片的遮罩
         if (imageFiles.size() > 9) {
@@ -398,7 +576,7 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
      * @param message 足迹动态
      * @return 图片文件列表
      */
-    private List<GuluFile> getImageFiles(FootprintMessage message) {
+    static List<GuluFile> getImageFiles(FootprintMessage message) {
         List<GuluFile> imageFiles = new java.util.ArrayList<>();
         if (message.getGuluFiles() != null) {
             for (GuluFile file : message.getGuluFiles()) {
@@ -414,17 +592,14 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
      * 加载图片到ImageView
      * @param imageView 目标ImageView
      * @param imageFile 图片文件
+     * @param size 缩略图尺寸
      */
-    private void loadImageIntoView(ImageView imageView, GuluFile imageFile) {
-        String imageUrl = getFullImageUrl(imageFile.getFilePath());
-        android.util.Log.d("FootprintMessageAdapter", "加载图片: " + imageUrl);
+    private void loadImageIntoView(ImageView imageView, GuluFile imageFile, int[] size) {
+        android.util.Log.d("FootprintMessageAdapter", "加载图片: " + imageFile.getFilePath());
         
-        Glide.with(context)
-            .load(imageUrl)
-            .diskCacheStrategy(DiskCacheStrategy.ALL)
+        FeedImagePreloader.thumbnailRequest(Glide.with(context), imageFile, size)
             .placeholder(R.drawable.ic_placeholder_image)
             .error(R.drawable.ic_placeholder_image)
-            .centerCrop()
             .listener(new RequestListener<android.graphics.drawable.Drawable>() {
                 @Override
                 public boolean onLoadFailed(@androidx.annotation.Nullable com.bumptech.glide.load.engine.GlideException e, Object model, Target<android.graphics.drawable.Drawable> target, boolean isFirstResource) {
@@ -443,11 +618,11 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
     
     /**
      * 设置操作栏数据和点击事件
+     * 点击时按当前位置读取条目，条目移动或被局部刷新后仍然正确
      * @param holder ViewHolder
      * @param message 足迹动态
-     * @param position 位置
      */
-    private void setActionBar(ViewHolder holder, FootprintMessage message, int position) {
+    private void setActionBar(ViewHolder holder, FootprintMessage message) {
         // 设置点赞状态和数量
         updateLikeStatus(holder, message.getHasLiked(), message.getLikeCount());
         
@@ -458,20 +633,23 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
         
         // 设置点击事件
         holder.layoutLike.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                onItemClickListener.onLikeClick(message, position);
+            int adapterPosition = holder.getAdapterPosition();
+            if (onItemClickListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                onItemClickListener.onLikeClick(getItem(adapterPosition), adapterPosition);
             }
         });
         
         holder.layoutDelete.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                onItemClickListener.onDeleteClick(message, position);
+            int adapterPosition = holder.getAdapterPosition();
+            if (onItemClickListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                onItemClickListener.onDeleteClick(getItem(adapterPosition), adapterPosition);
             }
         });
         
         holder.layoutComment.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                onItemClickListener.onCommentClick(message, position);
+            int adapterPosition = holder.getAdapterPosition();
+            if (onItemClickListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                onItemClickListener.onCommentClick(getItem(adapterPosition), adapterPosition);
             }
         });
     }
@@ -504,11 +682,11 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
      * @param likeCount 点赞数量
      */
     public void updateItemLikeStatus(int position, boolean isLiked, int likeCount) {
-        if (position >= 0 && position < messageList.size()) {
-            FootprintMessage message = messageList.get(position);
+        if (position >= 0 && position < getItemCount()) {
+            FootprintMessage message = getItem(position);
             message.setHasLiked(isLiked);
             message.setLikeCount(likeCount);
-            notifyItemChanged(position);
+            notifyItemChanged(position, PAYLOAD_LIKE);
         }
     }
     
@@ -520,10 +698,10 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
      * @param commentCount 评论数量
      */
     public void updateItemCommentCount(int position, int commentCount) {
-        if (position >= 0 && position < messageList.size()) {
-            FootprintMessage message = messageList.get(position);
+        if (position >= 0 && position < getItemCount()) {
+            FootprintMessage message = getItem(position);
             message.setCommentCount(commentCount);
-            notifyItemChanged(position);
+            notifyItemChanged(position, PAYLOAD_COMMENT);
         }
     }
     
@@ -553,7 +731,7 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
      * @param fileType 文件类型
      * @return 是否为图片
      */
-    private boolean isImageFile(String fileType) {
+    private static boolean isImageFile(String fileType) {
         if (fileType == null) return false;
         String type = fileType.toLowerCase();
         return type.equals("jpg")
@@ -580,7 +758,7 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
     
     @Override
     public int getItemCount() {
-        return messageList != null ? messageList.size() : 0;
+        return differ.getCurrentList().size();
     }
     
     /**
@@ -636,6 +814,7 @@ public class FootprintMessageAdapter extends RecyclerView.Adapter<FootprintMessa
         LinearLayout threeImagesLayout;
         ImageView image1Of3, image2Of3, image3Of3;
         androidx.recyclerview.widget.RecyclerView gridRecyclerView;
+        GridImageAdapter gridAdapter;
         FrameLayout moreImagesOverlay;
         TextView moreImagesText;
         
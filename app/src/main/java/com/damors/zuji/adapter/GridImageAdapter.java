@@ -9,16 +9,16 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.damors.zuji.R;
 import com.damors.zuji.config.ImageDisplayConfig;
 import com.damors.zuji.model.GuluFile;
-import com.damors.zuji.network.ApiConfig;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 九宫格图片适配器
  * 用于在RecyclerView中显示图片网格布局
+ * 列表条目复用时通过setImageFiles替换数据，不必为每次绑定创建新的适配器
  */
 public class GridImageAdapter extends RecyclerView.Adapter<GridImageAdapter.ImageViewHolder> {
 
@@ -46,7 +46,16 @@ public class GridImageAdapter extends RecyclerView.Adapter<GridImageAdapter.Imag
      */
     public GridImageAdapter(Context context, List<GuluFile> imageFiles) {
         this.context = context;
-        this.imageFiles = imageFiles;
+        this.imageFiles = imageFiles != null ? imageFiles : new ArrayList<>();
+    }
+    
+    /**
+     * 替换显示的图片
+     * @param imageFiles 图片文件列表
+     */
+    public void setImageFiles(List<GuluFile> imageFiles) {
+        this.imageFiles = imageFiles != null ? new ArrayList<>(imageFiles) : new ArrayList<>();
+        notifyDataSetChanged();
     }
     
     /**
@@ -82,15 +91,12 @@ public class GridImageAdapter extends RecyclerView.Adapter<GridImageAdapter.Imag
     public void onBindViewHolder(@NonNull ImageViewHolder holder, int position) {
         GuluFile imageFile = imageFiles.get(position);
         
-        // 加载图片
-        String imageUrl = getFullImageUrl(imageFile.getFilePath());
+        // 加载缩略图，与预加载使用相同的尺寸，命中预热的缓存
+        int[] size = ImageDisplayConfig.getThumbnailSize(context, imageFiles.size());
         
-        Glide.with(context)
-            .load(imageUrl)
-            .diskCacheStrategy(DiskCacheStrategy.ALL)
+        FeedImagePreloader.thumbnailRequest(Glide.with(context), imageFile, size)
             .placeholder(R.drawable.ic_placeholder_image)
             .error(R.drawable.ic_error_image)
-            .centerCrop()
             .thumbnail(ImageDisplayConfig.THUMBNAIL_RATIO) // 添加缩略图支持，提升加载速度
             .transition(com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions.withCrossFade()) // 添加渐变效果
             .listener(new com.bumptech.glide.request.RequestListener<android.graphics.drawable.Drawable>() {
@@ -110,8 +116,9 @@ public class GridImageAdapter extends RecyclerView.Adapter<GridImageAdapter.Imag
 
         // 设置点击事件
         holder.imageView.setOnClickListener(v -> {
-            if (onImageClickListener != null) {
-                onImageClickListener.onImageClick(position, imageFiles);
+            int adapterPosition = holder.getAdapterPosition();
+            if (onImageClickListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                onImageClickListener.onImageClick(adapterPosition, imageFiles);
             }
         });
 
@@ -133,32 +140,6 @@ public class GridImageAdapter extends RecyclerView.Adapter<GridImageAdapter.Imag
         return Math.min(imageFiles.size(), maxDisplayCount);
     }
 
-    /**
-     * 获取完整的图片URL
-     * @param filePath 文件路径
-     * @return 完整的图片URL
-     */
-    private String getFullImageUrl(String filePath) {
-        if (filePath == null || filePath.isEmpty()) {
-            return "";
-        }
-        
-        // 如果已经是完整URL，直接返回
-        if (filePath.startsWith("http://") || filePath.startsWith("https://")) {
-            return filePath;
-        }
-        
-        // 使用ApiConfig中的图片基础URL构建完整的图片URL
-        String imageBaseUrl = ApiConfig.getImageBaseUrl();
-        // 确保路径正确拼接
-        if (!filePath.startsWith("/")) {
-            filePath = "/" + filePath;
-        }
-        String fullImageUrl = imageBaseUrl + filePath;
-        
-        return fullImageUrl;
-    }
-
     @Override
     public void onViewRecycled(@NonNull ImageViewHolder holder) {
         super.onViewRecycled(holder);
@@ -14,6 +14,7 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
 import com.bumptech.glide.request.RequestListener;
@@ -97,9 +98,10 @@ public class ImagePreviewAdapter extends RecyclerView.Adapter<ImagePreviewAdapte
         // 不设置最小缩放，让PhotoView自动计算合适的缩放比例以保持图片原始比例
         // PhotoView会自动处理缩放类型，确保图片不被拉伸变形
         
-        // 使用Glide加载图片
+        // 使用Glide加载原图，全屏预览不使用全局默认的RGB_565
         Glide.with(context)
             .load(imageUrl)
+            .format(DecodeFormat.PREFER_ARGB_8888)
             .fitCenter() // 保持图片原始比例，不拉伸变形
             .diskCacheStrategy(DiskCacheStrategy.ALL)
             .placeholder(R.drawable.ic_placeholder_image)
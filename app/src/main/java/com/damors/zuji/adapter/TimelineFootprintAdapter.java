@@ -15,6 +15,8 @@ import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.request.RequestOptions;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.damors.zuji.AddFootprintActivity;
@@ -30,16 +32,44 @@ import com.amap.api.services.core.LatLonPoint;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * 时间轴足迹适配器
  * 用于在历史页面中以时间轴形式显示足迹记录
+ * 列表在后台计算差异后只刷新变化的条目，地理编码结果只局部刷新对应坐标的位置文本
  */
 public class TimelineFootprintAdapter extends RecyclerView.Adapter<TimelineFootprintAdapter.FootprintViewHolder> implements GeocodeSearch.OnGeocodeSearchListener {
 
-    private List<FootprintEntity> footprints;
+    // 只刷新位置文本的payload
+    private static final Object PAYLOAD_LOCATION = new Object();
+
+    private static final DiffUtil.ItemCallback<FootprintEntity> DIFF_CALLBACK = new DiffUtil.ItemCallback<FootprintEntity>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull FootprintEntity oldItem, @NonNull FootprintEntity newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull FootprintEntity oldItem, @NonNull FootprintEntity newItem) {
+            return oldItem.getTimestamp() == newItem.getTimestamp()
+                    && Double.compare(oldItem.getLatitude(), newItem.getLatitude()) == 0
+                    && Double.compare(oldItem.getLongitude(), newItem.getLongitude()) == 0
+                    && Objects.equals(oldItem.getLocationName(), newItem.getLocationName())
+                    && Objects.equals(oldItem.getCityName(), newItem.getCityName())
+                    && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                    && Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                    && Objects.equals(oldItem.getImageUris(), newItem.getImageUris());
+        }
+    };
+
+    private final AsyncListDiffer<FootprintEntity> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    // 反向地理编码结果，按坐标缓存，避免重复请求
+    private final Map<String, String> addressCache = new HashMap<>();
     private Context context;
     private OnItemClickListener listener;
     private GeocodeSearch geocodeSearch;
@@ -51,7 +81,8 @@ public class TimelineFootprintAdapter extends RecyclerView.Adapter<TimelineFootp
      */
     public TimelineFootprintAdapter(Context context, List<FootprintEntity> footprints) {
         this.context = context;
-        this.footprints = footprints != null ? footprints : new ArrayList<>();
+        setHasStableIds(true);
+        updateFootprints(footprints);
         try {
             this.geocodeSearch = new GeocodeSearch(context);
             this.geocodeSearch.setOnGeocodeSearchListener(this);
@@ -82,9 +113,32 @@ public class TimelineFootprintAdapter extends RecyclerView.Adapter<TimelineFootp
         return new FootprintViewHolder(view);
     }
 
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull FootprintViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && allLocationPayloads(payloads)) {
+            setLocationInfo(holder, differ.getCurrentList().get(position));
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
+
+    private static boolean allLocationPayloads(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_LOCATION) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void onBindViewHolder(@NonNull FootprintViewHolder holder, int position) {
-        FootprintEntity footprint = footprints.get(position);
+        FootprintEntity footprint = differ.getCurrentList().get(position);
         
         // 设置时间
         SimpleDateFormat dateFormat = new SimpleDateFormat("MM-dd HH:mm", Locale.getDefault());
@@ -146,6 +200,9 @@ public class TimelineFootprintAdapter extends RecyclerView.Adapter<TimelineFootp
                 locationText = footprint.getCityName() + " · " + locationText;
             }
             holder.locationTextView.setText(locationText);
+        } else if (addressCache.containsKey(coordinateKey(footprint.getLatitude(), footprint.getLongitude()))) {
+            // 已经解析过的坐标直接显示
+            holder.locationTextView.setText(addressCache.get(coordinateKey(footprint.getLatitude(), footprint.getLongitude())));
         } else {
             // 如果没有位置名称，先显示经纬度，然后异步获取地址描述
             String defaultLocation = String.format(Locale.getDefault(), "%.6f, %.6f", 
@@ -177,18 +234,21 @@ public class TimelineFootprintAdapter extends RecyclerView.Adapter<TimelineFootp
         }
     }
 
+    private static String coordinateKey(double latitude, double longitude) {
+        return String.format(Locale.US, "%.6f,%.6f", latitude, longitude);
+    }
+
     @Override
     public int getItemCount() {
-        return footprints.size();
+        return differ.getCurrentList().size();
     }
 
     /**
-     * 更新足迹列表
+     * 更新足迹列表，在后台计算差异后只刷新变化的条目
      * @param newFootprints 新的足迹列表
      */
     public void updateFootprints(List<FootprintEntity> newFootprints) {
-        this.footprints = newFootprints != null ? newFootprints : new ArrayList<>();
-        notifyDataSetChanged();
+        differ.submitList(newFootprints != null ? new ArrayList<>(newFootprints) : new ArrayList<>());
     }
     
     /**
@@ -216,12 +276,14 @@ public class TimelineFootprintAdapter extends RecyclerView.Adapter<TimelineFootp
              if (result != null && result.getRegeocodeAddress() != null) {
                  RegeocodeAddress address = result.getRegeocodeAddress();
                  String addressText = address.getFormatAddress();
+                 LatLonPoint point = result.getRegeocodeQuery().getPoint();
+                 String key = coordinateKey(point.getLatitude(), point.getLongitude());
                  
                  // 在主线程中更新UI
                  if (context instanceof android.app.Activity) {
                      ((android.app.Activity) context).runOnUiThread(() -> {
-                         // 遍历当前可见的ViewHolder来更新对应的位置信息
-                         updateLocationTextForFootprint(addressText);
+                         // 只刷新该坐标对应条目的位置文本
+                         updateLocationTextForFootprint(key, addressText);
                          Log.d(TAG, "反向地理编码成功: " + addressText);
                      });
                  }
@@ -233,11 +295,18 @@ public class TimelineFootprintAdapter extends RecyclerView.Adapter<TimelineFootp
      
      /**
       * 更新对应足迹的位置文本
+      * @param key 坐标键
+      * @param addressText 地址描述
       */
-     private void updateLocationTextForFootprint(String addressText) {
-         // 由于RecyclerView的复用机制，这里采用简化的处理方式
-         // 在实际项目中，可以考虑使用更复杂的缓存机制
-         notifyDataSetChanged();
+     private void updateLocationTextForFootprint(String key, String addressText) {
+         addressCache.put(key, addressText);
+         List<FootprintEntity> current = differ.getCurrentList();
+         for (int i = 0; i < current.size(); i++) {
+             FootprintEntity footprint = current.get(i);
+             if (key.equals(coordinateKey(footprint.getLatitude(), footprint.getLongitude()))) {
+                 notifyItemChanged(i, PAYLOAD_LOCATION);
+             }
+         }
      }
     
     @Override
@@ -0,0 +1,72 @@
+package com.damors.zuji.cluster;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 聚合结果
+ * 表示某一缩放级别下聚合在一起的一组地图点，位置为成员的平均经纬度
+ * @param <T> 地图点类型
+ */
+public class Cluster<T extends ClusterItem> {
+
+    private final T anchor;
+    private final List<T> items;
+    private final double latitude;
+    private final double longitude;
+
+    Cluster(T anchor, List<T> items, double latitude, double longitude) {
+        this.anchor = anchor;
+        this.items = Collections.unmodifiableList(items);
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * @return 生成该聚合的种子点，同一批数据、同一缩放级别下保持稳定，可用于标识聚合
+     */
+    public T getAnchor() {
+        return anchor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getSize() {
+        return items.size();
+    }
+
+    /**
+     * @return 是否只包含单个点
+     */
+    public boolean isSingle() {
+        return items.size() == 1;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * 计算成员的经纬度范围
+     * @return [最小纬度, 最小经度, 最大纬度, 最大经度]
+     */
+    public double[] getBounds() {
+        double minLat = Double.MAX_VALUE;
+        double minLng = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE;
+        double maxLng = -Double.MAX_VALUE;
+        for (T item : items) {
+            minLat = Math.min(minLat, item.getLatitude());
+            minLng = Math.min(minLng, item.getLongitude());
+            maxLat = Math.max(maxLat, item.getLatitude());
+            maxLng = Math.max(maxLng, item.getLongitude());
+        }
+        return new double[]{minLat, minLng, maxLat, maxLng};
+    }
+}
@@ -0,0 +1,200 @@
+package com.damors.zuji.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 地图点聚合引擎
+ * 将经纬度投影到Web墨卡托平面并建立四叉树，按缩放级别以像素半径进行距离聚合。
+ * 每个整数缩放级别的结果计算一次后缓存，相机移动时只有进入新的缩放级别才需要重新计算；
+ * 数据变化时清空缓存。纯Java实现，不依赖地图SDK
+ * @param <T> 地图点类型
+ */
+public class ClusterEngine<T extends ClusterItem> {
+
+    /**
+     * 缩放级别0时世界地图的像素宽度
+     */
+    private static final double WORLD_TILE_SIZE = 256;
+
+    /**
+     * 默认聚合半径（像素）
+     */
+    public static final int DEFAULT_CLUSTER_RADIUS_PX = 100;
+
+    /**
+     * 默认最大聚合级别，达到该级别后不再聚合
+     */
+    public static final int DEFAULT_MAX_CLUSTER_ZOOM = 19;
+
+    private final int clusterRadiusPx;
+    private final int maxClusterZoom;
+
+    private final List<T> items = new ArrayList<>();
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private PointQuadTree tree = new PointQuadTree();
+
+    // 按整数缩放级别缓存的聚合结果
+    private final Object[] clustersByZoom;
+
+    public ClusterEngine() {
+        this(DEFAULT_CLUSTER_RADIUS_PX, DEFAULT_MAX_CLUSTER_ZOOM);
+    }
+
+    /**
+     * @param clusterRadiusPx 聚合半径（像素），相距小于该距离的点聚合在一起
+     * @param maxClusterZoom 最大聚合级别，不小于该级别时每个点单独显示
+     */
+    public ClusterEngine(int clusterRadiusPx, int maxClusterZoom) {
+        this.clusterRadiusPx = clusterRadiusPx;
+        this.maxClusterZoom = maxClusterZoom;
+        this.clustersByZoom = new Object[maxClusterZoom + 1];
+    }
+
+    /**
+     * 替换全部地图点
+     * @param newItems 地图点集合
+     */
+    public synchronized void setItems(Collection<? extends T> newItems) {
+        items.clear();
+        tree = new PointQuadTree();
+        xs = new double[Math.max(16, newItems.size())];
+        ys = new double[xs.length];
+        for (T item : newItems) {
+            addInternal(item);
+        }
+        invalidate();
+    }
+
+    /**
+     * 增加地图点，已有的聚合缓存失效
+     * @param newItems 地图点集合
+     */
+    public synchronized void addItems(Collection<? extends T> newItems) {
+        for (T item : newItems) {
+            addInternal(item);
+        }
+        invalidate();
+    }
+
+    public synchronized int getItemCount() {
+        return items.size();
+    }
+
+    /**
+     * 获取指定缩放级别的全部聚合结果
+     * @param zoom 地图缩放级别
+     * @return 聚合列表
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<Cluster<T>> getClusters(float zoom) {
+        int level = Math.max(0, Math.min(maxClusterZoom, (int) zoom));
+        List<Cluster<T>> clusters = (List<Cluster<T>>) clustersByZoom[level];
+        if (clusters == null) {
+            clusters = level >= maxClusterZoom ? singletons() : cluster(level);
+            clustersByZoom[level] = clusters;
+        }
+        return clusters;
+    }
+
+    /**
+     * 获取指定缩放级别下位于可视区域内的聚合结果
+     * @param zoom 地图缩放级别
+     * @param minLat 可视区域最小纬度
+     * @param minLng 可视区域最小经度
+     * @param maxLat 可视区域最大纬度
+     * @param maxLng 可视区域最大经度
+     * @return 聚合列表
+     */
+    public List<Cluster<T>> getClusters(float zoom, double minLat, double minLng, double maxLat, double maxLng) {
+        List<Cluster<T>> all = getClusters(zoom);
+        List<Cluster<T>> visible = new ArrayList<>();
+        for (Cluster<T> cluster : all) {
+            double lat = cluster.getLatitude();
+            double lng = cluster.getLongitude();
+            if (lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng) {
+                visible.add(cluster);
+            }
+        }
+        return visible;
+    }
+
+    private void addInternal(T item) {
+        int id = items.size();
+        if (id == xs.length) {
+            xs = Arrays.copyOf(xs, id << 1);
+            ys = Arrays.copyOf(ys, id << 1);
+        }
+        double x = projectX(item.getLongitude());
+        double y = projectY(item.getLatitude());
+        items.add(item);
+        xs[id] = x;
+        ys[id] = y;
+        tree.add(id, x, y);
+    }
+
+    private void invalidate() {
+        Arrays.fill(clustersByZoom, null);
+    }
+
+    private List<Cluster<T>> singletons() {
+        List<Cluster<T>> clusters = new ArrayList<>(items.size());
+        for (T item : items) {
+            List<T> members = new ArrayList<>(1);
+            members.add(item);
+            clusters.add(new Cluster<>(item, members, item.getLatitude(), item.getLongitude()));
+        }
+        return clusters;
+    }
+
+    /**
+     * 按输入顺序依次取未归属的点作为种子，将其半径范围内所有未归属的点聚合在一起
+     */
+    private List<Cluster<T>> cluster(int zoom) {
+        double span = clusterRadiusPx / (WORLD_TILE_SIZE * Math.pow(2, zoom)) / 2;
+        boolean[] assigned = new boolean[items.size()];
+        List<Cluster<T>> clusters = new ArrayList<>();
+        List<T> members = new ArrayList<>();
+        double[] sums = new double[2];
+
+        PointQuadTree.Visitor collector = id -> {
+            if (!assigned[id]) {
+                assigned[id] = true;
+                T item = items.get(id);
+                members.add(item);
+                sums[0] += item.getLatitude();
+                sums[1] += item.getLongitude();
+            }
+        };
+
+        for (int seed = 0; seed < items.size(); seed++) {
+            if (assigned[seed]) {
+                continue;
+            }
+            members.clear();
+            sums[0] = 0;
+            sums[1] = 0;
+            double x = xs[seed];
+            double y = ys[seed];
+            tree.search(x - span, y - span, x + span, y + span, collector);
+            int count = members.size();
+            clusters.add(new Cluster<>(items.get(seed), new ArrayList<>(members),
+                    sums[0] / count, sums[1] / count));
+        }
+        return clusters;
+    }
+
+    // Web墨卡托投影，结果范围[0,1]
+    static double projectX(double longitude) {
+        return longitude / 360 + 0.5;
+    }
+
+    static double projectY(double latitude) {
+        double sin = Math.sin(Math.toRadians(latitude));
+        double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        return Math.max(0, Math.min(1, y));
+    }
+}
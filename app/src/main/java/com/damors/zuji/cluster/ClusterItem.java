@@ -0,0 +1,18 @@
+package com.damors.zuji.cluster;
+
+/**
+ * 可参与聚合的地图点
+ * 聚合模块只依赖经纬度，与具体地图SDK无关
+ */
+public interface ClusterItem {
+
+    /**
+     * @return 纬度
+     */
+    double getLatitude();
+
+    /**
+     * @return 经度
+     */
+    double getLongitude();
+}
@@ -0,0 +1,144 @@
+package com.damors.zuji.cluster;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 地图标记差量协调器
+ * 记录当前已渲染的标记状态（按键索引），每次传入新的目标状态时计算差量：
+ * 只新增缺少的标记、删除多余的标记、原地更新发生变化的标记，其余保持不变。
+ * 状态是否变化由状态对象的equals判断。纯Java实现，不依赖地图SDK
+ * @param <S> 标记状态类型
+ */
+public class MarkerReconciler<S> {
+
+    private final Map<String, S> rendered = new HashMap<>();
+
+    /**
+     * 协调到目标状态
+     * @param desired 目标状态，键为标记唯一标识
+     * @param sink 差量执行回调
+     * @return 本次协调的统计结果
+     */
+    public Result reconcile(Map<String, S> desired, Sink<S> sink) {
+        int removed = 0;
+        int updated = 0;
+        int kept = 0;
+
+        // 先删除后新增，避免同一位置短时间内出现重叠标记
+        Iterator<Map.Entry<String, S>> iterator = rendered.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, S> entry = iterator.next();
+            if (!desired.containsKey(entry.getKey())) {
+                iterator.remove();
+                sink.onRemove(entry.getKey());
+                removed++;
+            }
+        }
+
+        List<String> addedKeys = new ArrayList<>();
+        for (Map.Entry<String, S> entry : desired.entrySet()) {
+            String key = entry.getKey();
+            S state = entry.getValue();
+            S previous = rendered.put(key, state);
+            if (previous == null) {
+                addedKeys.add(key);
+            } else if (!previous.equals(state)) {
+                sink.onUpdate(key, state);
+                updated++;
+            } else {
+                kept++;
+            }
+        }
+        if (!addedKeys.isEmpty()) {
+            sink.onAdd(addedKeys);
+        }
+        return new Result(addedKeys.size(), removed, updated, kept);
+    }
+
+    /**
+     * 获取标记的最新状态
+     * @param key 标记唯一标识
+     * @return 状态，已被删除时返回null
+     */
+    public S get(String key) {
+        return rendered.get(key);
+    }
+
+    /**
+     * 清空已记录的状态，通常在地图被整体清空后调用
+     */
+    public void clear() {
+        rendered.clear();
+    }
+
+    public int size() {
+        return rendered.size();
+    }
+
+    /**
+     * 差量执行回调
+     * @param <S> 标记状态类型
+     */
+    public interface Sink<S> {
+        /**
+         * 新增标记，可通过get(key)读取最新状态，以便延迟分批添加
+         * @param keys 需要新增的标记键
+         */
+        void onAdd(List<String> keys);
+
+        /**
+         * 删除标记
+         * @param key 标记键
+         */
+        void onRemove(String key);
+
+        /**
+         * 原地更新标记
+         * @param key 标记键
+         * @param state 新状态
+         */
+        void onUpdate(String key, S state);
+    }
+
+    /**
+     * 协调结果统计
+     */
+    public static class Result {
+        private final int added;
+        private final int removed;
+        private final int updated;
+        private final int kept;
+
+        public Result(int added, int removed, int updated, int kept) {
+            this.added = added;
+            this.removed = removed;
+            this.updated = updated;
+            this.kept = kept;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getKept() {
+            return kept;
+        }
+
+        @Override
+        public String toString() {
+            return "新增: " + added + ", 删除: " + removed + ", 更新: " + updated + ", 保留: " + kept;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.damors.zuji.cluster;
+
+import java.util.Arrays;
+
+/**
+ * 点四叉树
+ * 在[0,1]x[0,1]的投影平面上按坐标索引点编号，支持矩形范围查询。
+ * 只保存int编号和double坐标，不持有业务对象
+ */
+class PointQuadTree {
+
+    private static final int MAX_ELEMENTS = 50;
+    private static final int MAX_DEPTH = 40;
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final int depth;
+
+    private int[] ids = new int[8];
+    private double[] xs = new double[8];
+    private double[] ys = new double[8];
+    private int size;
+    private PointQuadTree[] children;
+
+    PointQuadTree() {
+        this(0, 0, 1, 1, 0);
+    }
+
+    private PointQuadTree(double minX, double minY, double maxX, double maxY, int depth) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.depth = depth;
+    }
+
+    /**
+     * 插入一个点
+     * @param id 点编号
+     * @param x 投影横坐标
+     * @param y 投影纵坐标
+     */
+    void add(int id, double x, double y) {
+        PointQuadTree node = this;
+        while (node.children != null) {
+            node = node.childFor(x, y);
+        }
+        node.append(id, x, y);
+        if (node.size > MAX_ELEMENTS && node.depth < MAX_DEPTH) {
+            node.split();
+        }
+    }
+
+    /**
+     * 查询矩形范围内的点
+     * @param queryMinX 最小横坐标
+     * @param queryMinY 最小纵坐标
+     * @param queryMaxX 最大横坐标
+     * @param queryMaxY 最大纵坐标
+     * @param visitor 命中回调
+     */
+    void search(double queryMinX, double queryMinY, double queryMaxX, double queryMaxY, Visitor visitor) {
+        if (queryMaxX < minX || queryMinX > maxX || queryMaxY < minY || queryMinY > maxY) {
+            return;
+        }
+        if (children != null) {
+            for (PointQuadTree child : children) {
+                child.search(queryMinX, queryMinY, queryMaxX, queryMaxY, visitor);
+            }
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            if (x >= queryMinX && x <= queryMaxX && y >= queryMinY && y <= queryMaxY) {
+                visitor.visit(ids[i]);
+            }
+        }
+    }
+
+    private PointQuadTree childFor(double x, double y) {
+        double midX = (minX + maxX) / 2;
+        double midY = (minY + maxY) / 2;
+        int index = (x < midX ? 0 : 1) + (y < midY ? 0 : 2);
+        return children[index];
+    }
+
+    private void append(int id, double x, double y) {
+        if (size == ids.length) {
+            int capacity = size << 1;
+            ids = Arrays.copyOf(ids, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        ids[size] = id;
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    private void split() {
+        double midX = (minX + maxX) / 2;
+        double midY = (minY + maxY) / 2;
+        children = new PointQuadTree[]{
+                new PointQuadTree(minX, minY, midX, midY, depth + 1),
+                new PointQuadTree(midX, minY, maxX, midY, depth + 1),
+                new PointQuadTree(minX, midY, midX, maxY, depth + 1),
+                new PointQuadTree(midX, midY, maxX, maxY, depth + 1)
+        };
+        for (int i = 0; i < size; i++) {
+            // 子节点可能继续分裂，通过add重新分配
+            add(ids[i], xs[i], ys[i]);
+        }
+        ids = null;
+        xs = null;
+        ys = null;
+        size = 0;
+    }
+
+    /**
+     * 范围查询命中回调
+     */
+    interface Visitor {
+        void visit(int id);
+    }
+}
@@ -32,6 +32,9 @@ public class ImageDisplayConfig {
     /** RecyclerView最小高度（dp） */
     public static final int RECYCLER_VIEW_MIN_HEIGHT_DP = 200;
     
+    /** 列表滚动时向前预加载图片的动态条数 */
+    public static final int PRELOAD_ROW_COUNT = 3;
+    
     /** 图片加载超时时间（毫秒） */
     public static final int IMAGE_LOAD_TIMEOUT_MS = 10000;
     
@@ -68,6 +71,25 @@ public class ImageDisplayConfig {
         return dpToPx(context, RECYCLER_VIEW_MIN_HEIGHT_DP);
     }
     
+    /**
+     * 获取动态列表中缩略图的解码尺寸（像素）
+     * 宽度按屏幕宽度和每行图片数均分，高度取对应布局的配置高度；
+     * 条目绑定和预加载使用同一尺寸，保证命中同一个缓存
+     * @param context 上下文
+     * @param imageCount 动态中的图片数量
+     * @return 宽高数组 {width, height}
+     */
+    public static int[] getThumbnailSize(Context context, int imageCount) {
+        int screenWidth = context.getResources().getDisplayMetrics().widthPixels;
+        if (imageCount <= 1) {
+            return new int[] {screenWidth, dpToPx(context, SINGLE_IMAGE_HEIGHT_DP)};
+        }
+        if (imageCount <= 3) {
+            return new int[] {screenWidth / imageCount, dpToPx(context, MULTI_IMAGE_HEIGHT_DP)};
+        }
+        return new int[] {screenWidth / GRID_SPAN_COUNT, dpToPx(context, GRID_ITEM_HEIGHT_DP)};
+    }
+    
     /**
      * 获取网格间距（像素）
      * @param context 上下文
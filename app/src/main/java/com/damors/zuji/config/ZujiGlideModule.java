@@ -0,0 +1,64 @@
+package com.damors.zuji.config;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+import com.damors.zuji.model.GuluFile;
+import com.damors.zuji.network.GuluFileUrlLoader;
+
+import java.io.InputStream;
+
+/**
+ * 应用Glide配置
+ * 内存缓存和Bitmap池按屏幕数设置预算，磁盘缓存使用独立目录和固定上限；
+ * 默认以RGB_565解码，列表缩略图内存减半，需要原图质量的地方（全屏预览）单独指定ARGB_8888。
+ * 注册GuluFile加载器，列表直接加载GuluFile时按显示尺寸请求服务端缩略图
+ */
+@GlideModule
+public class ZujiGlideModule extends AppGlideModule {
+    private static final String TAG = "ZujiGlideModule";
+
+    // 内存缓存可容纳的整屏图片数
+    private static final float MEMORY_CACHE_SCREENS = 2;
+
+    // Bitmap池可容纳的整屏图片数，列表滚动时复用九宫格图片的Bitmap
+    private static final float BITMAP_POOL_SCREENS = 3;
+
+    // 图片磁盘缓存目录和上限
+    private static final String DISK_CACHE_DIR = "image_cache";
+    private static final long DISK_CACHE_SIZE = 150L * 1024 * 1024;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .setBitmapPoolScreens(BITMAP_POOL_SCREENS)
+                .build();
+        builder.setMemorySizeCalculator(calculator);
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, DISK_CACHE_SIZE));
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+        Log.d(TAG, "内存缓存: " + calculator.getMemoryCacheSize() / 1024 + "KB, Bitmap池: "
+                + calculator.getBitmapPoolSize() / 1024 + "KB, 磁盘缓存: " + DISK_CACHE_SIZE / 1024 / 1024 + "MB");
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.prepend(GuluFile.class, InputStream.class, new GuluFileUrlLoader.Factory());
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,140 @@
+package com.damors.zuji.data;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.damors.zuji.model.GuluFile;
+
+/**
+ * 服务端足迹动态图片文件缓存实体类
+ * 按动态ID关联CachedMessageEntity，同一动态出现在多个数据流中时共用同一组文件
+ */
+@Entity(tableName = "cached_files",
+        indices = {@Index(value = {"msgId"})})
+public class CachedFileEntity {
+
+    @PrimaryKey
+    private int id;            // 服务端文件ID
+    private int msgId;         // 所属动态ID
+    private int sortOrder;     // 在动态中的顺序
+    private String fileName;   // 文件名
+    private String fileType;   // 文件类型
+    private String filePath;   // 文件路径
+    private String ofType;     // 关联类型
+    private String createTime; // 创建时间
+    private String delFlag;    // 删除标志
+
+    public CachedFileEntity() {
+    }
+
+    /**
+     * 由服务端文件创建缓存实体
+     * @param msgId 所属动态ID
+     * @param sortOrder 在动态中的顺序
+     * @param file 服务端文件
+     * @return 缓存实体
+     */
+    public static CachedFileEntity fromFile(int msgId, int sortOrder, GuluFile file) {
+        CachedFileEntity entity = new CachedFileEntity();
+        entity.setId(file.getId());
+        entity.setMsgId(msgId);
+        entity.setSortOrder(sortOrder);
+        entity.setFileName(file.getFileName());
+        entity.setFileType(file.getFileType());
+        entity.setFilePath(file.getFilePath());
+        entity.setOfType(file.getOfType());
+        entity.setCreateTime(file.getCreateTime());
+        entity.setDelFlag(file.getDelFlag());
+        return entity;
+    }
+
+    /**
+     * 转换为服务端文件模型
+     * @return 文件
+     */
+    public GuluFile toFile() {
+        GuluFile file = new GuluFile();
+        file.setId(id);
+        file.setOfId(msgId);
+        file.setFileName(fileName);
+        file.setFileType(fileType);
+        file.setFilePath(filePath);
+        file.setOfType(ofType);
+        file.setCreateTime(createTime);
+        file.setDelFlag(delFlag);
+        return file;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getMsgId() {
+        return msgId;
+    }
+
+    public void setMsgId(int msgId) {
+        this.msgId = msgId;
+    }
+
+    public int getSortOrder() {
+        return sortOrder;
+    }
+
+    public void setSortOrder(int sortOrder) {
+        this.sortOrder = sortOrder;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getOfType() {
+        return ofType;
+    }
+
+    public void setOfType(String ofType) {
+        this.ofType = ofType;
+    }
+
+    public String getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(String createTime) {
+        this.createTime = createTime;
+    }
+
+    public String getDelFlag() {
+        return delFlag;
+    }
+
+    public void setDelFlag(String delFlag) {
+        this.delFlag = delFlag;
+    }
+}
@@ -0,0 +1,275 @@
+package com.damors.zuji.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+import com.damors.zuji.model.FootprintMessage;
+
+/**
+ * 服务端足迹动态缓存实体类
+ * 按数据流（feed）保存服务端返回的足迹动态，position为该动态在数据流中的顺序，
+ * 用于离线时按页读取；图片文件保存在CachedFileEntity中
+ */
+@Entity(tableName = "cached_messages",
+        primaryKeys = {"feed", "id"},
+        indices = {@Index(value = {"feed", "position"})})
+public class CachedMessageEntity {
+
+    @NonNull
+    private String feed = ""; // 数据流名称，见MessageFeedRepository.FEED_*
+    private int id;           // 服务端动态ID
+    private int position;     // 在数据流中的顺序
+    private long cachedAt;    // 写入缓存的时间戳
+
+    private String createBy; // 创建者
+    private String createTime; // 创建时间
+    private String updateBy; // 更新者
+    private String updateTime; // 更新时间
+    private String remark; // 备注
+    private int msgType; // 消息类型
+    private String textContent; // 文本内容
+    private String tag; // 标签
+    private double lng; // 经度
+    private double lat; // 纬度
+    private String localtionTitle; // 位置标题
+    private int userId; // 用户ID
+    private String userAvatar; // 用户头像
+    private String delFlag; // 删除标志
+    private int likeCount; // 点赞数量
+    private int commentCount; // 评论数量
+    private boolean hasLiked; // 当前用户是否已点赞
+
+    public CachedMessageEntity() {
+    }
+
+    /**
+     * 由服务端动态创建缓存实体
+     * @param feed 数据流名称
+     * @param position 在数据流中的顺序
+     * @param message 服务端动态
+     * @param cachedAt 写入缓存的时间戳
+     * @return 缓存实体
+     */
+    public static CachedMessageEntity fromMessage(@NonNull String feed, int position, FootprintMessage message, long cachedAt) {
+        CachedMessageEntity entity = new CachedMessageEntity();
+        entity.setFeed(feed);
+        entity.setId(message.getId());
+        entity.setPosition(position);
+        entity.setCachedAt(cachedAt);
+        entity.setCreateBy(message.getCreateBy());
+        entity.setCreateTime(message.getCreateTime());
+        entity.setUpdateBy(message.getUpdateBy());
+        entity.setUpdateTime(message.getUpdateTime());
+        entity.setRemark(message.getRemark());
+        entity.setMsgType(message.getMsgType());
+        entity.setTextContent(message.getTextContent());
+        entity.setTag(message.getTag());
+        entity.setLng(message.getLng());
+        entity.setLat(message.getLat());
+        entity.setLocaltionTitle(message.getLocaltionTitle());
+        entity.setUserId(message.getUserId());
+        entity.setUserAvatar(message.getUserAvatar());
+        entity.setDelFlag(message.getDelFlag());
+        entity.setLikeCount(message.getLikeCount());
+        entity.setCommentCount(message.getCommentCount());
+        entity.setHasLiked(message.getHasLiked());
+        return entity;
+    }
+
+    /**
+     * 转换为服务端动态模型，不含图片文件
+     * @return 足迹动态
+     */
+    public FootprintMessage toMessage() {
+        FootprintMessage message = new FootprintMessage();
+        message.setId(id);
+        message.setCreateBy(createBy);
+        message.setCreateTime(createTime);
+        message.setUpdateBy(updateBy);
+        message.setUpdateTime(updateTime);
+        message.setRemark(remark);
+        message.setMsgType(msgType);
+        message.setTextContent(textContent);
+        message.setTag(tag);
+        message.setLng(lng);
+        message.setLat(lat);
+        message.setLocaltionTitle(localtionTitle);
+        message.setUserId(userId);
+        message.setUserAvatar(userAvatar);
+        message.setDelFlag(delFlag);
+        message.setLikeCount(likeCount);
+        message.setCommentCount(commentCount);
+        message.setHasLiked(hasLiked);
+        return message;
+    }
+
+    @NonNull
+    public String getFeed() {
+        return feed;
+    }
+
+    public void setFeed(@NonNull String feed) {
+        this.feed = feed;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public long getCachedAt() {
+        return cachedAt;
+    }
+
+    public void setCachedAt(long cachedAt) {
+        this.cachedAt = cachedAt;
+    }
+
+    public String getCreateBy() {
+        return createBy;
+    }
+
+    public void setCreateBy(String createBy) {
+        this.createBy = createBy;
+    }
+
+    public String getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(String createTime) {
+        this.createTime = createTime;
+    }
+
+    public String getUpdateBy() {
+        return updateBy;
+    }
+
+    public void setUpdateBy(String updateBy) {
+        this.updateBy = updateBy;
+    }
+
+    public String getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(String updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public void setRemark(String remark) {
+        this.remark = remark;
+    }
+
+    public int getMsgType() {
+        return msgType;
+    }
+
+    public void setMsgType(int msgType) {
+        this.msgType = msgType;
+    }
+
+    public String getTextContent() {
+        return textContent;
+    }
+
+    public void setTextContent(String textContent) {
+        this.textContent = textContent;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+
+    public double getLng() {
+        return lng;
+    }
+
+    public void setLng(double lng) {
+        this.lng = lng;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public void setLat(double lat) {
+        this.lat = lat;
+    }
+
+    public String getLocaltionTitle() {
+        return localtionTitle;
+    }
+
+    public void setLocaltionTitle(String localtionTitle) {
+        this.localtionTitle = localtionTitle;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public String getUserAvatar() {
+        return userAvatar;
+    }
+
+    public void setUserAvatar(String userAvatar) {
+        this.userAvatar = userAvatar;
+    }
+
+    public String getDelFlag() {
+        return delFlag;
+    }
+
+    public void setDelFlag(String delFlag) {
+        this.delFlag = delFlag;
+    }
+
+    public int getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(int likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
+    }
+
+    public boolean getHasLiked() {
+        return hasLiked;
+    }
+
+    public void setHasLiked(boolean hasLiked) {
+        this.hasLiked = hasLiked;
+    }
+}
@@ -0,0 +1,56 @@
+package com.damors.zuji.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * 数据流同步状态实体类
+ * 记录每个数据流已同步到的页码、是否已到末页以及最近一次刷新第一页的时间
+ */
+@Entity(tableName = "feed_remote_keys")
+public class FeedRemoteKey {
+
+    @PrimaryKey
+    @NonNull
+    private String feed = "";     // 数据流名称
+    private int lastPage;         // 已同步的最后一页页码
+    private boolean endReached;   // 是否已到末页
+    private long lastRefreshTime; // 最近一次刷新第一页的时间戳
+
+    public FeedRemoteKey() {
+    }
+
+    @NonNull
+    public String getFeed() {
+        return feed;
+    }
+
+    public void setFeed(@NonNull String feed) {
+        this.feed = feed;
+    }
+
+    public int getLastPage() {
+        return lastPage;
+    }
+
+    public void setLastPage(int lastPage) {
+        this.lastPage = lastPage;
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    public void setEndReached(boolean endReached) {
+        this.endReached = endReached;
+    }
+
+    public long getLastRefreshTime() {
+        return lastRefreshTime;
+    }
+
+    public void setLastRefreshTime(long lastRefreshTime) {
+        this.lastRefreshTime = lastRefreshTime;
+    }
+}
@@ -5,6 +5,7 @@ import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import java.util.List;
@@ -21,7 +22,7 @@ public interface FootprintDao {
      * @param footprint 足迹实体
      */
     @Insert
-    void insert(FootprintEntity footprint);
+    long insert(FootprintEntity footprint);
 
     /**
      * 更新足迹记录
@@ -59,6 +60,14 @@ public interface FootprintDao {
     @Query("SELECT * FROM footprints WHERE id = :id")
     LiveData<FootprintEntity> getFootprintById(int id);
 
+    /**
+     * 根据ID同步获取足迹记录，需在后台线程调用
+     * @param id 足迹ID
+     * @return 足迹实体，不存在时返回null
+     */
+    @Query("SELECT * FROM footprints WHERE id = :id")
+    FootprintEntity getFootprintByIdSync(int id);
+
     /**
      * 获取指定日期范围内的足迹记录
      * @param startTime 开始时间戳
@@ -68,9 +77,169 @@ public interface FootprintDao {
     @Query("SELECT * FROM footprints WHERE timestamp BETWEEN :startTime AND :endTime ORDER BY timestamp DESC")
     LiveData<List<FootprintEntity>> getFootprintsByTimeRange(long startTime, long endTime);
 
+    /**
+     * 获取指定瓦片集合内、且落在矩形区域中的足迹记录，按时间戳降序排列
+     * 先通过tileKey索引缩小范围，再精确过滤经纬度
+     * 需在后台线程调用
+     * @param tileKeys 区域覆盖的瓦片键
+     * @param minLat 最小纬度
+     * @param minLng 最小经度
+     * @param maxLat 最大纬度
+     * @param maxLng 最大经度
+     * @return 足迹列表
+     */
+    @Query("SELECT * FROM footprints WHERE tileKey IN (:tileKeys) " +
+            "AND latitude BETWEEN :minLat AND :maxLat AND longitude BETWEEN :minLng AND :maxLng " +
+            "ORDER BY timestamp DESC")
+    List<FootprintEntity> getFootprintsInTiles(List<Long> tileKeys, double minLat, double minLng,
+                                               double maxLat, double maxLng);
+
+    /**
+     * 获取矩形区域内的足迹记录，按时间戳降序排列
+     * 用于区域过大、瓦片数过多时的退化查询
+     * 需在后台线程调用
+     * @param minLat 最小纬度
+     * @param minLng 最小经度
+     * @param maxLat 最大纬度
+     * @param maxLng 最大经度
+     * @return 足迹列表
+     */
+    @Query("SELECT * FROM footprints " +
+            "WHERE latitude BETWEEN :minLat AND :maxLat AND longitude BETWEEN :minLng AND :maxLng " +
+            "ORDER BY timestamp DESC")
+    List<FootprintEntity> getFootprintsInBounds(double minLat, double minLng, double maxLat, double maxLng);
+
     /**
      * 删除所有足迹记录
      */
     @Query("DELETE FROM footprints")
     void deleteAllFootprints();
-}
\ No newline at end of file
+
+    /**
+     * 清空统计汇总表
+     */
+    @Query("DELETE FROM footprint_stats")
+    void clearStats();
+
+    /**
+     * 确保统计分桶存在，不存在时以0初始化
+     * @param dimension 统计维度
+     * @param bucket 分桶名称
+     */
+    @Query("INSERT OR IGNORE INTO footprint_stats (dimension, bucket, count) VALUES (:dimension, :bucket, 0)")
+    void ensureStatBucket(String dimension, String bucket);
+
+    /**
+     * 调整统计分桶的计数
+     * @param dimension 统计维度
+     * @param bucket 分桶名称
+     * @param delta 计数增量，可为负数
+     */
+    @Query("UPDATE footprint_stats SET count = count + :delta WHERE dimension = :dimension AND bucket = :bucket")
+    void adjustStatBucket(String dimension, String bucket, int delta);
+
+    /**
+     * 删除计数已归零的统计分桶
+     */
+    @Query("DELETE FROM footprint_stats WHERE count <= 0")
+    void pruneEmptyStatBuckets();
+
+    /**
+     * 获取指定维度的所有统计分桶，按数量降序排列
+     * @param dimension 统计维度
+     * @return 统计分桶列表的LiveData
+     */
+    @Query("SELECT * FROM footprint_stats WHERE dimension = :dimension ORDER BY count DESC, bucket ASC")
+    LiveData<List<FootprintStatsEntity>> getStatsByDimension(String dimension);
+
+    /**
+     * 获取指定维度、按分桶名称排序的统计分桶，适用于月份、日期等有序维度
+     * @param dimension 统计维度
+     * @return 统计分桶列表的LiveData
+     */
+    @Query("SELECT * FROM footprint_stats WHERE dimension = :dimension ORDER BY bucket ASC")
+    LiveData<List<FootprintStatsEntity>> getStatsByDimensionOrdered(String dimension);
+
+    /**
+     * 获取指定维度在分桶区间内的统计，如某段日期内每天的足迹数量
+     * @param dimension 统计维度
+     * @param fromBucket 起始分桶（含）
+     * @param toBucket 结束分桶（含）
+     * @return 统计分桶列表的LiveData
+     */
+    @Query("SELECT * FROM footprint_stats WHERE dimension = :dimension AND bucket BETWEEN :fromBucket AND :toBucket " +
+            "ORDER BY bucket ASC")
+    LiveData<List<FootprintStatsEntity>> getStatsInRange(String dimension, String fromBucket, String toBucket);
+
+    /**
+     * 获取足迹时间跨度，借助timestamp索引无需全表扫描
+     * @return 时间跨度的LiveData
+     */
+    @Query("SELECT MIN(timestamp) AS earliestTime, MAX(timestamp) AS latestTime FROM footprints")
+    LiveData<FootprintTimeSpan> getTimeSpan();
+
+    /**
+     * 插入足迹记录并同步更新统计汇总
+     * @param footprint 足迹实体
+     */
+    @Transaction
+    default void insertWithStats(FootprintEntity footprint) {
+        insert(footprint);
+        applyStats(footprint, 1);
+    }
+
+    /**
+     * 更新足迹记录并同步更新统计汇总
+     * @param footprint 足迹实体
+     */
+    @Transaction
+    default void updateWithStats(FootprintEntity footprint) {
+        FootprintEntity old = getFootprintByIdSync(footprint.getId());
+        update(footprint);
+        if (old != null) {
+            applyStats(old, -1);
+            applyStats(footprint, 1);
+            pruneEmptyStatBuckets();
+        }
+    }
+
+    /**
+     * 删除足迹记录并同步更新统计汇总
+     * @param footprint 足迹实体
+     */
+    @Transaction
+    default void deleteWithStats(FootprintEntity footprint) {
+        FootprintEntity old = getFootprintByIdSync(footprint.getId());
+        delete(footprint);
+        if (old != null) {
+            applyStats(old, -1);
+            pruneEmptyStatBuckets();
+        }
+    }
+
+    /**
+     * 删除所有足迹记录并清空统计汇总
+     */
+    @Transaction
+    default void deleteAllWithStats() {
+        deleteAllFootprints();
+        clearStats();
+    }
+
+    /**
+     * 将一条足迹计入（或移出）各维度的统计分桶
+     * @param footprint 足迹实体
+     * @param delta 1表示计入，-1表示移出
+     */
+    default void applyStats(FootprintEntity footprint, int delta) {
+        adjustStat(FootprintStatsEntity.DIMENSION_CATEGORY, FootprintStatsEntity.categoryBucket(footprint), delta);
+        adjustStat(FootprintStatsEntity.DIMENSION_CITY, FootprintStatsEntity.cityBucket(footprint), delta);
+        adjustStat(FootprintStatsEntity.DIMENSION_MONTH, FootprintStatsEntity.monthBucket(footprint.getTimestamp()), delta);
+        adjustStat(FootprintStatsEntity.DIMENSION_DAY, FootprintStatsEntity.dayBucket(footprint.getTimestamp()), delta);
+    }
+
+    default void adjustStat(String dimension, String bucket, int delta) {
+        ensureStatBucket(dimension, bucket);
+        adjustStatBucket(dimension, bucket, delta);
+    }
+}
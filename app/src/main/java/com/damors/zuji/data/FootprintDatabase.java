@@ -2,23 +2,153 @@ package com.damors.zuji.data;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 /**
  * 足迹数据库类
  * 使用Room数据库框架
  */
-@Database(entities = {FootprintEntity.class}, version = 2, exportSchema = false)
+@Database(entities = {FootprintEntity.class, FootprintStatsEntity.class, CachedMessageEntity.class,
+        CachedFileEntity.class, FeedRemoteKey.class, OutboxEntity.class, UploadSessionEntity.class,
+        UploadedHashEntity.class}, version = 10, exportSchema = false)
 public abstract class FootprintDatabase extends RoomDatabase {
 
     // 数据库实例
     private static FootprintDatabase instance;
 
+    /**
+     * 版本2到3：增加(timestamp, id)分页索引
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_footprints_timestamp_id` ON `footprints` (`timestamp`, `id`)");
+        }
+    };
+
+    /**
+     * 版本3到4：增加tileKey瓦片键列及索引，并根据已有经纬度回填
+     * 回填公式需与GeoTileUtil.tileKey保持一致（瓦片边长0.05度）
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `footprints` ADD COLUMN `tileKey` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE `footprints` SET `tileKey` = "
+                    + "(CAST((`latitude` + 90) / 0.05 AS INTEGER) << 32) | CAST((`longitude` + 180) / 0.05 AS INTEGER)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_footprints_tileKey` ON `footprints` (`tileKey`)");
+        }
+    };
+
+    /**
+     * 版本4到5：增加统计汇总表，并根据已有足迹回填各维度分桶
+     * 月份、日期分桶使用本地时区，与FootprintStatsEntity中的计算方式一致
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `footprint_stats` (`dimension` TEXT NOT NULL, `bucket` TEXT NOT NULL, "
+                    + "`count` INTEGER NOT NULL, PRIMARY KEY(`dimension`, `bucket`))");
+            db.execSQL("INSERT INTO `footprint_stats` (`dimension`, `bucket`, `count`) "
+                    + "SELECT 'category', COALESCE(NULLIF(`category`, ''), '未分类'), COUNT(*) FROM `footprints` GROUP BY 2");
+            db.execSQL("INSERT INTO `footprint_stats` (`dimension`, `bucket`, `count`) "
+                    + "SELECT 'city', COALESCE(NULLIF(`cityName`, ''), '未知城市'), COUNT(*) FROM `footprints` GROUP BY 2");
+            db.execSQL("INSERT INTO `footprint_stats` (`dimension`, `bucket`, `count`) "
+                    + "SELECT 'month', strftime('%Y-%m', `timestamp` / 1000, 'unixepoch', 'localtime'), COUNT(*) "
+                    + "FROM `footprints` GROUP BY 2");
+            db.execSQL("INSERT INTO `footprint_stats` (`dimension`, `bucket`, `count`) "
+                    + "SELECT 'day', strftime('%Y-%m-%d', `timestamp` / 1000, 'unixepoch', 'localtime'), COUNT(*) "
+                    + "FROM `footprints` GROUP BY 2");
+        }
+    };
+
+    /**
+     * 版本5到6：增加服务端足迹动态缓存表、图片文件缓存表和数据流同步状态表
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `cached_messages` (`feed` TEXT NOT NULL, `id` INTEGER NOT NULL, "
+                    + "`position` INTEGER NOT NULL, `cachedAt` INTEGER NOT NULL, `createBy` TEXT, `createTime` TEXT, "
+                    + "`updateBy` TEXT, `updateTime` TEXT, `remark` TEXT, `msgType` INTEGER NOT NULL, `textContent` TEXT, "
+                    + "`tag` TEXT, `lng` REAL NOT NULL, `lat` REAL NOT NULL, `localtionTitle` TEXT, `userId` INTEGER NOT NULL, "
+                    + "`userAvatar` TEXT, `delFlag` TEXT, `likeCount` INTEGER NOT NULL, `commentCount` INTEGER NOT NULL, "
+                    + "`hasLiked` INTEGER NOT NULL, PRIMARY KEY(`feed`, `id`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_cached_messages_feed_position` ON `cached_messages` (`feed`, `position`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `cached_files` (`id` INTEGER NOT NULL, `msgId` INTEGER NOT NULL, "
+                    + "`sortOrder` INTEGER NOT NULL, `fileName` TEXT, `fileType` TEXT, `filePath` TEXT, `ofType` TEXT, "
+                    + "`createTime` TEXT, `delFlag` TEXT, PRIMARY KEY(`id`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_cached_files_msgId` ON `cached_files` (`msgId`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `feed_remote_keys` (`feed` TEXT NOT NULL, `lastPage` INTEGER NOT NULL, "
+                    + "`endReached` INTEGER NOT NULL, `lastRefreshTime` INTEGER NOT NULL, PRIMARY KEY(`feed`))");
+        }
+    };
+
+    /**
+     * 版本6到7：增加离线发件箱表
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `outbox_requests` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`idempotencyKey` TEXT NOT NULL, `action` TEXT NOT NULL, `entityKey` TEXT NOT NULL, `payload` TEXT, "
+                    + "`createdAt` INTEGER NOT NULL, `attempts` INTEGER NOT NULL, `lastError` TEXT)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_outbox_requests_idempotencyKey` "
+                    + "ON `outbox_requests` (`idempotencyKey`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_outbox_requests_entityKey` ON `outbox_requests` (`entityKey`)");
+        }
+    };
+
+    /**
+     * 版本7到8：增加分片上传会话表
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `upload_sessions` (`localPath` TEXT NOT NULL, `fileSize` INTEGER NOT NULL, "
+                    + "`lastModified` INTEGER NOT NULL, `contentType` TEXT, `uploadId` TEXT, `chunkSize` INTEGER NOT NULL, "
+                    + "`uploadedBytes` INTEGER NOT NULL, `fileId` TEXT, `remotePath` TEXT, `createdAt` INTEGER NOT NULL, "
+                    + "`updatedAt` INTEGER NOT NULL, PRIMARY KEY(`localPath`))");
+        }
+    };
+
+    /**
+     * 版本8到9：增加已上传文件哈希索引表
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `uploaded_hashes` (`hash` TEXT NOT NULL, `fileId` TEXT, `remotePath` TEXT, "
+                    + "`fileSize` INTEGER NOT NULL, `verifiedAt` INTEGER NOT NULL, PRIMARY KEY(`hash`))");
+        }
+    };
+
+    /**
+     * 版本9到10：发件箱记录入队时的登录用户
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `outbox_requests` ADD COLUMN `ownerId` TEXT");
+        }
+    };
+
     // 获取DAO接口
     public abstract FootprintDao footprintDao();
 
+    public abstract MessageCacheDao messageCacheDao();
+
+    public abstract OutboxDao outboxDao();
+
+    public abstract UploadSessionDao uploadSessionDao();
+
+    public abstract UploadedHashDao uploadedHashDao();
+
     /**
      * 获取数据库实例，使用单例模式
      * @param context 应用上下文
@@ -28,9 +158,11 @@ public abstract class FootprintDatabase extends RoomDatabase {
         if (instance == null) {
             instance = Room.databaseBuilder(context.getApplicationContext(),
                     FootprintDatabase.class, "footprint_database")
-                    .fallbackToDestructiveMigration() // 当版本升级时，重建数据库
+                    .addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7,
+                            MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10)
+                    .fallbackToDestructiveMigration() // 没有对应迁移时，重建数据库
                     .build();
         }
         return instance;
     }
-}
\ No newline at end of file
+}
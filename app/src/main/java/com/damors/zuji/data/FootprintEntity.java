@@ -1,8 +1,11 @@
 package com.damors.zuji.data;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+import com.damors.zuji.utils.GeoTileUtil;
+
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -14,7 +17,11 @@ import java.util.Locale;
  * 足迹实体类，用于存储用户的位置记录
  * 使用Room数据库注解
  */
-@Entity(tableName = "footprints")
+@Entity(tableName = "footprints",
+        indices = {
+                @Index(value = {"timestamp", "id"}), // 支持按时间戳排序和时间范围查询
+                @Index(value = {"tileKey"})           // 支持按地图可视区域查询
+        })
 public class FootprintEntity {
 
     @PrimaryKey(autoGenerate = true)
@@ -33,6 +40,7 @@ public class FootprintEntity {
     private String locationName; // 位置名称
     private String cityName;    // 城市名称
     private String category;    // 足迹分类（如旅游、美食、购物等）
+    private long tileKey;       // 所在地理瓦片键，随经纬度自动更新，见GeoTileUtil
 
     /**
      * 获取格式化的日期字符串
@@ -66,6 +74,7 @@ public class FootprintEntity {
 
     public void setLatitude(double latitude) {
         this.latitude = latitude;
+        this.tileKey = GeoTileUtil.tileKey(this.latitude, this.longitude);
     }
 
     public double getLongitude() {
@@ -74,6 +83,15 @@ public class FootprintEntity {
 
     public void setLongitude(double longitude) {
         this.longitude = longitude;
+        this.tileKey = GeoTileUtil.tileKey(this.latitude, this.longitude);
+    }
+
+    public long getTileKey() {
+        return tileKey;
+    }
+
+    public void setTileKey(long tileKey) {
+        this.tileKey = tileKey;
     }
 
     public long getTimestamp() {
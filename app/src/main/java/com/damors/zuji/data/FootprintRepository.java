@@ -4,6 +4,8 @@ import android.app.Application;
 
 import androidx.lifecycle.LiveData;
 
+import com.damors.zuji.utils.GeoTileUtil;
+
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -64,12 +66,82 @@ public class FootprintRepository {
         return footprintDao.getFootprintsByTimeRange(startTime, endTime);
     }
 
+    /**
+     * 获取分类统计（读取统计汇总表）
+     * @return 分类统计分桶列表的LiveData，按数量降序排列
+     */
+    public LiveData<List<FootprintStatsEntity>> getCategoryStats() {
+        return footprintDao.getStatsByDimension(FootprintStatsEntity.DIMENSION_CATEGORY);
+    }
+
+    /**
+     * 获取城市统计（读取统计汇总表）
+     * @return 城市统计分桶列表的LiveData，按数量降序排列
+     */
+    public LiveData<List<FootprintStatsEntity>> getCityStats() {
+        return footprintDao.getStatsByDimension(FootprintStatsEntity.DIMENSION_CITY);
+    }
+
+    /**
+     * 获取月度统计（读取统计汇总表）
+     * @return 月度统计分桶列表的LiveData，按月份升序排列
+     */
+    public LiveData<List<FootprintStatsEntity>> getMonthlyStats() {
+        return footprintDao.getStatsByDimensionOrdered(FootprintStatsEntity.DIMENSION_MONTH);
+    }
+
+    /**
+     * 获取日期区间内每天的足迹数量（读取统计汇总表）
+     * 没有足迹的日期不会出现在结果中
+     * @param startTime 开始时间戳
+     * @param endTime 结束时间戳
+     * @return 日统计分桶列表的LiveData，按日期升序排列
+     */
+    public LiveData<List<FootprintStatsEntity>> getDailyStats(long startTime, long endTime) {
+        return footprintDao.getStatsInRange(FootprintStatsEntity.DIMENSION_DAY,
+                FootprintStatsEntity.dayBucket(startTime), FootprintStatsEntity.dayBucket(endTime));
+    }
+
+    /**
+     * 获取足迹时间跨度
+     * @return 时间跨度的LiveData
+     */
+    public LiveData<FootprintTimeSpan> getTimeSpan() {
+        return footprintDao.getTimeSpan();
+    }
+
+    /**
+     * 异步查询矩形区域（如地图可视区域）内的足迹记录，按时间戳降序排列
+     * @param minLat 最小纬度
+     * @param minLng 最小经度
+     * @param maxLat 最大纬度
+     * @param maxLng 最大经度
+     * @param callback 查询结果回调，在后台线程执行
+     */
+    public void loadFootprintsInBounds(double minLat, double minLng, double maxLat, double maxLng,
+                                       BoundsCallback callback) {
+        executorService.execute(() -> {
+            List<Long> tileKeys = GeoTileUtil.tilesInBounds(minLat, minLng, maxLat, maxLng);
+            List<FootprintEntity> footprints = tileKeys != null
+                    ? footprintDao.getFootprintsInTiles(tileKeys, minLat, minLng, maxLat, maxLng)
+                    : footprintDao.getFootprintsInBounds(minLat, minLng, maxLat, maxLng);
+            callback.onLoaded(footprints);
+        });
+    }
+
+    /**
+     * 区域查询回调接口
+     */
+    public interface BoundsCallback {
+        void onLoaded(List<FootprintEntity> footprints);
+    }
+
     /**
      * 插入足迹记录
      * @param footprint 足迹实体
      */
     public void insert(FootprintEntity footprint) {
-        executorService.execute(() -> footprintDao.insert(footprint));
+        executorService.execute(() -> footprintDao.insertWithStats(footprint));
     }
 
     /**
@@ -77,7 +149,7 @@ public class FootprintRepository {
      * @param footprint 足迹实体
      */
     public void update(FootprintEntity footprint) {
-        executorService.execute(() -> footprintDao.update(footprint));
+        executorService.execute(() -> footprintDao.updateWithStats(footprint));
     }
 
     /**
@@ -85,13 +157,13 @@ public class FootprintRepository {
      * @param footprint 足迹实体
      */
     public void delete(FootprintEntity footprint) {
-        executorService.execute(() -> footprintDao.delete(footprint));
+        executorService.execute(() -> footprintDao.deleteWithStats(footprint));
     }
 
     /**
      * 删除所有足迹记录
      */
     public void deleteAllFootprints() {
-        executorService.execute(footprintDao::deleteAllFootprints);
+        executorService.execute(footprintDao::deleteAllWithStats);
     }
 }
\ No newline at end of file
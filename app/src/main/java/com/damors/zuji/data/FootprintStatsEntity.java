@@ -0,0 +1,101 @@
+package com.damors.zuji.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * 足迹统计汇总实体类
+ * 按维度（分类、城市、月份、日期）保存每个分桶的足迹数量，
+ * 在足迹插入、更新、删除时由FootprintDao同步增减，统计时直接读取分桶即可
+ */
+@Entity(tableName = "footprint_stats", primaryKeys = {"dimension", "bucket"})
+public class FootprintStatsEntity {
+
+    // 统计维度
+    public static final String DIMENSION_CATEGORY = "category";
+    public static final String DIMENSION_CITY = "city";
+    public static final String DIMENSION_MONTH = "month";
+    public static final String DIMENSION_DAY = "day";
+
+    // 空值分桶名称
+    public static final String UNCATEGORIZED = "未分类";
+    public static final String UNKNOWN_CITY = "未知城市";
+
+    @NonNull
+    private String dimension; // 统计维度
+    @NonNull
+    private String bucket;    // 分桶名称，如分类名、城市名、yyyy-MM、yyyy-MM-dd
+    private int count;        // 足迹数量
+
+    public FootprintStatsEntity(@NonNull String dimension, @NonNull String bucket, int count) {
+        this.dimension = dimension;
+        this.bucket = bucket;
+        this.count = count;
+    }
+
+    @NonNull
+    public String getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(@NonNull String dimension) {
+        this.dimension = dimension;
+    }
+
+    @NonNull
+    public String getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(@NonNull String bucket) {
+        this.bucket = bucket;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    /**
+     * 获取足迹所属的分类分桶
+     */
+    public static String categoryBucket(FootprintEntity footprint) {
+        String category = footprint.getCategory();
+        return category == null || category.isEmpty() ? UNCATEGORIZED : category;
+    }
+
+    /**
+     * 获取足迹所属的城市分桶
+     */
+    public static String cityBucket(FootprintEntity footprint) {
+        String city = footprint.getCityName();
+        return city == null || city.isEmpty() ? UNKNOWN_CITY : city;
+    }
+
+    /**
+     * 获取时间戳所属的月份分桶（本地时区，格式：yyyy-MM）
+     */
+    public static String monthBucket(long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        return String.format(Locale.US, "%04d-%02d",
+                calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1);
+    }
+
+    /**
+     * 获取时间戳所属的日期分桶（本地时区，格式：yyyy-MM-dd）
+     */
+    public static String dayBucket(long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        return String.format(Locale.US, "%04d-%02d-%02d",
+                calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1,
+                calendar.get(Calendar.DAY_OF_MONTH));
+    }
+}
@@ -0,0 +1,34 @@
+package com.damors.zuji.data;
+
+/**
+ * 足迹时间跨度
+ * 用于接收最早、最晚足迹时间的聚合查询结果，没有足迹时两者均为null
+ */
+public class FootprintTimeSpan {
+
+    private Long earliestTime; // 最早足迹时间戳
+    private Long latestTime;   // 最晚足迹时间戳
+
+    public Long getEarliestTime() {
+        return earliestTime;
+    }
+
+    public void setEarliestTime(Long earliestTime) {
+        this.earliestTime = earliestTime;
+    }
+
+    public Long getLatestTime() {
+        return latestTime;
+    }
+
+    public void setLatestTime(Long latestTime) {
+        this.latestTime = latestTime;
+    }
+
+    /**
+     * 是否存在足迹数据
+     */
+    public boolean isEmpty() {
+        return earliestTime == null || latestTime == null;
+    }
+}
@@ -0,0 +1,257 @@
+package com.damors.zuji.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.damors.zuji.model.FootprintMessage;
+import com.damors.zuji.model.GuluFile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 服务端足迹动态缓存数据访问对象接口
+ * 按数据流分页读写缓存的动态及其图片文件，并维护数据流同步状态
+ */
+@Dao
+public interface MessageCacheDao {
+
+    /**
+     * 按顺序读取数据流中的一段缓存动态
+     * @param feed 数据流名称
+     * @param fromPosition 起始顺序（含）
+     * @param toPosition 结束顺序（不含）
+     * @return 缓存动态列表
+     */
+    @Query("SELECT * FROM cached_messages WHERE feed = :feed AND position >= :fromPosition AND position < :toPosition "
+            + "ORDER BY position ASC")
+    List<CachedMessageEntity> getMessagesInRange(String feed, int fromPosition, int toPosition);
+
+    /**
+     * 读取数据流中位于矩形区域内的缓存动态
+     */
+    @Query("SELECT * FROM cached_messages WHERE feed = :feed AND lat BETWEEN :minLat AND :maxLat "
+            + "AND lng BETWEEN :minLng AND :maxLng ORDER BY position ASC LIMIT :limit")
+    List<CachedMessageEntity> getMessagesInBounds(String feed, double minLat, double minLng,
+                                                  double maxLat, double maxLng, int limit);
+
+    @Query("SELECT * FROM cached_files WHERE msgId IN (:msgIds) ORDER BY msgId, sortOrder")
+    List<CachedFileEntity> getFilesForMessages(List<Integer> msgIds);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertMessages(List<CachedMessageEntity> messages);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertFiles(List<CachedFileEntity> files);
+
+    @Query("DELETE FROM cached_files WHERE msgId IN (:msgIds)")
+    void deleteFilesForMessages(List<Integer> msgIds);
+
+    @Query("DELETE FROM cached_messages WHERE feed = :feed")
+    void deleteFeed(String feed);
+
+    @Query("DELETE FROM cached_messages WHERE feed = :feed AND position >= :fromPosition")
+    void deleteFeedFrom(String feed, int fromPosition);
+
+    @Query("DELETE FROM cached_messages WHERE id = :msgId")
+    void deleteMessage(int msgId);
+
+    /**
+     * 删除已没有动态引用的图片文件
+     */
+    @Query("DELETE FROM cached_files WHERE msgId NOT IN (SELECT id FROM cached_messages)")
+    void pruneOrphanFiles();
+
+    @Query("UPDATE cached_messages SET hasLiked = :hasLiked, likeCount = :likeCount WHERE id = :msgId")
+    void updateLike(int msgId, boolean hasLiked, int likeCount);
+
+    /**
+     * 只保留数据流中最近写入的若干条动态
+     */
+    @Query("DELETE FROM cached_messages WHERE feed = :feed AND id NOT IN "
+            + "(SELECT id FROM cached_messages WHERE feed = :feed ORDER BY cachedAt DESC LIMIT :maxCount)")
+    void trimFeed(String feed, int maxCount);
+
+    @Query("SELECT * FROM feed_remote_keys WHERE feed = :feed")
+    FeedRemoteKey getRemoteKey(String feed);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertRemoteKey(FeedRemoteKey key);
+
+    @Query("DELETE FROM feed_remote_keys")
+    void deleteRemoteKeys();
+
+    @Query("SELECT COUNT(*) FROM cached_messages WHERE feed = :feed")
+    int getMessageCount(String feed);
+
+    @Query("SELECT MIN(cachedAt) FROM cached_messages WHERE feed = :feed")
+    Long getOldestCachedAt(String feed);
+
+    @Query("SELECT MIN(cachedAt) FROM cached_messages WHERE feed = :feed AND position >= :fromPosition "
+            + "AND position < :toPosition")
+    Long getOldestCachedAtInRange(String feed, int fromPosition, int toPosition);
+
+    @Query("SELECT COUNT(*) FROM cached_messages")
+    int getTotalMessageCount();
+
+    @Query("SELECT COUNT(*) FROM cached_files")
+    int getTotalFileCount();
+
+    /**
+     * 清空全部数据流的缓存，缓存中的点赞状态等属于当前登录用户，登出时调用
+     */
+    @Transaction
+    default void clearAll() {
+        deleteFeed(MessageFeedRepository.FEED_MESSAGES);
+        deleteFeed(MessageFeedRepository.FEED_MAP);
+        deleteRemoteKeys();
+        pruneOrphanFiles();
+    }
+
+    /**
+     * 读取数据流中的一页缓存动态，并填充图片文件
+     * @param feed 数据流名称
+     * @param pageNum 页码，从1开始
+     * @param pageSize 每页大小
+     * @return 足迹动态列表，没有缓存时为空列表
+     */
+    @Transaction
+    default List<FootprintMessage> loadPage(String feed, int pageNum, int pageSize) {
+        int from = (pageNum - 1) * pageSize;
+        return toMessages(getMessagesInRange(feed, from, from + pageSize));
+    }
+
+    /**
+     * 写入一页服务端动态：第一页替换整个数据流，其余页替换该页及之后的缓存
+     * @param feed 数据流名称
+     * @param pageNum 页码，从1开始
+     * @param pageSize 每页大小
+     * @param messages 服务端动态
+     * @param endReached 是否已到末页
+     * @param now 当前时间戳
+     */
+    @Transaction
+    default void savePage(String feed, int pageNum, int pageSize, List<FootprintMessage> messages,
+                          boolean endReached, long now) {
+        int from = (pageNum - 1) * pageSize;
+        if (pageNum <= 1) {
+            deleteFeed(feed);
+        } else {
+            deleteFeedFrom(feed, from);
+        }
+
+        List<CachedMessageEntity> entities = new ArrayList<>(messages.size());
+        List<Integer> msgIds = new ArrayList<>(messages.size());
+        List<CachedFileEntity> files = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            FootprintMessage message = messages.get(i);
+            entities.add(CachedMessageEntity.fromMessage(feed, from + i, message, now));
+            msgIds.add(message.getId());
+            List<GuluFile> guluFiles = message.getGuluFiles();
+            if (guluFiles != null) {
+                for (int j = 0; j < guluFiles.size(); j++) {
+                    files.add(CachedFileEntity.fromFile(message.getId(), j, guluFiles.get(j)));
+                }
+            }
+        }
+        if (!msgIds.isEmpty()) {
+            deleteFilesForMessages(msgIds);
+            insertMessages(entities);
+        }
+        if (!files.isEmpty()) {
+            insertFiles(files);
+        }
+        pruneOrphanFiles();
+
+        FeedRemoteKey key = getRemoteKey(feed);
+        if (key == null) {
+            key = new FeedRemoteKey();
+            key.setFeed(feed);
+        }
+        key.setLastPage(pageNum);
+        key.setEndReached(endReached);
+        if (pageNum <= 1) {
+            key.setLastRefreshTime(now);
+        }
+        upsertRemoteKey(key);
+    }
+
+    /**
+     * 合并写入一批不分页的服务端动态（如地图区域数据），已有的同ID动态被覆盖
+     * @param feed 数据流名称
+     * @param messages 服务端动态
+     * @param maxCount 数据流最多保留的动态数量
+     * @param now 当前时间戳
+     */
+    @Transaction
+    default void mergeMessages(String feed, List<FootprintMessage> messages, int maxCount, long now) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<CachedMessageEntity> entities = new ArrayList<>(messages.size());
+        List<Integer> msgIds = new ArrayList<>(messages.size());
+        List<CachedFileEntity> files = new ArrayList<>();
+        for (FootprintMessage message : messages) {
+            entities.add(CachedMessageEntity.fromMessage(feed, 0, message, now));
+            msgIds.add(message.getId());
+            List<GuluFile> guluFiles = message.getGuluFiles();
+            if (guluFiles != null) {
+                for (int j = 0; j < guluFiles.size(); j++) {
+                    files.add(CachedFileEntity.fromFile(message.getId(), j, guluFiles.get(j)));
+                }
+            }
+        }
+        deleteFilesForMessages(msgIds);
+        insertMessages(entities);
+        if (!files.isEmpty()) {
+            insertFiles(files);
+        }
+        trimFeed(feed, maxCount);
+        pruneOrphanFiles();
+    }
+
+    /**
+     * 从所有数据流中删除一条动态，通常在服务端删除成功后调用
+     * @param msgId 动态ID
+     */
+    @Transaction
+    default void evictMessage(int msgId) {
+        deleteMessage(msgId);
+        pruneOrphanFiles();
+    }
+
+    /**
+     * 将缓存实体转换为足迹动态，并按顺序填充图片文件
+     */
+    default List<FootprintMessage> toMessages(List<CachedMessageEntity> entities) {
+        List<FootprintMessage> messages = new ArrayList<>(entities.size());
+        if (entities.isEmpty()) {
+            return messages;
+        }
+        List<Integer> msgIds = new ArrayList<>(entities.size());
+        for (CachedMessageEntity entity : entities) {
+            msgIds.add(entity.getId());
+        }
+        Map<Integer, List<GuluFile>> filesByMsg = new HashMap<>();
+        for (CachedFileEntity file : getFilesForMessages(msgIds)) {
+            List<GuluFile> list = filesByMsg.get(file.getMsgId());
+            if (list == null) {
+                list = new ArrayList<>();
+                filesByMsg.put(file.getMsgId(), list);
+            }
+            list.add(file.toFile());
+        }
+        for (CachedMessageEntity entity : entities) {
+            FootprintMessage message = entity.toMessage();
+            List<GuluFile> files = filesByMsg.get(entity.getId());
+            message.setGuluFiles(files != null ? files : new ArrayList<>());
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,304 @@
+package com.damors.zuji.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.damors.zuji.model.FootprintMessage;
+import com.damors.zuji.model.response.BaseResponse;
+import com.damors.zuji.model.response.FootprintMessageResponse;
+import com.damors.zuji.network.ApiConfig;
+import com.damors.zuji.network.RetrofitApiService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务端足迹动态数据仓库
+ * 离线优先：先从Room缓存读取并立即回调，缓存过期或强制刷新时再请求网络，
+ * 网络结果写回缓存后再次回调（stale-while-revalidate）。网络不可用时继续展示缓存。
+ * 同时统计缓存命中、重新验证、离线兜底次数和缓存年龄
+ */
+public class MessageFeedRepository {
+    private static final String TAG = "MessageFeedRepository";
+
+    /**
+     * 足迹动态列表数据流（getMsgList）
+     */
+    public static final String FEED_MESSAGES = "messages";
+
+    /**
+     * 地图mark数据流（区域数据合并缓存）
+     */
+    public static final String FEED_MAP = "map";
+
+    /**
+     * 缓存新鲜期（毫秒），期间内直接使用缓存，不再请求网络
+     */
+    public static final long FRESH_WINDOW_MS = 60 * 1000;
+
+    // 地图数据流最多保留的动态数量
+    private static final int MAX_MAP_MESSAGES = 2000;
+
+    private static MessageFeedRepository instance;
+
+    private final MessageCacheDao cacheDao;
+    private final RetrofitApiService apiService;
+    private final ExecutorService executorService;
+    private final Handler mainHandler;
+
+    // 缓存指标
+    private final AtomicInteger cacheHitCount = new AtomicInteger();
+    private final AtomicInteger cacheMissCount = new AtomicInteger();
+    private final AtomicInteger freshHitCount = new AtomicInteger();
+    private final AtomicInteger revalidateCount = new AtomicInteger();
+    private final AtomicInteger offlineServeCount = new AtomicInteger();
+    private final AtomicLong servedAgeTotalMs = new AtomicLong();
+    private final AtomicLong servedAgeMaxMs = new AtomicLong();
+
+    // 清空缓存时递增，清空前发出的请求结果不再写入缓存
+    private final AtomicInteger cacheGeneration = new AtomicInteger();
+
+    public static synchronized MessageFeedRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new MessageFeedRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private MessageFeedRepository(Context context) {
+        this.cacheDao = FootprintDatabase.getInstance(context).messageCacheDao();
+        this.apiService = RetrofitApiService.getInstance(context);
+        this.executorService = Executors.newSingleThreadExecutor();
+        this.mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * 加载足迹动态列表的一页
+     * 有缓存时先回调onCachedPage；缓存新鲜且不强制刷新时到此结束，否则继续请求网络
+     * @param pageNum 页码，从1开始
+     * @param pageSize 每页大小
+     * @param forceRefresh 是否忽略新鲜期强制请求网络（如下拉刷新）
+     * @param callback 回调，均在主线程执行
+     */
+    public void loadMessagePage(int pageNum, int pageSize, boolean forceRefresh, PageCallback callback) {
+        executorService.execute(() -> {
+            int from = (pageNum - 1) * pageSize;
+            List<FootprintMessage> cached = cacheDao.loadPage(FEED_MESSAGES, pageNum, pageSize);
+            Long oldest = cacheDao.getOldestCachedAtInRange(FEED_MESSAGES, from, from + pageSize);
+            FeedRemoteKey key = cacheDao.getRemoteKey(FEED_MESSAGES);
+
+            long age = oldest != null ? Math.max(0, System.currentTimeMillis() - oldest) : -1;
+            boolean hasCache = !cached.isEmpty();
+            boolean complete = cached.size() >= pageSize
+                    || (key != null && key.isEndReached() && key.getLastPage() == pageNum);
+            boolean fresh = hasCache && complete && !forceRefresh && age < FRESH_WINDOW_MS;
+
+            if (hasCache) {
+                recordServed(age);
+                if (fresh) {
+                    freshHitCount.incrementAndGet();
+                }
+            } else {
+                cacheMissCount.incrementAndGet();
+            }
+
+            mainHandler.post(() -> {
+                if (hasCache) {
+                    callback.onCachedPage(cached, age, !fresh);
+                }
+                if (!fresh) {
+                    if (hasCache) {
+                        revalidateCount.incrementAndGet();
+                    }
+                    if (forceRefresh) {
+                        // 跳过HTTP响应缓存的有效期，向服务端重新验证
+                        apiService.expireResponseCache(ApiConfig.Endpoints.GET_MSG_LIST);
+                    }
+                    fetchMessagePage(pageNum, pageSize, hasCache, callback);
+                }
+            });
+        });
+    }
+
+    private void fetchMessagePage(int pageNum, int pageSize, boolean hasCache, PageCallback callback) {
+        int generation = cacheGeneration.get();
+        apiService.getFootprintMessages(pageNum, pageSize,
+                new RetrofitApiService.SuccessCallback<BaseResponse<FootprintMessageResponse.Data>>() {
+                    @Override
+                    public void onSuccess(BaseResponse<FootprintMessageResponse.Data> response) {
+                        if (response.getCode() != 200 || response.getData() == null) {
+                            String msg = response.getMsg() != null ? response.getMsg() : "加载失败";
+                            failPage(msg, hasCache, callback);
+                            return;
+                        }
+                        List<FootprintMessage> records = response.getData().getRecords();
+                        if (records == null) {
+                            records = new ArrayList<>();
+                        }
+                        boolean endReached = records.size() < pageSize;
+                        List<FootprintMessage> toSave = records;
+                        executorService.execute(() -> {
+                            if (generation == cacheGeneration.get()) {
+                                cacheDao.savePage(FEED_MESSAGES, pageNum, pageSize, toSave, endReached,
+                                        System.currentTimeMillis());
+                            }
+                        });
+                        callback.onRemotePage(records, endReached);
+                    }
+                },
+                errorMessage -> failPage(errorMessage, hasCache, callback));
+    }
+
+    private void failPage(String errorMessage, boolean hasCache, PageCallback callback) {
+        if (hasCache) {
+            offlineServeCount.incrementAndGet();
+            Log.w(TAG, "网络请求失败，继续使用缓存数据: " + errorMessage);
+        }
+        callback.onError(errorMessage, hasCache);
+    }
+
+    /**
+     * 将地图区域数据合并写入缓存
+     * @param messages 服务端动态
+     */
+    public void cacheMapMarks(List<FootprintMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        List<FootprintMessage> copy = new ArrayList<>(messages);
+        int generation = cacheGeneration.get();
+        executorService.execute(() -> {
+            if (generation == cacheGeneration.get()) {
+                cacheDao.mergeMessages(FEED_MAP, copy, MAX_MAP_MESSAGES, System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * 清空全部缓存的动态，登出时调用
+     * 缓存中的点赞状态属于上一个用户，不能展示给下一个登录的用户
+     */
+    public void clearCache() {
+        cacheGeneration.incrementAndGet();
+        executorService.execute(cacheDao::clearAll);
+    }
+
+    /**
+     * 读取缓存中位于矩形区域内的地图数据
+     * @param limit 最多返回的数量
+     * @param callback 结果回调，在主线程执行
+     */
+    public void loadCachedMapMarks(double minLat, double minLng, double maxLat, double maxLng, int limit,
+                                   ResultCallback<List<FootprintMessage>> callback) {
+        executorService.execute(() -> {
+            List<FootprintMessage> cached = cacheDao.toMessages(
+                    cacheDao.getMessagesInBounds(FEED_MAP, minLat, minLng, maxLat, maxLng, limit));
+            if (cached.isEmpty()) {
+                cacheMissCount.incrementAndGet();
+            } else {
+                cacheHitCount.incrementAndGet();
+            }
+            mainHandler.post(() -> callback.onResult(cached));
+        });
+    }
+
+    /**
+     * 记录一次离线兜底（网络失败时使用了缓存数据）
+     */
+    public void recordOfflineServe() {
+        offlineServeCount.incrementAndGet();
+    }
+
+    /**
+     * 从缓存中删除一条动态，在服务端删除成功后调用
+     * @param msgId 动态ID
+     */
+    public void evictMessage(int msgId) {
+        executorService.execute(() -> cacheDao.evictMessage(msgId));
+    }
+
+    /**
+     * 同步缓存中的点赞状态
+     * @param msgId 动态ID
+     * @param hasLiked 是否已点赞
+     * @param likeCount 点赞数量
+     */
+    public void updateLike(int msgId, boolean hasLiked, int likeCount) {
+        executorService.execute(() -> cacheDao.updateLike(msgId, hasLiked, likeCount));
+    }
+
+    /**
+     * 获取数据流的缓存年龄，即最早写入的缓存距今的时间
+     * @param feed 数据流名称
+     * @param callback 结果回调，在主线程执行，没有缓存时为-1
+     */
+    public void getCacheAge(String feed, ResultCallback<Long> callback) {
+        executorService.execute(() -> {
+            Long oldest = cacheDao.getOldestCachedAt(feed);
+            long age = oldest != null ? Math.max(0, System.currentTimeMillis() - oldest) : -1;
+            mainHandler.post(() -> callback.onResult(age));
+        });
+    }
+
+    /**
+     * 获取缓存统计信息
+     * @return 统计信息字符串
+     */
+    public String getCacheStats() {
+        int served = cacheHitCount.get();
+        long avgAge = served > 0 ? servedAgeTotalMs.get() / served : 0;
+        return "缓存命中: " + served + " (新鲜: " + freshHitCount.get() + ")"
+                + ", 未命中: " + cacheMissCount.get()
+                + ", 后台刷新: " + revalidateCount.get()
+                + ", 离线兜底: " + offlineServeCount.get()
+                + ", 平均缓存年龄: " + avgAge / 1000 + "秒"
+                + ", 最大缓存年龄: " + servedAgeMaxMs.get() / 1000 + "秒";
+    }
+
+    private void recordServed(long ageMs) {
+        cacheHitCount.incrementAndGet();
+        servedAgeTotalMs.addAndGet(ageMs);
+        servedAgeMaxMs.accumulateAndGet(ageMs, Math::max);
+    }
+
+    /**
+     * 分页加载回调
+     */
+    public interface PageCallback {
+        /**
+         * 缓存数据
+         * @param messages 缓存的足迹动态
+         * @param cacheAgeMs 缓存年龄（毫秒）
+         * @param revalidating 是否会继续请求网络；为false时本次加载到此结束
+         */
+        void onCachedPage(List<FootprintMessage> messages, long cacheAgeMs, boolean revalidating);
+
+        /**
+         * 网络数据，已写入缓存
+         * @param messages 足迹动态
+         * @param endReached 是否已到末页
+         */
+        void onRemotePage(List<FootprintMessage> messages, boolean endReached);
+
+        /**
+         * 网络请求失败
+         * @param errorMessage 错误消息
+         * @param servedFromCache 是否已经回调过缓存数据
+         */
+        void onError(String errorMessage, boolean servedFromCache);
+    }
+
+    /**
+     * 结果回调
+     * @param <T> 结果类型
+     */
+    public interface ResultCallback<T> {
+        void onResult(T result);
+    }
+}
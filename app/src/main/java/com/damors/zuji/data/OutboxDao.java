@@ -0,0 +1,54 @@
+package com.damors.zuji.data;
+
+import androidx.room.Dao;
+import androidx.room.Delete;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.List;
+
+/**
+ * 离线发件箱数据访问对象接口
+ */
+@Dao
+public interface OutboxDao {
+
+    @Insert
+    long insert(OutboxEntity entity);
+
+    @Update
+    void update(OutboxEntity entity);
+
+    @Delete
+    void delete(OutboxEntity entity);
+
+    /**
+     * 按提交顺序读取一批待提交的操作
+     * @param limit 最多读取的数量
+     * @return 操作列表
+     */
+    @Query("SELECT * FROM outbox_requests ORDER BY id ASC LIMIT :limit")
+    List<OutboxEntity> getPending(int limit);
+
+    /**
+     * 读取指定用户对指定实体最后一个待提交的操作
+     * @param ownerId 用户ID
+     * @param entityKey 实体键
+     * @return 操作，没有时返回null
+     */
+    @Query("SELECT * FROM outbox_requests WHERE ownerId IS :ownerId AND entityKey = :entityKey ORDER BY id DESC LIMIT 1")
+    OutboxEntity getLastForEntity(String ownerId, String entityKey);
+
+    /**
+     * 读取指定用户对指定实体第一个待提交的操作
+     * @param ownerId 用户ID
+     * @param entityKey 实体键
+     * @return 操作，没有时返回null
+     */
+    @Query("SELECT * FROM outbox_requests WHERE ownerId IS :ownerId AND entityKey = :entityKey ORDER BY id ASC LIMIT 1")
+    OutboxEntity getFirstForEntity(String ownerId, String entityKey);
+
+    @Query("SELECT COUNT(*) FROM outbox_requests")
+    int getPendingCount();
+}
@@ -0,0 +1,121 @@
+package com.damors.zuji.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * 离线发件箱实体类
+ * 保存尚未成功提交到服务端的写操作（点赞、评论、删除、发布）。
+ * id自增，同一实体（entityKey）的操作严格按id顺序提交；
+ * idempotencyKey随请求发送给服务端，重试时保持不变，服务端据此去重；
+ * ownerId记录入队时的登录用户，只以该用户的身份提交
+ */
+@Entity(tableName = "outbox_requests",
+        indices = {
+                @Index(value = {"idempotencyKey"}, unique = true),
+                @Index(value = {"entityKey"})
+        })
+public class OutboxEntity {
+
+    // 操作类型
+    public static final String ACTION_TOGGLE_LIKE = "toggleLike";
+    public static final String ACTION_ADD_COMMENT = "addComment";
+    public static final String ACTION_DELETE_COMMENT = "deleteComment";
+    public static final String ACTION_DELETE_FOOTPRINT = "deleteFootprint";
+    public static final String ACTION_PUBLISH_FOOTPRINT = "publishFootprint";
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @NonNull
+    private String idempotencyKey = ""; // 幂等键
+    @NonNull
+    private String action = "";         // 操作类型
+    @NonNull
+    private String entityKey = "";      // 操作的实体，如 msg:12、comment:5
+    private String payload;             // 请求参数JSON
+    private long createdAt;             // 创建时间戳
+    private int attempts;               // 已尝试次数
+    private String lastError;           // 最近一次失败原因
+    private String ownerId;             // 入队时登录用户的ID
+
+    public OutboxEntity() {
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(@NonNull String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    @NonNull
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(@NonNull String action) {
+        this.action = action;
+    }
+
+    @NonNull
+    public String getEntityKey() {
+        return entityKey;
+    }
+
+    public void setEntityKey(@NonNull String entityKey) {
+        this.entityKey = entityKey;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+}
@@ -0,0 +1,43 @@
+package com.damors.zuji.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+/**
+ * 分片上传会话数据访问对象接口
+ */
+@Dao
+public interface UploadSessionDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertOrUpdate(UploadSessionEntity entity);
+
+    @Query("SELECT * FROM upload_sessions WHERE localPath = :localPath")
+    UploadSessionEntity get(String localPath);
+
+    /**
+     * 更新已确认的字节数，每个分片上传成功后调用
+     */
+    @Query("UPDATE upload_sessions SET uploadedBytes = :uploadedBytes, updatedAt = :updatedAt WHERE localPath = :localPath")
+    void updateUploadedBytes(String localPath, long uploadedBytes, long updatedAt);
+
+    @Query("DELETE FROM upload_sessions WHERE localPath = :localPath")
+    void delete(String localPath);
+
+    /**
+     * 删除目录下所有文件的会话
+     * @param dirPath 目录绝对路径，不含末尾的分隔符
+     */
+    @Query("DELETE FROM upload_sessions WHERE localPath LIKE :dirPath || '/%'")
+    void deleteUnderDirectory(String dirPath);
+
+    /**
+     * 删除长时间未更新的会话，服务端会话此时通常已过期
+     * @param before 时间戳，早于该时间的会话被删除
+     * @return 删除的数量
+     */
+    @Query("DELETE FROM upload_sessions WHERE updatedAt < :before")
+    int deleteUpdatedBefore(long before);
+}
@@ -0,0 +1,128 @@
+package com.damors.zuji.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * 分片上传会话实体类
+ * 记录本地文件对应的服务端上传会话和已确认的偏移量，进程被杀或网络中断后据此续传。
+ * 以本地文件路径为主键，文件大小或修改时间变化时视为新文件重新上传；
+ * 上传完成后保存服务端返回的文件ID，发布时直接引用
+ */
+@Entity(tableName = "upload_sessions")
+public class UploadSessionEntity {
+
+    @PrimaryKey
+    @NonNull
+    private String localPath = "";  // 本地文件绝对路径
+    private long fileSize;          // 文件大小（字节）
+    private long lastModified;      // 文件修改时间
+    private String contentType;     // 文件类型
+    private String uploadId;        // 服务端上传会话ID
+    private int chunkSize;          // 分片大小（字节），以服务端返回为准
+    private long uploadedBytes;     // 服务端已确认接收的字节数
+    private String fileId;          // 上传完成后服务端返回的文件ID
+    private String remotePath;      // 上传完成后服务端返回的文件路径
+    private long createdAt;         // 会话创建时间戳
+    private long updatedAt;         // 最近一次更新时间戳
+
+    public UploadSessionEntity() {
+    }
+
+    @NonNull
+    public String getLocalPath() {
+        return localPath;
+    }
+
+    public void setLocalPath(@NonNull String localPath) {
+        this.localPath = localPath;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public void setUploadedBytes(long uploadedBytes) {
+        this.uploadedBytes = uploadedBytes;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getRemotePath() {
+        return remotePath;
+    }
+
+    public void setRemotePath(String remotePath) {
+        this.remotePath = remotePath;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * 是否已上传完成
+     */
+    public boolean isCompleted() {
+        return fileId != null;
+    }
+}
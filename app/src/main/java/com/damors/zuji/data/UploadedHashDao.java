@@ -0,0 +1,38 @@
+package com.damors.zuji.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * 已上传文件哈希索引数据访问对象接口
+ */
+@Dao
+public interface UploadedHashDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertOrUpdate(UploadedHashEntity entity);
+
+    /**
+     * 批量查询确认时间不早于指定时间的记录
+     * @param hashes 文件哈希
+     * @param verifiedAfter 时间戳
+     * @return 找到的记录
+     */
+    @Query("SELECT * FROM uploaded_hashes WHERE hash IN (:hashes) AND verifiedAt >= :verifiedAfter")
+    List<UploadedHashEntity> getVerified(List<String> hashes, long verifiedAfter);
+
+    @Query("DELETE FROM uploaded_hashes WHERE hash = :hash")
+    void delete(String hash);
+
+    /**
+     * 删除长时间未确认的记录，服务端文件可能已被清理
+     * @param before 时间戳
+     * @return 删除的数量
+     */
+    @Query("DELETE FROM uploaded_hashes WHERE verifiedAt < :before")
+    int deleteVerifiedBefore(long before);
+}
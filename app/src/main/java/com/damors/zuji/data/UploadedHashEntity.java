@@ -0,0 +1,65 @@
+package com.damors.zuji.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * 已上传文件哈希索引实体类
+ * 记录文件内容的SHA-256与服务端文件的对应关系，内容相同的图片再次发布时直接引用，不再上传
+ */
+@Entity(tableName = "uploaded_hashes")
+public class UploadedHashEntity {
+
+    @PrimaryKey
+    @NonNull
+    private String hash = "";       // 文件内容SHA-256
+    private String fileId;          // 服务端文件ID
+    private String remotePath;      // 服务端文件路径
+    private long fileSize;          // 文件大小（字节）
+    private long verifiedAt;        // 最近一次上传或经服务端确认的时间戳
+
+    public UploadedHashEntity() {
+    }
+
+    @NonNull
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(@NonNull String hash) {
+        this.hash = hash;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getRemotePath() {
+        return remotePath;
+    }
+
+    public void setRemotePath(String remotePath) {
+        this.remotePath = remotePath;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public long getVerifiedAt() {
+        return verifiedAt;
+    }
+
+    public void setVerifiedAt(long verifiedAt) {
+        this.verifiedAt = verifiedAt;
+    }
+}
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.text.TextUtils;
 
+import com.damors.zuji.data.MessageFeedRepository;
 import com.damors.zuji.network.RetrofitApiService;
 import com.damors.zuji.model.UserInfoResponse;
 import com.damors.zuji.model.response.BaseResponse;
@@ -143,6 +144,9 @@ public class UserManager {
         try {
             if (context != null) {
                 clearLegacyLoginData(context);
+                // 清除上一个用户的接口响应缓存和动态缓存
+                RetrofitApiService.getInstance(context).clearResponseCache();
+                MessageFeedRepository.getInstance(context).clearCache();
             }
         } catch (Exception e) {
             android.util.Log.e("UserManager", "清理旧数据时发生错误", e);
@@ -1,12 +1,14 @@
 package com.damors.zuji.model;
 
+import com.damors.zuji.cluster.ClusterItem;
+
 import java.util.List;
 
 /**
  * 足迹动态实体类
  * 用于表示用户发布的足迹动态信息
  */
-public class FootprintMessage {
+public class FootprintMessage implements ClusterItem {
     
     /**
      * 创建者
@@ -196,6 +198,16 @@ public class FootprintMessage {
         this.lat = lat;
     }
     
+    @Override
+    public double getLatitude() {
+        return lat;
+    }
+    
+    @Override
+    public double getLongitude() {
+        return lng;
+    }
+    
     public String getLocaltionTitle() {
         return localtionTitle;
     }
@@ -167,6 +167,26 @@ public class GuluFile {
         this.delFlag = delFlag;
     }
     
+    /**
+     * 以ID和文件路径判断是否同一文件，图片加载按此复用内存缓存
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GuluFile)) {
+            return false;
+        }
+        GuluFile other = (GuluFile) o;
+        return id == other.id && java.util.Objects.equals(filePath, other.filePath);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * id + (filePath != null ? filePath.hashCode() : 0);
+    }
+    
     @Override
     public String toString() {
         return "GuluFile{" +
@@ -4,6 +4,8 @@ public class BaseResponse<T> {
     private int code;
     private String msg;
     private T data;
+    // 请求已保存到离线发件箱、尚未提交到服务端，不参与序列化
+    private transient boolean queued;
 
     public int getCode() {
         return code;
@@ -29,6 +31,14 @@ public class BaseResponse<T> {
         this.data = data;
     }
 
+    public boolean isQueued() {
+        return queued;
+    }
+
+    public void setQueued(boolean queued) {
+        this.queued = queued;
+    }
+
     public boolean isSuccess() {
         return code == 200;
     }
@@ -37,6 +37,11 @@ public class FootprintMessageResponse {
          */
         private int pages;
         
+        /**
+         * 记录由客户端近似得到（如全量结果本地过滤后被截断），缩小查询范围也无法补全，不参与序列化
+         */
+        private transient boolean approximate;
+        
         // 构造函数
         public Data() {
         }
@@ -82,6 +87,14 @@ public class FootprintMessageResponse {
             this.pages = pages;
         }
         
+        public boolean isApproximate() {
+            return approximate;
+        }
+        
+        public void setApproximate(boolean approximate) {
+            this.approximate = approximate;
+        }
+        
         @Override
         public String toString() {
             return "Data{" +
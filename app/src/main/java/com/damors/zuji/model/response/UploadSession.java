@@ -0,0 +1,38 @@
+package com.damors.zuji.model.response;
+
+/**
+ * 分片上传会话数据模型
+ * 创建会话、上传分片和查询进度接口返回，offset为服务端已确认接收的字节数
+ */
+public class UploadSession {
+    /** 上传会话ID */
+    private String uploadId;
+    /** 服务端已接收的字节数，下一个分片从这里开始 */
+    private long offset;
+    /** 服务端要求的分片大小（字节），为0时使用客户端默认值 */
+    private int chunkSize;
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
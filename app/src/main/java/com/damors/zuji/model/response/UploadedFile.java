@@ -0,0 +1,28 @@
+package com.damors.zuji.model.response;
+
+/**
+ * 已上传文件数据模型
+ * 完成分片上传接口返回，发布足迹时通过fileId引用
+ */
+public class UploadedFile {
+    /** 文件ID */
+    private String fileId;
+    /** 文件访问路径 */
+    private String filePath;
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+}
@@ -1,5 +1,13 @@
 package com.damors.zuji.network;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import okhttp3.Request;
+
 /**
  * API配置类，集中管理API相关的配置信息
  */
@@ -45,14 +53,99 @@ public class ApiConfig {
         }
     }
 
+    /**
+     * 获取文件的完整URL
+     * @param filePath 服务端返回的文件路径或完整URL
+     * @return 完整URL，路径为空时返回空字符串
+     */
+    public static String getFileUrl(String filePath) {
+        if (filePath == null || filePath.isEmpty()) {
+            return "";
+        }
+        if (filePath.startsWith("http://") || filePath.startsWith("https://")) {
+            return filePath;
+        }
+        return getImageBaseUrl() + (filePath.startsWith("/") ? filePath : "/" + filePath);
+    }
+
+    /**
+     * 获取适合显示宽度的缩略图URL
+     * @param filePath 服务端返回的文件路径或完整URL
+     * @param width 显示宽度（像素），小于等于0或超过最大档位时返回原图
+     * @return 缩略图URL
+     */
+    public static String getThumbnailUrl(String filePath, int width) {
+        String url = getFileUrl(filePath);
+        if (!THUMBNAIL_URL_ENABLED || url.isEmpty() || width <= 0) {
+            return url;
+        }
+        for (int bucket : THUMBNAIL_WIDTHS) {
+            if (width <= bucket) {
+                return url + (url.contains("?") ? "&" : "?") + THUMBNAIL_WIDTH_PARAM + "=" + bucket;
+            }
+        }
+        return url;
+    }
+
+    /**
+     * 获取请求对应的接口名，即URL路径的最后一段
+     * @param request 请求
+     * @return 接口名，见Endpoints
+     */
+    public static String getEndpoint(Request request) {
+        List<String> segments = request.url().pathSegments();
+        return segments.isEmpty() ? "" : segments.get(segments.size() - 1);
+    }
+
+    // 是否在logcat中输出完整的请求/响应体，仅用于本地调试
+    // 开启后每个请求和响应（包括图片上传）都会被完整缓冲到内存
+    public static final boolean HTTP_BODY_LOGGING = false;
+
     // API超时设置（毫秒）
     public static final int TIMEOUT_MS = 30000;
 
-    // API最大重试次数
-    public static final int MAX_RETRIES = 1;
+    // API最大重试次数（不含首次请求），只对IDEMPOTENT_ENDPOINTS中的接口生效
+    public static final int MAX_RETRIES = 2;
+
+    // 重试等待时间的倍数，第n次重试最多等待 RETRY_INITIAL_BACKOFF_MS × BACKOFF_MULT^(n-1)
+    public static final float BACKOFF_MULT = 2.0f;
+
+    // 首次重试的最大等待时间（毫秒），实际等待时间在0到该值之间随机
+    public static final long RETRY_INITIAL_BACKOFF_MS = 500;
+
+    // 单次重试等待时间上限（毫秒）
+    public static final long RETRY_MAX_BACKOFF_MS = 5000;
+
+    // 熔断：连续失败次数阈值和冷却时间（毫秒）
+    public static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+    public static final long CIRCUIT_OPEN_MS = 30000;
+
+    // 发布足迹时是否先分片上传图片，再以文件ID发布；关闭时图片随发布请求一次性上传
+    // 服务端分片上传接口上线前保持关闭；开启后uploadInit返回404/405时也会自动退回一次性上传
+    public static final boolean CHUNKED_UPLOAD_ENABLED = false;
+
+    // 分片大小（字节），服务端返回的分片大小优先
+    public static final int UPLOAD_CHUNK_SIZE = 256 * 1024;
+
+    // 分片上传会话保留时间（毫秒），超过后视为服务端会话已过期
+    public static final long UPLOAD_SESSION_TTL_MS = 24 * 60 * 60 * 1000;
 
-    // 重试等待时间的倍数
-    public static final float BACKOFF_MULT = 1.0f;
+    // 已上传文件哈希索引的有效期（毫秒），期内内容相同的图片直接引用，不再询问服务端
+    public static final long UPLOAD_HASH_TTL_MS = 7L * 24 * 60 * 60 * 1000;
+
+    // 地图页是否使用区域查询接口（getMsgListByBounds）；关闭或服务端返回404/405时改为拉取getMsgListAll后在本地按区域过滤
+    // 服务端区域查询接口上线前保持关闭
+    public static final boolean MAP_BOUNDS_QUERY_ENABLED = false;
+
+    // 列表中的图片是否请求服务端缩略图，关闭时始终加载原图
+    // 服务端缩略图接口上线前保持关闭，否则带尺寸参数的URL会加载失败
+    public static final boolean THUMBNAIL_URL_ENABLED = false;
+
+    // 缩略图宽度档位（像素），按显示宽度向上取最近的档位，便于服务端和磁盘缓存复用
+    private static final int[] THUMBNAIL_WIDTHS = {240, 480, 720, 1080};
+
+    // 缩略图宽度参数名，服务端不支持时会忽略该参数并返回原图
+    private static final String THUMBNAIL_WIDTH_PARAM = "w";
 
     // API端点
     public static final class Endpoints {
@@ -61,13 +154,52 @@ public class ApiConfig {
         public static final String PUBLISH_FOOTPRINT = "publishMsg";
         public static final String GET_MSG_LIST = "getMsgList";
         public static final String GET_MSG_LIST_ALL = "getMsgListAll"; // 地图页mark数据接口
+        public static final String GET_MSG_LIST_BY_BOUNDS = "getMsgListByBounds"; // 可视区域mark数据接口
         public static final String FOOTPRINT_MESSAGES = "getMsgList"; // 足迹动态消息接口
         public static final String GET_USER_INFO = "getUserInfo"; // 获取用户信息接口
         public static final String SAVE_USER_INFO = "saveUserInfo"; // 保存用户信息接口
+        public static final String UPLOAD_AVATAR = "upload"; // 上传头像接口
+        public static final String DELETE_FOOTPRINT = "deleteMsg"; // 删除足迹接口
         public static final String TOGGLE_LIKE = "toggleLike"; // 点赞/取消点赞接口
         public static final String ADD_COMMENT = "addComment"; // 添加评论接口
         public static final String GET_COMMENT_LIST = "getCommentList"; // 获取评论列表接口
         public static final String DELETE_COMMENT = "deleteComment"; // 删除评论接口
         public static final String CHECK_APP_UPDATE = "checkAppUpdate"; // 检查应用更新接口
+        public static final String CHECK_HASHES = "checkHashes"; // 查询服务端已有文件接口
+        public static final String UPLOAD_INIT = "uploadInit"; // 创建分片上传会话接口
+        public static final String UPLOAD_CHUNK = "uploadChunk"; // 上传分片接口
+        public static final String UPLOAD_STATUS = "uploadStatus"; // 查询分片上传进度接口
+        public static final String UPLOAD_COMPLETE = "uploadComplete"; // 完成分片上传接口
+    }
+
+    // 可以安全重试的接口：读接口和重复执行结果不变的写接口
+    // 分片按偏移量写入，重复上传同一分片结果不变
+    // 发布足迹、点赞切换、添加评论、发送验证码等重复执行会产生副作用，不在此列
+    public static final Set<String> IDEMPOTENT_ENDPOINTS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            Endpoints.GET_MSG_LIST,
+            Endpoints.GET_MSG_LIST_ALL,
+            Endpoints.GET_MSG_LIST_BY_BOUNDS,
+            Endpoints.GET_COMMENT_LIST,
+            Endpoints.GET_USER_INFO,
+            Endpoints.CHECK_APP_UPDATE,
+            Endpoints.SAVE_USER_INFO,
+            Endpoints.DELETE_COMMENT,
+            Endpoints.DELETE_FOOTPRINT,
+            Endpoints.CHECK_HASHES,
+            Endpoints.UPLOAD_CHUNK,
+            Endpoints.UPLOAD_STATUS,
+            Endpoints.UPLOAD_COMPLETE
+    )));
+
+    // 读接口响应缓存总大小（字节）
+    public static final long RESPONSE_CACHE_SIZE = 10 * 1024 * 1024;
+
+    // 读接口响应缓存有效期（毫秒），过期后带ETag/Last-Modified向服务端重新验证
+    public static final class CacheTtl {
+        public static final long MSG_LIST = 30 * 1000;
+        public static final long MSG_LIST_ALL = 60 * 1000;
+        public static final long COMMENT_LIST = 15 * 1000;
+        public static final long USER_INFO = 5 * 60 * 1000;
+        public static final long APP_UPDATE = 6 * 60 * 60 * 1000;
     }
 }
@@ -6,6 +6,8 @@ import com.damors.zuji.model.UserInfoResponse;
 import com.damors.zuji.model.response.BaseResponse;
 import com.damors.zuji.model.response.FootprintMessageResponse;
 import com.damors.zuji.model.response.LoginResponse;
+import com.damors.zuji.model.response.UploadSession;
+import com.damors.zuji.model.response.UploadedFile;
 
 import org.json.JSONObject;
 
@@ -20,6 +22,7 @@ import retrofit2.http.Field;
 import retrofit2.http.FieldMap;
 import retrofit2.http.FormUrlEncoded;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Multipart;
 import retrofit2.http.POST;
 import retrofit2.http.Part;
@@ -96,15 +99,98 @@ public interface ApiService {
      * 
      * @param publishInfo 发布信息
      * @param images 图片文件列表
+     * @param idempotencyKey 幂等键，重试时保持不变
      * @return 发布响应
      */
     @Multipart
     @POST("publishMsg")
     Call<BaseResponse<JSONObject>> publishFootprint(
             @PartMap Map<String, RequestBody> publishInfo,
-            @Part List<MultipartBody.Part> images
+            @Part List<MultipartBody.Part> images,
+            @Header("Idempotency-Key") String idempotencyKey
     );
 
+    /**
+     * 发布足迹，图片已通过分片上传接口上传
+     * 
+     * @param publishInfo 发布信息
+     * @param fileIds 已上传文件ID，逗号分隔，按显示顺序排列
+     * @param idempotencyKey 幂等键，重试时保持不变
+     * @return 发布响应
+     */
+    @Multipart
+    @POST("publishMsg")
+    Call<BaseResponse<JSONObject>> publishFootprintWithFiles(
+            @PartMap Map<String, RequestBody> publishInfo,
+            @Part("fileIds") RequestBody fileIds,
+            @Header("Idempotency-Key") String idempotencyKey
+    );
+
+    /**
+     * 查询服务端已有的文件
+     * 
+     * @param hashes 文件内容SHA-256，逗号分隔
+     * @return 服务端已有的文件，按哈希索引，没有的哈希不出现
+     */
+    @FormUrlEncoded
+    @POST("checkHashes")
+    Call<BaseResponse<Map<String, UploadedFile>>> checkHashes(@Field("hashes") String hashes);
+
+    /**
+     * 创建分片上传会话
+     * 
+     * @param fileName 文件名
+     * @param fileSize 文件大小（字节）
+     * @param contentType 文件类型
+     * @param sha256 文件内容SHA-256，服务端据此识别重复文件
+     * @return 上传会话
+     */
+    @FormUrlEncoded
+    @POST("uploadInit")
+    Call<BaseResponse<UploadSession>> uploadInit(
+            @Field("fileName") String fileName,
+            @Field("fileSize") long fileSize,
+            @Field("contentType") String contentType,
+            @Field("sha256") String sha256
+    );
+
+    /**
+     * 上传一个分片
+     * 服务端按offset写入，重复提交同一分片结果不变
+     * 
+     * @param uploadId 上传会话ID
+     * @param offset 分片在文件中的起始位置
+     * @param chunk 分片数据
+     * @return 上传会话，offset为服务端已接收的字节数
+     */
+    @Multipart
+    @POST("uploadChunk")
+    Call<BaseResponse<UploadSession>> uploadChunk(
+            @Part("uploadId") RequestBody uploadId,
+            @Part("offset") RequestBody offset,
+            @Part MultipartBody.Part chunk
+    );
+
+    /**
+     * 查询分片上传进度，续传前调用
+     * 
+     * @param uploadId 上传会话ID
+     * @return 上传会话，offset为服务端已接收的字节数
+     */
+    @FormUrlEncoded
+    @POST("uploadStatus")
+    Call<BaseResponse<UploadSession>> uploadStatus(@Field("uploadId") String uploadId);
+
+    /**
+     * 完成分片上传
+     * 
+     * @param uploadId 上传会话ID
+     * @return 已上传文件
+     */
+    @FormUrlEncoded
+    @POST("uploadComplete")
+    Call<BaseResponse<UploadedFile>> uploadComplete(@Field("uploadId") String uploadId);
+
     /**
      * 获取足迹消息列表
      * 
@@ -133,6 +219,28 @@ public interface ApiService {
             @Field("pageSize") int pageSize
     );
 
+    /**
+     * 获取矩形区域内的地图mark数据
+     * 
+     * @param minLat 最小纬度
+     * @param minLng 最小经度
+     * @param maxLat 最大纬度
+     * @param maxLng 最大经度
+     * @param pageNum 页码
+     * @param pageSize 每页大小
+     * @return 地图mark数据响应
+     */
+    @FormUrlEncoded
+    @POST("getMsgListByBounds")
+    Call<BaseResponse<FootprintMessageResponse.Data>> getMsgListByBounds(
+            @Field("minLat") double minLat,
+            @Field("minLng") double minLng,
+            @Field("maxLat") double maxLat,
+            @Field("maxLng") double maxLng,
+            @Field("pageNum") int pageNum,
+            @Field("pageSize") int pageSize
+    );
+
     /**
      * 获取评论列表
      * 
@@ -149,6 +257,7 @@ public interface ApiService {
      * @param msgId 消息ID
      * @param content 评论内容
      * @param parentId 父评论ID（可选）
+     * @param idempotencyKey 幂等键，重试时保持不变
      * @return 添加响应
      */
     @FormUrlEncoded
@@ -156,39 +265,46 @@ public interface ApiService {
     Call<BaseResponse<JSONObject>> addComment(
             @Field("msgId") Integer msgId,
             @Field("content") String content,
-            @Field("parentId") Long parentId
+            @Field("parentId") Long parentId,
+            @Header("Idempotency-Key") String idempotencyKey
     );
 
     /**
      * 删除评论
      * @param commentId 评论ID
+     * @param idempotencyKey 幂等键，重试时保持不变
      * @return 删除响应
      */
     @FormUrlEncoded
     @POST("deleteComment")
     Call<BaseResponse<String>> deleteComment(
-            @Field("commentId") Integer commentId
+            @Field("commentId") Integer commentId,
+            @Header("Idempotency-Key") String idempotencyKey
     );
 
     /**
      * 删除足迹
      * 
      * @param msgId 足迹消息ID
+     * @param idempotencyKey 幂等键，重试时保持不变
      * @return 删除响应
      */
     @FormUrlEncoded
     @POST("deleteMsg")
-    Call<BaseResponse<String>> deleteFootprint(@Field("msgId") Integer msgId);
+    Call<BaseResponse<String>> deleteFootprint(@Field("msgId") Integer msgId,
+                                               @Header("Idempotency-Key") String idempotencyKey);
 
     /**
      * 点赞/取消点赞
      * 
      * @param msgId 消息ID
+     * @param idempotencyKey 幂等键，重试时保持不变
      * @return 点赞响应
      */
     @FormUrlEncoded
     @POST("toggleLike")
-    Call<BaseResponse<JSONObject>> toggleLike(@Field("msgId") Integer msgId);
+    Call<BaseResponse<JSONObject>> toggleLike(@Field("msgId") Integer msgId,
+                                              @Header("Idempotency-Key") String idempotencyKey);
 
     /**
      * 检查应用更新
@@ -0,0 +1,467 @@
+package com.damors.zuji.network;
+
+import android.util.Log;
+
+import com.damors.zuji.data.UploadSessionDao;
+import com.damors.zuji.data.UploadSessionEntity;
+import com.damors.zuji.data.UploadedHashDao;
+import com.damors.zuji.data.UploadedHashEntity;
+import com.damors.zuji.model.response.BaseResponse;
+import com.damors.zuji.model.response.UploadSession;
+import com.damors.zuji.model.response.UploadedFile;
+import com.damors.zuji.utils.ContentHasher;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * 分片上传客户端
+ * 每个文件对应一个服务端上传会话，按分片顺序上传，每个分片成功后把服务端确认的偏移量写入Room。
+ * 网络中断或进程被杀后再次上传同一文件时，先向服务端查询实际进度，从该位置继续；
+ * 单个分片失败只需重传该分片，不再因一次超时丢弃整个发布请求。
+ * 上传前按内容SHA-256去重：同一批中内容相同的文件只上传一次，本地哈希索引中近期上传过的直接引用，
+ * 其余的先批量询问服务端是否已有。随发布请求一次性上传时只能通过findDuplicates做同一批内的去重。
+ * 方法均为阻塞调用，需在后台线程执行
+ */
+public class ChunkedUploader {
+    private static final String TAG = "ChunkedUploader";
+
+    private static final MediaType TEXT = MediaType.parse("text/plain");
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+    // 分片上传后服务端进度没有前进的最大连续次数
+    private static final int MAX_STALLED_CHUNKS = 3;
+
+    private final ApiService apiService;
+    private final UploadSessionDao sessionDao;
+    private final UploadedHashDao hashDao;
+    private final int defaultChunkSize;
+    private final long sessionTtlMs;
+    private final long hashTtlMs;
+
+    // 统计
+    private final AtomicInteger completedFiles = new AtomicInteger();
+    private final AtomicInteger resumedFiles = new AtomicInteger();
+    private final AtomicLong sentBytes = new AtomicLong();
+    private final AtomicLong skippedBytes = new AtomicLong();
+    private final AtomicInteger duplicateInBatch = new AtomicInteger();
+    private final AtomicInteger duplicateLocal = new AtomicInteger();
+    private final AtomicInteger duplicateRemote = new AtomicInteger();
+    private final AtomicLong dedupedBytes = new AtomicLong();
+
+    /**
+     * @param apiService Retrofit接口
+     * @param sessionDao 上传会话DAO
+     * @param hashDao 已上传文件哈希索引DAO
+     * @param defaultChunkSize 默认分片大小（字节），服务端返回的分片大小优先
+     * @param sessionTtlMs 会话保留时间（毫秒），超过后重新创建会话
+     * @param hashTtlMs 哈希索引有效期（毫秒），超过后重新询问服务端
+     */
+    public ChunkedUploader(ApiService apiService, UploadSessionDao sessionDao, UploadedHashDao hashDao,
+                           int defaultChunkSize, long sessionTtlMs, long hashTtlMs) {
+        this.apiService = apiService;
+        this.sessionDao = sessionDao;
+        this.hashDao = hashDao;
+        this.defaultChunkSize = defaultChunkSize;
+        this.sessionTtlMs = sessionTtlMs;
+        this.hashTtlMs = hashTtlMs;
+    }
+
+    /**
+     * 上传一批文件，内容重复或服务端已有的文件不再上传
+     * @param files 本地文件，上传完成前不应修改
+     * @param contentTypes 文件类型，与files一一对应
+     * @return 已上传文件，与files一一对应；内容相同的文件对应同一个服务端文件
+     * @throws IOException 网络错误，进度已保存，再次调用时续传
+     * @throws ServerException 服务端暂时失败，进度已保存，再次调用时续传
+     * @throws UploadException 服务端拒绝上传，重试没有意义
+     * @throws UnsupportedException 服务端没有分片上传接口，应改为随发布请求一次性上传
+     */
+    public List<UploadedFile> uploadAll(List<File> files, List<String> contentTypes)
+            throws IOException, UploadException {
+        List<String> hashes = new ArrayList<>(files.size());
+        for (File file : files) {
+            if (!file.isFile()) {
+                throw new UploadException("文件不存在: " + file);
+            }
+            hashes.add(ContentHasher.sha256(file));
+        }
+        Set<String> unique = new LinkedHashSet<>(hashes);
+        duplicateInBatch.addAndGet(hashes.size() - unique.size());
+
+        Map<String, UploadedFile> resolved = new HashMap<>();
+        resolveLocal(unique, resolved);
+        resolveRemote(unique, resolved, files, hashes);
+
+        List<UploadedFile> result = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            String hash = hashes.get(i);
+            UploadedFile uploaded = resolved.get(hash);
+            if (uploaded == null) {
+                uploaded = upload(files.get(i), contentTypes.get(i), hash);
+                resolved.put(hash, uploaded);
+                remember(hash, uploaded, files.get(i).length());
+            } else {
+                dedupedBytes.addAndGet(files.get(i).length());
+            }
+            result.add(uploaded);
+        }
+        return result;
+    }
+
+    /**
+     * 上传单个文件，内容重复或服务端已有时不再上传
+     * @see #uploadAll(List, List)
+     */
+    public UploadedFile upload(File file, String contentType) throws IOException, UploadException {
+        return uploadAll(Collections.singletonList(file), Collections.singletonList(contentType)).get(0);
+    }
+
+    /**
+     * 找出一批文件中与前面的文件内容相同的文件，用于随发布请求一次性上传时同一批内去重
+     * 一次性上传没有文件ID可以引用，无法利用本地哈希索引和服务端已有的文件
+     * @param files 本地文件
+     * @return 与files一一对应，内容与前面某个文件相同时为true
+     */
+    public boolean[] findDuplicates(List<File> files) throws IOException {
+        boolean[] duplicates = new boolean[files.size()];
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < files.size(); i++) {
+            if (!seen.add(ContentHasher.sha256(files.get(i)))) {
+                duplicates[i] = true;
+                duplicateInBatch.incrementAndGet();
+                dedupedBytes.addAndGet(files.get(i).length());
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * 从本地哈希索引中查找近期上传过的文件
+     */
+    private void resolveLocal(Set<String> hashes, Map<String, UploadedFile> resolved) {
+        List<UploadedHashEntity> known = hashDao.getVerified(new ArrayList<>(hashes),
+                System.currentTimeMillis() - hashTtlMs);
+        for (UploadedHashEntity entity : known) {
+            UploadedFile uploaded = new UploadedFile();
+            uploaded.setFileId(entity.getFileId());
+            uploaded.setFilePath(entity.getRemotePath());
+            resolved.put(entity.getHash(), uploaded);
+            duplicateLocal.incrementAndGet();
+        }
+    }
+
+    /**
+     * 批量询问服务端是否已有本地未知的文件
+     * 服务端不支持或查询失败时不影响上传，只是无法去重
+     */
+    private void resolveRemote(Set<String> hashes, Map<String, UploadedFile> resolved,
+                               List<File> files, List<String> fileHashes) throws IOException {
+        StringBuilder unknown = new StringBuilder();
+        for (String hash : hashes) {
+            if (!resolved.containsKey(hash)) {
+                if (unknown.length() > 0) {
+                    unknown.append(',');
+                }
+                unknown.append(hash);
+            }
+        }
+        if (unknown.length() == 0) {
+            return;
+        }
+        Response<BaseResponse<Map<String, UploadedFile>>> response =
+                apiService.checkHashes(unknown.toString()).execute();
+        BaseResponse<Map<String, UploadedFile>> body = response.body();
+        if (isTransientFailure(response)) {
+            throw new ServerException("查询服务端文件失败: " + response.code());
+        }
+        if (!response.isSuccessful() || body == null || !body.isSuccess() || body.getData() == null) {
+            Log.w(TAG, "查询服务端文件失败，全部上传: " + response.code());
+            return;
+        }
+        for (Map.Entry<String, UploadedFile> entry : body.getData().entrySet()) {
+            UploadedFile uploaded = entry.getValue();
+            if (uploaded == null || uploaded.getFileId() == null || !hashes.contains(entry.getKey())
+                    || resolved.containsKey(entry.getKey())) {
+                continue;
+            }
+            resolved.put(entry.getKey(), uploaded);
+            remember(entry.getKey(), uploaded, files.get(fileHashes.indexOf(entry.getKey())).length());
+            duplicateRemote.incrementAndGet();
+        }
+    }
+
+    private void remember(String hash, UploadedFile uploaded, long fileSize) {
+        UploadedHashEntity entity = new UploadedHashEntity();
+        entity.setHash(hash);
+        entity.setFileId(uploaded.getFileId());
+        entity.setRemotePath(uploaded.getFilePath());
+        entity.setFileSize(fileSize);
+        entity.setVerifiedAt(System.currentTimeMillis());
+        hashDao.insertOrUpdate(entity);
+    }
+
+    /**
+     * 上传文件，已上传完成的文件直接返回保存的结果，上传到一半的文件从断点续传
+     */
+    private UploadedFile upload(File file, String contentType, String hash) throws IOException, UploadException {
+        String path = file.getAbsolutePath();
+        long size = file.length();
+
+        UploadSessionEntity session = sessionDao.get(path);
+        if (session != null && (session.getFileSize() != size || session.getLastModified() != file.lastModified()
+                || System.currentTimeMillis() - session.getUpdatedAt() > sessionTtlMs)) {
+            // 文件已变化或会话已过期，重新上传
+            sessionDao.delete(path);
+            session = null;
+        }
+        if (session != null && session.isCompleted()) {
+            return toUploadedFile(session);
+        }
+        if (session != null) {
+            session = resume(session);
+        }
+        if (session == null) {
+            session = createSession(file, size, contentType, hash);
+        }
+
+        uploadChunks(file, session);
+
+        UploadedFile uploaded = execute(apiService.uploadComplete(session.getUploadId()), session);
+        if (uploaded == null || uploaded.getFileId() == null) {
+            // 会话状态未知，删除后下次从头上传
+            sessionDao.delete(path);
+            throw new UploadException("服务端未返回文件ID: " + file.getName(), true);
+        }
+        session.setFileId(uploaded.getFileId());
+        session.setRemotePath(uploaded.getFilePath());
+        session.setUpdatedAt(System.currentTimeMillis());
+        sessionDao.insertOrUpdate(session);
+        completedFiles.incrementAndGet();
+        Log.d(TAG, "上传完成: " + file.getName() + ", " + size / 1024 + "KB, 文件ID: " + uploaded.getFileId());
+        return uploaded;
+    }
+
+    /**
+     * 续传前向服务端查询实际进度
+     * @return 会话，服务端会话已不存在时删除本地记录并返回null
+     */
+    private UploadSessionEntity resume(UploadSessionEntity session) throws IOException {
+        Response<BaseResponse<UploadSession>> response = apiService.uploadStatus(session.getUploadId()).execute();
+        BaseResponse<UploadSession> body = response.body();
+        if (isTransientFailure(response)) {
+            throw new ServerException("查询上传进度失败: " + response.code());
+        }
+        if (!response.isSuccessful() || body == null || !body.isSuccess() || body.getData() == null) {
+            Log.w(TAG, "上传会话已失效，重新上传: " + session.getLocalPath());
+            sessionDao.delete(session.getLocalPath());
+            return null;
+        }
+        long offset = Math.max(0, Math.min(body.getData().getOffset(), session.getFileSize()));
+        session.setUploadedBytes(offset);
+        sessionDao.updateUploadedBytes(session.getLocalPath(), offset, System.currentTimeMillis());
+        if (offset > 0) {
+            resumedFiles.incrementAndGet();
+            skippedBytes.addAndGet(offset);
+            Log.d(TAG, "断点续传: " + session.getLocalPath() + ", 已上传" + offset + "/" + session.getFileSize());
+        }
+        return session;
+    }
+
+    private UploadSessionEntity createSession(File file, long size, String contentType, String hash)
+            throws IOException, UploadException {
+        Response<BaseResponse<UploadSession>> response =
+                apiService.uploadInit(file.getName(), size, contentType, hash).execute();
+        BaseResponse<UploadSession> body = response.body();
+        if (isTransientFailure(response)) {
+            throw new ServerException("创建上传会话失败: " + response.code());
+        }
+        if (response.code() == 404 || response.code() == 405) {
+            throw new UnsupportedException("服务端不支持分片上传: " + response.code());
+        }
+        if (!response.isSuccessful() || body == null) {
+            throw new UploadException("创建上传会话失败: " + response.code());
+        }
+        if (!body.isSuccess() || body.getData() == null || body.getData().getUploadId() == null) {
+            throw new UploadException(body.getMsg() != null ? body.getMsg() : "创建上传会话失败");
+        }
+
+        long now = System.currentTimeMillis();
+        UploadSessionEntity session = new UploadSessionEntity();
+        session.setLocalPath(file.getAbsolutePath());
+        session.setFileSize(size);
+        session.setLastModified(file.lastModified());
+        session.setContentType(contentType);
+        session.setUploadId(body.getData().getUploadId());
+        session.setChunkSize(body.getData().getChunkSize() > 0 ? body.getData().getChunkSize() : defaultChunkSize);
+        session.setUploadedBytes(Math.max(0, Math.min(body.getData().getOffset(), size)));
+        session.setCreatedAt(now);
+        session.setUpdatedAt(now);
+        sessionDao.insertOrUpdate(session);
+        return session;
+    }
+
+    /**
+     * 从会话记录的偏移量开始顺序上传剩余分片
+     */
+    private void uploadChunks(File file, UploadSessionEntity session) throws IOException, UploadException {
+        long size = session.getFileSize();
+        long offset = session.getUploadedBytes();
+        if (offset >= size) {
+            return;
+        }
+        RequestBody uploadId = RequestBody.create(TEXT, session.getUploadId());
+        byte[] buffer = new byte[session.getChunkSize()];
+        int stalled = 0;
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            while (offset < size) {
+                int length = (int) Math.min(buffer.length, size - offset);
+                input.seek(offset);
+                input.readFully(buffer, 0, length);
+                RequestBody chunk = RequestBody.create(OCTET_STREAM, buffer, 0, length);
+                UploadSession result = execute(apiService.uploadChunk(uploadId,
+                        RequestBody.create(TEXT, String.valueOf(offset)),
+                        MultipartBody.Part.createFormData("chunk", file.getName(), chunk)), session);
+                long confirmed = result != null ? result.getOffset() : -1;
+                if (confirmed < 0 || confirmed > size) {
+                    sessionDao.delete(session.getLocalPath());
+                    throw new UploadException("服务端返回的上传进度无效: " + confirmed, true);
+                }
+                if (confirmed <= offset && ++stalled >= MAX_STALLED_CHUNKS) {
+                    throw new ServerException("上传进度没有变化: " + file.getName());
+                } else if (confirmed > offset) {
+                    stalled = 0;
+                }
+                sentBytes.addAndGet(length);
+                // 以服务端确认的进度为准，可能小于本地已发送的位置
+                offset = confirmed;
+                session.setUploadedBytes(offset);
+                sessionDao.updateUploadedBytes(session.getLocalPath(), offset, System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * 执行会话内的请求（上传分片、完成上传）
+     * 服务端返回业务错误时会话可能已失效，删除本地记录后按暂时失败处理，下次从头上传
+     */
+    private <T> T execute(Call<BaseResponse<T>> call, UploadSessionEntity session) throws IOException, UploadException {
+        Response<BaseResponse<T>> response = call.execute();
+        BaseResponse<T> body = response.body();
+        if (isTransientFailure(response)) {
+            throw new ServerException("上传失败: " + response.code());
+        }
+        if (!response.isSuccessful() || body == null) {
+            throw new UploadException("上传失败: " + response.code());
+        }
+        if (!body.isSuccess()) {
+            sessionDao.delete(session.getLocalPath());
+            throw new ServerException("上传会话已失效: " + body.getMsg());
+        }
+        return body.getData();
+    }
+
+    private static boolean isTransientFailure(Response<?> response) {
+        int code = response.code();
+        return code >= 500 || code == 408 || code == 429;
+    }
+
+    private static UploadedFile toUploadedFile(UploadSessionEntity session) {
+        UploadedFile uploaded = new UploadedFile();
+        uploaded.setFileId(session.getFileId());
+        uploaded.setFilePath(session.getRemotePath());
+        return uploaded;
+    }
+
+    /**
+     * 删除目录下所有文件的上传会话，文件被删除前调用
+     * @param dir 目录
+     */
+    public void forgetDirectory(File dir) {
+        sessionDao.deleteUnderDirectory(dir.getAbsolutePath());
+    }
+
+    /**
+     * 删除过期的上传会话和哈希索引
+     */
+    public void pruneExpiredSessions() {
+        long now = System.currentTimeMillis();
+        int count = sessionDao.deleteUpdatedBefore(now - sessionTtlMs);
+        int hashCount = hashDao.deleteVerifiedBefore(now - hashTtlMs);
+        if (count > 0 || hashCount > 0) {
+            Log.d(TAG, "删除过期上传会话: " + count + ", 哈希索引: " + hashCount);
+        }
+    }
+
+    /**
+     * 获取统计信息
+     * @return 统计信息字符串
+     */
+    public String getStats() {
+        return "上传完成: " + completedFiles.get() + ", 续传: " + resumedFiles.get()
+                + ", 发送: " + sentBytes.get() / 1024 + "KB, 续传节省: " + skippedBytes.get() / 1024 + "KB"
+                + ", 重复(同批/本地/服务端): " + duplicateInBatch.get() + "/" + duplicateLocal.get()
+                + "/" + duplicateRemote.get() + ", 去重节省: " + dedupedBytes.get() / 1024 + "KB";
+    }
+
+    /**
+     * 服务端暂时失败（5xx、408、429，或上传会话失效、进度没有变化），进度已保存，可以重试
+     * 与网络错误区分，便于调用方只对服务端失败计入重试次数
+     */
+    public static class ServerException extends IOException {
+        public ServerException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 上传失败但不是网络错误
+     * 服务端拒绝上传（文件类型不支持、文件过大等）时重试没有意义；
+     * 服务端返回了无法使用的结果时会话已删除，可以从头重试
+     */
+    public static class UploadException extends Exception {
+        private final boolean retryable;
+
+        public UploadException(String message) {
+            this(message, false);
+        }
+
+        public UploadException(String message, boolean retryable) {
+            super(message);
+            this.retryable = retryable;
+        }
+
+        /**
+         * 是否可以重试
+         */
+        public boolean isRetryable() {
+            return retryable;
+        }
+    }
+
+    /**
+     * 服务端没有分片上传接口（uploadInit返回404/405），调用方应改为随发布请求一次性上传
+     */
+    public static class UnsupportedException extends UploadException {
+        public UnsupportedException(String message) {
+            super(message);
+        }
+    }
+}
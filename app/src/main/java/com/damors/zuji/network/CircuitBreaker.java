@@ -0,0 +1,132 @@
+package com.damors.zuji.network;
+
+import java.io.IOException;
+
+/**
+ * 熔断器
+ * 连续失败达到阈值后进入打开状态，冷却期内直接拒绝请求，避免服务端故障时持续重试；
+ * 冷却期结束后进入半开状态，只放行一个探测请求，成功则恢复，失败则重新打开。
+ * 只有服务端故障（5xx、已建立连接上的超时）计为失败，本机断网、DNS失败等客户端网络错误不影响熔断状态
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,     // 正常
+        OPEN,       // 熔断中，拒绝请求
+        HALF_OPEN   // 探测中，只放行一个请求
+    }
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private int openCount;
+
+    /**
+     * @param failureThreshold 打开熔断所需的连续失败次数
+     * @param openDurationMs 熔断冷却时间（毫秒）
+     */
+    public CircuitBreaker(int failureThreshold, long openDurationMs) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * 判断是否允许发出请求，半开状态下同一时间只允许一个探测请求
+     * @return 是否允许
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openDurationMs) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            case HALF_OPEN:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 记录一次成功（服务端正常响应）
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    /**
+     * 记录一次服务端故障（5xx或已建立连接上的超时）
+     */
+    public synchronized void recordFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                openCount++;
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 放弃已放行的请求（如请求被取消、客户端网络错误），不影响熔断状态
+     */
+    public synchronized void release() {
+        probeInFlight = false;
+    }
+
+    /**
+     * 距离熔断结束的剩余时间
+     * @return 剩余毫秒数，未熔断时为0
+     */
+    public synchronized long getRemainingOpenMs() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openDurationMs - (System.currentTimeMillis() - openedAt));
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 获取熔断打开的累计次数
+     */
+    public synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    /**
+     * 熔断中拒绝请求时抛出，请求没有发出，调用方不应计为一次失败的尝试
+     */
+    public static class OpenException extends IOException {
+        private final long remainingMs;
+
+        public OpenException(String message, long remainingMs) {
+            super(message);
+            this.remainingMs = remainingMs;
+        }
+
+        /**
+         * 距离熔断结束的剩余时间（毫秒）
+         */
+        public long getRemainingMs() {
+            return remainingMs;
+        }
+    }
+}
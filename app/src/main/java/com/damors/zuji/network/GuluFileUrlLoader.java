@@ -0,0 +1,61 @@
+package com.damors.zuji.network;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelCache;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.load.model.stream.BaseGlideUrlLoader;
+import com.bumptech.glide.request.target.Target;
+import com.damors.zuji.model.GuluFile;
+
+import java.io.InputStream;
+
+/**
+ * GuluFile图片加载器
+ * 直接以GuluFile作为Glide的加载模型，按目标显示宽度改写为对应档位的缩略图URL，
+ * 列表中不再下载原图；使用Target.SIZE_ORIGINAL加载时返回原图URL
+ */
+public class GuluFileUrlLoader extends BaseGlideUrlLoader<GuluFile> {
+
+    // 缓存最近生成的URL，避免列表滚动时重复拼接
+    private static final int MODEL_CACHE_SIZE = 500;
+
+    GuluFileUrlLoader(ModelLoader<GlideUrl, InputStream> concreteLoader, ModelCache<GuluFile, GlideUrl> modelCache) {
+        super(concreteLoader, modelCache);
+    }
+
+    @Override
+    protected String getUrl(GuluFile model, int width, int height, Options options) {
+        if (width == Target.SIZE_ORIGINAL) {
+            return ApiConfig.getFileUrl(model.getFilePath());
+        }
+        return ApiConfig.getThumbnailUrl(model.getFilePath(), width);
+    }
+
+    @Override
+    public boolean handles(@NonNull GuluFile model) {
+        return model.getFilePath() != null && !model.getFilePath().isEmpty();
+    }
+
+    /**
+     * 在GlideModule中注册
+     */
+    public static class Factory implements ModelLoaderFactory<GuluFile, InputStream> {
+        private final ModelCache<GuluFile, GlideUrl> modelCache = new ModelCache<>(MODEL_CACHE_SIZE);
+
+        @NonNull
+        @Override
+        public ModelLoader<GuluFile, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new GuluFileUrlLoader(multiFactory.build(GlideUrl.class, InputStream.class), modelCache);
+        }
+
+        @Override
+        public void teardown() {
+            // 无需释放资源
+        }
+    }
+}
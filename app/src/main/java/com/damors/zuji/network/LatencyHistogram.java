@@ -0,0 +1,106 @@
+package com.damors.zuji.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁耗时直方图
+ * 使用固定的近似对数分桶（1ms到60s），记录时只做一次二分查找和一次原子自增，
+ * 多个OkHttp线程并发记录无需加锁。百分位数在桶内线性插值，误差不超过所在桶的宽度
+ */
+public class LatencyHistogram {
+
+    // 桶上界（毫秒，含），最后一个桶收集所有更大的值
+    private static final long[] BOUNDS = {
+            1, 2, 3, 5, 7, 10, 15, 20, 30, 50, 70, 100, 150, 200, 300, 500, 700,
+            1000, 1500, 2000, 3000, 5000, 7000, 10000, 15000, 20000, 30000, 60000
+    };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个耗时
+     * @param valueMs 耗时（毫秒），负数忽略
+     */
+    public void record(long valueMs) {
+        if (valueMs < 0) {
+            return;
+        }
+        buckets.incrementAndGet(bucketIndex(valueMs));
+        count.increment();
+        sum.add(valueMs);
+        max.accumulateAndGet(valueMs, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n > 0 ? (double) sum.sum() / n : 0;
+    }
+
+    /**
+     * 估算百分位数
+     * @param percentile 百分位，0到100
+     * @return 估算的耗时（毫秒），没有数据时为0
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        double rank = Math.max(1, Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] == 0) {
+                continue;
+            }
+            if (seen + snapshot[i] >= rank) {
+                long lower = i == 0 ? 0 : BOUNDS[i - 1];
+                long upper = i < BOUNDS.length ? BOUNDS[i] : Math.max(max.get(), lower);
+                double fraction = (rank - seen) / snapshot[i];
+                return Math.min(max.get(), lower + Math.round((upper - lower) * fraction));
+            }
+            seen += snapshot[i];
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    private static int bucketIndex(long valueMs) {
+        int low = 0;
+        int high = BOUNDS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BOUNDS[mid] < valueMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
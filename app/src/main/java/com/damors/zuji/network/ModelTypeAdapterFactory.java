@@ -0,0 +1,380 @@
+package com.damors.zuji.network;
+
+import com.damors.zuji.model.CommentModel;
+import com.damors.zuji.model.FootprintMessage;
+import com.damors.zuji.model.GuluFile;
+import com.damors.zuji.model.UserInfoResponse;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 接口模型的流式TypeAdapter工厂
+ * 为列表接口中数量最多的模型提供手写的流式解析，避免Gson反射创建对象和逐字段反射赋值。
+ * 解析规则与反射解析保持一致：未知字段跳过，null不覆盖默认值，数字和布尔值允许以字符串形式出现
+ */
+public class ModelTypeAdapterFactory implements TypeAdapterFactory {
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == FootprintMessage.class) {
+            return (TypeAdapter<T>) new FootprintMessageAdapter(new GuluFileAdapter());
+        }
+        if (rawType == GuluFile.class) {
+            return (TypeAdapter<T>) new GuluFileAdapter();
+        }
+        if (rawType == CommentModel.class) {
+            return (TypeAdapter<T>) new CommentModelAdapter();
+        }
+        if (rawType == UserInfoResponse.class) {
+            return (TypeAdapter<T>) new UserInfoResponseAdapter(gson.getAdapter(JsonObject.class));
+        }
+        return null;
+    }
+
+    // ==================== 足迹动态 ====================
+
+    static final class FootprintMessageAdapter extends TypeAdapter<FootprintMessage> {
+        private final GuluFileAdapter fileAdapter;
+
+        FootprintMessageAdapter(GuluFileAdapter fileAdapter) {
+            this.fileAdapter = fileAdapter;
+        }
+
+        @Override
+        public FootprintMessage read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            FootprintMessage message = new FootprintMessage();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id": message.setId(in.nextInt()); break;
+                    case "msgType": message.setMsgType(in.nextInt()); break;
+                    case "textContent": message.setTextContent(readString(in)); break;
+                    case "tag": message.setTag(readString(in)); break;
+                    case "lng": message.setLng(in.nextDouble()); break;
+                    case "lat": message.setLat(in.nextDouble()); break;
+                    case "localtionTitle": message.setLocaltionTitle(readString(in)); break;
+                    case "userId": message.setUserId(in.nextInt()); break;
+                    case "userAvatar": message.setUserAvatar(readString(in)); break;
+                    case "delFlag": message.setDelFlag(readString(in)); break;
+                    case "guluFiles": message.setGuluFiles(readFiles(in)); break;
+                    case "likeCount": message.setLikeCount(in.nextInt()); break;
+                    case "commentCount": message.setCommentCount(in.nextInt()); break;
+                    case "hasLiked": message.setHasLiked(readBoolean(in)); break;
+                    case "createBy": message.setCreateBy(readString(in)); break;
+                    case "createTime": message.setCreateTime(readString(in)); break;
+                    case "updateBy": message.setUpdateBy(readString(in)); break;
+                    case "updateTime": message.setUpdateTime(readString(in)); break;
+                    case "remark": message.setRemark(readString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return message;
+        }
+
+        private List<GuluFile> readFiles(JsonReader in) throws IOException {
+            List<GuluFile> files = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                GuluFile file = fileAdapter.read(in);
+                if (file != null) {
+                    files.add(file);
+                }
+            }
+            in.endArray();
+            return files;
+        }
+
+        @Override
+        public void write(JsonWriter out, FootprintMessage message) throws IOException {
+            if (message == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("createBy").value(message.getCreateBy());
+            out.name("createTime").value(message.getCreateTime());
+            out.name("updateBy").value(message.getUpdateBy());
+            out.name("updateTime").value(message.getUpdateTime());
+            out.name("remark").value(message.getRemark());
+            out.name("id").value(message.getId());
+            out.name("msgType").value(message.getMsgType());
+            out.name("textContent").value(message.getTextContent());
+            out.name("tag").value(message.getTag());
+            out.name("lng").value(message.getLng());
+            out.name("lat").value(message.getLat());
+            out.name("localtionTitle").value(message.getLocaltionTitle());
+            out.name("userId").value(message.getUserId());
+            out.name("userAvatar").value(message.getUserAvatar());
+            out.name("delFlag").value(message.getDelFlag());
+            out.name("guluFiles");
+            if (message.getGuluFiles() == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (GuluFile file : message.getGuluFiles()) {
+                    fileAdapter.write(out, file);
+                }
+                out.endArray();
+            }
+            out.name("likeCount").value(message.getLikeCount());
+            out.name("commentCount").value(message.getCommentCount());
+            out.name("hasLiked").value(message.getHasLiked());
+            out.endObject();
+        }
+    }
+
+    // ==================== 图片文件 ====================
+
+    static final class GuluFileAdapter extends TypeAdapter<GuluFile> {
+
+        @Override
+        public GuluFile read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            GuluFile file = new GuluFile();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id": file.setId(in.nextInt()); break;
+                    case "fileName": file.setFileName(readString(in)); break;
+                    case "fileType": file.setFileType(readString(in)); break;
+                    case "filePath": file.setFilePath(readString(in)); break;
+                    case "ofType": file.setOfType(readString(in)); break;
+                    case "ofId": file.setOfId(in.nextInt()); break;
+                    case "delFlag": file.setDelFlag(readString(in)); break;
+                    case "createBy": file.setCreateBy(readString(in)); break;
+                    case "createTime": file.setCreateTime(readString(in)); break;
+                    case "updateBy": file.setUpdateBy(readString(in)); break;
+                    case "updateTime": file.setUpdateTime(readString(in)); break;
+                    case "remark": file.setRemark(readString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return file;
+        }
+
+        @Override
+        public void write(JsonWriter out, GuluFile file) throws IOException {
+            if (file == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("createBy").value(file.getCreateBy());
+            out.name("createTime").value(file.getCreateTime());
+            out.name("updateBy").value(file.getUpdateBy());
+            out.name("updateTime").value(file.getUpdateTime());
+            out.name("remark").value(file.getRemark());
+            out.name("id").value(file.getId());
+            out.name("fileName").value(file.getFileName());
+            out.name("fileType").value(file.getFileType());
+            out.name("filePath").value(file.getFilePath());
+            out.name("ofType").value(file.getOfType());
+            out.name("ofId").value(file.getOfId());
+            out.name("delFlag").value(file.getDelFlag());
+            out.endObject();
+        }
+    }
+
+    // ==================== 评论 ====================
+
+    static final class CommentModelAdapter extends TypeAdapter<CommentModel> {
+
+        @Override
+        public CommentModel read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CommentModel comment = new CommentModel();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id": comment.setId(in.nextInt()); break;
+                    case "msgId": comment.setMsgId(in.nextInt()); break;
+                    case "parentId": comment.setParentId(in.nextInt()); break;
+                    case "parentUserId": comment.setParentUserId(in.nextLong()); break;
+                    case "parentUserName": comment.setParentUserName(readString(in)); break;
+                    case "parentUserAvatar": comment.setParentUserAvatar(readString(in)); break;
+                    case "content": comment.setContent(readString(in)); break;
+                    case "userId": comment.setUserId(in.nextInt()); break;
+                    case "userAvatar": comment.setUserAvatar(readString(in)); break;
+                    case "userName": comment.setUserName(readString(in)); break;
+                    case "createTime": comment.setCreateTime(readString(in)); break;
+                    case "delFlag": comment.setDelFlag(readString(in)); break;
+                    case "createBy": comment.setCreateBy(readString(in)); break;
+                    case "updateBy": comment.setUpdateBy(readString(in)); break;
+                    case "updateTime": comment.setUpdateTime(readString(in)); break;
+                    case "remark": comment.setRemark(readString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return comment;
+        }
+
+        @Override
+        public void write(JsonWriter out, CommentModel comment) throws IOException {
+            if (comment == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(comment.getId());
+            out.name("msgId").value(comment.getMsgId());
+            out.name("parentId").value(comment.getParentId());
+            out.name("parentUserId").value(comment.getParentUserId());
+            out.name("parentUserName").value(comment.getParentUserName());
+            out.name("parentUserAvatar").value(comment.getParentUserAvatar());
+            out.name("content").value(comment.getContent());
+            out.name("userId").value(comment.getUserId());
+            out.name("userAvatar").value(comment.getUserAvatar());
+            out.name("userName").value(comment.getUserName());
+            out.name("createTime").value(comment.getCreateTime());
+            out.name("delFlag").value(comment.getDelFlag());
+            out.name("createBy").value(comment.getCreateBy());
+            out.name("updateBy").value(comment.getUpdateBy());
+            out.name("updateTime").value(comment.getUpdateTime());
+            out.name("remark").value(comment.getRemark());
+            out.endObject();
+        }
+    }
+
+    // ==================== 用户信息 ====================
+
+    static final class UserInfoResponseAdapter extends TypeAdapter<UserInfoResponse> {
+        private final TypeAdapter<JsonObject> jsonObjectAdapter;
+
+        UserInfoResponseAdapter(TypeAdapter<JsonObject> jsonObjectAdapter) {
+            this.jsonObjectAdapter = jsonObjectAdapter;
+        }
+
+        @Override
+        public UserInfoResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            UserInfoResponse response = new UserInfoResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "code": response.setCode(in.nextInt()); break;
+                    case "msg": response.setMsg(readString(in)); break;
+                    case "data": response.setData(readData(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return response;
+        }
+
+        private UserInfoResponse.UserInfoData readData(JsonReader in) throws IOException {
+            UserInfoResponse.UserInfoData data = new UserInfoResponse.UserInfoData();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "user": data.setUser(jsonObjectAdapter.read(in)); break;
+                    case "token": data.setToken(readString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return data;
+        }
+
+        @Override
+        public void write(JsonWriter out, UserInfoResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("code").value(response.getCode());
+            out.name("msg").value(response.getMsg());
+            out.name("data");
+            UserInfoResponse.UserInfoData data = response.getData();
+            if (data == null) {
+                out.nullValue();
+            } else {
+                out.beginObject();
+                out.name("user");
+                jsonObjectAdapter.write(out, data.getUser());
+                out.name("token").value(data.getToken());
+                out.endObject();
+            }
+            out.endObject();
+        }
+    }
+
+    // ==================== 读取工具 ====================
+
+    /**
+     * 读取字符串，数字和布尔值转为字符串，与反射解析一致
+     */
+    private static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    /**
+     * 读取布尔值，兼容"true"/"false"字符串和0/1数字
+     */
+    private static boolean readBoolean(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case STRING:
+                return Boolean.parseBoolean(in.nextString());
+            case NUMBER:
+                return in.nextInt() != 0;
+            default:
+                return in.nextBoolean();
+        }
+    }
+}
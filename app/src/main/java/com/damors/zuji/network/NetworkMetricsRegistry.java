@@ -0,0 +1,188 @@
+package com.damors.zuji.network;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内网络指标注册表
+ * 接收NetworkTelemetry的请求数据，按接口汇总耗时分布、错误率和流量，可导出为JSON。
+ * 记录路径无锁；不依赖Android API，可直接在JVM单元测试中使用
+ */
+public class NetworkMetricsRegistry implements NetworkTelemetry.Sink {
+
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private volatile long startedAt = System.currentTimeMillis();
+
+    @Override
+    public void onCallFinished(NetworkTelemetry.CallMetrics metrics) {
+        record(metrics);
+    }
+
+    /**
+     * 记录一个请求
+     * @param metrics 请求遥测数据
+     */
+    public void record(NetworkTelemetry.CallMetrics metrics) {
+        String endpoint = metrics.endpoint == null || metrics.endpoint.isEmpty() ? "unknown" : metrics.endpoint;
+        EndpointMetrics target = endpoints.get(endpoint);
+        if (target == null) {
+            target = endpoints.computeIfAbsent(endpoint, key -> new EndpointMetrics());
+        }
+        target.record(metrics);
+    }
+
+    /**
+     * 获取接口的指标
+     * @param endpoint 接口名
+     * @return 指标，没有记录时为null
+     */
+    public EndpointMetrics get(String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * 清空所有指标
+     */
+    public void reset() {
+        endpoints.clear();
+        startedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 导出为JSON，接口按名称排序
+     * @return JSON字符串
+     */
+    public String toJson() {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject();
+            json.name("since").value(startedAt);
+            json.name("now").value(System.currentTimeMillis());
+            json.name("endpoints").beginObject();
+            for (Map.Entry<String, EndpointMetrics> entry : new TreeMap<>(endpoints).entrySet()) {
+                json.name(entry.getKey());
+                entry.getValue().writeJson(json);
+            }
+            json.endObject();
+            json.endObject();
+        } catch (IOException e) {
+            // 写入StringWriter不会发生IO错误
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    private static void writeHistogram(JsonWriter json, LatencyHistogram histogram) throws IOException {
+        json.beginObject();
+        json.name("count").value(histogram.getCount());
+        json.name("mean").value(Math.round(histogram.getMean()));
+        json.name("p50").value(histogram.getPercentile(50));
+        json.name("p90").value(histogram.getPercentile(90));
+        json.name("p99").value(histogram.getPercentile(99));
+        json.name("max").value(histogram.getMax());
+        json.endObject();
+    }
+
+    /**
+     * 单个接口的指标
+     */
+    public static class EndpointMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram ttfb = new LatencyHistogram();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder networkErrors = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        // 按状态码类别计数：1xx到5xx
+        private final LongAdder[] statusClasses = new LongAdder[5];
+
+        EndpointMetrics() {
+            for (int i = 0; i < statusClasses.length; i++) {
+                statusClasses[i] = new LongAdder();
+            }
+        }
+
+        void record(NetworkTelemetry.CallMetrics metrics) {
+            calls.increment();
+            latency.record(metrics.totalMs);
+            if (metrics.fromCache) {
+                cacheHits.increment();
+            } else {
+                ttfb.record(metrics.ttfbMs);
+            }
+            if (metrics.isFailed()) {
+                failures.increment();
+            }
+            if (metrics.error != null) {
+                networkErrors.increment();
+            }
+            int statusClass = metrics.status / 100;
+            if (statusClass >= 1 && statusClass <= statusClasses.length) {
+                statusClasses[statusClass - 1].increment();
+            }
+            bytesSent.add(metrics.bytesSent);
+            bytesReceived.add(metrics.bytesReceived);
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public LatencyHistogram getTtfb() {
+            return ttfb;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * 错误率，0到1
+         */
+        public double getErrorRate() {
+            long n = calls.sum();
+            return n > 0 ? (double) failures.sum() / n : 0;
+        }
+
+        public long getBytesSent() {
+            return bytesSent.sum();
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        void writeJson(JsonWriter json) throws IOException {
+            json.beginObject();
+            json.name("calls").value(getCalls());
+            json.name("failures").value(getFailures());
+            json.name("errorRate").value(Math.round(getErrorRate() * 10000) / 10000.0);
+            json.name("networkErrors").value(networkErrors.sum());
+            json.name("cacheHits").value(cacheHits.sum());
+            json.name("bytesSent").value(getBytesSent());
+            json.name("bytesReceived").value(getBytesReceived());
+            json.name("status").beginObject();
+            for (int i = 0; i < statusClasses.length; i++) {
+                json.name((i + 1) + "xx").value(statusClasses[i].sum());
+            }
+            json.endObject();
+            json.name("latencyMs");
+            writeHistogram(json, latency);
+            json.name("ttfbMs");
+            writeHistogram(json, ttfb);
+            json.endObject();
+        }
+    }
+}
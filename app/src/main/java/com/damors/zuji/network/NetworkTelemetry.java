@@ -0,0 +1,255 @@
+package com.damors.zuji.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * 网络请求遥测
+ * 通过OkHttp的EventListener记录每个请求各阶段耗时（DNS、连接、TLS、首字节、响应体）、
+ * 收发字节数和状态码。字节数来自OkHttp的事件，不读取、不复制请求和响应体，
+ * 每个请求结束时输出一行结构化日志并交给Sink。由响应缓存直接返回的请求需由缓存拦截器调用markCacheHit标记
+ */
+public class NetworkTelemetry implements EventListener.Factory {
+    private static final String TAG = "NetworkTelemetry";
+
+    private volatile Sink sink;
+
+    // 已开始、尚未结束的请求，用于缓存命中时找到对应的监听
+    private final Map<Call, CallListener> activeCalls = new ConcurrentHashMap<>();
+
+    /**
+     * 设置请求结束时的数据接收方，为null时只输出日志
+     */
+    public void setSink(Sink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallListener(ApiConfig.getEndpoint(call.request()));
+    }
+
+    /**
+     * 标记请求由响应缓存直接返回，见ResponseCacheInterceptor.CacheHitListener
+     * @param call 请求
+     * @param response 缓存响应
+     */
+    public void markCacheHit(Call call, Response response) {
+        CallListener listener = activeCalls.get(call);
+        if (listener != null) {
+            listener.cacheHit = true;
+            listener.status = response.code();
+        }
+    }
+
+    private void finish(Call call, CallMetrics metrics) {
+        activeCalls.remove(call);
+        Log.d(TAG, metrics.toString());
+        Sink current = sink;
+        if (current != null) {
+            current.onCallFinished(metrics);
+        }
+    }
+
+    /**
+     * 单个请求的事件监听，每个请求一个实例，事件在同一请求内按顺序回调
+     */
+    private class CallListener extends EventListener {
+        private final String endpoint;
+
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long secureConnectStart;
+        private long requestStart;
+        private long responseBodyStart;
+
+        private long dnsNanos;
+        private long connectNanos;
+        private long tlsNanos;
+        private long ttfbNanos = -1;
+        private long bodyNanos;
+        private long bytesSent;
+        private long bytesReceived;
+        private volatile int status = -1;
+        private volatile boolean cacheHit;
+
+        CallListener(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            activeCalls.put(call, this);
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            dnsNanos += System.nanoTime() - dnsStart;
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            secureConnectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            tlsNanos += System.nanoTime() - secureConnectStart;
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            connectNanos += System.nanoTime() - connectStart;
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                                  Protocol protocol, IOException ioe) {
+            connectNanos += System.nanoTime() - connectStart;
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            bytesSent += byteCount;
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            ttfbNanos = System.nanoTime() - requestStart;
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            status = response.code();
+        }
+
+        @Override
+        public void responseBodyStart(Call call) {
+            responseBodyStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            bodyNanos += System.nanoTime() - responseBodyStart;
+            bytesReceived += byteCount;
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            finish(call, build(null));
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            finish(call, build(ioe.getClass().getSimpleName() + ": " + ioe.getMessage()));
+        }
+
+        private CallMetrics build(String error) {
+            return new CallMetrics(endpoint, status, cacheHit, error,
+                    toMillis(System.nanoTime() - callStart), toMillis(dnsNanos), toMillis(connectNanos),
+                    toMillis(tlsNanos), ttfbNanos >= 0 ? toMillis(ttfbNanos) : -1, toMillis(bodyNanos),
+                    bytesSent, bytesReceived);
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * 单个请求的遥测数据，耗时单位均为毫秒
+     */
+    public static class CallMetrics {
+        public final String endpoint;
+        public final int status;           // HTTP状态码，没有收到响应时为-1
+        public final boolean fromCache;    // 由响应缓存直接返回，未发出网络请求
+        public final String error;         // 失败原因，成功时为null
+        public final long totalMs;
+        public final long dnsMs;
+        public final long connectMs;       // 建立连接耗时，包含TLS
+        public final long tlsMs;
+        public final long ttfbMs;          // 发出请求到收到响应头，没有收到响应时为-1
+        public final long bodyMs;          // 读取响应体耗时
+        public final long bytesSent;
+        public final long bytesReceived;
+
+        CallMetrics(String endpoint, int status, boolean fromCache, String error, long totalMs, long dnsMs,
+                    long connectMs, long tlsMs, long ttfbMs, long bodyMs, long bytesSent, long bytesReceived) {
+            this.endpoint = endpoint;
+            this.status = status;
+            this.fromCache = fromCache;
+            this.error = error;
+            this.totalMs = totalMs;
+            this.dnsMs = dnsMs;
+            this.connectMs = connectMs;
+            this.tlsMs = tlsMs;
+            this.ttfbMs = ttfbMs;
+            this.bodyMs = bodyMs;
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+        }
+
+        /**
+         * 是否失败：网络错误或HTTP状态码不是2xx/304
+         */
+        public boolean isFailed() {
+            return error != null || (!fromCache && (status < 200 || status >= 300) && status != 304);
+        }
+
+        @Override
+        public String toString() {
+            return "endpoint=" + endpoint
+                    + " status=" + (fromCache ? "cache" : String.valueOf(status))
+                    + " total=" + totalMs + "ms"
+                    + " dns=" + dnsMs + "ms"
+                    + " connect=" + connectMs + "ms"
+                    + " tls=" + tlsMs + "ms"
+                    + " ttfb=" + ttfbMs + "ms"
+                    + " body=" + bodyMs + "ms"
+                    + " sent=" + bytesSent + "B"
+                    + " received=" + bytesReceived + "B"
+                    + (error != null ? " error=" + error : "");
+        }
+    }
+
+    /**
+     * 遥测数据接收方
+     */
+    public interface Sink {
+        /**
+         * 请求结束（成功或失败）时回调，在OkHttp的线程执行
+         */
+        void onCallFinished(CallMetrics metrics);
+    }
+}
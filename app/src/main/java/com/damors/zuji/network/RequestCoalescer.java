@@ -0,0 +1,186 @@
+package com.damors.zuji.network;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 读请求合并器（single-flight）
+ * 按"登录用户+接口+参数"生成的键合并同时发起的相同读请求：第一个调用方真正发出请求，
+ * 请求完成前到达的相同调用只登记回调，结果统一分发给所有调用方。
+ * 写接口成功后调用invalidate，之后的读请求不再合并到写入前发出的请求上。
+ * 注意所有调用方拿到的是同一个响应对象，调用方不应修改其中的数据
+ */
+public class RequestCoalescer {
+    private static final String TAG = "RequestCoalescer";
+
+    private final IdentityProvider identityProvider;
+
+    // 正在进行中的请求，按"登录用户@请求键"索引
+    private final Map<String, InFlight<?>> inFlightRequests = new HashMap<>();
+
+    // 统计
+    private final AtomicInteger issuedCount = new AtomicInteger();
+    private final AtomicInteger savedCount = new AtomicInteger();
+    private final AtomicInteger invalidatedCount = new AtomicInteger();
+
+    /**
+     * @param identityProvider 当前登录用户，不同用户的请求不会合并
+     */
+    public RequestCoalescer(IdentityProvider identityProvider) {
+        this.identityProvider = identityProvider;
+    }
+
+    /**
+     * 发起请求，已有相同请求进行中时复用其结果
+     * @param key 请求键，由接口名和全部参数组成，见key()
+     * @param callFactory 创建请求，只有需要真正发出请求时才调用
+     * @param callback 结果回调
+     */
+    public <T> void enqueue(String key, CallFactory<T> callFactory, Callback<T> callback) {
+        String flightKey = identityProvider.getIdentity() + "@" + key;
+        InFlight<T> flight;
+        synchronized (inFlightRequests) {
+            @SuppressWarnings("unchecked")
+            InFlight<T> existing = (InFlight<T>) inFlightRequests.get(flightKey);
+            if (existing != null) {
+                existing.subscribers.add(callback);
+                savedCount.incrementAndGet();
+                Log.d(TAG, "合并相同请求: " + key + "，等待中的调用方: " + existing.subscribers.size());
+                return;
+            }
+            flight = new InFlight<>(flightKey, key, callFactory.create());
+            flight.subscribers.add(callback);
+            inFlightRequests.put(flightKey, flight);
+        }
+        issuedCount.incrementAndGet();
+        flight.call.enqueue(flight);
+    }
+
+    /**
+     * 让接口进行中的请求不再接受合并，写接口成功后调用
+     * 已登记的调用方仍会收到原请求的结果，之后的相同调用重新发出请求
+     * @param endpoint 接口名，见ApiConfig.Endpoints
+     */
+    public void invalidate(String endpoint) {
+        synchronized (inFlightRequests) {
+            Iterator<InFlight<?>> iterator = inFlightRequests.values().iterator();
+            while (iterator.hasNext()) {
+                String key = iterator.next().key;
+                if (key.equals(endpoint) || key.startsWith(endpoint + "|")) {
+                    iterator.remove();
+                    invalidatedCount.incrementAndGet();
+                    Log.d(TAG, "写入后不再合并: " + key);
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成请求键
+     * @param endpoint 接口名
+     * @param params 请求参数，按接口定义的顺序传入
+     * @return 请求键
+     */
+    public static String key(String endpoint, Object... params) {
+        StringBuilder builder = new StringBuilder(endpoint);
+        for (Object param : params) {
+            builder.append('|').append(param);
+        }
+        return builder.toString();
+    }
+
+    public int getIssuedCount() {
+        return issuedCount.get();
+    }
+
+    /**
+     * 获取因合并而节省的请求数
+     */
+    public int getSavedCount() {
+        return savedCount.get();
+    }
+
+    public int getInFlightCount() {
+        synchronized (inFlightRequests) {
+            return inFlightRequests.size();
+        }
+    }
+
+    /**
+     * 获取统计信息
+     * @return 统计信息字符串
+     */
+    public String getStats() {
+        int issued = issuedCount.get();
+        int saved = savedCount.get();
+        int total = issued + saved;
+        int savedPercent = total > 0 ? saved * 100 / total : 0;
+        return "实际请求: " + issued + ", 合并节省: " + saved + " (" + savedPercent + "%)"
+                + ", 写入后失效: " + invalidatedCount.get() + ", 进行中: " + getInFlightCount();
+    }
+
+    /**
+     * 进行中的请求，完成时从表中移除并分发结果
+     */
+    private class InFlight<T> implements Callback<T> {
+        final String flightKey;
+        final String key;
+        final Call<T> call;
+        final List<Callback<T>> subscribers = new ArrayList<>();
+
+        InFlight(String flightKey, String key, Call<T> call) {
+            this.flightKey = flightKey;
+            this.key = key;
+            this.call = call;
+        }
+
+        private List<Callback<T>> finish() {
+            synchronized (inFlightRequests) {
+                // 失效后可能已有新的相同请求，只移除自己
+                inFlightRequests.remove(flightKey, this);
+                return new ArrayList<>(subscribers);
+            }
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            for (Callback<T> subscriber : finish()) {
+                subscriber.onResponse(call, response);
+            }
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            for (Callback<T> subscriber : finish()) {
+                subscriber.onFailure(call, t);
+            }
+        }
+    }
+
+    /**
+     * 当前登录用户
+     */
+    public interface IdentityProvider {
+        /**
+         * @return 当前登录用户的标识，未登录时返回null
+         */
+        String getIdentity();
+    }
+
+    /**
+     * 请求创建接口
+     */
+    public interface CallFactory<T> {
+        Call<T> create();
+    }
+}
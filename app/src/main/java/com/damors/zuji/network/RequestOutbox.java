@@ -0,0 +1,664 @@
+package com.damors.zuji.network;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.damors.zuji.data.FootprintDatabase;
+import com.damors.zuji.data.OutboxDao;
+import com.damors.zuji.data.OutboxEntity;
+import com.damors.zuji.model.response.BaseResponse;
+import com.damors.zuji.model.response.UploadedFile;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * 离线发件箱
+ * 写操作（点赞、评论、删除、发布）先持久化到Room，再由单线程按顺序提交，进程被杀后仍能继续：
+ * <ul>
+ *     <li>每个操作生成幂等键并随请求头发送，重试时保持不变，服务端据此去重</li>
+ *     <li>同一实体的操作严格按入队顺序提交，前一个操作未成功时后续操作等待；不同实体互不阻塞</li>
+ *     <li>新操作入队后先单独提交，调用方不必等待积压的操作；积压的操作随后按批次提交</li>
+ *     <li>网络错误停止本轮提交，不计入尝试次数；服务端5xx等暂时失败计入尝试次数保留重试，业务错误直接丢弃并回调</li>
+ *     <li>同一动态连续两次未提交的点赞切换相互抵消</li>
+ *     <li>操作记录入队时的登录用户，切换用户后上一个用户的操作不会以新用户的身份提交，直接丢弃并回调</li>
+ * </ul>
+ * 发布足迹的图片在入队时复制到应用私有目录，提交时先逐个分片上传（可断点续传），再以文件ID发布，完成后删除
+ */
+public class RequestOutbox {
+    private static final String TAG = "RequestOutbox";
+
+    /**
+     * 请求已加入发件箱时回调给调用方的提示
+     */
+    public static final String QUEUED_MESSAGE = "网络不可用，已保存，网络恢复后自动提交";
+
+    // 每批提交的操作数
+    private static final int DRAIN_BATCH_SIZE = 20;
+
+    // 单个操作最多尝试次数（只计服务端暂时失败），超过后丢弃
+    private static final int MAX_ATTEMPTS = 8;
+
+    // 网络错误后重新提交的延迟（毫秒）
+    private static final long NETWORK_RETRY_DELAY_MS = 30000;
+
+    private static final Pattern PART_NAME = Pattern.compile("name=\"([^\"]*)\"");
+    private static final Pattern PART_FILENAME = Pattern.compile("filename=\"([^\"]*)\"");
+
+    private final ApiService apiService;
+    private final ChunkedUploader chunkedUploader;
+    private final OutboxDao outboxDao;
+    private final NetworkChecker networkChecker;
+    private final OwnerProvider ownerProvider;
+    private final File fileDir;
+    private final Gson gson = new Gson();
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // 本进程内发起的操作的回调，按幂等键索引；进程重启后恢复的操作没有回调
+    private final Map<String, PendingCallback> callbacks = new ConcurrentHashMap<>();
+
+    private volatile DropListener dropListener;
+
+    // 熔断结束或网络错误后的延迟提交任务
+    private final Runnable delayedDrain = this::drain;
+
+    // 服务端不支持分片上传时置为true，本进程内后续发布直接随请求上传图片
+    private volatile boolean chunkedUploadUnsupported;
+
+    /**
+     * @param context 上下文
+     * @param apiService Retrofit接口
+     * @param chunkedUploader 分片上传客户端
+     * @param networkChecker 网络状态判断
+     * @param ownerProvider 当前登录用户
+     */
+    public RequestOutbox(Context context, ApiService apiService, ChunkedUploader chunkedUploader,
+                         NetworkChecker networkChecker, OwnerProvider ownerProvider) {
+        this.apiService = apiService;
+        this.chunkedUploader = chunkedUploader;
+        this.outboxDao = FootprintDatabase.getInstance(context).outboxDao();
+        this.networkChecker = networkChecker;
+        this.ownerProvider = ownerProvider;
+        this.fileDir = new File(context.getFilesDir(), "outbox");
+        executorService.execute(chunkedUploader::pruneExpiredSessions);
+    }
+
+    /**
+     * 设置操作被丢弃（业务失败或超过最大重试次数）时的监听器
+     * 只通知没有调用方回调的操作，如进程重启后恢复的操作或已告知调用方"已保存"的操作
+     */
+    public void setDropListener(DropListener listener) {
+        this.dropListener = listener;
+    }
+
+    // ==================== 入队 ====================
+
+    public <T> void toggleLike(Integer msgId, RetrofitApiService.SuccessCallback<BaseResponse<T>> successCallback,
+                               RetrofitApiService.ErrorCallback errorCallback) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("msgId", msgId);
+        enqueue(OutboxEntity.ACTION_TOGGLE_LIKE, "msg:" + msgId, payload, null, successCallback, errorCallback);
+    }
+
+    public <T> void addComment(Integer msgId, String content, Long parentId,
+                               RetrofitApiService.SuccessCallback<BaseResponse<T>> successCallback,
+                               RetrofitApiService.ErrorCallback errorCallback) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("msgId", msgId);
+        payload.addProperty("content", content);
+        payload.addProperty("parentId", parentId);
+        enqueue(OutboxEntity.ACTION_ADD_COMMENT, "msg:" + msgId, payload, null, successCallback, errorCallback);
+    }
+
+    public <T> void deleteComment(Integer commentId, RetrofitApiService.SuccessCallback<BaseResponse<T>> successCallback,
+                                  RetrofitApiService.ErrorCallback errorCallback) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("commentId", commentId);
+        enqueue(OutboxEntity.ACTION_DELETE_COMMENT, "comment:" + commentId, payload, null, successCallback, errorCallback);
+    }
+
+    public <T> void deleteFootprint(Integer msgId, RetrofitApiService.SuccessCallback<BaseResponse<T>> successCallback,
+                                    RetrofitApiService.ErrorCallback errorCallback) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("msgId", msgId);
+        enqueue(OutboxEntity.ACTION_DELETE_FOOTPRINT, "msg:" + msgId, payload, null, successCallback, errorCallback);
+    }
+
+    public <T> void publishFootprint(Map<String, RequestBody> publishInfo, List<MultipartBody.Part> images,
+                                     RetrofitApiService.SuccessCallback<BaseResponse<T>> successCallback,
+                                     RetrofitApiService.ErrorCallback errorCallback) {
+        enqueue(OutboxEntity.ACTION_PUBLISH_FOOTPRINT, null, null, new PublishData(publishInfo, images),
+                successCallback, errorCallback);
+    }
+
+    /**
+     * 持久化操作并尝试立即提交
+     * 新操作是所属实体的第一个待提交操作时先单独提交，完成后立即回调；积压的操作在之后的任务中提交
+     * @param entityKey 实体键，为null时使用幂等键（操作之间没有顺序约束）
+     */
+    private <T> void enqueue(String action, String entityKey, JsonObject payload, PublishData publishData,
+                             RetrofitApiService.SuccessCallback<BaseResponse<T>> successCallback,
+                             RetrofitApiService.ErrorCallback errorCallback) {
+        String key = UUID.randomUUID().toString();
+        executorService.execute(() -> {
+            OutboxEntity entity = new OutboxEntity();
+            entity.setIdempotencyKey(key);
+            entity.setAction(action);
+            entity.setEntityKey(entityKey != null ? entityKey : "publish:" + key);
+            entity.setCreatedAt(System.currentTimeMillis());
+            entity.setOwnerId(ownerProvider.getCurrentOwnerId());
+            PendingCallback callback = new PendingCallback(successCallback, errorCallback);
+            try {
+                entity.setPayload(gson.toJson(publishData != null ? persistPublishData(key, publishData) : payload));
+            } catch (IOException e) {
+                Log.e(TAG, "保存离线请求失败", e);
+                deleteFiles(key);
+                callback.deliverError("保存请求失败: " + e.getMessage());
+                return;
+            }
+
+            if (OutboxEntity.ACTION_TOGGLE_LIKE.equals(action) && cancelPendingToggle(entity)) {
+                // 与尚未提交的上一次点赞切换相互抵消，服务端状态保持不变
+                Log.d(TAG, "点赞切换与未提交的操作抵消: " + entity.getEntityKey());
+                callback.deliverQueued();
+                return;
+            }
+
+            entity.setId(outboxDao.insert(entity));
+            callbacks.put(key, callback);
+            Set<Long> attempted = new HashSet<>();
+            SendResult result = null;
+            if (networkChecker.isNetworkAvailable() && isHeadOfEntity(entity)) {
+                attempted.add(entity.getId());
+                result = send(entity);
+            }
+            // 未能立即提交的操作告知调用方已保存
+            PendingCallback remaining = callbacks.remove(key);
+            if (remaining != null) {
+                remaining.deliverQueued();
+            }
+            if (result != SendResult.NETWORK_ERROR && networkChecker.isNetworkAvailable()) {
+                // 排在单线程队列末尾，本轮已尝试过的新操作不再重复提交
+                executorService.execute(() -> drainInternal(attempted));
+            }
+        });
+    }
+
+    /**
+     * 操作属于当前登录用户，且同一实体没有更早的待提交操作时可以立即提交
+     */
+    private boolean isHeadOfEntity(OutboxEntity entity) {
+        String ownerId = ownerProvider.getCurrentOwnerId();
+        if (ownerId == null || !ownerId.equals(entity.getOwnerId())) {
+            return false;
+        }
+        OutboxEntity first = outboxDao.getFirstForEntity(ownerId, entity.getEntityKey());
+        return first != null && first.getId() == entity.getId();
+    }
+
+    /**
+     * 取消同一用户对同一动态尚未提交的点赞切换
+     * 已经尝试提交过的操作（包括因网络错误未计入次数的）可能已被服务端执行，不能抵消
+     */
+    private boolean cancelPendingToggle(OutboxEntity entity) {
+        OutboxEntity last = outboxDao.getLastForEntity(entity.getOwnerId(), entity.getEntityKey());
+        if (last != null && OutboxEntity.ACTION_TOGGLE_LIKE.equals(last.getAction()) && last.getAttempts() == 0
+                && last.getLastError() == null) {
+            outboxDao.delete(last);
+            return true;
+        }
+        return false;
+    }
+
+    // ==================== 提交 ====================
+
+    /**
+     * 提交发件箱中的全部操作，通常在网络恢复时调用
+     */
+    public void drain() {
+        executorService.execute(() -> drainInternal(new HashSet<>()));
+    }
+
+    /**
+     * 延迟提交，同一时间只保留一个延迟任务
+     */
+    private void scheduleDrain(long delayMs) {
+        mainHandler.removeCallbacks(delayedDrain);
+        mainHandler.postDelayed(delayedDrain, delayMs);
+    }
+
+    /**
+     * 获取待提交的操作数量
+     * @param callback 结果回调，在主线程执行
+     */
+    public void getPendingCount(RetrofitApiService.SuccessCallback<Integer> callback) {
+        executorService.execute(() -> {
+            int count = outboxDao.getPendingCount();
+            mainHandler.post(() -> callback.onSuccess(count));
+        });
+    }
+
+    /**
+     * 按批次提交，在发件箱线程执行
+     * 同一实体的前一个操作暂时失败时，本轮跳过该实体的后续操作；网络错误时停止本轮提交。
+     * 未登录时不提交；不属于当前登录用户的操作直接丢弃
+     * @param attempted 本轮已尝试过的操作ID
+     */
+    private void drainInternal(Set<Long> attempted) {
+        while (networkChecker.isNetworkAvailable()) {
+            String ownerId = ownerProvider.getCurrentOwnerId();
+            if (ownerId == null) {
+                return;
+            }
+            List<OutboxEntity> batch = outboxDao.getPending(DRAIN_BATCH_SIZE + attempted.size());
+            Set<String> blockedEntities = new HashSet<>();
+            boolean progressed = false;
+            for (OutboxEntity entity : batch) {
+                if (attempted.contains(entity.getId())) {
+                    // 本轮已尝试过且暂时失败，阻塞同一实体的后续操作
+                    blockedEntities.add(entity.getEntityKey());
+                    continue;
+                }
+                if (blockedEntities.contains(entity.getEntityKey())) {
+                    continue;
+                }
+                attempted.add(entity.getId());
+                if (!ownerId.equals(entity.getOwnerId())) {
+                    drop(entity, "登录用户已变更");
+                    progressed = true;
+                    continue;
+                }
+                SendResult result = send(entity);
+                if (result == SendResult.NETWORK_ERROR) {
+                    return;
+                }
+                if (result == SendResult.RETRY) {
+                    blockedEntities.add(entity.getEntityKey());
+                } else {
+                    progressed = true;
+                }
+            }
+            if (!progressed) {
+                return;
+            }
+        }
+    }
+
+    private SendResult send(OutboxEntity entity) {
+        Response<? extends BaseResponse<?>> response;
+        try {
+            response = buildCall(entity).execute();
+        } catch (CircuitBreaker.OpenException e) {
+            // 熔断中请求没有发出，不计入尝试次数，熔断结束后再提交
+            Log.w(TAG, "熔断中，暂停提交离线请求: " + e.getMessage());
+            scheduleDrain(e.getRemainingMs());
+            return SendResult.NETWORK_ERROR;
+        } catch (FileNotFoundException e) {
+            // 入队时保存的图片已被删除，重试没有意义
+            drop(entity, e.getMessage());
+            return SendResult.DONE;
+        } catch (ChunkedUploader.ServerException e) {
+            return recordFailure(entity, "图片上传失败: " + e.getMessage()) ? SendResult.RETRY : SendResult.DONE;
+        } catch (IOException e) {
+            // 网络错误不计入尝试次数，只记录错误（请求可能已到达服务端，点赞切换不能再抵消），稍后重新提交
+            Log.w(TAG, "提交离线请求失败（网络错误）: " + entity.getAction() + ", " + e.getMessage());
+            entity.setLastError("网络请求失败: " + e.getMessage());
+            outboxDao.update(entity);
+            scheduleDrain(NETWORK_RETRY_DELAY_MS);
+            return SendResult.NETWORK_ERROR;
+        } catch (ChunkedUploader.UploadException e) {
+            if (e.isRetryable()) {
+                return recordFailure(entity, "图片上传失败: " + e.getMessage()) ? SendResult.RETRY : SendResult.DONE;
+            }
+            // 服务端明确拒绝了图片，重试没有意义
+            drop(entity, "图片上传失败: " + e.getMessage());
+            return SendResult.DONE;
+        } catch (RuntimeException e) {
+            // 本地异常（如解析响应失败）不代表服务端拒绝，按暂时失败保留，由最大次数兜底
+            Log.e(TAG, "提交离线请求失败: " + entity.getAction(), e);
+            return recordFailure(entity, "请求失败: " + e.getMessage()) ? SendResult.RETRY : SendResult.DONE;
+        }
+
+        int httpCode = response.code();
+        if (response.isSuccessful() && response.body() != null) {
+            // 业务结果（成功或失败）均为最终结果，交给调用方判断
+            complete(entity);
+            PendingCallback callback = callbacks.remove(entity.getIdempotencyKey());
+            if (callback != null) {
+                callback.deliverSuccess(response.body());
+            } else if (!response.body().isSuccess()) {
+                Log.w(TAG, "离线请求被服务端拒绝: " + entity.getAction() + ", " + response.body().getMsg());
+                notifyDropped(entity, response.body().getMsg());
+            }
+            return SendResult.DONE;
+        }
+        if (httpCode >= 500 || httpCode == 408 || httpCode == 429) {
+            return recordFailure(entity, "请求失败: " + httpCode) ? SendResult.RETRY : SendResult.DONE;
+        }
+        drop(entity, "请求失败: " + httpCode);
+        return SendResult.DONE;
+    }
+
+    private Call<? extends BaseResponse<?>> buildCall(OutboxEntity entity)
+            throws IOException, ChunkedUploader.UploadException {
+        JsonObject payload = gson.fromJson(entity.getPayload(), JsonObject.class);
+        String key = entity.getIdempotencyKey();
+        switch (entity.getAction()) {
+            case OutboxEntity.ACTION_TOGGLE_LIKE:
+                return apiService.toggleLike(payload.get("msgId").getAsInt(), key);
+            case OutboxEntity.ACTION_ADD_COMMENT:
+                JsonElement parentId = payload.get("parentId");
+                return apiService.addComment(payload.get("msgId").getAsInt(), payload.get("content").getAsString(),
+                        parentId == null || parentId.isJsonNull() ? null : parentId.getAsLong(), key);
+            case OutboxEntity.ACTION_DELETE_COMMENT:
+                return apiService.deleteComment(payload.get("commentId").getAsInt(), key);
+            case OutboxEntity.ACTION_DELETE_FOOTPRINT:
+                return apiService.deleteFootprint(payload.get("msgId").getAsInt(), key);
+            case OutboxEntity.ACTION_PUBLISH_FOOTPRINT:
+                return buildPublishCall(payload, key);
+            default:
+                throw new IllegalStateException("未知的操作类型: " + entity.getAction());
+        }
+    }
+
+    /**
+     * 记录一次暂时失败
+     * @return 是否保留重试，超过最大次数时丢弃并返回false
+     */
+    private boolean recordFailure(OutboxEntity entity, String error) {
+        entity.setAttempts(entity.getAttempts() + 1);
+        entity.setLastError(error);
+        if (entity.getAttempts() >= MAX_ATTEMPTS) {
+            drop(entity, error);
+            return false;
+        }
+        outboxDao.update(entity);
+        return true;
+    }
+
+    private void drop(OutboxEntity entity, String error) {
+        Log.w(TAG, "丢弃离线请求: " + entity.getAction() + ", 原因: " + error);
+        complete(entity);
+        PendingCallback callback = callbacks.remove(entity.getIdempotencyKey());
+        if (callback != null) {
+            callback.deliverError(error);
+        } else {
+            notifyDropped(entity, error);
+        }
+    }
+
+    private void complete(OutboxEntity entity) {
+        outboxDao.delete(entity);
+        if (OutboxEntity.ACTION_PUBLISH_FOOTPRINT.equals(entity.getAction())) {
+            deleteFiles(entity.getIdempotencyKey());
+        }
+    }
+
+    private void notifyDropped(OutboxEntity entity, String error) {
+        DropListener listener = dropListener;
+        if (listener != null) {
+            mainHandler.post(() -> listener.onDropped(entity.getAction(), error));
+        }
+    }
+
+    // ==================== 发布足迹的持久化 ====================
+
+    /**
+     * 将发布参数转为可持久化的JSON：文本字段直接保存，图片复制到私有目录
+     */
+    private JsonObject persistPublishData(String key, PublishData data) throws IOException {
+        JsonObject fields = new JsonObject();
+        if (data.publishInfo != null) {
+            for (Map.Entry<String, RequestBody> entry : data.publishInfo.entrySet()) {
+                Buffer buffer = new Buffer();
+                entry.getValue().writeTo(buffer);
+                fields.addProperty(entry.getKey(), buffer.readUtf8());
+            }
+        }
+
+        JsonArray files = new JsonArray();
+        if (data.images != null && !data.images.isEmpty()) {
+            File dir = new File(fileDir, key);
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("无法创建目录: " + dir);
+            }
+            for (int i = 0; i < data.images.size(); i++) {
+                MultipartBody.Part part = data.images.get(i);
+                String disposition = part.headers() != null ? part.headers().get("Content-Disposition") : null;
+                String name = match(PART_NAME, disposition, "images");
+                String fileName = match(PART_FILENAME, disposition, "image_" + i);
+                MediaType contentType = part.body().contentType();
+
+                File file = new File(dir, i + "_" + fileName);
+                try (BufferedSink sink = Okio.buffer(Okio.sink(new FileOutputStream(file)))) {
+                    part.body().writeTo(sink);
+                }
+
+                JsonObject fileJson = new JsonObject();
+                fileJson.addProperty("name", name);
+                fileJson.addProperty("fileName", fileName);
+                fileJson.addProperty("contentType", contentType != null ? contentType.toString() : "image/*");
+                fileJson.addProperty("path", file.getAbsolutePath());
+                files.add(fileJson);
+            }
+        }
+
+        JsonObject payload = new JsonObject();
+        payload.add("fields", fields);
+        payload.add("files", files);
+        return payload;
+    }
+
+    /**
+     * 构建发布请求，启用分片上传时先上传全部图片，发布请求只携带文件ID；
+     * 服务端不支持分片上传时图片随发布请求一次性上传，内容重复的图片只上传一次
+     */
+    private Call<BaseResponse<JSONObject>> buildPublishCall(JsonObject payload, String key)
+            throws IOException, ChunkedUploader.UploadException {
+        Map<String, RequestBody> publishInfo = new HashMap<>();
+        for (Map.Entry<String, JsonElement> entry : payload.getAsJsonObject("fields").entrySet()) {
+            publishInfo.put(entry.getKey(), RequestBody.create(MediaType.parse("text/plain"), entry.getValue().getAsString()));
+        }
+        if (ApiConfig.CHUNKED_UPLOAD_ENABLED && !chunkedUploadUnsupported) {
+            try {
+                return buildChunkedPublishCall(payload, publishInfo, key);
+            } catch (ChunkedUploader.UnsupportedException e) {
+                // 服务端尚未部署分片上传接口，退回一次性上传，发布不受影响
+                Log.w(TAG, e.getMessage() + "，改为随发布请求上传图片");
+                chunkedUploadUnsupported = true;
+            }
+        }
+
+        JsonArray fileArray = payload.getAsJsonArray("files");
+        List<File> files = new ArrayList<>();
+        for (JsonElement element : fileArray) {
+            File file = new File(element.getAsJsonObject().get("path").getAsString());
+            if (!file.exists()) {
+                throw new FileNotFoundException("图片文件已丢失: " + file);
+            }
+            files.add(file);
+        }
+        // 同一次发布中内容相同的图片只上传一次
+        boolean[] duplicates = chunkedUploader.findDuplicates(files);
+        List<MultipartBody.Part> images = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            if (duplicates[i]) {
+                Log.d(TAG, "跳过内容重复的图片: " + files.get(i).getName());
+                continue;
+            }
+            JsonObject fileJson = fileArray.get(i).getAsJsonObject();
+            RequestBody body = RequestBody.create(MediaType.parse(fileJson.get("contentType").getAsString()), files.get(i));
+            images.add(MultipartBody.Part.createFormData(fileJson.get("name").getAsString(),
+                    fileJson.get("fileName").getAsString(), body));
+        }
+        return apiService.publishFootprint(publishInfo, images, key);
+    }
+
+    /**
+     * 先上传全部图片（阻塞，可续传、按内容去重），构建只携带文件ID的发布请求
+     */
+    private Call<BaseResponse<JSONObject>> buildChunkedPublishCall(JsonObject payload, Map<String, RequestBody> publishInfo,
+                                                                  String key) throws IOException, ChunkedUploader.UploadException {
+        List<File> files = new ArrayList<>();
+        List<String> contentTypes = new ArrayList<>();
+        for (JsonElement element : payload.getAsJsonArray("files")) {
+            JsonObject fileJson = element.getAsJsonObject();
+            File file = new File(fileJson.get("path").getAsString());
+            if (!file.exists()) {
+                throw new FileNotFoundException("图片文件已丢失: " + file);
+            }
+            files.add(file);
+            contentTypes.add(fileJson.get("contentType").getAsString());
+        }
+        // 内容重复或服务端已有的图片不再上传
+        StringBuilder fileIds = new StringBuilder();
+        for (UploadedFile uploaded : chunkedUploader.uploadAll(files, contentTypes)) {
+            if (fileIds.length() > 0) {
+                fileIds.append(',');
+            }
+            fileIds.append(uploaded.getFileId());
+        }
+        return apiService.publishFootprintWithFiles(publishInfo,
+                RequestBody.create(MediaType.parse("text/plain"), fileIds.toString()), key);
+    }
+
+    private void deleteFiles(String key) {
+        File dir = new File(fileDir, key);
+        chunkedUploader.forgetDirectory(dir);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static String match(Pattern pattern, String input, String defaultValue) {
+        if (input == null) {
+            return defaultValue;
+        }
+        Matcher matcher = pattern.matcher(input);
+        return matcher.find() ? matcher.group(1) : defaultValue;
+    }
+
+    // ==================== 内部类 ====================
+
+    private enum SendResult {
+        DONE,          // 已完成（成功或丢弃）
+        RETRY,         // 暂时失败，保留重试
+        NETWORK_ERROR  // 网络错误，停止本轮提交
+    }
+
+    /**
+     * 发布足迹的原始参数
+     */
+    private static class PublishData {
+        final Map<String, RequestBody> publishInfo;
+        final List<MultipartBody.Part> images;
+
+        PublishData(Map<String, RequestBody> publishInfo, List<MultipartBody.Part> images) {
+            this.publishInfo = publishInfo;
+            this.images = images;
+        }
+    }
+
+    /**
+     * 调用方回调，统一切换到主线程执行
+     */
+    private class PendingCallback {
+        private final RetrofitApiService.SuccessCallback<BaseResponse<Object>> successCallback;
+        private final RetrofitApiService.ErrorCallback errorCallback;
+
+        @SuppressWarnings("unchecked")
+        <T> PendingCallback(RetrofitApiService.SuccessCallback<BaseResponse<T>> successCallback,
+                            RetrofitApiService.ErrorCallback errorCallback) {
+            this.successCallback = (RetrofitApiService.SuccessCallback<BaseResponse<Object>>) (Object) successCallback;
+            this.errorCallback = errorCallback;
+        }
+
+        @SuppressWarnings("unchecked")
+        void deliverSuccess(BaseResponse<?> response) {
+            if (successCallback != null) {
+                mainHandler.post(() -> successCallback.onSuccess((BaseResponse<Object>) response));
+            }
+        }
+
+        /**
+         * 告知调用方操作已保存到发件箱，按成功处理以保留界面上的乐观更新
+         */
+        void deliverQueued() {
+            BaseResponse<Object> response = new BaseResponse<>();
+            response.setCode(200);
+            response.setMsg(QUEUED_MESSAGE);
+            response.setQueued(true);
+            deliverSuccess(response);
+        }
+
+        void deliverError(String error) {
+            if (errorCallback != null) {
+                mainHandler.post(() -> errorCallback.onError(error));
+            }
+        }
+    }
+
+    /**
+     * 网络状态判断
+     */
+    public interface NetworkChecker {
+        boolean isNetworkAvailable();
+    }
+
+    /**
+     * 当前登录用户
+     */
+    public interface OwnerProvider {
+        /**
+         * @return 当前登录用户的ID，未登录时返回null
+         */
+        String getCurrentOwnerId();
+    }
+
+    /**
+     * 操作被丢弃监听器
+     */
+    public interface DropListener {
+        /**
+         * @param action 操作类型，见OutboxEntity.ACTION_*
+         * @param error 丢弃原因
+         */
+        void onDropped(String action, String error);
+    }
+}
@@ -0,0 +1,442 @@
+package com.damors.zuji.network;
+
+import android.util.Log;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+/**
+ * 读接口响应缓存拦截器
+ * 所有接口都是POST，OkHttp自带的Cache不会缓存，这里按"接口+请求参数+登录令牌"缓存到磁盘：
+ * <ul>
+ *     <li>有效期内直接返回缓存，不发请求</li>
+ *     <li>过期后带上If-None-Match/If-Modified-Since重新验证，服务端返回304时继续使用缓存</li>
+ *     <li>写接口成功后让相关读接口的缓存过期（保留验证信息，下次仍可304）</li>
+ *     <li>请求带有Cache-Control: only-if-cached时（离线）不发请求，有缓存时不论是否过期都直接返回，
+ *     没有缓存时返回504，与OkHttp Cache的语义一致</li>
+ * </ul>
+ * 只缓存通过setTtl配置过的接口，且只缓存业务状态码为200的响应
+ */
+public class ResponseCacheInterceptor implements Interceptor {
+    private static final String TAG = "ResponseCache";
+
+    // 缓存文件格式版本，格式变化时旧文件视为无效
+    private static final int FILE_VERSION = 1;
+
+    // 写接口与其影响的读接口
+    private static final Map<String, List<String>> INVALIDATIONS = new HashMap<>();
+
+    static {
+        List<String> feeds = Arrays.asList(ApiConfig.Endpoints.GET_MSG_LIST, ApiConfig.Endpoints.GET_MSG_LIST_ALL,
+                ApiConfig.Endpoints.GET_MSG_LIST_BY_BOUNDS);
+        List<String> comments = Arrays.asList(ApiConfig.Endpoints.GET_COMMENT_LIST,
+                ApiConfig.Endpoints.GET_MSG_LIST, ApiConfig.Endpoints.GET_MSG_LIST_ALL,
+                ApiConfig.Endpoints.GET_MSG_LIST_BY_BOUNDS);
+        List<String> userInfo = Collections.singletonList(ApiConfig.Endpoints.GET_USER_INFO);
+        INVALIDATIONS.put(ApiConfig.Endpoints.PUBLISH_FOOTPRINT, feeds);
+        INVALIDATIONS.put(ApiConfig.Endpoints.DELETE_FOOTPRINT, feeds);
+        INVALIDATIONS.put(ApiConfig.Endpoints.TOGGLE_LIKE, feeds);
+        INVALIDATIONS.put(ApiConfig.Endpoints.ADD_COMMENT, comments);
+        INVALIDATIONS.put(ApiConfig.Endpoints.DELETE_COMMENT, comments);
+        INVALIDATIONS.put(ApiConfig.Endpoints.SAVE_USER_INFO, userInfo);
+        INVALIDATIONS.put(ApiConfig.Endpoints.UPLOAD_AVATAR, userInfo);
+    }
+
+    private final File cacheDir;
+    private final long maxSizeBytes;
+    private final Map<String, Long> ttls = new ConcurrentHashMap<>();
+    private volatile InvalidationListener invalidationListener;
+    private volatile CacheHitListener cacheHitListener;
+
+    // 统计
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger offlineHitCount = new AtomicInteger();
+    private final AtomicInteger offlineMissCount = new AtomicInteger();
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+    private final AtomicInteger storeCount = new AtomicInteger();
+
+    /**
+     * @param cacheDir 缓存目录
+     * @param maxSizeBytes 缓存总大小上限，超出时删除最早写入的文件
+     */
+    public ResponseCacheInterceptor(File cacheDir, long maxSizeBytes) {
+        this.cacheDir = cacheDir;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * 设置接口的缓存有效期，只有设置过的接口才会缓存
+     * @param endpoint 接口名，见ApiConfig.Endpoints
+     * @param ttlMs 有效期（毫秒），为0时每次都重新验证
+     */
+    public void setTtl(String endpoint, long ttlMs) {
+        ttls.put(endpoint, ttlMs);
+    }
+
+    /**
+     * 设置写接口成功后的回调，用于让其他层（如读请求合并）同步失效
+     * @param listener 回调，在OkHttp线程执行
+     */
+    public void setInvalidationListener(InvalidationListener listener) {
+        this.invalidationListener = listener;
+    }
+
+    /**
+     * 设置请求直接由缓存返回（未发出网络请求）时的回调，用于遥测区分缓存命中和网络失败
+     * @param listener 回调，在OkHttp线程执行
+     */
+    public void setCacheHitListener(CacheHitListener listener) {
+        this.cacheHitListener = listener;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = ApiConfig.getEndpoint(request);
+        Long ttl = ttls.get(endpoint);
+        boolean onlyIfCached = request.cacheControl().onlyIfCached();
+        if (ttl == null) {
+            if (onlyIfCached) {
+                // 不缓存的接口照常请求，由网络层报告错误
+                request = request.newBuilder().removeHeader("Cache-Control").build();
+            }
+            Response response = chain.proceed(request);
+            List<String> affected = INVALIDATIONS.get(endpoint);
+            if (affected != null && response.isSuccessful()) {
+                InvalidationListener listener = invalidationListener;
+                for (String target : affected) {
+                    expire(target);
+                    if (listener != null) {
+                        listener.onInvalidated(target);
+                    }
+                }
+            }
+            return response;
+        }
+
+        File file = new File(cacheDir, endpoint + "-" + keyOf(request));
+        Entry entry = read(file);
+        long now = System.currentTimeMillis();
+        if (onlyIfCached) {
+            if (entry == null) {
+                offlineMissCount.incrementAndGet();
+                Log.d(TAG, "离线且没有缓存: " + endpoint);
+                return unsatisfiableResponse(request);
+            }
+            offlineHitCount.incrementAndGet();
+            Log.d(TAG, "离线使用缓存: " + endpoint + ", 缓存年龄: " + (now - entry.storedAt) + "ms");
+            return serveFromCache(chain, request, entry);
+        }
+        if (entry != null && now - entry.storedAt < ttl) {
+            hitCount.incrementAndGet();
+            Log.d(TAG, "使用缓存: " + endpoint + ", 缓存年龄: " + (now - entry.storedAt) + "ms");
+            return serveFromCache(chain, request, entry);
+        }
+
+        Request.Builder builder = request.newBuilder();
+        if (entry != null) {
+            if (!entry.etag.isEmpty()) {
+                builder.header("If-None-Match", entry.etag);
+            }
+            if (!entry.lastModified.isEmpty()) {
+                builder.header("If-Modified-Since", entry.lastModified);
+            }
+        }
+        Response response = chain.proceed(builder.build());
+
+        if (response.code() == 304 && entry != null) {
+            notModifiedCount.incrementAndGet();
+            response.close();
+            entry.storedAt = now;
+            write(file, entry);
+            Log.d(TAG, "缓存未变化(304): " + endpoint);
+            return cachedResponse(request, entry);
+        }
+        missCount.incrementAndGet();
+        if (response.code() != 200 || response.body() == null) {
+            return response;
+        }
+
+        ResponseBody body = response.body();
+        MediaType contentType = body.contentType();
+        byte[] bytes = body.bytes();
+        if (isBusinessSuccess(bytes)) {
+            Entry fresh = new Entry();
+            fresh.storedAt = now;
+            fresh.etag = headerOrEmpty(response, "ETag");
+            fresh.lastModified = headerOrEmpty(response, "Last-Modified");
+            fresh.contentType = contentType != null ? contentType.toString() : "application/json";
+            fresh.body = bytes;
+            write(file, fresh);
+            storeCount.incrementAndGet();
+            trimToSize();
+        }
+        return response.newBuilder()
+                .body(ResponseBody.create(contentType, bytes))
+                .build();
+    }
+
+    /**
+     * 让接口的全部缓存立即过期，下次请求时重新验证
+     * @param endpoint 接口名
+     */
+    public void expire(String endpoint) {
+        File[] files = cacheDir.listFiles((dir, name) -> name.startsWith(endpoint + "-"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            Entry entry = read(file);
+            if (entry != null && entry.storedAt != 0) {
+                entry.storedAt = 0;
+                write(file, entry);
+            }
+        }
+    }
+
+    /**
+     * 清空全部缓存，如退出登录时
+     */
+    public synchronized void clear() {
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * 获取统计信息
+     * @return 统计信息字符串
+     */
+    public String getStats() {
+        return "缓存命中: " + hitCount.get() + ", 304: " + notModifiedCount.get()
+                + ", 未命中: " + missCount.get() + ", 写入: " + storeCount.get()
+                + ", 离线命中: " + offlineHitCount.get() + ", 离线未命中: " + offlineMissCount.get();
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 请求键：URL、请求体和登录令牌的SHA-1，不同用户的缓存互不影响
+     */
+    private static String keyOf(Request request) throws IOException {
+        Buffer buffer = new Buffer();
+        buffer.writeUtf8(request.url().toString()).writeByte('\n');
+        String authorization = request.header("Authorization");
+        if (authorization != null) {
+            buffer.writeUtf8(authorization);
+        }
+        buffer.writeByte('\n');
+        if (request.body() != null) {
+            request.body().writeTo(buffer);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(buffer.readByteArray());
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 流式读取顶层的code字段，读到后立即返回，不解析其余内容
+     */
+    private static boolean isBusinessSuccess(byte[] body) {
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"code".equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                JsonToken token = reader.peek();
+                // 兼容以字符串表示的code
+                return (token == JsonToken.NUMBER || token == JsonToken.STRING) && reader.nextInt() == 200;
+            }
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static String headerOrEmpty(Response response, String name) {
+        String value = response.header(name);
+        return value != null ? value : "";
+    }
+
+    /**
+     * 不发出网络请求，直接以缓存响应并通知回调
+     */
+    private Response serveFromCache(Chain chain, Request request, Entry entry) {
+        Response response = cachedResponse(request, entry);
+        CacheHitListener listener = cacheHitListener;
+        if (listener != null) {
+            listener.onCacheHit(chain.call(), response);
+        }
+        return response;
+    }
+
+    private static Response cachedResponse(Request request, Entry entry) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .header("Content-Type", entry.contentType)
+                .body(ResponseBody.create(MediaType.parse(entry.contentType), entry.body))
+                .build();
+    }
+
+    /**
+     * only-if-cached请求没有缓存时的响应，与OkHttp Cache相同
+     */
+    private static Response unsatisfiableResponse(Request request) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(504)
+                .message("Unsatisfiable Request (only-if-cached)")
+                .body(ResponseBody.create(null, new byte[0]))
+                .build();
+    }
+
+    private synchronized Entry read(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != FILE_VERSION) {
+                return null;
+            }
+            Entry entry = new Entry();
+            entry.storedAt = in.readLong();
+            entry.etag = in.readUTF();
+            entry.lastModified = in.readUTF();
+            entry.contentType = in.readUTF();
+            entry.body = new byte[in.readInt()];
+            in.readFully(entry.body);
+            return entry;
+        } catch (IOException e) {
+            Log.w(TAG, "读取缓存失败: " + file.getName(), e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * 先写临时文件再重命名，避免进程被杀时留下不完整的缓存
+     */
+    private synchronized void write(File file, Entry entry) {
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            Log.w(TAG, "无法创建缓存目录: " + cacheDir);
+            return;
+        }
+        File tmp = new File(cacheDir, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            out.writeInt(FILE_VERSION);
+            out.writeLong(entry.storedAt);
+            out.writeUTF(entry.etag);
+            out.writeUTF(entry.lastModified);
+            out.writeUTF(entry.contentType);
+            out.writeInt(entry.body.length);
+            out.write(entry.body);
+        } catch (IOException e) {
+            Log.w(TAG, "写入缓存失败: " + file.getName(), e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+
+    private synchronized void trimToSize() {
+        File[] files = cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxSizeBytes) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= maxSizeBytes) {
+                break;
+            }
+            total -= file.length();
+            file.delete();
+        }
+    }
+
+    /**
+     * 写接口成功后的失效回调
+     */
+    public interface InvalidationListener {
+        /**
+         * @param endpoint 受影响的读接口名
+         */
+        void onInvalidated(String endpoint);
+    }
+
+    /**
+     * 缓存命中回调
+     */
+    public interface CacheHitListener {
+        /**
+         * @param call 由缓存返回的请求
+         * @param response 缓存响应，不要读取响应体
+         */
+        void onCacheHit(Call call, Response response);
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class Entry {
+        long storedAt;        // 写入或最近一次验证的时间
+        String etag;          // ETag，没有时为空字符串
+        String lastModified;  // Last-Modified，没有时为空字符串
+        String contentType;
+        byte[] body;
+    }
+}
@@ -7,9 +7,11 @@ import android.text.TextUtils;
 import android.util.Log;
 
 import com.damors.zuji.ZujiApp;
+import com.damors.zuji.data.FootprintDatabase;
 import com.damors.zuji.manager.UserManager;
 import com.damors.zuji.model.AppUpdateInfo;
 import com.damors.zuji.model.CommentModel;
+import com.damors.zuji.model.FootprintMessage;
 import com.damors.zuji.model.PublishTrandsInfoPO;
 import com.damors.zuji.model.UserInfoResponse;
 import com.damors.zuji.model.response.BaseResponse;
@@ -29,6 +31,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.CacheControl;
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
@@ -59,9 +62,27 @@ public class RetrofitApiService {
     private NetworkStateMonitor networkStateMonitor;
     private Handler mainHandler;
     
-    // 保存失败的请求信息，以便在网络恢复时重试
-    private List<RequestInfo> pendingRequests = new ArrayList<>();
-    private boolean isRetryingRequests = false;
+    // 写操作的离线发件箱，网络恢复时自动提交
+    private RequestOutbox outbox;
+
+    // 分片上传客户端，发布足迹的图片经此上传
+    private ChunkedUploader chunkedUploader;
+
+    // 读请求合并，相同参数的并发请求只发出一次
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer(RetrofitApiService::getCurrentUserId);
+
+    // 读接口响应缓存
+    private ResponseCacheInterceptor responseCache;
+
+    // 暂时性失败重试及熔断
+    private RetryInterceptor retryInterceptor;
+
+    // 服务端返回404/405后置为true，本进程内地图页改用getMsgListAll
+    private volatile boolean boundsQueryUnsupported;
+
+    // 请求遥测及按接口汇总的指标
+    private final NetworkTelemetry networkTelemetry = new NetworkTelemetry();
+    private final NetworkMetricsRegistry networkMetrics = new NetworkMetricsRegistry();
 
     /**
      * 网络状态变化监听器
@@ -71,9 +92,9 @@ public class RetrofitApiService {
         public void onNetworkStateChanged(boolean isAvailable) {
             Log.d(TAG, "网络状态变化: " + (isAvailable ? "可用" : "不可用"));
             
-            // 如果网络恢复，尝试重试失败的请求
-            if (isAvailable && !pendingRequests.isEmpty() && !isRetryingRequests) {
-                retryPendingRequests();
+            // 如果网络恢复，提交发件箱中的请求
+            if (isAvailable && outbox != null) {
+                outbox.drain();
             }
             
             // 如果网络断开，显示提示
@@ -94,11 +115,20 @@ public class RetrofitApiService {
         
         // 初始化Retrofit
         initRetrofit();
+        FootprintDatabase database = FootprintDatabase.getInstance(this.context);
+        chunkedUploader = new ChunkedUploader(apiService, database.uploadSessionDao(), database.uploadedHashDao(),
+                ApiConfig.UPLOAD_CHUNK_SIZE, ApiConfig.UPLOAD_SESSION_TTL_MS, ApiConfig.UPLOAD_HASH_TTL_MS);
+        outbox = new RequestOutbox(this.context, apiService, chunkedUploader, this::isNetworkAvailable,
+                RetrofitApiService::getCurrentUserId);
+        outbox.setDropListener((action, error) ->
+                Log.w(TAG, "离线请求提交失败已丢弃: " + action + ", " + error));
         
         // 获取ZujiApp中的NetworkStateMonitor实例
         this.networkStateMonitor = ((ZujiApp) this.context).getNetworkStateMonitor();
         if (this.networkStateMonitor != null) {
             this.networkStateMonitor.addNetworkStateListener(networkStateListener);
+            // 提交上次进程遗留的请求
+            outbox.drain();
         } else {
             Log.e(TAG, "NetworkStateMonitor未初始化");
         }
@@ -121,10 +151,6 @@ public class RetrofitApiService {
      * 初始化Retrofit
      */
     private void initRetrofit() {
-        // 创建日志拦截器
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-        
         // 创建请求头拦截器
         Interceptor headerInterceptor = new Interceptor() {
             @Override
@@ -138,22 +164,59 @@ public class RetrofitApiService {
                     requestBuilder.addHeader(entry.getKey(), entry.getValue());
                 }
                 
+                // 离线时读接口只使用响应缓存，不发出请求
+                if (!isNetworkAvailable()) {
+                    requestBuilder.cacheControl(CacheControl.FORCE_CACHE);
+                }
+                
                 return chain.proceed(requestBuilder.build());
             }
         };
         
-        // 创建OkHttpClient
-        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+        // 创建读接口响应缓存拦截器，放在请求头拦截器之后，缓存键包含登录令牌
+        responseCache = new ResponseCacheInterceptor(new File(context.getCacheDir(), "api_responses"),
+                ApiConfig.RESPONSE_CACHE_SIZE);
+        responseCache.setTtl(ApiConfig.Endpoints.GET_MSG_LIST, ApiConfig.CacheTtl.MSG_LIST);
+        responseCache.setTtl(ApiConfig.Endpoints.GET_MSG_LIST_ALL, ApiConfig.CacheTtl.MSG_LIST_ALL);
+        responseCache.setTtl(ApiConfig.Endpoints.GET_COMMENT_LIST, ApiConfig.CacheTtl.COMMENT_LIST);
+        responseCache.setTtl(ApiConfig.Endpoints.GET_USER_INFO, ApiConfig.CacheTtl.USER_INFO);
+        responseCache.setTtl(ApiConfig.Endpoints.CHECK_APP_UPDATE, ApiConfig.CacheTtl.APP_UPDATE);
+        // 写接口成功后，之后的读请求不再合并到写入前发出的请求上
+        responseCache.setInvalidationListener(requestCoalescer::invalidate);
+        
+        networkTelemetry.setSink(networkMetrics);
+        // 缓存直接返回的请求在遥测中记为缓存命中，与DNS、连接失败等未发出请求的情况区分
+        responseCache.setCacheHitListener(networkTelemetry::markCacheHit);
+        
+        // 创建重试拦截器，放在响应缓存之后，缓存命中时不受熔断影响
+        retryInterceptor = new RetryInterceptor(ApiConfig.IDEMPOTENT_ENDPOINTS,
+                new CircuitBreaker(ApiConfig.CIRCUIT_FAILURE_THRESHOLD, ApiConfig.CIRCUIT_OPEN_MS),
+                ApiConfig.MAX_RETRIES, ApiConfig.RETRY_INITIAL_BACKOFF_MS, ApiConfig.BACKOFF_MULT,
+                ApiConfig.RETRY_MAX_BACKOFF_MS);
+        
+        // 创建OkHttpClient，请求耗时、字节数和状态码由遥测记录，不读取请求和响应体
+        OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
                 .connectTimeout(ApiConfig.TIMEOUT_MS, TimeUnit.MILLISECONDS)
                 .readTimeout(ApiConfig.TIMEOUT_MS, TimeUnit.MILLISECONDS)
                 .writeTimeout(ApiConfig.TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .eventListenerFactory(networkTelemetry)
                 .addInterceptor(headerInterceptor)
-                .addInterceptor(loggingInterceptor)
-                .build();
+                .addInterceptor(responseCache)
+                .addInterceptor(retryInterceptor);
+        
+        // 完整的请求/响应体日志只在显式开启调试时添加
+        if (ApiConfig.HTTP_BODY_LOGGING) {
+            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
+            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+            loggingInterceptor.redactHeader("Authorization");
+            clientBuilder.addInterceptor(loggingInterceptor);
+        }
+        OkHttpClient okHttpClient = clientBuilder.build();
         
-        // 创建Gson实例
+        // 创建Gson实例，列表接口的主要模型使用手写的流式TypeAdapter
         Gson gson = new GsonBuilder()
                 .setLenient()
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
                 .create();
         
         // 创建Retrofit实例
@@ -167,6 +230,16 @@ public class RetrofitApiService {
         apiService = retrofit.create(ApiService.class);
     }
 
+    /**
+     * 获取当前登录用户的ID
+     *
+     * @return 用户ID，未登录时返回null
+     */
+    private static String getCurrentUserId() {
+        UserManager userManager = UserManager.getInstance();
+        return userManager.isLoggedIn() ? userManager.getUserField("userId") : null;
+    }
+
     /**
      * 获取通用请求头
      * 
@@ -208,27 +281,66 @@ public class RetrofitApiService {
     }
 
     /**
-     * 重试待处理的请求
+     * 获取离线发件箱中待提交的请求数量
+     * @param callback 结果回调，在主线程执行
      */
-    private void retryPendingRequests() {
-        if (pendingRequests.isEmpty() || isRetryingRequests) {
-            return;
-        }
-        
-        isRetryingRequests = true;
-        Log.d(TAG, "开始重试待处理请求，数量: " + pendingRequests.size());
-        
-        // 创建待处理请求的副本
-        List<RequestInfo> requestsToRetry = new ArrayList<>(pendingRequests);
-        pendingRequests.clear();
-        
-        // 在主线程上执行重试
-        mainHandler.post(() -> {
-            for (RequestInfo requestInfo : requestsToRetry) {
-                requestInfo.retry();
-            }
-            isRetryingRequests = false;
-        });
+    public void getPendingOutboxCount(SuccessCallback<Integer> callback) {
+        outbox.getPendingCount(callback);
+    }
+
+    /**
+     * 让接口的响应缓存立即过期，下次请求时向服务端重新验证（如下拉刷新）
+     * @param endpoint 接口名，见ApiConfig.Endpoints
+     */
+    public void expireResponseCache(String endpoint) {
+        responseCache.expire(endpoint);
+    }
+
+    /**
+     * 清空响应缓存，退出登录时调用
+     */
+    public void clearResponseCache() {
+        responseCache.clear();
+    }
+
+    /**
+     * 获取响应缓存统计信息
+     * @return 统计信息字符串
+     */
+    public String getResponseCacheStats() {
+        return responseCache.getStats();
+    }
+
+    /**
+     * 获取按接口汇总的网络指标
+     * @return 指标注册表
+     */
+    public NetworkMetricsRegistry getNetworkMetrics() {
+        return networkMetrics;
+    }
+
+    /**
+     * 获取重试与熔断统计信息
+     * @return 统计信息字符串
+     */
+    public String getRetryStats() {
+        return retryInterceptor.getStats();
+    }
+
+    /**
+     * 获取分片上传统计信息
+     * @return 统计信息字符串
+     */
+    public String getUploadStats() {
+        return chunkedUploader.getStats();
+    }
+
+    /**
+     * 获取读请求合并统计信息
+     * @return 统计信息字符串
+     */
+    public String getCoalescingStats() {
+        return requestCoalescer.getStats();
     }
 
     /**
@@ -263,6 +375,11 @@ public class RetrofitApiService {
                     if (successCallback != null) {
                         successCallback.onSuccess(response.body());
                     }
+                } else if (response.code() == 504 && response.raw().request().cacheControl().onlyIfCached()) {
+                    // 离线且没有响应缓存
+                    if (errorCallback != null) {
+                        errorCallback.onError("网络不可用，请检查网络连接");
+                    }
                 } else {
                     String errorMsg = "请求失败: " + response.code();
                     if (errorCallback != null) {
@@ -367,6 +484,7 @@ public class RetrofitApiService {
 
     /**
      * 获取用户信息
+     * 相同参数的并发请求会被合并，只发出一次
      * 
      * @param successCallback 成功回调
      * @param errorCallback 错误回调
@@ -374,10 +492,10 @@ public class RetrofitApiService {
     public void getUserInfo(SuccessCallback<UserInfoResponse> successCallback,
                            ErrorCallback errorCallback) {
         
-        Call<UserInfoResponse> call = apiService.getUserInfo();
-        call.enqueue(new BaseCallback<UserInfoResponse>(successCallback, errorCallback) {
-            // 使用父类的默认实现
-        });
+        requestCoalescer.enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_USER_INFO), apiService::getUserInfo,
+                new BaseCallback<UserInfoResponse>(successCallback, errorCallback) {
+                    // 使用父类的默认实现
+                });
     }
 
     /**
@@ -438,6 +556,7 @@ public class RetrofitApiService {
 
     /**
      * 发布足迹
+     * 经离线发件箱提交，网络不可用时保存并回调成功（response.isQueued()为true）
      * 
      * @param publishInfo 发布信息
      * @param images 图片文件列表
@@ -449,23 +568,13 @@ public class RetrofitApiService {
                                  SuccessCallback<BaseResponse<JSONObject>> successCallback,
                                  ErrorCallback errorCallback) {
         
-        if (!isNetworkAvailable()) {
-            Log.d(TAG, "网络不可用，无法发布足迹");
-            showNetworkUnavailableMessage();
-            if (errorCallback != null) {
-                errorCallback.onError("网络不可用，请检查网络连接");
-            }
-            return;
-        }
-        
-        Call<BaseResponse<JSONObject>> call = apiService.publishFootprint(publishInfo, images);
-        call.enqueue(new BaseCallback<BaseResponse<JSONObject>>(successCallback, errorCallback) {
-            // 使用父类的默认实现
-        });
+        // 先保存到发件箱，网络可用时立即提交，否则在网络恢复后提交
+        outbox.publishFootprint(publishInfo, images, successCallback, errorCallback);
     }
 
     /**
      * 获取足迹消息列表
+     * 相同参数的并发请求会被合并，只发出一次；离线时返回响应缓存，没有缓存时回调错误
      * 
      * @param pageNum 页码
      * @param pageSize 每页大小
@@ -476,23 +585,16 @@ public class RetrofitApiService {
                                     SuccessCallback<BaseResponse<FootprintMessageResponse.Data>> successCallback,
                                     ErrorCallback errorCallback) {
         
-        if (!isNetworkAvailable()) {
-            Log.d(TAG, "网络不可用，无法获取足迹消息列表");
-            showNetworkUnavailableMessage();
-            if (errorCallback != null) {
-                errorCallback.onError("网络不可用，请检查网络连接");
-            }
-            return;
-        }
-        
-        Call<BaseResponse<FootprintMessageResponse.Data>> call = apiService.getFootprintMessages(pageNum, pageSize);
-        call.enqueue(new BaseCallback<BaseResponse<FootprintMessageResponse.Data>>(successCallback, errorCallback) {
-            // 使用父类的默认实现
-        });
+        requestCoalescer.enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_MSG_LIST, pageNum, pageSize),
+                () -> apiService.getFootprintMessages(pageNum, pageSize),
+                new BaseCallback<BaseResponse<FootprintMessageResponse.Data>>(successCallback, errorCallback) {
+                    // 使用父类的默认实现
+                });
     }
 
     /**
      * 获取地图页mark数据
+     * 相同参数的并发请求会被合并，只发出一次；离线时返回响应缓存，没有缓存时回调错误
      * 
      * @param pageNum 页码
      * @param pageSize 每页大小
@@ -503,23 +605,97 @@ public class RetrofitApiService {
                              SuccessCallback<BaseResponse<FootprintMessageResponse.Data>> successCallback,
                              ErrorCallback errorCallback) {
         
-        if (!isNetworkAvailable()) {
-            Log.d(TAG, "网络不可用，无法获取地图页mark数据");
-            showNetworkUnavailableMessage();
-            if (errorCallback != null) {
-                errorCallback.onError("网络不可用，请检查网络连接");
-            }
+        requestCoalescer.enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_MSG_LIST_ALL, pageNum, pageSize),
+                () -> apiService.getMsgListAll(pageNum, pageSize),
+                new BaseCallback<BaseResponse<FootprintMessageResponse.Data>>(successCallback, errorCallback) {
+                    // 使用父类的默认实现
+                });
+    }
+
+    /**
+     * 获取矩形区域内的地图mark数据
+     * 相同参数的并发请求会被合并，只发出一次；
+     * 服务端没有区域查询接口（404/405）或已关闭MAP_BOUNDS_QUERY_ENABLED时，改用getMsgListAll并在本地按区域过滤
+     * 
+     * @param minLat 最小纬度
+     * @param minLng 最小经度
+     * @param maxLat 最大纬度
+     * @param maxLng 最大经度
+     * @param pageNum 页码
+     * @param pageSize 每页大小
+     * @param successCallback 成功回调
+     * @param errorCallback 错误回调
+     */
+    public void getMsgListByBounds(double minLat, double minLng, double maxLat, double maxLng,
+                                   int pageNum, int pageSize,
+                                   SuccessCallback<BaseResponse<FootprintMessageResponse.Data>> successCallback,
+                                   ErrorCallback errorCallback) {
+        
+        if (!ApiConfig.MAP_BOUNDS_QUERY_ENABLED || boundsQueryUnsupported) {
+            getMsgListAllInBounds(minLat, minLng, maxLat, maxLng, pageSize, successCallback, errorCallback);
             return;
         }
         
-        Call<BaseResponse<FootprintMessageResponse.Data>> call = apiService.getMsgListAll(pageNum, pageSize);
-        call.enqueue(new BaseCallback<BaseResponse<FootprintMessageResponse.Data>>(successCallback, errorCallback) {
-            // 使用父类的默认实现
-        });
+        requestCoalescer.enqueue(
+                RequestCoalescer.key(ApiConfig.Endpoints.GET_MSG_LIST_BY_BOUNDS, minLat, minLng, maxLat, maxLng,
+                        pageNum, pageSize),
+                () -> apiService.getMsgListByBounds(minLat, minLng, maxLat, maxLng, pageNum, pageSize),
+                new BaseCallback<BaseResponse<FootprintMessageResponse.Data>>(successCallback, errorCallback) {
+                    @Override
+                    public void onResponse(Call<BaseResponse<FootprintMessageResponse.Data>> call,
+                                           retrofit2.Response<BaseResponse<FootprintMessageResponse.Data>> response) {
+                        if (response.code() == 404 || response.code() == 405) {
+                            Log.w(TAG, "服务端不支持区域查询，改用getMsgListAll: " + response.code());
+                            boundsQueryUnsupported = true;
+                            mainHandler.post(() -> getMsgListAllInBounds(minLat, minLng, maxLat, maxLng, pageSize,
+                                    successCallback, errorCallback));
+                            return;
+                        }
+                        super.onResponse(call, response);
+                    }
+                });
+    }
+
+    /**
+     * 通过getMsgListAll获取mark数据后在本地按区域过滤，服务端不支持区域查询时使用
+     * 全量结果可能被合并给其他调用方，过滤结果放入新的响应对象；全量结果被截断时标记为近似结果
+     */
+    private void getMsgListAllInBounds(double minLat, double minLng, double maxLat, double maxLng, int pageSize,
+                                       SuccessCallback<BaseResponse<FootprintMessageResponse.Data>> successCallback,
+                                       ErrorCallback errorCallback) {
+        getMsgListAll(1, pageSize, response -> {
+            BaseResponse<FootprintMessageResponse.Data> result = response;
+            if (response != null && response.isSuccess() && response.getData() != null
+                    && response.getData().getRecords() != null) {
+                FootprintMessageResponse.Data data = response.getData();
+                List<FootprintMessage> inBounds = new ArrayList<>();
+                for (FootprintMessage message : data.getRecords()) {
+                    if (message.getLat() >= minLat && message.getLat() <= maxLat
+                            && message.getLng() >= minLng && message.getLng() <= maxLng) {
+                        inBounds.add(message);
+                    }
+                }
+                FootprintMessageResponse.Data filtered = new FootprintMessageResponse.Data();
+                filtered.setRecords(inBounds);
+                filtered.setTotal(inBounds.size());
+                filtered.setCurrent(1);
+                filtered.setSize(pageSize);
+                filtered.setPages(1);
+                filtered.setApproximate(data.getTotal() > data.getRecords().size());
+                result = new BaseResponse<>();
+                result.setCode(response.getCode());
+                result.setMsg(response.getMsg());
+                result.setData(filtered);
+            }
+            if (successCallback != null) {
+                successCallback.onSuccess(result);
+            }
+        }, errorCallback);
     }
 
     /**
      * 获取评论列表
+     * 相同参数的并发请求会被合并，只发出一次；离线时返回响应缓存，没有缓存时回调错误
      * 
      * @param msgId 消息ID
      * @param successCallback 成功回调
@@ -529,23 +705,16 @@ public class RetrofitApiService {
                               SuccessCallback<BaseResponse<List<CommentModel>>> successCallback,
                               ErrorCallback errorCallback) {
         
-        if (!isNetworkAvailable()) {
-            Log.d(TAG, "网络不可用，无法获取评论列表");
-            showNetworkUnavailableMessage();
-            if (errorCallback != null) {
-                errorCallback.onError("网络不可用，请检查网络连接");
-            }
-            return;
-        }
-        
-        Call<BaseResponse<List<CommentModel>>> call = apiService.getCommentList(msgId);
-        call.enqueue(new BaseCallback<BaseResponse<List<CommentModel>>>(successCallback, errorCallback) {
-            // 使用父类的默认实现
-        });
+        requestCoalescer.enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_COMMENT_LIST, msgId),
+                () -> apiService.getCommentList(msgId),
+                new BaseCallback<BaseResponse<List<CommentModel>>>(successCallback, errorCallback) {
+                    // 使用父类的默认实现
+                });
     }
 
     /**
      * 添加评论
+     * 经离线发件箱提交，网络不可用时保存并回调成功（response.isQueued()为true）
      * 
      * @param msgId 消息ID
      * @param content 评论内容
@@ -557,23 +726,12 @@ public class RetrofitApiService {
                           SuccessCallback<BaseResponse<JSONObject>> successCallback,
                           ErrorCallback errorCallback) {
         
-        if (!isNetworkAvailable()) {
-            Log.d(TAG, "网络不可用，无法添加评论");
-            showNetworkUnavailableMessage();
-            if (errorCallback != null) {
-                errorCallback.onError("网络不可用，请检查网络连接");
-            }
-            return;
-        }
-        
-        Call<BaseResponse<JSONObject>> call = apiService.addComment(msgId, content, parentId);
-        call.enqueue(new BaseCallback<BaseResponse<JSONObject>>(successCallback, errorCallback) {
-            // 使用父类的默认实现
-        });
+        outbox.addComment(msgId, content, parentId, successCallback, errorCallback);
     }
 
     /**
      * 删除评论
+     * 经离线发件箱提交，网络不可用时保存并回调成功（response.isQueued()为true）
      * 
      * @param commentId 评论ID
      * @param successCallback 成功回调
@@ -583,23 +741,12 @@ public class RetrofitApiService {
                              SuccessCallback<BaseResponse<String>> successCallback,
                              ErrorCallback errorCallback) {
         
-        if (!isNetworkAvailable()) {
-            Log.d(TAG, "网络不可用，无法删除评论");
-            showNetworkUnavailableMessage();
-            if (errorCallback != null) {
-                errorCallback.onError("网络不可用，请检查网络连接");
-            }
-            return;
-        }
-        
-        Call<BaseResponse<String>> call = apiService.deleteComment(commentId);
-        call.enqueue(new BaseCallback<BaseResponse<String>>(successCallback, errorCallback) {
-            // 使用父类的默认实现
-        });
+        outbox.deleteComment(commentId, successCallback, errorCallback);
     }
 
     /**
      * 删除足迹
+     * 经离线发件箱提交，网络不可用时保存并回调成功（response.isQueued()为true）
      * 
      * @param msgId 足迹消息ID
      * @param successCallback 成功回调
@@ -609,23 +756,12 @@ public class RetrofitApiService {
                                SuccessCallback<BaseResponse<String>> successCallback,
                                ErrorCallback errorCallback) {
         
-        if (!isNetworkAvailable()) {
-            Log.d(TAG, "网络不可用，无法删除足迹");
-            showNetworkUnavailableMessage();
-            if (errorCallback != null) {
-                errorCallback.onError("网络不可用，请检查网络连接");
-            }
-            return;
-        }
-        
-        Call<BaseResponse<String>> call = apiService.deleteFootprint(msgId);
-        call.enqueue(new BaseCallback<BaseResponse<String>>(successCallback, errorCallback) {
-            // 使用父类的默认实现
-        });
+        outbox.deleteFootprint(msgId, successCallback, errorCallback);
     }
 
     /**
      * 点赞/取消点赞
+     * 经离线发件箱提交，网络不可用时保存并回调成功（response.isQueued()为true）
      * 
      * @param msgId 消息ID
      * @param successCallback 成功回调
@@ -635,23 +771,12 @@ public class RetrofitApiService {
                           SuccessCallback<BaseResponse<JSONObject>> successCallback,
                           ErrorCallback errorCallback) {
         
-        if (!isNetworkAvailable()) {
-            Log.d(TAG, "网络不可用，无法执行点赞操作");
-            showNetworkUnavailableMessage();
-            if (errorCallback != null) {
-                errorCallback.onError("网络不可用，请检查网络连接");
-            }
-            return;
-        }
-        
-        Call<BaseResponse<JSONObject>> call = apiService.toggleLike(msgId);
-        call.enqueue(new BaseCallback<BaseResponse<JSONObject>>(successCallback, errorCallback) {
-            // 使用父类的默认实现
-        });
+        outbox.toggleLike(msgId, successCallback, errorCallback);
     }
 
     /**
      * 检查应用更新
+     * 离线时返回响应缓存，没有缓存时回调错误
      * 
      * @param currentVersionCode 当前版本号
      * @param platform 平台（android）
@@ -662,15 +787,6 @@ public class RetrofitApiService {
                               SuccessCallback<BaseResponse<AppUpdateInfo>> successCallback,
                               ErrorCallback errorCallback) {
         
-        if (!isNetworkAvailable()) {
-            Log.d(TAG, "网络不可用，无法检查更新");
-            showNetworkUnavailableMessage();
-            if (errorCallback != null) {
-                errorCallback.onError("网络不可用，请检查网络连接");
-            }
-            return;
-        }
-        
         Call<BaseResponse<AppUpdateInfo>> call = apiService.checkAppUpdate(currentVersionCode, platform);
         call.enqueue(new BaseCallback<BaseResponse<AppUpdateInfo>>(successCallback, errorCallback) {
             // 使用父类的默认实现
@@ -721,17 +837,4 @@ public class RetrofitApiService {
          */
         void onLoadingEnd();
     }
-
-    // ==================== 内部类 ====================
-
-    /**
-     * 请求信息类，用于保存失败的请求以便重试
-     */
-    private static class RequestInfo {
-        // 这里可以根据需要添加重试逻辑
-        public void retry() {
-            // 重试逻辑实现
-            Log.d(TAG, "重试请求");
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.damors.zuji.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 重试拦截器
+ * 对暂时性失败（网络错误、502/503/504、408、429）按指数退避加随机抖动（full jitter）重试，
+ * 只重试幂等接口，发布足迹等非幂等接口失败后直接返回，避免重复提交。
+ * 所有请求共享一个熔断器，服务端持续故障时快速失败，不再重试；
+ * 只有5xx和已建立连接上的超时计入熔断，本机断网、DNS失败、连接被拒绝等客户端网络错误不计入
+ */
+public class RetryInterceptor implements Interceptor {
+    private static final String TAG = "RetryInterceptor";
+
+    private final Set<String> idempotentEndpoints;
+    private final CircuitBreaker circuitBreaker;
+    private final int maxRetries;
+    private final long initialBackoffMs;
+    private final float backoffMultiplier;
+    private final long maxBackoffMs;
+
+    // 统计
+    private final AtomicInteger retryCount = new AtomicInteger();
+    private final AtomicInteger recoveredCount = new AtomicInteger();
+    private final AtomicInteger rejectedCount = new AtomicInteger();
+
+    /**
+     * @param idempotentEndpoints 可以安全重试的接口名
+     * @param circuitBreaker 熔断器
+     * @param maxRetries 最多重试次数（不含首次请求）
+     * @param initialBackoffMs 首次重试的最大等待时间
+     * @param backoffMultiplier 每次重试等待时间的倍数
+     * @param maxBackoffMs 单次等待时间上限
+     */
+    public RetryInterceptor(Set<String> idempotentEndpoints, CircuitBreaker circuitBreaker, int maxRetries,
+                            long initialBackoffMs, float backoffMultiplier, long maxBackoffMs) {
+        this.idempotentEndpoints = idempotentEndpoints;
+        this.circuitBreaker = circuitBreaker;
+        this.maxRetries = maxRetries;
+        this.initialBackoffMs = initialBackoffMs;
+        this.backoffMultiplier = backoffMultiplier;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = ApiConfig.getEndpoint(request);
+        boolean idempotent = idempotentEndpoints.contains(endpoint);
+
+        for (int attempt = 0; ; attempt++) {
+            if (!circuitBreaker.allowRequest()) {
+                rejectedCount.incrementAndGet();
+                long remaining = circuitBreaker.getRemainingOpenMs();
+                throw new CircuitBreaker.OpenException("服务暂时不可用，请" + (remaining / 1000 + 1) + "秒后重试", remaining);
+            }
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (chain.call().isCanceled()) {
+                    circuitBreaker.release();
+                    throw e;
+                }
+                if (isServerTimeout(e)) {
+                    circuitBreaker.recordFailure();
+                } else {
+                    // 客户端网络错误，与服务端状态无关
+                    circuitBreaker.release();
+                }
+                if (!idempotent || attempt >= maxRetries) {
+                    throw e;
+                }
+                Log.w(TAG, "请求失败，准备重试: " + endpoint + ", 第" + (attempt + 1) + "次, " + e.getMessage());
+                waitBeforeRetry(chain, backoff(attempt));
+                continue;
+            }
+
+            int code = response.code();
+            if (code >= 500) {
+                circuitBreaker.recordFailure();
+            } else {
+                circuitBreaker.recordSuccess();
+            }
+            if (!isRetryable(code) || !idempotent || attempt >= maxRetries) {
+                if (attempt > 0 && response.isSuccessful()) {
+                    recoveredCount.incrementAndGet();
+                }
+                return response;
+            }
+
+            long delay = backoff(attempt);
+            long retryAfter = retryAfterMs(response);
+            if (retryAfter > maxBackoffMs) {
+                // 服务端要求等待的时间过长，不在拦截器中阻塞
+                return response;
+            }
+            response.close();
+            Log.w(TAG, "服务端返回" + code + "，准备重试: " + endpoint + ", 第" + (attempt + 1) + "次");
+            waitBeforeRetry(chain, Math.max(delay, retryAfter));
+        }
+    }
+
+    /**
+     * 计算第attempt次重试前的等待时间：在[0, min(上限, 初始值 × 倍数^attempt)]内随机
+     */
+    long backoff(int attempt) {
+        double ceiling = Math.min(maxBackoffMs, initialBackoffMs * Math.pow(backoffMultiplier, attempt));
+        return (long) (ThreadLocalRandom.current().nextDouble() * ceiling);
+    }
+
+    private void waitBeforeRetry(Chain chain, long delayMs) throws IOException {
+        retryCount.incrementAndGet();
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("重试等待被中断");
+        }
+        if (chain.call().isCanceled()) {
+            throw new IOException("Canceled");
+        }
+    }
+
+    /**
+     * 是否为已建立连接上的超时（服务端处理过慢）
+     * 连接超时的消息中含有connect（"connect timed out"或"failed to connect to ..."），
+     * 说明请求没有到达服务端，与断网一样按客户端网络错误处理
+     */
+    static boolean isServerTimeout(IOException e) {
+        if (!(e instanceof SocketTimeoutException)) {
+            return false;
+        }
+        String message = e.getMessage();
+        return message == null || !message.toLowerCase().contains("connect");
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 408 || code == 429 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * 解析Retry-After响应头（秒数形式）
+     * @return 等待毫秒数，没有时为0
+     */
+    private static long retryAfterMs(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * 获取统计信息
+     * @return 统计信息字符串
+     */
+    public String getStats() {
+        return "重试: " + retryCount.get() + ", 重试后成功: " + recoveredCount.get()
+                + ", 熔断拒绝: " + rejectedCount.get() + ", 熔断次数: " + circuitBreaker.getOpenCount()
+                + ", 熔断状态: " + circuitBreaker.getState();
+    }
+}
@@ -0,0 +1,516 @@
+package com.damors.zuji.network;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.damors.zuji.model.FootprintMessage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 地图可视区域mark加载器
+ * 将地图按缩放级别划分为经纬度瓦片，已拉取的瓦片缓存在内存中。相机移动停止一段时间后
+ * 才计算可视区域（防抖），缺失或过期的瓦片合并为尽量少的矩形区域请求（不包含已缓存的瓦片），
+ * 返回的数据按瓦片分发缓存，再与已缓存的瓦片一起按消息ID去重后回调。
+ * 上级瓦片已完整缓存时视为覆盖其下级瓦片，放大地图不会重复请求；
+ * 区域结果被截断时拆成两半重新请求，直到单个瓦片，单个瓦片仍被截断时只用于当前级别。
+ * 数据来源通过MarkFetcher注入，所有方法须在主线程调用
+ */
+public class ViewportMarkLoader {
+    private static final String TAG = "ViewportMarkLoader";
+
+    /**
+     * 相机停止移动后等待的时间（毫秒）
+     */
+    public static final long DEFAULT_DEBOUNCE_MS = 300;
+
+    /**
+     * 单次区域请求最多返回的记录数
+     */
+    public static final int FETCH_PAGE_SIZE = 500;
+
+    // 瓦片级别范围，级别L的瓦片边长为 360/2^L 度
+    private static final int MIN_TILE_LEVEL = 3;
+    private static final int MAX_TILE_LEVEL = 14;
+
+    // 单个可视区域最多覆盖的瓦片数，超过时改用更粗的级别
+    private static final int MAX_VIEWPORT_TILES = 64;
+
+    // 瓦片缓存数量上限和有效期
+    private static final int MAX_CACHED_TILES = 256;
+    private static final long TILE_TTL_MS = 5 * 60 * 1000;
+
+    private final MarkFetcher fetcher;
+    private final Listener listener;
+    private final Handler handler;
+    private final long debounceMs;
+
+    private final LinkedHashMap<Long, TileEntry> tiles = new LinkedHashMap<Long, TileEntry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, TileEntry> eldest) {
+            return size() > MAX_CACHED_TILES;
+        }
+    };
+    private final Set<Long> inFlightTiles = new HashSet<>();
+
+    private Viewport latestViewport;
+    private final Runnable debouncedLoad = this::loadLatest;
+    private boolean released = false;
+
+    private int tileHitCount;
+    private int tileMissCount;
+    private int requestCount;
+
+    public ViewportMarkLoader(MarkFetcher fetcher, Listener listener) {
+        this(fetcher, listener, new Handler(Looper.getMainLooper()), DEFAULT_DEBOUNCE_MS);
+    }
+
+    /**
+     * @param fetcher 区域数据来源
+     * @param listener 结果回调
+     * @param handler 用于防抖的Handler
+     * @param debounceMs 防抖等待时间（毫秒）
+     */
+    public ViewportMarkLoader(MarkFetcher fetcher, Listener listener, Handler handler, long debounceMs) {
+        this.fetcher = fetcher;
+        this.listener = listener;
+        this.handler = handler;
+        this.debounceMs = debounceMs;
+    }
+
+    /**
+     * 可视区域变化，防抖后加载
+     * @param minLat 最小纬度
+     * @param minLng 最小经度
+     * @param maxLat 最大纬度
+     * @param maxLng 最大经度
+     * @param zoom 地图缩放级别
+     */
+    public void onViewportChanged(double minLat, double minLng, double maxLat, double maxLng, float zoom) {
+        if (released) {
+            return;
+        }
+        latestViewport = new Viewport(minLat, minLng, maxLat, maxLng, zoom);
+        handler.removeCallbacks(debouncedLoad);
+        handler.postDelayed(debouncedLoad, debounceMs);
+    }
+
+    /**
+     * 立即加载指定可视区域，跳过防抖
+     */
+    public void loadNow(double minLat, double minLng, double maxLat, double maxLng, float zoom) {
+        if (released) {
+            return;
+        }
+        latestViewport = new Viewport(minLat, minLng, maxLat, maxLng, zoom);
+        handler.removeCallbacks(debouncedLoad);
+        loadLatest();
+    }
+
+    /**
+     * 清空瓦片缓存，下次加载时重新请求，通常在数据发生变化（如发布、删除足迹）后调用
+     */
+    public void invalidate() {
+        tiles.clear();
+    }
+
+    /**
+     * 释放加载器，之后不再回调
+     */
+    public void release() {
+        released = true;
+        handler.removeCallbacks(debouncedLoad);
+        tiles.clear();
+        inFlightTiles.clear();
+        latestViewport = null;
+    }
+
+    /**
+     * 获取缓存统计信息
+     * @return 统计信息字符串
+     */
+    public String getStats() {
+        return "瓦片命中: " + tileHitCount + ", 未命中: " + tileMissCount
+                + ", 请求次数: " + requestCount + ", 缓存瓦片: " + tiles.size() + "/" + MAX_CACHED_TILES;
+    }
+
+    private void loadLatest() {
+        Viewport viewport = latestViewport;
+        if (released || viewport == null) {
+            return;
+        }
+
+        TileRange range = TileRange.covering(viewport);
+        long now = System.currentTimeMillis();
+        List<Long> missing = new ArrayList<>();
+        boolean anyCached = false;
+        for (int y = range.minY; y <= range.maxY; y++) {
+            for (int x = range.minX; x <= range.maxX; x++) {
+                if (findCoveringTile(range.level, x, y, now) != null) {
+                    tileHitCount++;
+                    anyCached = true;
+                    continue;
+                }
+                long key = tileKey(range.level, x, y);
+                if (!inFlightTiles.contains(key)) {
+                    tileMissCount++;
+                    missing.add(key);
+                }
+            }
+        }
+
+        // 先用已缓存的数据回调，缺失部分请求完成后再次回调；全部缺失时不回调空结果，避免标记闪烁
+        if (anyCached || missing.isEmpty()) {
+            deliver(viewport, range, now);
+        }
+        if (!missing.isEmpty()) {
+            fetchTiles(range.level, missing);
+        }
+    }
+
+    /**
+     * 将缺失的瓦片合并为若干矩形区域请求：先按行合并连续的瓦片，再合并相邻行中列范围相同的部分，
+     * 矩形中不包含已缓存的瓦片
+     * @param keys 缺失的瓦片，按行、列顺序排列
+     */
+    private void fetchTiles(int level, List<Long> keys) {
+        List<int[]> open = new ArrayList<>();
+        List<int[]> rects = new ArrayList<>();
+        int i = 0;
+        while (i < keys.size()) {
+            int y = tileY(keys.get(i));
+            List<int[]> rowRuns = new ArrayList<>();
+            while (i < keys.size() && tileY(keys.get(i)) == y) {
+                int startX = tileX(keys.get(i));
+                int endX = startX;
+                i++;
+                while (i < keys.size() && tileY(keys.get(i)) == y && tileX(keys.get(i)) == endX + 1) {
+                    endX++;
+                    i++;
+                }
+                rowRuns.add(new int[]{startX, y, endX, y});
+            }
+            // 上一行中列范围相同的矩形向下延伸，其余的矩形结束
+            List<int[]> next = new ArrayList<>();
+            for (int[] run : rowRuns) {
+                int[] extended = null;
+                for (int[] rect : open) {
+                    if (rect[0] == run[0] && rect[2] == run[2] && rect[3] == y - 1) {
+                        extended = rect;
+                        break;
+                    }
+                }
+                if (extended != null) {
+                    open.remove(extended);
+                    extended[3] = y;
+                    next.add(extended);
+                } else {
+                    next.add(run);
+                }
+            }
+            rects.addAll(open);
+            open = next;
+        }
+        rects.addAll(open);
+        for (int[] rect : rects) {
+            fetchRect(level, rect[0], rect[1], rect[2], rect[3]);
+        }
+    }
+
+    /**
+     * 请求一个矩形区域内的瓦片，结果被截断时沿较长的一边拆成两半分别重新请求
+     */
+    private void fetchRect(int level, int minX, int minY, int maxX, int maxY) {
+        List<Long> keys = new ArrayList<>();
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                keys.add(tileKey(level, x, y));
+            }
+        }
+        double size = tileSize(level);
+        double minLat = -90 + minY * size;
+        double minLng = -180 + minX * size;
+        double maxLat = Math.min(90, -90 + (maxY + 1) * size);
+        double maxLng = Math.min(180, -180 + (maxX + 1) * size);
+
+        inFlightTiles.addAll(keys);
+        requestCount++;
+        Log.d(TAG, "请求区域mark数据，级别: " + level + ", 瓦片数: " + keys.size());
+
+        fetcher.fetch(minLat, minLng, maxLat, maxLng, FETCH_PAGE_SIZE, new FetchCallback() {
+            @Override
+            public void onResult(List<FootprintMessage> records, boolean truncated) {
+                inFlightTiles.removeAll(keys);
+                if (released) {
+                    return;
+                }
+                if (truncated && keys.size() > 1) {
+                    // 区域内数据超过上限，缩小范围重新请求，截断的结果不缓存
+                    Log.d(TAG, "区域结果被截断，拆分重新请求，瓦片数: " + keys.size());
+                    if (maxX - minX >= maxY - minY) {
+                        int midX = (minX + maxX) / 2;
+                        fetchRect(level, minX, minY, midX, maxY);
+                        fetchRect(level, midX + 1, minY, maxX, maxY);
+                    } else {
+                        int midY = (minY + maxY) / 2;
+                        fetchRect(level, minX, minY, maxX, midY);
+                        fetchRect(level, minX, midY + 1, maxX, maxY);
+                    }
+                    return;
+                }
+                storeTiles(level, keys, records, !truncated);
+                deliverLatest();
+            }
+
+            @Override
+            public void onApproximateResult(List<FootprintMessage> records) {
+                inFlightTiles.removeAll(keys);
+                if (released) {
+                    return;
+                }
+                storeTiles(level, keys, records, false);
+                deliverLatest();
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                inFlightTiles.removeAll(keys);
+                if (!released && listener != null) {
+                    listener.onLoadError(errorMessage);
+                }
+            }
+        });
+    }
+
+    /**
+     * 按最新的可视区域重新汇总并回调
+     */
+    private void deliverLatest() {
+        Viewport viewport = latestViewport;
+        if (viewport != null) {
+            deliver(viewport, TileRange.covering(viewport), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 按瓦片分发请求结果。结果被截断时瓦片标记为不完整，不能用于覆盖下级瓦片
+     */
+    private void storeTiles(int level, List<Long> keys, List<FootprintMessage> records, boolean complete) {
+        Map<Long, TileEntry> entries = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        for (long key : keys) {
+            entries.put(key, new TileEntry(now, complete));
+        }
+        if (records != null) {
+            for (FootprintMessage message : records) {
+                TileEntry entry = entries.get(tileKey(level,
+                        tileIndex(message.getLng() + 180, level), tileIndex(message.getLat() + 90, level)));
+                if (entry != null) {
+                    entry.messages.add(message);
+                }
+            }
+        }
+        tiles.putAll(entries);
+    }
+
+    /**
+     * 汇总可视区域内已缓存的数据，按消息ID去重后回调
+     */
+    private void deliver(Viewport viewport, TileRange range, long now) {
+        if (listener == null) {
+            return;
+        }
+        Map<Integer, FootprintMessage> merged = new LinkedHashMap<>();
+        Set<Long> visited = new HashSet<>();
+        double size = tileSize(range.level);
+        double minLat = -90 + range.minY * size;
+        double minLng = -180 + range.minX * size;
+        double maxLat = -90 + (range.maxY + 1) * size;
+        double maxLng = -180 + (range.maxX + 1) * size;
+        for (int y = range.minY; y <= range.maxY; y++) {
+            for (int x = range.minX; x <= range.maxX; x++) {
+                Long key = findCoveringTile(range.level, x, y, now);
+                if (key == null || !visited.add(key)) {
+                    continue;
+                }
+                for (FootprintMessage message : tiles.get(key).messages) {
+                    double lat = message.getLat();
+                    double lng = message.getLng();
+                    if (lat >= minLat && lat < maxLat && lng >= minLng && lng < maxLng) {
+                        merged.put(message.getId(), message);
+                    }
+                }
+            }
+        }
+        listener.onMarksLoaded(new ArrayList<>(merged.values()));
+    }
+
+    /**
+     * 查找覆盖指定瓦片的有效缓存：已完整缓存的瓦片本身或上级瓦片。
+     * 不完整的瓦片只可能来自单个瓦片的请求，已无法再缩小范围，只用于覆盖它自己
+     * @return 缓存键，没有时返回null
+     */
+    private Long findCoveringTile(int level, int x, int y, long now) {
+        for (int l = level; l >= MIN_TILE_LEVEL; l--, x >>= 1, y >>= 1) {
+            long key = tileKey(l, x, y);
+            TileEntry entry = tiles.get(key);
+            if (entry == null) {
+                continue;
+            }
+            if (now - entry.fetchedAt > TILE_TTL_MS) {
+                tiles.remove(key);
+                continue;
+            }
+            if (l == level || entry.complete) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    static double tileSize(int level) {
+        return 360.0 / (1 << level);
+    }
+
+    static int tileIndex(double offsetDegrees, int level) {
+        int max = (1 << level) - 1;
+        return Math.max(0, Math.min(max, (int) Math.floor(offsetDegrees / tileSize(level))));
+    }
+
+    static long tileKey(int level, int x, int y) {
+        return ((long) level << 56) | ((long) x << 28) | y;
+    }
+
+    private static int tileX(long key) {
+        return (int) ((key >>> 28) & 0xFFFFFFF);
+    }
+
+    private static int tileY(long key) {
+        return (int) (key & 0xFFFFFFF);
+    }
+
+    /**
+     * 可视区域
+     */
+    private static class Viewport {
+        final double minLat;
+        final double minLng;
+        final double maxLat;
+        final double maxLng;
+        final float zoom;
+
+        Viewport(double minLat, double minLng, double maxLat, double maxLng, float zoom) {
+            this.minLat = Math.max(-90, Math.min(minLat, maxLat));
+            this.maxLat = Math.min(90, Math.max(minLat, maxLat));
+            if (minLng > maxLng) {
+                // 跨越180度经线时退化为全部经度
+                this.minLng = -180;
+                this.maxLng = 180;
+            } else {
+                this.minLng = Math.max(-180, minLng);
+                this.maxLng = Math.min(180, maxLng);
+            }
+            this.zoom = zoom;
+        }
+    }
+
+    /**
+     * 可视区域覆盖的瓦片范围
+     */
+    private static class TileRange {
+        int level;
+        int minX;
+        int minY;
+        int maxX;
+        int maxY;
+
+        static TileRange covering(Viewport viewport) {
+            TileRange range = new TileRange();
+            range.level = Math.max(MIN_TILE_LEVEL, Math.min(MAX_TILE_LEVEL, (int) viewport.zoom - 1));
+            while (true) {
+                range.minX = tileIndex(viewport.minLng + 180, range.level);
+                range.maxX = tileIndex(viewport.maxLng + 180, range.level);
+                range.minY = tileIndex(viewport.minLat + 90, range.level);
+                range.maxY = tileIndex(viewport.maxLat + 90, range.level);
+                long count = (long) (range.maxX - range.minX + 1) * (range.maxY - range.minY + 1);
+                if (count <= MAX_VIEWPORT_TILES || range.level == MIN_TILE_LEVEL) {
+                    return range;
+                }
+                range.level--;
+            }
+        }
+    }
+
+    /**
+     * 瓦片缓存项
+     */
+    private static class TileEntry {
+        final long fetchedAt;
+        final boolean complete;
+        final List<FootprintMessage> messages = new ArrayList<>();
+
+        TileEntry(long fetchedAt, boolean complete) {
+            this.fetchedAt = fetchedAt;
+            this.complete = complete;
+        }
+    }
+
+    /**
+     * 区域数据来源
+     */
+    public interface MarkFetcher {
+        /**
+         * 获取矩形区域内的mark数据
+         * @param minLat 最小纬度
+         * @param minLng 最小经度
+         * @param maxLat 最大纬度
+         * @param maxLng 最大经度
+         * @param limit 最多返回的记录数
+         * @param callback 结果回调，须在主线程调用
+         */
+        void fetch(double minLat, double minLng, double maxLat, double maxLng, int limit, FetchCallback callback);
+    }
+
+    /**
+     * 区域数据回调
+     */
+    public interface FetchCallback {
+        /**
+         * @param records 区域内的记录
+         * @param truncated 区域内记录数超过limit，结果不完整
+         */
+        void onResult(List<FootprintMessage> records, boolean truncated);
+
+        /**
+         * 近似结果（离线缓存、全量结果本地过滤等），缩小区域重新请求也无法补全，
+         * 瓦片标记为不完整但不拆分
+         * @param records 区域内的记录
+         */
+        void onApproximateResult(List<FootprintMessage> records);
+
+        void onError(String errorMessage);
+    }
+
+    /**
+     * 加载结果回调
+     */
+    public interface Listener {
+        /**
+         * 可视区域内的mark数据，已按消息ID去重
+         * @param marks mark列表
+         */
+        void onMarksLoaded(List<FootprintMessage> marks);
+
+        /**
+         * 加载失败
+         * @param errorMessage 错误消息
+         */
+        void onLoadError(String errorMessage);
+    }
+}
@@ -0,0 +1,154 @@
+package com.damors.zuji.utils;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bitmap复用池
+ * 按像素内存大小分桶保存不再使用的可变Bitmap，解码时作为inBitmap、变换时作为目标画布复用，
+ * 批量处理相机照片时不必为每张图片重新分配几MB的像素内存，减少GC停顿。
+ * 只复用分配大小不小于需求、且不超过需求MAX_SIZE_MULTIPLE倍的Bitmap，避免小图长期占用大块内存。
+ * 线程安全
+ */
+public class BitmapPool {
+    private static final String TAG = "BitmapPool";
+
+    // 复用的Bitmap分配大小最多为需求的倍数
+    private static final int MAX_SIZE_MULTIPLE = 4;
+
+    private final long maxBytes;
+    private final TreeMap<Integer, Deque<Bitmap>> buckets = new TreeMap<>();
+    private long currentBytes;
+
+    // 统计
+    private int hits;
+    private int misses;
+    private int puts;
+    private int evictions;
+
+    /**
+     * @param maxBytes 池中Bitmap像素内存总量上限（字节）
+     */
+    public BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 取出可以容纳指定字节数的Bitmap，用作BitmapFactory.Options.inBitmap
+     * 解码器会把它重新配置为实际尺寸
+     * @param byteCount 需要的像素内存（字节）
+     * @return 可变Bitmap，没有合适的时返回null
+     */
+    public synchronized Bitmap get(int byteCount) {
+        Map.Entry<Integer, Deque<Bitmap>> entry = buckets.ceilingEntry(byteCount);
+        if (entry == null || entry.getKey() > (long) byteCount * MAX_SIZE_MULTIPLE) {
+            misses++;
+            return null;
+        }
+        Deque<Bitmap> bucket = entry.getValue();
+        Bitmap bitmap = bucket.poll();
+        if (bucket.isEmpty()) {
+            buckets.remove(entry.getKey());
+        }
+        currentBytes -= entry.getKey();
+        hits++;
+        return bitmap;
+    }
+
+    /**
+     * 取出Bitmap并重新配置为指定尺寸，内容未定义，用作绘制目标；没有合适的时新建
+     * @param width 宽度
+     * @param height 高度
+     * @param config 像素格式
+     * @return 可变Bitmap
+     */
+    public Bitmap getDirty(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = get(width * height * bytesPerPixel(config));
+        if (bitmap != null) {
+            try {
+                bitmap.reconfigure(width, height, config);
+                return bitmap;
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "重新配置Bitmap失败", e);
+                bitmap.recycle();
+            }
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * 归还不再使用的Bitmap，不可变或超出容量时直接回收
+     * 归还后调用方不能再使用该Bitmap
+     * @param bitmap Bitmap
+     */
+    public void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        int size = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || size > maxBytes / 2) {
+            bitmap.recycle();
+            return;
+        }
+        synchronized (this) {
+            Deque<Bitmap> bucket = buckets.get(size);
+            if (bucket == null) {
+                bucket = new ArrayDeque<>();
+                buckets.put(size, bucket);
+            }
+            bucket.push(bitmap);
+            currentBytes += size;
+            puts++;
+            trimToSize(maxBytes);
+        }
+    }
+
+    /**
+     * 清空池并回收全部Bitmap，一批图片处理完成或内存紧张时调用
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * 从最小的桶开始回收，直到总量不超过上限；小图复用价值低，优先淘汰
+     */
+    private void trimToSize(long size) {
+        while (currentBytes > size && !buckets.isEmpty()) {
+            Map.Entry<Integer, Deque<Bitmap>> entry = buckets.firstEntry();
+            Bitmap bitmap = entry.getValue().poll();
+            if (entry.getValue().isEmpty()) {
+                buckets.remove(entry.getKey());
+            }
+            currentBytes -= entry.getKey();
+            if (bitmap != null) {
+                bitmap.recycle();
+            }
+            evictions++;
+        }
+    }
+
+    private static int bytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        }
+        if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        }
+        return 4;
+    }
+
+    /**
+     * 获取统计信息
+     * @return 统计信息字符串
+     */
+    public synchronized String getStats() {
+        return "复用命中: " + hits + ", 未命中: " + misses + ", 归还: " + puts + ", 淘汰: " + evictions
+                + ", 当前: " + currentBytes / 1024 + "KB/" + maxBytes / 1024 + "KB";
+    }
+}
@@ -0,0 +1,64 @@
+package com.damors.zuji.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 文件内容哈希工具类
+ * 以固定大小的缓冲区流式读取，内存占用与文件大小无关，用于识别重复上传的图片
+ */
+public class ContentHasher {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ContentHasher() {
+    }
+
+    /**
+     * 计算文件的SHA-256
+     * @param file 文件
+     * @return 小写十六进制字符串
+     * @throws IOException 读取失败
+     */
+    public static String sha256(File file) throws IOException {
+        try (InputStream input = new FileInputStream(file)) {
+            return sha256(input);
+        }
+    }
+
+    /**
+     * 计算输入流剩余内容的SHA-256，不关闭输入流
+     * @param input 输入流
+     * @return 小写十六进制字符串
+     * @throws IOException 读取失败
+     */
+    public static String sha256(InputStream input) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+}
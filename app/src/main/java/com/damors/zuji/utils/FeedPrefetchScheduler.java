@@ -0,0 +1,371 @@
+package com.damors.zuji.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.damors.zuji.data.MessageFeedRepository;
+import com.damors.zuji.model.FootprintMessage;
+
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * 足迹动态列表预取调度器
+ * 根据滚动/惯性滑动速度、条目高度和实际的分页加载耗时预测加载完成时用户将看到的位置，
+ * 提前请求下一页并放入有界的预读缓冲区；滚动接近已展示数据的末尾时直接从缓冲区追加，
+ * 用户不再看到每页一次的加载等待。缓冲区最多保留MAX_BUFFERED_PAGES页已解析的数据。
+ * 预取失败后按指数退避等待一段时间再重试，网络持续失败时不会每次滚动都发出请求。
+ * 页码1和下拉刷新仍由页面自己加载，调度器只负责后续页。所有方法在主线程调用
+ */
+public class FeedPrefetchScheduler extends RecyclerView.OnScrollListener {
+    private static final String TAG = "FeedPrefetchScheduler";
+
+    // 预读缓冲区最多保留的页数
+    private static final int MAX_BUFFERED_PAGES = 2;
+
+    // 预测时至少向前看的时间，加载耗时未知时使用
+    private static final long MIN_LEAD_TIME_MS = 500;
+
+    // 距离已展示末尾不超过该条目数时追加下一页
+    private static final int APPEND_THRESHOLD = 3;
+
+    // 速度平滑系数，越大越偏向最新的采样
+    private static final float VELOCITY_SMOOTHING = 0.3f;
+
+    // 加载耗时平滑系数
+    private static final float LATENCY_SMOOTHING = 0.25f;
+
+    // 预取失败后首次重试的等待时间和上限
+    private static final long RETRY_INITIAL_DELAY_MS = 1000;
+    private static final long RETRY_MAX_DELAY_MS = 30000;
+
+    private final MessageFeedRepository feedRepository;
+    private final int pageSize;
+    private final Listener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable retryPrefetch = this::retryPrefetch;
+
+    // 预取但尚未展示的页
+    private final TreeMap<Integer, Page> buffer = new TreeMap<>();
+    // 已展示的最后一页
+    private int displayedPage;
+    private boolean displayedEndReached;
+    // 正在预取的页码，0表示没有
+    private int inFlightPage;
+    // 预取完成后是否立即展示（用户已经滚动到末尾）
+    private boolean appendWhenReady;
+    // 刷新后递增，丢弃刷新前发出的预取结果
+    private int generation;
+    // 连续失败次数和下次允许预取的时间
+    private int consecutiveFailures;
+    private long retryNotBefore;
+    private boolean released;
+
+    // 滚动速度（像素/毫秒，向下为正）
+    private float velocityPxPerMs;
+    private long lastScrollTime;
+    // 分页加载耗时的平滑值，0表示还没有采样
+    private long averageLatencyMs;
+
+    // 统计
+    private int prefetchCount;
+    private int bufferHitCount;
+    private int bufferMissCount;
+    private int failureCount;
+
+    /**
+     * @param feedRepository 足迹动态仓库
+     * @param pageSize 每页大小
+     * @param listener 回调
+     */
+    public FeedPrefetchScheduler(MessageFeedRepository feedRepository, int pageSize, Listener listener) {
+        this.feedRepository = feedRepository;
+        this.pageSize = pageSize;
+        this.listener = listener;
+    }
+
+    /**
+     * 监听列表滚动，列表需使用LinearLayoutManager
+     * 没有设置OnFlingListener时同时记录惯性滑动的初速度
+     * @param recyclerView 列表
+     */
+    public void attach(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(this);
+        if (recyclerView.getOnFlingListener() == null) {
+            recyclerView.setOnFlingListener(new RecyclerView.OnFlingListener() {
+                @Override
+                public boolean onFling(int velocityX, int velocityY) {
+                    // 惯性滑动开始时用初速度替换平滑值，不消费事件
+                    velocityPxPerMs = velocityY / 1000f;
+                    lastScrollTime = SystemClock.uptimeMillis();
+                    return false;
+                }
+            });
+        }
+    }
+
+    /**
+     * 页面展示了一页数据后调用（包括页面自己加载的第1页和刷新）
+     * 页码小于已展示页时视为刷新，清空缓冲区
+     * @param page 页码
+     * @param endReached 是否已到末页
+     */
+    public void onPageDisplayed(int page, boolean endReached) {
+        if (page < displayedPage) {
+            reset();
+        }
+        displayedPage = page;
+        displayedEndReached = endReached;
+    }
+
+    /**
+     * 清空缓冲区并丢弃正在进行的预取，下拉刷新时调用
+     */
+    public void reset() {
+        generation++;
+        buffer.clear();
+        inFlightPage = 0;
+        appendWhenReady = false;
+        displayedPage = 0;
+        displayedEndReached = false;
+        consecutiveFailures = 0;
+        retryNotBefore = 0;
+        handler.removeCallbacks(retryPrefetch);
+    }
+
+    /**
+     * 停止调度，丢弃正在进行的预取和等待中的重试，页面销毁时调用
+     */
+    public void release() {
+        reset();
+        released = true;
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            velocityPxPerMs = 0;
+        }
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        long now = SystemClock.uptimeMillis();
+        long elapsed = now - lastScrollTime;
+        lastScrollTime = now;
+        if (elapsed > 0 && elapsed < 200) {
+            float sample = (float) dy / elapsed;
+            velocityPxPerMs += (sample - velocityPxPerMs) * VELOCITY_SMOOTHING;
+        }
+
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager) || displayedPage == 0) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible == RecyclerView.NO_POSITION) {
+            return;
+        }
+        int predicted = lastVisible + predictAdvance(layoutManager);
+        int totalItemCount = layoutManager.getItemCount();
+
+        // 预测位置进入已展示数据的最后一页时预取
+        if (predicted >= totalItemCount - pageSize) {
+            prefetchNext();
+        }
+        // 用户接近末尾时追加已缓冲的页，没有缓冲时等预取完成后追加
+        if (lastVisible >= totalItemCount - APPEND_THRESHOLD || predicted >= totalItemCount) {
+            appendNext();
+        }
+    }
+
+    /**
+     * 预测下一页加载完成前列表还会向下滚动多少个条目
+     */
+    private int predictAdvance(LinearLayoutManager layoutManager) {
+        if (velocityPxPerMs <= 0) {
+            return 0;
+        }
+        int itemHeight = averageItemHeight(layoutManager);
+        if (itemHeight <= 0) {
+            return 0;
+        }
+        long leadTime = Math.max(MIN_LEAD_TIME_MS, averageLatencyMs);
+        return (int) Math.ceil(velocityPxPerMs * leadTime / itemHeight);
+    }
+
+    private static int averageItemHeight(LinearLayoutManager layoutManager) {
+        int count = layoutManager.getChildCount();
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            View child = layoutManager.getChildAt(i);
+            if (child != null) {
+                total += child.getHeight();
+            }
+        }
+        return count > 0 ? total / count : 0;
+    }
+
+    /**
+     * 预取缓冲区之后的下一页，同一时间只有一个预取请求
+     */
+    private void prefetchNext() {
+        if (released || inFlightPage != 0 || listener.isLoadingPage() || buffer.size() >= MAX_BUFFERED_PAGES
+                || SystemClock.uptimeMillis() < retryNotBefore) {
+            return;
+        }
+        Page last = buffer.isEmpty() ? null : buffer.lastEntry().getValue();
+        if (last != null ? last.endReached : displayedEndReached) {
+            return;
+        }
+        int page = displayedPage + buffer.size() + 1;
+        int requestGeneration = generation;
+        long start = SystemClock.uptimeMillis();
+        inFlightPage = page;
+        prefetchCount++;
+        Log.d(TAG, "预取第" + page + "页，预测速度: " + velocityPxPerMs + "px/ms");
+
+        feedRepository.loadMessagePage(page, pageSize, false, new MessageFeedRepository.PageCallback() {
+            @Override
+            public void onCachedPage(List<FootprintMessage> messages, long cacheAgeMs, boolean revalidating) {
+                onPrefetched(requestGeneration, page, messages, messages.size() < pageSize, !revalidating, start);
+            }
+
+            @Override
+            public void onRemotePage(List<FootprintMessage> messages, boolean endReached) {
+                onPrefetched(requestGeneration, page, messages, endReached, true, start);
+            }
+
+            @Override
+            public void onError(String errorMessage, boolean servedFromCache) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                inFlightPage = 0;
+                failureCount++;
+                long delay = Math.min(RETRY_MAX_DELAY_MS, RETRY_INITIAL_DELAY_MS << Math.min(consecutiveFailures, 5));
+                consecutiveFailures++;
+                retryNotBefore = SystemClock.uptimeMillis() + delay;
+                Log.w(TAG, "预取第" + page + "页失败，" + delay + "ms后重试: " + errorMessage);
+                if (!servedFromCache && appendWhenReady) {
+                    appendWhenReady = false;
+                    listener.onPrefetchFailed(page, errorMessage);
+                }
+                handler.removeCallbacks(retryPrefetch);
+                handler.postDelayed(retryPrefetch, delay);
+            }
+        });
+    }
+
+    private void onPrefetched(int requestGeneration, int page, List<FootprintMessage> messages, boolean endReached,
+                              boolean finished, long start) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        if (finished) {
+            inFlightPage = 0;
+            consecutiveFailures = 0;
+            retryNotBefore = 0;
+            long latency = SystemClock.uptimeMillis() - start;
+            averageLatencyMs = averageLatencyMs == 0 ? latency
+                    : (long) (averageLatencyMs + (latency - averageLatencyMs) * LATENCY_SMOOTHING);
+        }
+        if (page <= displayedPage) {
+            // 缓存数据已经展示，网络数据到达后替换该页
+            listener.onPageReady(page, messages, endReached);
+            return;
+        }
+        buffer.put(page, new Page(messages, endReached));
+        if (appendWhenReady) {
+            appendWhenReady = false;
+            appendNext();
+        }
+    }
+
+    /**
+     * 退避结束后重新预取，补充缓冲区
+     */
+    private void retryPrefetch() {
+        if (!released && displayedPage > 0) {
+            prefetchNext();
+        }
+    }
+
+    /**
+     * 追加缓冲区中的下一页
+     */
+    private void appendNext() {
+        if (displayedEndReached || listener.isLoadingPage()) {
+            return;
+        }
+        int next = displayedPage + 1;
+        Page page = buffer.remove(next);
+        if (page == null) {
+            if (!appendWhenReady) {
+                // 用户已到末尾而缓冲区为空，预取完成后立即展示
+                bufferMissCount++;
+                appendWhenReady = true;
+            }
+            prefetchNext();
+            return;
+        }
+        bufferHitCount++;
+        displayedPage = next;
+        displayedEndReached = page.endReached;
+        listener.onPageReady(next, page.messages, page.endReached);
+        // 继续补充缓冲区
+        prefetchNext();
+    }
+
+    /**
+     * 获取统计信息
+     * @return 统计信息字符串
+     */
+    public String getStats() {
+        return "预取: " + prefetchCount + ", 失败: " + failureCount + ", 缓冲命中: " + bufferHitCount
+                + ", 缓冲未命中: " + bufferMissCount + ", 缓冲页数: " + buffer.size()
+                + ", 平均加载耗时: " + averageLatencyMs + "ms";
+    }
+
+    private static class Page {
+        final List<FootprintMessage> messages;
+        final boolean endReached;
+
+        Page(List<FootprintMessage> messages, boolean endReached) {
+            this.messages = messages;
+            this.endReached = endReached;
+        }
+    }
+
+    /**
+     * 预取回调，均在主线程执行
+     */
+    public interface Listener {
+        /**
+         * 页面是否正在自己加载数据（首页或刷新），期间不预取也不追加
+         */
+        boolean isLoadingPage();
+
+        /**
+         * 一页数据可以展示，按页码替换或追加到列表
+         * @param page 页码
+         * @param messages 足迹动态
+         * @param endReached 是否已到末页
+         */
+        void onPageReady(int page, List<FootprintMessage> messages, boolean endReached);
+
+        /**
+         * 用户已滚动到末尾但下一页加载失败
+         * @param page 页码
+         * @param errorMessage 错误消息
+         */
+        void onPrefetchFailed(int page, String errorMessage);
+    }
+}
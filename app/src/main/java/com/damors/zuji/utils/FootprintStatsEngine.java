@@ -0,0 +1,250 @@
+package com.damors.zuji.utils;
+
+import com.damors.zuji.data.FootprintEntity;
+import com.damors.zuji.data.FootprintStatsEntity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * 足迹统计引擎
+ * 一次遍历同时计算总数、分类、城市、月份、时间跨度和近N天活跃度：
+ * 分类和城市名称映射为int编号后计入int数组，月份和日期通过整数历法运算得到，
+ * 计入IntCountMap和int数组。遍历过程中每条足迹不产生新的对象，
+ * 只有在读取结果时才按分桶数量生成Map
+ */
+public class FootprintStatsEngine {
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private final TimeZone timeZone;
+
+    // 分类、城市名称到编号的映射，编号即计数数组下标
+    private final NameCounter categories = new NameCounter(FootprintStatsEntity.UNCATEGORIZED);
+    private final NameCounter cities = new NameCounter(FootprintStatsEntity.UNKNOWN_CITY);
+
+    // 月份计数，键为 年*12+(月-1)
+    private final IntCountMap monthCounts = new IntCountMap();
+
+    // 近N天活跃度，下标0对应最早一天
+    private final int[] dailyCounts;
+    private final long activityStartDay;
+    private final long activityEndDay;
+
+    private int total;
+    private long earliestTime = Long.MAX_VALUE;
+    private long latestTime = Long.MIN_VALUE;
+
+    /**
+     * 创建不统计活跃度的引擎
+     */
+    public FootprintStatsEngine() {
+        this(0, System.currentTimeMillis());
+    }
+
+    /**
+     * @param activityDays 活跃度统计的天数（含今天），为0时不统计
+     * @param nowMillis 当前时间戳，用于确定"今天"
+     */
+    public FootprintStatsEngine(int activityDays, long nowMillis) {
+        this.timeZone = TimeZone.getDefault();
+        int days = Math.max(0, activityDays);
+        this.dailyCounts = new int[days];
+        this.activityEndDay = localEpochDay(nowMillis);
+        this.activityStartDay = activityEndDay - days + 1;
+    }
+
+    /**
+     * 计入一条足迹
+     * @param footprint 足迹实体
+     */
+    public void accept(FootprintEntity footprint) {
+        total++;
+        categories.increment(footprint.getCategory());
+        cities.increment(footprint.getCityName());
+
+        long timestamp = footprint.getTimestamp();
+        if (timestamp < earliestTime) {
+            earliestTime = timestamp;
+        }
+        if (timestamp > latestTime) {
+            latestTime = timestamp;
+        }
+
+        long epochDay = localEpochDay(timestamp);
+        monthCounts.increment(monthKey(epochDay));
+        if (epochDay >= activityStartDay && epochDay <= activityEndDay) {
+            dailyCounts[(int) (epochDay - activityStartDay)]++;
+        }
+    }
+
+    /**
+     * 计入一批足迹，可多次调用以逐页累加
+     * @param footprints 足迹列表
+     */
+    public void acceptAll(List<FootprintEntity> footprints) {
+        if (footprints == null) {
+            return;
+        }
+        for (int i = 0, n = footprints.size(); i < n; i++) {
+            accept(footprints.get(i));
+        }
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return 最早足迹时间戳，没有足迹时返回0
+     */
+    public long getEarliestTime() {
+        return total == 0 ? 0 : earliestTime;
+    }
+
+    /**
+     * @return 最晚足迹时间戳，没有足迹时返回0
+     */
+    public long getLatestTime() {
+        return total == 0 ? 0 : latestTime;
+    }
+
+    /**
+     * @return 分类统计结果，键为分类名称
+     */
+    public Map<String, Integer> getCategoryCounts() {
+        return categories.toMap();
+    }
+
+    /**
+     * @return 城市统计结果，键为城市名称
+     */
+    public Map<String, Integer> getCityCounts() {
+        return cities.toMap();
+    }
+
+    /**
+     * @return 城市数量（不含未知城市）
+     */
+    public int getKnownCityCount() {
+        return cities.knownNameCount();
+    }
+
+    /**
+     * @return 月份统计结果，键为月份（格式：yyyy-MM）
+     */
+    public Map<String, Integer> getMonthCounts() {
+        Map<String, Integer> result = new HashMap<>(monthCounts.size() * 2);
+        monthCounts.forEach((key, count) -> result.put(String.format(Locale.US, "%04d-%02d",
+                Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1), count));
+        return result;
+    }
+
+    /**
+     * @return 活跃度统计结果，键为日期（格式：yyyy-MM-dd），从今天往前排列，没有足迹的日期计数为0
+     */
+    public Map<String, Integer> getDailyCounts() {
+        Map<String, Integer> result = new LinkedHashMap<>(dailyCounts.length * 2);
+        for (int i = dailyCounts.length - 1; i >= 0; i--) {
+            result.put(formatEpochDay(activityStartDay + i), dailyCounts[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 将时间戳换算为本地时区的纪元日（1970-01-01为第0天）
+     */
+    private long localEpochDay(long timestamp) {
+        return Math.floorDiv(timestamp + timeZone.getOffset(timestamp), MILLIS_PER_DAY);
+    }
+
+    /**
+     * 由纪元日计算月份键（年*12+(月-1)）
+     * 采用Howard Hinnant的civil_from_days算法，只使用整数运算
+     */
+    static int monthKey(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    /**
+     * 将纪元日格式化为yyyy-MM-dd
+     */
+    static String formatEpochDay(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return String.format(Locale.US, "%04d-%02d-%02d", year, month, day);
+    }
+
+    /**
+     * 名称计数器
+     * 名称首次出现时分配编号，之后只在int数组上递增计数
+     */
+    private static class NameCounter {
+        private final String emptyName;
+        private final Map<String, Integer> ids = new HashMap<>();
+        private String[] names = new String[16];
+        private int[] counts = new int[16];
+        private int size;
+        private int emptyCount;
+
+        NameCounter(String emptyName) {
+            this.emptyName = emptyName;
+        }
+
+        void increment(String name) {
+            if (name == null || name.isEmpty()) {
+                emptyCount++;
+                return;
+            }
+            Integer id = ids.get(name);
+            if (id != null) {
+                counts[id]++;
+                return;
+            }
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size << 1);
+                counts = Arrays.copyOf(counts, size << 1);
+            }
+            ids.put(name, size);
+            names[size] = name;
+            counts[size] = 1;
+            size++;
+        }
+
+        int knownNameCount() {
+            return size;
+        }
+
+        Map<String, Integer> toMap() {
+            Map<String, Integer> result = new HashMap<>((size + 1) * 2);
+            for (int i = 0; i < size; i++) {
+                result.put(names[i], counts[i]);
+            }
+            if (emptyCount > 0) {
+                // 与显式填写了同名分类的足迹合并计数
+                result.merge(emptyName, emptyCount, Integer::sum);
+            }
+            return result;
+        }
+    }
+}
@@ -6,7 +6,6 @@ import android.util.Log;
 
 import com.damors.zuji.data.FootprintEntity;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
@@ -14,7 +13,6 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -25,34 +23,26 @@ public class FootprintStatsUtil {
 
     private static final String TAG = "FootprintStatsUtil";
 
+    /**
+     * 一次遍历计算足迹的全部统计数据
+     * 需要多项统计结果时应直接使用本方法，避免多次遍历足迹列表
+     * @param footprints 足迹列表
+     * @param activityDays 活跃度统计的天数（从今天往前推算），为0时不统计
+     * @return 统计引擎，可从中读取各项统计结果
+     */
+    public static FootprintStatsEngine compute(List<FootprintEntity> footprints, int activityDays) {
+        FootprintStatsEngine engine = new FootprintStatsEngine(activityDays, System.currentTimeMillis());
+        engine.acceptAll(footprints);
+        return engine;
+    }
+    
     /**
      * 按分类统计足迹数量
      * @param footprints 足迹列表
      * @return 分类统计结果，键为分类名称，值为该分类的足迹数量
      */
     public static Map<String, Integer> countByCategory(List<FootprintEntity> footprints) {
-        Map<String, Integer> categoryStats = new HashMap<>();
-        
-        if (footprints == null || footprints.isEmpty()) {
-            return categoryStats;
-        }
-        
-        // 遍历足迹列表，按分类统计
-        for (FootprintEntity footprint : footprints) {
-            String category = footprint.getCategory();
-            if (category == null || category.isEmpty()) {
-                category = "未分类";
-            }
-            
-            // 更新分类计数
-            if (categoryStats.containsKey(category)) {
-                categoryStats.put(category, categoryStats.get(category) + 1);
-            } else {
-                categoryStats.put(category, 1);
-            }
-        }
-        
-        return categoryStats;
+        return compute(footprints, 0).getCategoryCounts();
     }
     
     /**
@@ -61,28 +51,7 @@ public class FootprintStatsUtil {
      * @return 城市统计结果，键为城市名称，值为该城市的足迹数量
      */
     public static Map<String, Integer> countByCity(List<FootprintEntity> footprints) {
-        Map<String, Integer> cityStats = new HashMap<>();
-        
-        if (footprints == null || footprints.isEmpty()) {
-            return cityStats;
-        }
-        
-        // 遍历足迹列表，按城市统计
-        for (FootprintEntity footprint : footprints) {
-            String city = footprint.getCityName();
-            if (city == null || city.isEmpty()) {
-                city = "未知城市";
-            }
-            
-            // 更新城市计数
-            if (cityStats.containsKey(city)) {
-                cityStats.put(city, cityStats.get(city) + 1);
-            } else {
-                cityStats.put(city, 1);
-            }
-        }
-        
-        return cityStats;
+        return compute(footprints, 0).getCityCounts();
     }
     
     /**
@@ -91,27 +60,7 @@ public class FootprintStatsUtil {
      * @return 月份统计结果，键为月份（格式：yyyy-MM），值为该月的足迹数量
      */
     public static Map<String, Integer> countByMonth(List<FootprintEntity> footprints) {
-        Map<String, Integer> monthStats = new HashMap<>();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM", Locale.getDefault());
-        
-        if (footprints == null || footprints.isEmpty()) {
-            return monthStats;
-        }
-        
-        // 遍历足迹列表，按月份统计
-        for (FootprintEntity footprint : footprints) {
-            long timestamp = footprint.getTimestamp();
-            String month = sdf.format(new Date(timestamp));
-            
-            // 更新月份计数
-            if (monthStats.containsKey(month)) {
-                monthStats.put(month, monthStats.get(month) + 1);
-            } else {
-                monthStats.put(month, 1);
-            }
-        }
-        
-        return monthStats;
+        return compute(footprints, 0).getMonthCounts();
     }
     
     /**
@@ -148,55 +97,10 @@ public class FootprintStatsUtil {
      * @return 活跃度统计结果，键为日期（格式：yyyy-MM-dd），值为该日的足迹数量
      */
     public static Map<String, Integer> getActivityStats(List<FootprintEntity> footprints, int days) {
-        Map<String, Integer> activityStats = new HashMap<>();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        
         if (footprints == null || footprints.isEmpty() || days <= 0) {
-            return activityStats;
+            return new HashMap<>();
         }
-        
-        // 初始化日期范围（从今天往前推算days天）
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        
-        // 初始化所有日期的计数为0
-        for (int i = 0; i < days; i++) {
-            String dateStr = sdf.format(calendar.getTime());
-            activityStats.put(dateStr, 0);
-            calendar.add(Calendar.DAY_OF_MONTH, -1);
-        }
-        
-        // 重置日历到今天
-        calendar = Calendar.getInstance();
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long todayStart = calendar.getTimeInMillis();
-        
-        // 计算days天前的起始时间
-        calendar.add(Calendar.DAY_OF_MONTH, -(days - 1));
-        long startTime = calendar.getTimeInMillis();
-        
-        // 遍历足迹列表，统计每天的足迹数量
-        for (FootprintEntity footprint : footprints) {
-            long timestamp = footprint.getTimestamp();
-            
-            // 只统计指定时间范围内的足迹
-            if (timestamp >= startTime && timestamp <= todayStart + 24 * 60 * 60 * 1000) {
-                Date footprintDate = new Date(timestamp);
-                String dateStr = sdf.format(footprintDate);
-                
-                if (activityStats.containsKey(dateStr)) {
-                    activityStats.put(dateStr, activityStats.get(dateStr) + 1);
-                }
-            }
-        }
-        
-        return activityStats;
+        return compute(footprints, days).getDailyCounts();
     }
     
     /**
@@ -0,0 +1,79 @@
+package com.damors.zuji.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 地理瓦片工具类
+ * 将经纬度按固定网格划分为瓦片，并编码为long类型的瓦片键：
+ * 高32位为纬度行号，低32位为经度列号。
+ * 数据库中的tileKey列与索引配合，可将矩形区域查询转换为瓦片键集合查询
+ */
+public class GeoTileUtil {
+
+    /**
+     * 瓦片边长（度），约5.5公里
+     */
+    public static final double TILE_SIZE_DEGREES = 0.05;
+
+    /**
+     * 单次查询允许的最大瓦片数，需低于SQLite绑定参数上限(999)
+     */
+    public static final int MAX_QUERY_TILES = 900;
+
+    /**
+     * 计算经纬度所在瓦片的键
+     * @param latitude 纬度
+     * @param longitude 经度
+     * @return 瓦片键
+     */
+    public static long tileKey(double latitude, double longitude) {
+        return encode(rowOf(latitude), colOf(longitude));
+    }
+
+    /**
+     * 计算矩形区域覆盖的所有瓦片键
+     * 不处理跨越180度经线的区域
+     * @param minLat 最小纬度
+     * @param minLng 最小经度
+     * @param maxLat 最大纬度
+     * @param maxLng 最大经度
+     * @return 瓦片键列表；如果覆盖瓦片数超过MAX_QUERY_TILES则返回null，调用方应退化为普通范围查询
+     */
+    public static List<Long> tilesInBounds(double minLat, double minLng, double maxLat, double maxLng) {
+        int minRow = rowOf(Math.min(minLat, maxLat));
+        int maxRow = rowOf(Math.max(minLat, maxLat));
+        int minCol = colOf(Math.min(minLng, maxLng));
+        int maxCol = colOf(Math.max(minLng, maxLng));
+
+        long tileCount = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (tileCount > MAX_QUERY_TILES) {
+            return null;
+        }
+
+        List<Long> keys = new ArrayList<>((int) tileCount);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                keys.add(encode(row, col));
+            }
+        }
+        return keys;
+    }
+
+    // 行号/列号计算方式需与FootprintDatabase中回填tileKey的SQL保持一致
+    private static int rowOf(double latitude) {
+        return (int) Math.floor((clamp(latitude, -90, 90) + 90) / TILE_SIZE_DEGREES);
+    }
+
+    private static int colOf(double longitude) {
+        return (int) Math.floor((clamp(longitude, -180, 180) + 180) / TILE_SIZE_DEGREES);
+    }
+
+    private static long encode(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
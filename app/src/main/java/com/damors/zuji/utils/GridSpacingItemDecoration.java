@@ -26,6 +26,30 @@ public class GridSpacingItemDecoration extends RecyclerView.ItemDecoration {
         this.includeEdge = includeEdge;
     }
     
+    /**
+     * 为RecyclerView设置网格间距，重复调用不会叠加装饰器
+     * 已有相同参数的装饰器时直接返回，参数不同时替换
+     * @param recyclerView 网格列表
+     * @param spanCount 网格列数
+     * @param spacing 间距大小（dp）
+     * @param includeEdge 是否包含边缘间距
+     */
+    public static void apply(RecyclerView recyclerView, int spanCount, int spacing, boolean includeEdge) {
+        int spacingPx = dpToPx(spacing);
+        for (int i = recyclerView.getItemDecorationCount() - 1; i >= 0; i--) {
+            RecyclerView.ItemDecoration decoration = recyclerView.getItemDecorationAt(i);
+            if (decoration instanceof GridSpacingItemDecoration) {
+                GridSpacingItemDecoration existing = (GridSpacingItemDecoration) decoration;
+                if (existing.spanCount == spanCount && existing.spacing == spacingPx
+                        && existing.includeEdge == includeEdge) {
+                    return;
+                }
+                recyclerView.removeItemDecorationAt(i);
+            }
+        }
+        recyclerView.addItemDecoration(new GridSpacingItemDecoration(spanCount, spacing, includeEdge));
+    }
+    
     @Override
     public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
         int position = parent.getChildAdapterPosition(view); // item位置
@@ -53,7 +77,7 @@ public class GridSpacingItemDecoration extends RecyclerView.ItemDecoration {
      * @param dp dp值
      * @return px值
      */
-    private int dpToPx(int dp) {
+    private static int dpToPx(int dp) {
         return (int) (dp * android.content.res.Resources.getSystem().getDisplayMetrics().density);
     }
 }
\ No newline at end of file
@@ -0,0 +1,254 @@
+package com.damors.zuji.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+
+/**
+ * 上传图片预处理流水线
+ * 发布前在有界线程池中并行处理所选图片：解码（按目标尺寸采样）、按EXIF旋转、缩放、重新编码为JPEG，
+ * 写入缓存目录后生成MultipartBody.Part交给网络层。GIF保持原样以保留动画。
+ * 处理进度和结果回调均在主线程执行
+ */
+public class ImageUploadPipeline {
+    private static final String TAG = "ImageUploadPipeline";
+
+    // 上传图片的最长边
+    public static final int MAX_DIMENSION = 1920;
+
+    // JPEG编码质量
+    public static final int JPEG_QUALITY = 80;
+
+    // 同时处理的图片数，每张图片解码后约占用数MB内存
+    private static final int MAX_CONCURRENCY = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(MAX_CONCURRENCY, runnable -> {
+        Thread thread = new Thread(runnable, "image-upload-pipeline");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+
+    private final Context context;
+    private final File outputDir;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public ImageUploadPipeline(Context context) {
+        this.context = context.getApplicationContext();
+        this.outputDir = new File(this.context.getCacheDir(), "upload_images");
+    }
+
+    /**
+     * 并行处理图片
+     * @param imageUris 所选图片，结果保持相同顺序
+     * @param partName 表单字段名
+     * @param callback 回调，在主线程执行
+     * @return 任务，可用于取消
+     */
+    public Task prepare(List<Uri> imageUris, String partName, Callback callback) {
+        int total = imageUris.size();
+        Task task = new Task(total);
+        if (total == 0) {
+            mainHandler.post(() -> {
+                if (!task.cancelled) {
+                    callback.onComplete(new ArrayList<>(), new ArrayList<>(), 0);
+                }
+            });
+            return task;
+        }
+        if (!outputDir.exists() && !outputDir.mkdirs()) {
+            Log.w(TAG, "无法创建目录: " + outputDir);
+        }
+
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < total; i++) {
+            int index = i;
+            Uri uri = imageUris.get(i);
+            task.futures.add(EXECUTOR.submit(() -> {
+                if (!task.cancelled) {
+                    long start = System.currentTimeMillis();
+                    Result result = process(uri, index);
+                    if (task.cancelled && result != null) {
+                        result.file.delete();
+                    } else {
+                        task.results[index] = result;
+                    }
+                    Log.d(TAG, "处理图片" + (index + 1) + "/" + total + "耗时: "
+                            + (System.currentTimeMillis() - start) + "ms");
+                }
+                int done = completed.incrementAndGet();
+                mainHandler.post(() -> {
+                    if (task.cancelled) {
+                        return;
+                    }
+                    callback.onProgress(done, total);
+                    if (done == total) {
+                        deliver(task, partName, callback);
+                    }
+                });
+            }));
+        }
+        return task;
+    }
+
+    private void deliver(Task task, String partName, Callback callback) {
+        List<MultipartBody.Part> parts = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        int failed = 0;
+        long bytes = 0;
+        for (Result result : task.results) {
+            if (result == null) {
+                failed++;
+                continue;
+            }
+            files.add(result.file);
+            bytes += result.file.length();
+            RequestBody body = RequestBody.create(MediaType.parse(result.contentType), result.file);
+            parts.add(MultipartBody.Part.createFormData(partName, result.file.getName(), body));
+        }
+        Log.d(TAG, "图片处理完成: " + files.size() + "张, 失败: " + failed + ", 总大小: " + bytes / 1024 + "KB");
+        ImageUtils.trimBitmapPool();
+        callback.onComplete(parts, files, failed);
+    }
+
+    /**
+     * 处理单张图片，在线程池中执行
+     * @return 处理结果，失败时为null
+     */
+    private Result process(Uri uri, int index) {
+        try {
+            String mimeType = context.getContentResolver().getType(uri);
+            if ("image/gif".equals(mimeType)) {
+                File file = new File(outputDir, UUID.randomUUID() + "_" + index + ".gif");
+                if (copy(uri, file)) {
+                    return new Result(file, "image/gif");
+                }
+                return null;
+            }
+
+            Bitmap bitmap = ImageUtils.compressImage(context, uri, MAX_DIMENSION, MAX_DIMENSION, JPEG_QUALITY);
+            if (bitmap == null) {
+                Log.w(TAG, "解码图片失败: " + uri);
+                return null;
+            }
+            File file = new File(outputDir, UUID.randomUUID() + "_" + index + ".jpg");
+            try (OutputStream out = new FileOutputStream(file)) {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            } finally {
+                // 归还给复用池，下一张图片解码时复用
+                ImageUtils.releaseBitmap(bitmap);
+            }
+            return new Result(file, "image/jpeg");
+        } catch (Exception | OutOfMemoryError e) {
+            Log.e(TAG, "处理图片失败: " + uri, e);
+            return null;
+        }
+    }
+
+    private boolean copy(Uri uri, File target) {
+        try (InputStream in = context.getContentResolver().openInputStream(uri);
+             OutputStream out = new FileOutputStream(target)) {
+            if (in == null) {
+                return false;
+            }
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "复制图片失败: " + uri, e);
+            return false;
+        }
+    }
+
+    /**
+     * 删除处理生成的文件，在上传完成后调用
+     * @param files onComplete返回的文件
+     */
+    public static void deleteFiles(List<File> files) {
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            ImageUtils.deleteTempFile(file);
+        }
+    }
+
+    private static class Result {
+        final File file;
+        final String contentType;
+
+        Result(File file, String contentType) {
+            this.file = file;
+            this.contentType = contentType;
+        }
+    }
+
+    /**
+     * 处理任务
+     */
+    public static class Task {
+        private final Result[] results;
+        private final List<Future<?>> futures = new ArrayList<>();
+        private volatile boolean cancelled;
+
+        Task(int total) {
+            this.results = new Result[total];
+        }
+
+        /**
+         * 取消任务，已生成的文件会被删除，之后不再回调
+         */
+        public void cancel() {
+            cancelled = true;
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+            for (Result result : results) {
+                if (result != null) {
+                    result.file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * 处理回调
+     */
+    public interface Callback {
+        /**
+         * 处理进度
+         * @param done 已处理的图片数
+         * @param total 图片总数
+         */
+        void onProgress(int done, int total);
+
+        /**
+         * 全部处理完成
+         * @param parts 可直接上传的图片
+         * @param files 生成的文件，上传完成后应调用deleteFiles删除
+         * @param failedCount 处理失败被跳过的图片数
+         */
+        void onComplete(List<MultipartBody.Part> parts, List<File> files, int failedCount);
+    }
+}
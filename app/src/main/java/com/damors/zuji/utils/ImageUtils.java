@@ -4,7 +4,10 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
 import android.media.ExifInterface;
 import android.net.Uri;
 import android.os.Environment;
@@ -13,6 +16,7 @@ import android.util.Log;
 import androidx.core.content.FileProvider;
 import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -31,6 +35,15 @@ public class ImageUtils {
     private static final String TAG = "ImageUtils";
     private static final String FILE_PROVIDER_AUTHORITY = "com.damors.zuji.fileprovider";
     
+    // 输入流缓冲区大小
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    
+    // 读取EXIF和图片尺寸时可回退的最大字节数，超过时重新打开输入流
+    private static final int HEADER_MARK_LIMIT = 256 * 1024;
+    
+    // 解码和变换共用的Bitmap复用池，上限为最大堆内存的1/8
+    private static final BitmapPool BITMAP_POOL = new BitmapPool(Runtime.getRuntime().maxMemory() / 8);
+    
     public static Bitmap getBitmap(Context context, int vectorDrawableId) {
         final VectorDrawableCompat drawable = VectorDrawableCompat.create(context.getResources(), vectorDrawableId, null);
         if (drawable == null) {
@@ -68,6 +81,9 @@ public class ImageUtils {
     
     /**
      * 压缩图片
+     * 只打开一次输入流：读取EXIF方向和图片尺寸时在缓冲区内回退，头部过大无法回退时才重新打开。
+     * 解码按目标尺寸采样并复用池中的Bitmap，旋转和缩放在一次矩阵变换中完成。
+     * 返回的Bitmap不再使用时可交给releaseBitmap复用
      * @param context 上下文
      * @param imageUri 图片URI
      * @param maxWidth 最大宽度
@@ -76,59 +92,123 @@ public class ImageUtils {
      * @return 压缩后的Bitmap
      */
     public static Bitmap compressImage(Context context, Uri imageUri, int maxWidth, int maxHeight, int quality) {
+        BufferedInputStream input = null;
         try {
-            InputStream inputStream = context.getContentResolver().openInputStream(imageUri);
-            if (inputStream == null) {
+            input = open(context, imageUri);
+            if (input == null) {
                 return null;
             }
             
+            // 读取EXIF方向
+            int orientation = readOrientation(input);
+            
             // 获取图片尺寸
+            input = rewind(context, imageUri, input);
             BitmapFactory.Options options = new BitmapFactory.Options();
             options.inJustDecodeBounds = true;
-            BitmapFactory.decodeStream(inputStream, null, options);
-            inputStream.close();
-            
-            // 计算缩放比例
-            int inSampleSize = calculateInSampleSize(options, maxWidth, maxHeight);
-            
-            // 重新打开输入流
-            inputStream = context.getContentResolver().openInputStream(imageUri);
-            if (inputStream == null) {
+            BitmapFactory.decodeStream(input, null, options);
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
                 return null;
             }
             
-            // 解码图片
+            // 按旋转后的方向计算采样比例
+            boolean transposed = isTransposed(orientation);
+            int inSampleSize = calculateInSampleSize(transposed ? options.outHeight : options.outWidth,
+                    transposed ? options.outWidth : options.outHeight, maxWidth, maxHeight);
+            
+            // 解码图片，复用池中大小合适的Bitmap
+            input = rewind(context, imageUri, input);
+            int sampledWidth = (options.outWidth + inSampleSize - 1) / inSampleSize;
+            int sampledHeight = (options.outHeight + inSampleSize - 1) / inSampleSize;
             options.inJustDecodeBounds = false;
             options.inSampleSize = inSampleSize;
             options.inPreferredConfig = Bitmap.Config.RGB_565;
+            options.inMutable = true;
+            options.inBitmap = BITMAP_POOL.get(sampledWidth * sampledHeight * 2);
             
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream, null, options);
-            inputStream.close();
+            Bitmap bitmap;
+            try {
+                bitmap = BitmapFactory.decodeStream(input, null, options);
+            } catch (IllegalArgumentException e) {
+                // 复用的Bitmap与图片不兼容，不复用重新解码
+                BITMAP_POOL.put(options.inBitmap);
+                options.inBitmap = null;
+                input = rewind(context, imageUri, input);
+                bitmap = BitmapFactory.decodeStream(input, null, options);
+            }
             
             if (bitmap == null) {
+                BITMAP_POOL.put(options.inBitmap);
                 return null;
             }
             
-            // 处理图片旋转
-            bitmap = rotateImageIfRequired(context, bitmap, imageUri);
-            
-            // 进一步压缩到指定尺寸
-            bitmap = scaleBitmap(bitmap, maxWidth, maxHeight);
-            
-            return bitmap;
+            // 旋转并缩放到指定尺寸
+            Bitmap result = transform(bitmap, orientation, maxWidth, maxHeight);
+            if (result != bitmap) {
+                BITMAP_POOL.put(bitmap);
+            }
+            return result;
             
         } catch (Exception e) {
             Log.e(TAG, "压缩图片失败", e);
             return null;
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+    
+    /**
+     * 归还compressImage返回的Bitmap，供后续解码复用，归还后不能再使用
+     */
+    public static void releaseBitmap(Bitmap bitmap) {
+        BITMAP_POOL.put(bitmap);
+    }
+    
+    /**
+     * 释放复用池中的全部Bitmap，一批图片处理完成后调用
+     */
+    public static void trimBitmapPool() {
+        Log.d(TAG, "释放Bitmap复用池, " + BITMAP_POOL.getStats());
+        BITMAP_POOL.clear();
+    }
+    
+    private static BufferedInputStream open(Context context, Uri uri) throws IOException {
+        InputStream inputStream = context.getContentResolver().openInputStream(uri);
+        if (inputStream == null) {
+            return null;
+        }
+        BufferedInputStream input = new BufferedInputStream(inputStream, STREAM_BUFFER_SIZE);
+        input.mark(HEADER_MARK_LIMIT);
+        return input;
+    }
+    
+    /**
+     * 回到输入流开头，已读取的内容超过可回退的长度时关闭并重新打开
+     */
+    private static BufferedInputStream rewind(Context context, Uri uri, BufferedInputStream input) throws IOException {
+        try {
+            input.reset();
+            input.mark(HEADER_MARK_LIMIT);
+            return input;
+        } catch (IOException e) {
+            input.close();
+            BufferedInputStream reopened = open(context, uri);
+            if (reopened == null) {
+                throw new IOException("无法重新打开图片: " + uri);
+            }
+            return reopened;
         }
     }
     
     /**
      * 计算图片缩放比例
      */
-    private static int calculateInSampleSize(BitmapFactory.Options options, int reqWidth, int reqHeight) {
-        final int height = options.outHeight;
-        final int width = options.outWidth;
+    private static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
         int inSampleSize = 1;
         
         if (height > reqHeight || width > reqWidth) {
@@ -144,70 +224,86 @@ public class ImageUtils {
     }
     
     /**
-     * 根据EXIF信息旋转图片
+     * 读取EXIF方向，读取失败时视为正常方向
      */
-    private static Bitmap rotateImageIfRequired(Context context, Bitmap img, Uri selectedImage) {
+    private static int readOrientation(InputStream input) {
         try {
-            InputStream input = context.getContentResolver().openInputStream(selectedImage);
-            if (input == null) {
-                return img;
-            }
-            
             ExifInterface ei = new ExifInterface(input);
-            int orientation = ei.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
-            input.close();
-            
-            switch (orientation) {
-                case ExifInterface.ORIENTATION_ROTATE_90:
-                    return rotateImage(img, 90);
-                case ExifInterface.ORIENTATION_ROTATE_180:
-                    return rotateImage(img, 180);
-                case ExifInterface.ORIENTATION_ROTATE_270:
-                    return rotateImage(img, 270);
-                default:
-                    return img;
-            }
+            return ei.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
         } catch (Exception e) {
-            Log.e(TAG, "旋转图片失败", e);
-            return img;
+            Log.w(TAG, "读取EXIF失败", e);
+            return ExifInterface.ORIENTATION_NORMAL;
         }
     }
     
     /**
-     * 旋转图片
+     * EXIF方向是否需要交换宽高
      */
-    private static Bitmap rotateImage(Bitmap img, int degree) {
-        Matrix matrix = new Matrix();
-        matrix.postRotate(degree);
-        Bitmap rotatedImg = Bitmap.createBitmap(img, 0, 0, img.getWidth(), img.getHeight(), matrix, true);
-        img.recycle();
-        return rotatedImg;
+    private static boolean isTransposed(int orientation) {
+        return orientation == ExifInterface.ORIENTATION_ROTATE_90
+                || orientation == ExifInterface.ORIENTATION_ROTATE_270
+                || orientation == ExifInterface.ORIENTATION_TRANSPOSE
+                || orientation == ExifInterface.ORIENTATION_TRANSVERSE;
     }
     
     /**
-     * 缩放Bitmap到指定尺寸
+     * 按EXIF方向旋转（镜像）并缩放到指定尺寸内，只绘制一次，目标Bitmap从复用池中获取
+     * @return 变换后的Bitmap，不需要变换时返回原Bitmap
      */
-    private static Bitmap scaleBitmap(Bitmap bitmap, int maxWidth, int maxHeight) {
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-        
-        if (width <= maxWidth && height <= maxHeight) {
-            return bitmap;
+    private static Bitmap transform(Bitmap source, int orientation, int maxWidth, int maxHeight) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.setScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.setRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.setRotate(180);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.setRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.setRotate(-90);
+                break;
+            default:
+                break;
         }
         
-        float scaleWidth = (float) maxWidth / width;
-        float scaleHeight = (float) maxHeight / height;
-        float scale = Math.min(scaleWidth, scaleHeight);
+        boolean transposed = isTransposed(orientation);
+        int width = transposed ? source.getHeight() : source.getWidth();
+        int height = transposed ? source.getWidth() : source.getHeight();
+        float scale = Math.min(1f, Math.min((float) maxWidth / width, (float) maxHeight / height));
+        if (scale >= 1f && matrix.isIdentity()) {
+            return source;
+        }
+        matrix.postScale(scale, scale);
         
-        int newWidth = Math.round(width * scale);
-        int newHeight = Math.round(height * scale);
+        // 变换后平移回原点
+        RectF bounds = new RectF(0, 0, source.getWidth(), source.getHeight());
+        matrix.mapRect(bounds);
+        matrix.postTranslate(-bounds.left, -bounds.top);
         
-        Bitmap scaledBitmap = Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true);
-        if (scaledBitmap != bitmap) {
-            bitmap.recycle();
+        Bitmap.Config config = source.getConfig() != null ? source.getConfig() : Bitmap.Config.ARGB_8888;
+        Bitmap target = BITMAP_POOL.getDirty(Math.round(bounds.width()), Math.round(bounds.height()), config);
+        if (config != Bitmap.Config.RGB_565) {
+            target.eraseColor(Color.TRANSPARENT);
         }
-        
-        return scaledBitmap;
+        Canvas canvas = new Canvas(target);
+        canvas.drawBitmap(source, matrix, new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG));
+        canvas.setBitmap(null);
+        return target;
     }
     
     /**
@@ -0,0 +1,123 @@
+package com.damors.zuji.utils;
+
+import java.util.Arrays;
+
+/**
+ * int到int计数的开放寻址哈希表
+ * 键和计数都保存在基本类型数组中，计数过程中不产生装箱对象；
+ * 计数为0的槽位视为空槽，因此只支持递增计数
+ */
+public class IntCountMap {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    public IntCountMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize 预计的键数量
+     */
+    public IntCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+    }
+
+    /**
+     * 将键的计数加1
+     * @param key 键
+     */
+    public void increment(int key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (counts[index] != 0) {
+            if (keys[index] == key) {
+                counts[index]++;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        counts[index] = 1;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+    }
+
+    /**
+     * 获取键的计数
+     * @param key 键
+     * @return 计数，不存在时返回0
+     */
+    public int get(int key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (counts[index] != 0) {
+            if (keys[index] == key) {
+                return counts[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 遍历所有键及其计数，顺序不确定
+     * @param visitor 访问回调
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (counts[i] != 0) {
+                visitor.visit(keys[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * 清空所有计数，保留已分配的容量
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length << 1];
+        counts = new int[oldCounts.length << 1];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                int index = mix(oldKeys[i]) & mask;
+                while (counts[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    // 打散相邻的键（如连续的月份），减少线性探测时的聚集
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 键值访问回调接口
+     */
+    public interface Visitor {
+        void visit(int key, int count);
+    }
+}
@@ -0,0 +1,164 @@
+package com.damors.zuji.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.LruCache;
+
+import androidx.core.content.ContextCompat;
+
+import com.amap.api.maps.model.BitmapDescriptor;
+import com.amap.api.maps.model.BitmapDescriptorFactory;
+import com.damors.zuji.R;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 地图标记图标缓存
+ * 每种分类旗帜图标在同一屏幕密度下只栅格化一次，之后复用同一个BitmapDescriptor；
+ * 带数量的聚合图标按数量缓存，使用LRU限制数量。屏幕密度变化时整体失效
+ */
+public class MarkerIconCache {
+
+    /**
+     * 聚合图标最多缓存的数量
+     */
+    private static final int MAX_CLUSTER_ICONS = 64;
+
+    /**
+     * 聚合图标显示的最大数量，超过后显示为"999+"并共用同一图标
+     */
+    private static final int MAX_CLUSTER_LABEL = 999;
+
+    private static MarkerIconCache instance;
+
+    private final Map<Integer, BitmapDescriptor> tagIcons = new HashMap<>();
+    private final LruCache<Integer, BitmapDescriptor> clusterIcons = new LruCache<>(MAX_CLUSTER_ICONS);
+    private float density = -1;
+
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+
+    public static synchronized MarkerIconCache getInstance() {
+        if (instance == null) {
+            instance = new MarkerIconCache();
+        }
+        return instance;
+    }
+
+    private MarkerIconCache() {
+    }
+
+    /**
+     * 获取分类对应的旗帜图标
+     * @param context 上下文
+     * @param tag 足迹分类标签，如"美食"、"景点"
+     * @return 图标
+     */
+    public synchronized BitmapDescriptor getTagIcon(Context context, String tag) {
+        checkDensity(context);
+        int resId = flagResourceFor(tag);
+        BitmapDescriptor icon = tagIcons.get(resId);
+        if (icon != null) {
+            hitCount.incrementAndGet();
+            return icon;
+        }
+        missCount.incrementAndGet();
+        icon = BitmapDescriptorFactory.fromBitmap(ImageUtils.getBitmap(context, resId));
+        tagIcons.put(resId, icon);
+        return icon;
+    }
+
+    /**
+     * 获取带数量的聚合图标
+     * @param context 上下文
+     * @param count 聚合内的足迹数量
+     * @return 图标
+     */
+    public synchronized BitmapDescriptor getClusterIcon(Context context, int count) {
+        checkDensity(context);
+        int label = Math.min(count, MAX_CLUSTER_LABEL + 1);
+        BitmapDescriptor icon = clusterIcons.get(label);
+        if (icon != null) {
+            hitCount.incrementAndGet();
+            return icon;
+        }
+        missCount.incrementAndGet();
+        icon = BitmapDescriptorFactory.fromBitmap(createClusterBitmap(context, label));
+        clusterIcons.put(label, icon);
+        return icon;
+    }
+
+    public int getHitCount() {
+        return hitCount.get();
+    }
+
+    public int getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * 获取缓存统计信息
+     * @return 统计信息字符串
+     */
+    public synchronized String getStats() {
+        return "命中: " + hitCount.get() + ", 未命中: " + missCount.get()
+                + ", 分类图标: " + tagIcons.size() + ", 聚合图标: " + clusterIcons.size() + "/" + MAX_CLUSTER_ICONS;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        tagIcons.clear();
+        clusterIcons.evictAll();
+    }
+
+    private void checkDensity(Context context) {
+        float current = context.getResources().getDisplayMetrics().density;
+        if (current != density) {
+            clear();
+            density = current;
+        }
+    }
+
+    private static int flagResourceFor(String tag) {
+        if ("美食".equals(tag)) {
+            return R.drawable.ic_footprint_food_flag;
+        }
+        if ("景点".equals(tag)) {
+            return R.drawable.ic_footprint_attraction_flag;
+        }
+        return R.drawable.ic_footprint_flag;
+    }
+
+    /**
+     * 绘制聚合图标：圆形背景加足迹数量
+     */
+    private static Bitmap createClusterBitmap(Context context, int count) {
+        float density = context.getResources().getDisplayMetrics().density;
+        int size = (int) ((count < 100 ? 36 : 44) * density);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        Paint circlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        circlePaint.setColor(Color.WHITE);
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f, circlePaint);
+        circlePaint.setColor(ContextCompat.getColor(context, R.color.colorPrimary));
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f - 2 * density, circlePaint);
+
+        Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(14 * density);
+        textPaint.setFakeBoldText(true);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        String text = count > MAX_CLUSTER_LABEL ? MAX_CLUSTER_LABEL + "+" : String.valueOf(count);
+        float baseline = size / 2f - (textPaint.descent() + textPaint.ascent()) / 2;
+        canvas.drawText(text, size / 2f, baseline, textPaint);
+        return bitmap;
+    }
+}
@@ -54,6 +54,19 @@ public class FootprintViewModel extends AndroidViewModel {
         return allFootprintsByTimestampDesc;
     }
     
+    /**
+     * 查询地图可视区域内的足迹记录
+     * @param minLat 最小纬度
+     * @param minLng 最小经度
+     * @param maxLat 最大纬度
+     * @param maxLng 最大经度
+     * @param callback 查询结果回调，在后台线程执行
+     */
+    public void loadFootprintsInBounds(double minLat, double minLng, double maxLat, double maxLng,
+                                       FootprintRepository.BoundsCallback callback) {
+        repository.loadFootprintsInBounds(minLat, minLng, maxLat, maxLng, callback);
+    }
+
     /**
      * 获取足迹记录总数
      * @return 足迹记录总数
@@ -0,0 +1,116 @@
+package com.damors.zuji.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.damors.zuji.R;
+import com.damors.zuji.model.FootprintMessage;
+import com.damors.zuji.model.GuluFile;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 动态列表适配器测试：九宫格内层列表在创建ViewHolder时初始化一次，绑定时只替换图片数据；
+ * 并测量每行的创建和绑定耗时。Robolectric中的绝对耗时不代表真机，上限只用于发现退化
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FootprintMessageAdapterTest {
+
+    private static final int ROWS = 200;
+    // 约为一屏加上RecyclerView缓存的ViewHolder数量
+    private static final int HOLDERS = 12;
+
+    private RecyclerView parent;
+    private FootprintMessageAdapter adapter;
+
+    @Before
+    public void setUp() {
+        Context context = new ContextThemeWrapper(RuntimeEnvironment.getApplication(), R.style.Theme_Zuji_yuansheng);
+        parent = new RecyclerView(context);
+        parent.setLayoutManager(new LinearLayoutManager(context));
+        adapter = new FootprintMessageAdapter(context, messages(ROWS));
+    }
+
+    @Test
+    public void rebindReusesGridSetup() {
+        FootprintMessageAdapter.ViewHolder first = adapter.onCreateViewHolder(parent, 0);
+        FootprintMessageAdapter.ViewHolder second = adapter.onCreateViewHolder(parent, 0);
+        GridImageAdapter gridAdapter = first.gridAdapter;
+        RecyclerView.LayoutManager layoutManager = first.gridRecyclerView.getLayoutManager();
+
+        // 依次绑定4张、9张和没有图片的动态
+        adapter.onBindViewHolder(first, 4);
+        adapter.onBindViewHolder(first, 9);
+        adapter.onBindViewHolder(first, 0);
+
+        assertSame(gridAdapter, first.gridAdapter);
+        assertSame(gridAdapter, first.gridRecyclerView.getAdapter());
+        assertSame(layoutManager, first.gridRecyclerView.getLayoutManager());
+        assertEquals(1, first.gridRecyclerView.getItemDecorationCount());
+        // 所有条目共享九宫格图片视图的复用池
+        assertSame(first.gridRecyclerView.getRecycledViewPool(), second.gridRecyclerView.getRecycledViewPool());
+    }
+
+    @Test
+    public void createAndBindTimePerRow() {
+        // 预热：类加载和首次解析布局
+        adapter.onBindViewHolder(adapter.onCreateViewHolder(parent, 0), 9);
+
+        List<FootprintMessageAdapter.ViewHolder> holders = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < HOLDERS; i++) {
+            holders.add(adapter.onCreateViewHolder(parent, 0));
+        }
+        long createUsPerRow = (System.nanoTime() - start) / HOLDERS / 1000;
+
+        // 模拟滚动：少量ViewHolder轮流绑定全部动态
+        start = System.nanoTime();
+        for (int position = 0; position < ROWS; position++) {
+            adapter.onBindViewHolder(holders.get(position % HOLDERS), position);
+        }
+        long bindUsPerRow = (System.nanoTime() - start) / ROWS / 1000;
+
+        assertTrue("创建ViewHolder: " + createUsPerRow + "μs/行", createUsPerRow < 500_000);
+        assertTrue("绑定: " + bindUsPerRow + "μs/行", bindUsPerRow < 50_000);
+    }
+
+    /**
+     * 图片数量按位置在0到9张之间循环
+     */
+    private static List<FootprintMessage> messages(int count) {
+        List<FootprintMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            FootprintMessage message = new FootprintMessage();
+            message.setId(i + 1);
+            message.setCreateTime("2024-05-0" + (1 + i % 9) + " 12:00:00");
+            message.setTextContent("第" + i + "条足迹");
+            message.setTag(i % 2 == 0 ? "旅游" : null);
+            message.setLocaltionTitle("杭州市西湖区");
+            List<GuluFile> files = new ArrayList<>();
+            for (int f = 0; f < i % 10; f++) {
+                GuluFile file = new GuluFile();
+                file.setId(i * 10 + f);
+                file.setFileType("image/jpeg");
+                file.setFilePath("/files/" + i + "/" + f + ".jpg");
+                files.add(file);
+            }
+            message.setGuluFiles(files);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,135 @@
+package com.damors.zuji.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 地图点聚合引擎测试：按缩放级别和像素半径聚合、缓存失效，以及10万个点的聚合耗时
+ */
+public class ClusterEngineTest {
+
+    @Test
+    public void groupsPointsWithinRadiusAtZoom() {
+        // 经度相差0.05度：缩放级别10约36像素，小于半径的一半（50像素）而聚合；级别12约146像素，不聚合
+        Point a = new Point(30.0, 120.0);
+        Point b = new Point(30.0, 120.05);
+        Point far = new Point(40.0, 100.0);
+        ClusterEngine<Point> engine = new ClusterEngine<>(100, 19);
+        engine.setItems(Arrays.asList(a, b, far));
+
+        List<Cluster<Point>> zoom10 = engine.getClusters(10);
+        assertEquals(2, zoom10.size());
+        Cluster<Point> pair = zoom10.get(0);
+        assertSame(a, pair.getAnchor());
+        assertEquals(new HashSet<>(Arrays.asList(a, b)), new HashSet<>(pair.getItems()));
+        assertEquals(30.0, pair.getLatitude(), 1e-9);
+        assertEquals(120.025, pair.getLongitude(), 1e-9);
+        assertTrue(zoom10.get(1).isSingle());
+
+        assertEquals(3, engine.getClusters(12).size());
+    }
+
+    @Test
+    public void fractionalZoomUsesIntegerLevelAndMaxZoomReturnsSingletons() {
+        ClusterEngine<Point> engine = new ClusterEngine<>(100, 15);
+        engine.setItems(Arrays.asList(new Point(30.0, 120.0), new Point(30.0, 120.00001)));
+
+        assertSame(engine.getClusters(10), engine.getClusters(10.7f));
+        assertEquals(1, engine.getClusters(14).size());
+        assertEquals(2, engine.getClusters(15).size());
+        assertEquals(2, engine.getClusters(18).size());
+    }
+
+    @Test
+    public void cachesPerZoomAndInvalidatesOnDataChange() {
+        ClusterEngine<Point> engine = new ClusterEngine<>();
+        engine.setItems(Collections.singletonList(new Point(30.0, 120.0)));
+
+        List<Cluster<Point>> first = engine.getClusters(8);
+        assertSame(first, engine.getClusters(8));
+
+        engine.addItems(Collections.singletonList(new Point(-30.0, -60.0)));
+        List<Cluster<Point>> afterAdd = engine.getClusters(8);
+        assertNotSame(first, afterAdd);
+        assertEquals(2, afterAdd.size());
+
+        engine.setItems(Collections.singletonList(new Point(10.0, 10.0)));
+        List<Cluster<Point>> afterSet = engine.getClusters(8);
+        assertNotSame(afterAdd, afterSet);
+        assertEquals(1, afterSet.size());
+        assertEquals(1, engine.getItemCount());
+    }
+
+    @Test
+    public void viewportFilterKeepsClustersInBounds() {
+        ClusterEngine<Point> engine = new ClusterEngine<>();
+        engine.setItems(Arrays.asList(new Point(30.0, 120.0), new Point(40.0, 100.0)));
+
+        List<Cluster<Point>> visible = engine.getClusters(12, 29, 119, 31, 121);
+        assertEquals(1, visible.size());
+        assertEquals(30.0, visible.get(0).getLatitude(), 1e-9);
+    }
+
+    @Test
+    public void clusters100kPointsQuickly() {
+        Random random = new Random(42);
+        List<Point> points = new ArrayList<>(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            points.add(new Point(18 + random.nextDouble() * 35, 73 + random.nextDouble() * 62));
+        }
+        ClusterEngine<Point> engine = new ClusterEngine<>();
+
+        engine.setItems(points);
+
+        for (int zoom : new int[]{4, 8, 12}) {
+            long start = System.nanoTime();
+            List<Cluster<Point>> clusters = engine.getClusters(zoom);
+            long clusterMs = (System.nanoTime() - start) / 1_000_000;
+
+            // 每个点恰好属于一个聚合
+            Set<Point> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Cluster<Point> cluster : clusters) {
+                seen.addAll(cluster.getItems());
+            }
+            assertEquals(points.size(), seen.size());
+
+            // 同一缩放级别直接返回缓存的结果
+            assertSame(clusters, engine.getClusters(zoom));
+            // 宽松的上限，只用于发现退化为平方复杂度的实现
+            assertTrue("聚合耗时" + clusterMs + "ms", clusterMs < 3000);
+        }
+    }
+
+    private static class Point implements ClusterItem {
+        private final double latitude;
+        private final double longitude;
+
+        Point(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        @Override
+        public double getLatitude() {
+            return latitude;
+        }
+
+        @Override
+        public double getLongitude() {
+            return longitude;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.damors.zuji.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.damors.zuji.data.UploadSessionDao;
+import com.damors.zuji.data.UploadSessionEntity;
+import com.damors.zuji.data.UploadedHashDao;
+import com.damors.zuji.data.UploadedHashEntity;
+import com.damors.zuji.model.response.UploadedFile;
+import com.damors.zuji.utils.ContentHasher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * 分片上传客户端测试：创建会话、分片失败后续传、完成上传，服务端不支持时的降级，
+ * 以及按内容去重（同一批、本地哈希索引、服务端已有）
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ChunkedUploaderTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private FakeSessionDao sessionDao;
+    private FakeHashDao hashDao;
+    private ChunkedUploader uploader;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        ApiService apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiService.class);
+        sessionDao = new FakeSessionDao();
+        hashDao = new FakeHashDao();
+        uploader = new ChunkedUploader(apiService, sessionDao, hashDao, CHUNK_SIZE,
+                60 * 60 * 1000, 60 * 60 * 1000);
+
+        file = tempFolder.newFile("photo.jpg");
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write("0123456789".getBytes());
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void uploadsAllChunksAndCompletes() throws Exception {
+        server.enqueue(json("{\"code\":200,\"data\":{}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":0,\"chunkSize\":4}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":4}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":8}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":10}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"fileId\":\"f1\",\"filePath\":\"/files/f1.jpg\"}}"));
+
+        UploadedFile uploaded = uploader.upload(file, "image/jpeg");
+
+        assertEquals("f1", uploaded.getFileId());
+        assertEquals("/checkHashes", server.takeRequest().getPath());
+        assertEquals("/uploadInit", server.takeRequest().getPath());
+        assertChunk(server.takeRequest(), 0, "0123");
+        assertChunk(server.takeRequest(), 4, "4567");
+        assertChunk(server.takeRequest(), 8, "89");
+        assertEquals("/uploadComplete", server.takeRequest().getPath());
+
+        UploadSessionEntity session = sessionDao.get(file.getAbsolutePath());
+        assertNotNull(session);
+        assertTrue(session.isCompleted());
+        assertEquals(10, session.getUploadedBytes());
+    }
+
+    @Test
+    public void resumesFromServerOffsetAfterFailedChunk() throws Exception {
+        server.enqueue(json("{\"code\":200,\"data\":{}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":0,\"chunkSize\":4}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":4}}"));
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        try {
+            uploader.upload(file, "image/jpeg");
+            fail("第二个分片失败时应抛出IOException");
+        } catch (IOException expected) {
+            // 暂时失败，进度已保存
+        }
+        assertEquals(4, sessionDao.get(file.getAbsolutePath()).getUploadedBytes());
+        for (int i = 0; i < 4; i++) {
+            server.takeRequest();
+        }
+
+        // 服务端实际收到了第二个分片的一部分，从服务端确认的位置继续
+        server.enqueue(json("{\"code\":200,\"data\":{}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":6}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":10}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"fileId\":\"f1\",\"filePath\":\"/files/f1.jpg\"}}"));
+
+        UploadedFile uploaded = uploader.upload(file, "image/jpeg");
+
+        assertEquals("f1", uploaded.getFileId());
+        assertEquals("/checkHashes", server.takeRequest().getPath());
+        RecordedRequest status = server.takeRequest();
+        assertEquals("/uploadStatus", status.getPath());
+        assertTrue(status.getBody().readUtf8().contains("uploadId=u1"));
+        assertChunk(server.takeRequest(), 6, "6789");
+        assertEquals("/uploadComplete", server.takeRequest().getPath());
+        assertEquals(8, server.getRequestCount());
+        assertTrue(uploader.getStats().contains("续传: 1"));
+    }
+
+    @Test
+    public void reportsUnsupportedWhenInitIsMissing() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        try {
+            uploader.upload(file, "image/jpeg");
+            fail("uploadInit返回404时应抛出UnsupportedException");
+        } catch (ChunkedUploader.UnsupportedException expected) {
+            // 调用方据此退回一次性上传
+        }
+        assertFalse(sessionDao.sessions.containsKey(file.getAbsolutePath()));
+    }
+
+    @Test
+    public void duplicateInBatchIsUploadedOnce() throws Exception {
+        File copy = copyOf(file, "copy.jpg");
+        enqueueFullUpload("f1");
+
+        List<UploadedFile> uploaded = uploader.uploadAll(List.of(file, copy), List.of("image/jpeg", "image/jpeg"));
+
+        assertEquals("f1", uploaded.get(0).getFileId());
+        assertEquals("f1", uploaded.get(1).getFileId());
+        // checkHashes只询问一个哈希，只上传一次
+        RecordedRequest check = server.takeRequest();
+        assertEquals("/checkHashes", check.getPath());
+        assertEquals("hashes=" + ContentHasher.sha256(file), check.getBody().readUtf8());
+        assertEquals(6, server.getRequestCount());
+        assertTrue(uploader.getStats().contains("重复(同批/本地/服务端): 1/0/0"));
+        // 上传结果写入本地哈希索引
+        assertEquals("f1", hashDao.hashes.get(ContentHasher.sha256(file)).getFileId());
+    }
+
+    @Test
+    public void localIndexHitSkipsServer() throws Exception {
+        UploadedHashEntity known = new UploadedHashEntity();
+        known.setHash(ContentHasher.sha256(file));
+        known.setFileId("f7");
+        known.setRemotePath("/files/f7.jpg");
+        known.setFileSize(file.length());
+        known.setVerifiedAt(System.currentTimeMillis());
+        hashDao.insertOrUpdate(known);
+
+        UploadedFile uploaded = uploader.upload(copyOf(file, "again.jpg"), "image/jpeg");
+
+        assertEquals("f7", uploaded.getFileId());
+        assertEquals("/files/f7.jpg", uploaded.getFilePath());
+        assertEquals(0, server.getRequestCount());
+        assertTrue(uploader.getStats().contains("重复(同批/本地/服务端): 0/1/0"));
+    }
+
+    @Test
+    public void expiredLocalIndexEntryIsIgnored() throws Exception {
+        UploadedHashEntity stale = new UploadedHashEntity();
+        stale.setHash(ContentHasher.sha256(file));
+        stale.setFileId("old");
+        stale.setVerifiedAt(System.currentTimeMillis() - 2 * 60 * 60 * 1000);
+        hashDao.insertOrUpdate(stale);
+        enqueueFullUpload("f1");
+
+        assertEquals("f1", uploader.upload(file, "image/jpeg").getFileId());
+        assertEquals(6, server.getRequestCount());
+    }
+
+    @Test
+    public void checkHashesHitSkipsUpload() throws Exception {
+        String hash = ContentHasher.sha256(file);
+        server.enqueue(json("{\"code\":200,\"data\":{\"" + hash
+                + "\":{\"fileId\":\"f9\",\"filePath\":\"/files/f9.jpg\"}}}"));
+
+        UploadedFile uploaded = uploader.upload(file, "image/jpeg");
+
+        assertEquals("f9", uploaded.getFileId());
+        assertEquals(1, server.getRequestCount());
+        assertEquals("/checkHashes", server.takeRequest().getPath());
+        assertTrue(uploader.getStats().contains("重复(同批/本地/服务端): 0/0/1"));
+        // 服务端已有的文件写入本地哈希索引，下次不再询问
+        assertEquals("f9", hashDao.hashes.get(hash).getFileId());
+        assertEquals("f9", uploader.upload(file, "image/jpeg").getFileId());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void findDuplicatesMarksRepeatedContent() throws Exception {
+        File other = tempFolder.newFile("other.jpg");
+        try (FileOutputStream output = new FileOutputStream(other)) {
+            output.write("abc".getBytes());
+        }
+
+        boolean[] duplicates = uploader.findDuplicates(List.of(file, other, copyOf(file, "copy.jpg")));
+
+        assertFalse(duplicates[0]);
+        assertFalse(duplicates[1]);
+        assertTrue(duplicates[2]);
+        assertEquals(0, server.getRequestCount());
+        assertTrue(uploader.getStats().contains("重复(同批/本地/服务端): 1/0/0"));
+    }
+
+    private File copyOf(File source, String name) throws IOException {
+        File copy = tempFolder.newFile(name);
+        Files.copy(source.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+
+    /**
+     * 服务端没有该文件，完整上传10字节的文件
+     */
+    private void enqueueFullUpload(String fileId) {
+        server.enqueue(json("{\"code\":200,\"data\":{}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":0,\"chunkSize\":4}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":4}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":8}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"uploadId\":\"u1\",\"offset\":10}}"));
+        server.enqueue(json("{\"code\":200,\"data\":{\"fileId\":\"" + fileId + "\",\"filePath\":\"/files/"
+                + fileId + ".jpg\"}}"));
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private static void assertChunk(RecordedRequest request, long offset, String data) {
+        assertEquals("/uploadChunk", request.getPath());
+        String body = request.getBody().readUtf8();
+        assertTrue(body.contains("name=\"offset\""));
+        assertTrue(body.contains("\r\n\r\n" + offset + "\r\n"));
+        assertTrue(body.contains("\r\n\r\n" + data + "\r\n"));
+    }
+
+    /**
+     * 内存中的上传会话表
+     */
+    private static class FakeSessionDao implements UploadSessionDao {
+        final Map<String, UploadSessionEntity> sessions = new HashMap<>();
+
+        @Override
+        public void insertOrUpdate(UploadSessionEntity entity) {
+            sessions.put(entity.getLocalPath(), entity);
+        }
+
+        @Override
+        public UploadSessionEntity get(String localPath) {
+            return sessions.get(localPath);
+        }
+
+        @Override
+        public void updateUploadedBytes(String localPath, long uploadedBytes, long updatedAt) {
+            UploadSessionEntity entity = sessions.get(localPath);
+            if (entity != null) {
+                entity.setUploadedBytes(uploadedBytes);
+                entity.setUpdatedAt(updatedAt);
+            }
+        }
+
+        @Override
+        public void delete(String localPath) {
+            sessions.remove(localPath);
+        }
+
+        @Override
+        public void deleteUnderDirectory(String dirPath) {
+            sessions.keySet().removeIf(path -> path.startsWith(dirPath + "/"));
+        }
+
+        @Override
+        public int deleteUpdatedBefore(long before) {
+            int size = sessions.size();
+            sessions.values().removeIf(entity -> entity.getUpdatedAt() < before);
+            return size - sessions.size();
+        }
+    }
+
+    /**
+     * 内存中的哈希索引表
+     */
+    private static class FakeHashDao implements UploadedHashDao {
+        final Map<String, UploadedHashEntity> hashes = new HashMap<>();
+
+        @Override
+        public void insertOrUpdate(UploadedHashEntity entity) {
+            hashes.put(entity.getHash(), entity);
+        }
+
+        @Override
+        public List<UploadedHashEntity> getVerified(List<String> hashList, long verifiedAfter) {
+            List<UploadedHashEntity> result = new ArrayList<>();
+            for (String hash : hashList) {
+                UploadedHashEntity entity = hashes.get(hash);
+                if (entity != null && entity.getVerifiedAt() >= verifiedAfter) {
+                    result.add(entity);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void delete(String hash) {
+            hashes.remove(hash);
+        }
+
+        @Override
+        public int deleteVerifiedBefore(long before) {
+            int size = hashes.size();
+            hashes.values().removeIf(entity -> entity.getVerifiedAt() < before);
+            return size - hashes.size();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.damors.zuji.network;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * 耗时直方图测试：桶边界（上界含）、桶内线性插值、超出最大桶的值以及不超过最大值的截断
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReturnsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void upperBoundBelongsToLowerBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 8、9、10都落在(7, 10]桶内
+        histogram.record(8);
+        histogram.record(9);
+        histogram.record(10);
+        histogram.record(10);
+
+        assertEquals(8, histogram.getPercentile(25));
+        assertEquals(9, histogram.getPercentile(50));
+        assertEquals(10, histogram.getPercentile(100));
+
+        // 11落在(10, 15]桶内，估算值不超过记录到的最大值
+        histogram.record(11);
+        assertEquals(10, histogram.getPercentile(80));
+        assertEquals(11, histogram.getPercentile(100));
+        assertEquals(11, histogram.getMax());
+    }
+
+    @Test
+    public void zeroFallsIntoFirstBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(1);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(1, histogram.getPercentile(50));
+        assertEquals(1, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void interpolatesWithinBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 100个样本均匀分布在(100, 150]桶内
+        for (int value = 101; value <= 150; value++) {
+            histogram.record(value);
+            histogram.record(value);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(125.5, histogram.getMean(), 0.001);
+        assertEquals(101, histogram.getPercentile(1));
+        assertEquals(125, histogram.getPercentile(50));
+        assertEquals(145, histogram.getPercentile(90));
+        assertEquals(150, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void percentileSpansBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 90个快请求，10个慢请求
+        for (int i = 0; i < 90; i++) {
+            histogram.record(40);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(1200);
+        }
+
+        // 40ms落在(30, 50]桶内，1200ms落在(1000, 1500]桶内
+        assertEquals(30 + Math.round(20 * 50 / 90.0), histogram.getPercentile(50));
+        assertEquals(50, histogram.getPercentile(90));
+        assertEquals(1000 + Math.round(500 * 1 / 10.0), histogram.getPercentile(91));
+        // 插值结果超过最大值时截断为最大值
+        assertEquals(1200, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void valuesAboveLastBoundUseMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(60000);
+        histogram.record(90000);
+
+        assertEquals(60000, histogram.getPercentile(50));
+        // 最后一个桶没有上界，以最大值作为上界
+        assertEquals(90000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void resetClearsAllBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(500);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+}
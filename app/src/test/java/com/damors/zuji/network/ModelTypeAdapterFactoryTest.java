@@ -0,0 +1,147 @@
+package com.damors.zuji.network;
+
+import static org.junit.Assert.assertEquals;
+
+import com.damors.zuji.model.CommentModel;
+import com.damors.zuji.model.FootprintMessage;
+import com.damors.zuji.model.UserInfoResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 流式TypeAdapter测试：与Gson反射解析的结果逐字段对比，并验证序列化后能原样解析回来
+ * 测试数据包含未知字段、null、以字符串表示的数字和布尔值、以数字表示的字符串
+ */
+public class ModelTypeAdapterFactoryTest {
+
+    private static final Type MESSAGE_LIST = new TypeToken<List<FootprintMessage>>() {}.getType();
+    private static final Type COMMENT_LIST = new TypeToken<List<CommentModel>>() {}.getType();
+
+    // 与RetrofitApiService相同的配置，分别使用流式解析和反射解析
+    private final Gson streaming = new GsonBuilder()
+            .setLenient()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+    private final Gson reflective = new GsonBuilder().setLenient().create();
+
+    @Test
+    public void messagesMatchReflectiveParsing() {
+        String json = messagesJson(500, new Random(3));
+
+        List<FootprintMessage> expected = reflective.fromJson(json, MESSAGE_LIST);
+        List<FootprintMessage> actual = streaming.fromJson(json, MESSAGE_LIST);
+
+        assertEquals(500, actual.size());
+        // 用反射序列化比较所有字段
+        assertEquals(reflective.toJsonTree(expected), reflective.toJsonTree(actual));
+    }
+
+    @Test
+    public void commentsMatchReflectiveParsing() {
+        String json = commentsJson(200, new Random(5));
+
+        List<CommentModel> expected = reflective.fromJson(json, COMMENT_LIST);
+        List<CommentModel> actual = streaming.fromJson(json, COMMENT_LIST);
+
+        assertEquals(reflective.toJsonTree(expected), reflective.toJsonTree(actual));
+    }
+
+    @Test
+    public void userInfoMatchesReflectiveParsing() {
+        String json = "{\"code\":\"200\",\"msg\":\"操作成功\",\"extra\":{\"a\":[1,2]},\"data\":{\"token\":\"abc\","
+                + "\"user\":{\"userId\":7,\"nickName\":\"足迹\",\"roles\":[\"user\"]},\"expire\":3600}}";
+
+        UserInfoResponse expected = reflective.fromJson(json, UserInfoResponse.class);
+        UserInfoResponse actual = streaming.fromJson(json, UserInfoResponse.class);
+
+        assertEquals(reflective.toJsonTree(expected), reflective.toJsonTree(actual));
+        assertEquals(streaming.toJsonTree(expected), streaming.toJsonTree(actual));
+    }
+
+    @Test
+    public void streamingWriteRoundTrips() {
+        String json = messagesJson(50, new Random(9));
+        List<FootprintMessage> messages = streaming.fromJson(json, MESSAGE_LIST);
+
+        List<FootprintMessage> roundTrip = streaming.fromJson(streaming.toJson(messages, MESSAGE_LIST), MESSAGE_LIST);
+
+        assertEquals(reflective.toJsonTree(messages), reflective.toJsonTree(roundTrip));
+    }
+
+    private static String messagesJson(int count, Random random) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('{')
+                    .append("\"id\":").append(i % 7 == 0 ? "\"" + i + "\"" : String.valueOf(i))
+                    .append(",\"msgType\":").append(random.nextInt(3))
+                    .append(",\"textContent\":").append(i % 11 == 0 ? "null" : "\"第" + i + "条足迹\\n\\u4e2d\\\"文\\\"\"")
+                    .append(",\"tag\":\"旅游\"")
+                    .append(",\"lng\":").append(i % 5 == 0 ? "\"" + (120 + random.nextDouble()) + "\"" : 120 + random.nextDouble())
+                    .append(",\"lat\":").append(30 + random.nextDouble())
+                    .append(",\"localtionTitle\":\"杭州市西湖区\"")
+                    .append(",\"userId\":").append(random.nextInt(1000))
+                    .append(",\"userAvatar\":").append(i % 3 == 0 ? "null" : "\"/avatar/" + i + ".jpg\"")
+                    .append(",\"delFlag\":").append(i % 4 == 0 ? "0" : "\"0\"")
+                    .append(",\"likeCount\":").append(random.nextInt(100))
+                    .append(",\"commentCount\":").append(random.nextInt(20))
+                    .append(",\"hasLiked\":").append(i % 6 == 0 ? "\"true\"" : String.valueOf(random.nextBoolean()))
+                    .append(",\"createBy\":").append(i % 9 == 0 ? "true" : "\"admin\"")
+                    .append(",\"createTime\":\"2024-05-0").append(1 + i % 9).append(" 12:00:00\"")
+                    .append(",\"updateTime\":null")
+                    .append(",\"unknownObject\":{\"nested\":[1,{\"deep\":null}],\"flag\":false}")
+                    .append(",\"unknownArray\":[\"a\",2,null]")
+                    .append(",\"guluFiles\":");
+            if (i % 8 == 0) {
+                json.append("null");
+            } else {
+                json.append('[');
+                int files = random.nextInt(10);
+                for (int f = 0; f < files; f++) {
+                    if (f > 0) {
+                        json.append(',');
+                    }
+                    json.append("{\"id\":").append(f)
+                            .append(",\"fileName\":\"").append(f).append(".jpg\"")
+                            .append(",\"fileType\":\"image/jpeg\"")
+                            .append(",\"filePath\":\"/files/").append(i).append('/').append(f).append(".jpg\"")
+                            .append(",\"ofType\":\"msg\",\"ofId\":\"").append(i).append('"')
+                            .append(",\"delFlag\":null,\"size\":12345}");
+                }
+                json.append(']');
+            }
+            json.append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private static String commentsJson(int count, Random random) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                    .append(",\"msgId\":").append(random.nextInt(50))
+                    .append(",\"parentId\":").append(i % 3 == 0 ? "null" : String.valueOf(random.nextInt(i + 1)))
+                    .append(",\"parentUserId\":").append(i % 4 == 0 ? "\"" + (10_000_000_000L + i) + "\"" : String.valueOf(i))
+                    .append(",\"parentUserName\":\"用户").append(i).append('"')
+                    .append(",\"content\":\"评论").append(i).append('"')
+                    .append(",\"userId\":").append(random.nextInt(1000))
+                    .append(",\"userName\":").append(i % 5 == 0 ? "null" : "\"name" + i + "\"")
+                    .append(",\"createTime\":\"2024-05-01 12:00:00\"")
+                    .append(",\"delFlag\":0")
+                    .append(",\"children\":[{\"id\":1}]}");
+        }
+        return json.append(']').toString();
+    }
+}
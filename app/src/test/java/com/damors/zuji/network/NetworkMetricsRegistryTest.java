@@ -0,0 +1,129 @@
+package com.damors.zuji.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网络指标注册表测试：按接口汇总计数、错误率和耗时分布，导出的JSON可被解析且接口名正确转义
+ */
+public class NetworkMetricsRegistryTest {
+
+    private final NetworkMetricsRegistry registry = new NetworkMetricsRegistry();
+
+    @Test
+    public void aggregatesPerEndpoint() {
+        registry.record(success(ApiConfig.Endpoints.GET_MSG_LIST, 120, 80));
+        registry.record(success(ApiConfig.Endpoints.GET_MSG_LIST, 140, 90));
+        registry.record(cacheHit(ApiConfig.Endpoints.GET_MSG_LIST));
+        registry.record(httpError(ApiConfig.Endpoints.GET_MSG_LIST, 503));
+        registry.record(networkError(ApiConfig.Endpoints.GET_USER_INFO));
+
+        NetworkMetricsRegistry.EndpointMetrics list = registry.get(ApiConfig.Endpoints.GET_MSG_LIST);
+        assertEquals(4, list.getCalls());
+        assertEquals(1, list.getFailures());
+        assertEquals(0.25, list.getErrorRate(), 0);
+        assertEquals(4, list.getLatency().getCount());
+        // 缓存命中没有首字节耗时
+        assertEquals(3, list.getTtfb().getCount());
+        assertEquals(300 * 4, list.getBytesReceived());
+
+        NetworkMetricsRegistry.EndpointMetrics user = registry.get(ApiConfig.Endpoints.GET_USER_INFO);
+        assertEquals(1, user.getFailures());
+        assertEquals(1.0, user.getErrorRate(), 0);
+    }
+
+    @Test
+    public void missingEndpointIsRecordedAsUnknown() {
+        registry.record(success(null, 10, 5));
+        registry.record(success("", 10, 5));
+
+        assertEquals(2, registry.get("unknown").getCalls());
+    }
+
+    @Test
+    public void toJsonWritesSortedEndpoints() {
+        registry.record(success(ApiConfig.Endpoints.GET_USER_INFO, 40, 20));
+        registry.record(success(ApiConfig.Endpoints.GET_MSG_LIST, 120, 80));
+        registry.record(cacheHit(ApiConfig.Endpoints.GET_MSG_LIST));
+        registry.record(httpError(ApiConfig.Endpoints.GET_MSG_LIST, 404));
+
+        JsonObject json = JsonParser.parseString(registry.toJson()).getAsJsonObject();
+        assertTrue(json.get("since").getAsLong() <= json.get("now").getAsLong());
+
+        JsonObject endpoints = json.getAsJsonObject("endpoints");
+        List<String> names = new ArrayList<>(endpoints.keySet());
+        List<String> sorted = new ArrayList<>(names);
+        sorted.sort(null);
+        assertEquals(sorted, names);
+
+        JsonObject list = endpoints.getAsJsonObject(ApiConfig.Endpoints.GET_MSG_LIST);
+        assertEquals(3, list.get("calls").getAsLong());
+        assertEquals(1, list.get("failures").getAsLong());
+        assertEquals(0.3333, list.get("errorRate").getAsDouble(), 0);
+        assertEquals(1, list.get("cacheHits").getAsLong());
+        assertEquals(0, list.get("networkErrors").getAsLong());
+
+        JsonObject status = list.getAsJsonObject("status");
+        assertEquals(5, status.size());
+        assertEquals(2, status.get("2xx").getAsLong());
+        assertEquals(1, status.get("4xx").getAsLong());
+        assertEquals(0, status.get("5xx").getAsLong());
+
+        JsonObject latency = list.getAsJsonObject("latencyMs");
+        NetworkMetricsRegistry.EndpointMetrics metrics = registry.get(ApiConfig.Endpoints.GET_MSG_LIST);
+        assertEquals(3, latency.get("count").getAsLong());
+        assertEquals(metrics.getLatency().getPercentile(50), latency.get("p50").getAsLong());
+        assertEquals(metrics.getLatency().getPercentile(99), latency.get("p99").getAsLong());
+        assertEquals(120, latency.get("max").getAsLong());
+        assertEquals(2, list.getAsJsonObject("ttfbMs").get("count").getAsLong());
+    }
+
+    @Test
+    public void toJsonEscapesEndpointNames() {
+        String name = "a\"b\\c\n\u0001/中文";
+        registry.record(success(name, 10, 5));
+
+        JsonObject endpoints = JsonParser.parseString(registry.toJson()).getAsJsonObject()
+                .getAsJsonObject("endpoints");
+
+        assertEquals(1, endpoints.size());
+        assertEquals(1, endpoints.getAsJsonObject(name).get("calls").getAsLong());
+    }
+
+    @Test
+    public void resetClearsEndpoints() {
+        registry.record(success(ApiConfig.Endpoints.GET_MSG_LIST, 10, 5));
+        registry.reset();
+
+        assertNull(registry.get(ApiConfig.Endpoints.GET_MSG_LIST));
+        assertEquals(0, JsonParser.parseString(registry.toJson()).getAsJsonObject()
+                .getAsJsonObject("endpoints").size());
+    }
+
+    private static NetworkTelemetry.CallMetrics success(String endpoint, long totalMs, long ttfbMs) {
+        return new NetworkTelemetry.CallMetrics(endpoint, 200, false, null, totalMs, 0, 0, 0, ttfbMs,
+                totalMs - ttfbMs, 100, 300);
+    }
+
+    private static NetworkTelemetry.CallMetrics cacheHit(String endpoint) {
+        return new NetworkTelemetry.CallMetrics(endpoint, 200, true, null, 2, 0, 0, 0, -1, 0, 0, 300);
+    }
+
+    private static NetworkTelemetry.CallMetrics httpError(String endpoint, int status) {
+        return new NetworkTelemetry.CallMetrics(endpoint, status, false, null, 60, 0, 0, 0, 50, 10, 100, 300);
+    }
+
+    private static NetworkTelemetry.CallMetrics networkError(String endpoint) {
+        return new NetworkTelemetry.CallMetrics(endpoint, -1, false, "SocketTimeoutException", 10000, 0, 0, 0, -1,
+                0, 100, 0);
+    }
+}
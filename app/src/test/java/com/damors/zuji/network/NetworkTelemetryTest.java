@@ -0,0 +1,109 @@
+package com.damors.zuji.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import okhttp3.FormBody;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * 网络遥测测试：只有响应缓存直接返回的请求记为缓存命中，连接失败等没有发出请求的情况记为失败
+ */
+@RunWith(RobolectricTestRunner.class)
+public class NetworkTelemetryTest {
+
+    private static final String BODY = "{\"code\":200,\"data\":{\"total\":0,\"records\":[]}}";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final List<NetworkTelemetry.CallMetrics> finished = new CopyOnWriteArrayList<>();
+    private MockWebServer server;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        ResponseCacheInterceptor cache = new ResponseCacheInterceptor(tempFolder.newFolder("api_responses"), 1024 * 1024);
+        cache.setTtl(ApiConfig.Endpoints.GET_MSG_LIST, 30 * 1000);
+        NetworkTelemetry telemetry = new NetworkTelemetry();
+        telemetry.setSink(finished::add);
+        cache.setCacheHitListener(telemetry::markCacheHit);
+        client = new OkHttpClient.Builder()
+                .addInterceptor(cache)
+                .eventListenerFactory(telemetry)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void cacheHitIsReportedAsFromCache() throws IOException {
+        server.enqueue(new MockResponse().setBody(BODY));
+
+        execute(server.url("/" + ApiConfig.Endpoints.GET_MSG_LIST));
+        execute(server.url("/" + ApiConfig.Endpoints.GET_MSG_LIST));
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(2, finished.size());
+        assertFalse(finished.get(0).fromCache);
+        assertEquals(200, finished.get(0).status);
+        assertTrue(finished.get(1).fromCache);
+        assertEquals(200, finished.get(1).status);
+        assertFalse(finished.get(1).isFailed());
+    }
+
+    @Test
+    public void connectFailureIsNotFromCache() throws IOException {
+        HttpUrl url = server.url("/" + ApiConfig.Endpoints.GET_MSG_LIST_BY_BOUNDS);
+        server.shutdown();
+
+        try {
+            execute(url);
+            fail("服务端已关闭时应连接失败");
+        } catch (IOException expected) {
+            // 连接失败
+        }
+
+        assertEquals(1, finished.size());
+        NetworkTelemetry.CallMetrics metrics = finished.get(0);
+        assertFalse(metrics.fromCache);
+        assertNotNull(metrics.error);
+        assertEquals(-1, metrics.status);
+        assertTrue(metrics.isFailed());
+    }
+
+    private void execute(HttpUrl url) throws IOException {
+        Request request = new Request.Builder()
+                .url(url)
+                .post(new FormBody.Builder().add("pageNum", "1").build())
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+}
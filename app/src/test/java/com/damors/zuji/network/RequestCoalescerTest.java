@@ -0,0 +1,161 @@
+package com.damors.zuji.network;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 读请求合并器测试：相同用户的相同请求合并，不同用户不合并，写入后不再合并到写入前的请求上
+ * 请求由测试手动完成
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RequestCoalescerTest {
+
+    private final List<FakeCall> calls = new ArrayList<>();
+    private final List<String> results = new ArrayList<>();
+    private String currentUser = "1";
+    private RequestCoalescer coalescer;
+
+    @Before
+    public void setUp() {
+        coalescer = new RequestCoalescer(() -> currentUser);
+    }
+
+    @Test
+    public void sameUserSameKeyIsCoalesced() {
+        enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_MSG_LIST, 1, 10));
+        enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_MSG_LIST, 1, 10));
+        enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_MSG_LIST, 2, 10));
+
+        assertEquals(2, calls.size());
+        calls.get(0).complete("page1");
+        assertEquals(List.of("page1", "page1"), results);
+        assertEquals(1, coalescer.getSavedCount());
+    }
+
+    @Test
+    public void differentUsersAreNotCoalesced() {
+        enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_USER_INFO));
+        currentUser = "2";
+        enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_USER_INFO));
+        currentUser = null;
+        enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_USER_INFO));
+
+        assertEquals(3, calls.size());
+        assertEquals(0, coalescer.getSavedCount());
+    }
+
+    @Test
+    public void invalidateStartsFreshRequestAfterWrite() {
+        String comments = RequestCoalescer.key(ApiConfig.Endpoints.GET_COMMENT_LIST, 5);
+        String feed = RequestCoalescer.key(ApiConfig.Endpoints.GET_MSG_LIST_ALL, 1, 10);
+        enqueue(comments);
+        enqueue(feed);
+
+        // 添加评论成功：评论列表失效，动态列表的前缀相近但接口不同，不受影响
+        coalescer.invalidate(ApiConfig.Endpoints.GET_COMMENT_LIST);
+        enqueue(comments);
+        enqueue(feed);
+        assertEquals(3, calls.size());
+        assertEquals(1, coalescer.getSavedCount());
+
+        // 写入前的请求完成时只通知自己的调用方，不移除写入后的请求
+        calls.get(0).complete("before");
+        assertEquals(List.of("before"), results);
+        enqueue(comments);
+        assertEquals(3, calls.size());
+        calls.get(2).complete("after");
+        assertEquals(List.of("before", "after", "after"), results);
+        assertEquals(1, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void invalidateMatchesWholeEndpointName() {
+        enqueue(RequestCoalescer.key(ApiConfig.Endpoints.GET_MSG_LIST_ALL, 1, 10));
+
+        // getMsgList是getMsgListAll的前缀，不能误伤
+        coalescer.invalidate(ApiConfig.Endpoints.GET_MSG_LIST);
+
+        assertEquals(1, coalescer.getInFlightCount());
+    }
+
+    private void enqueue(String key) {
+        coalescer.enqueue(key, () -> {
+            FakeCall call = new FakeCall();
+            calls.add(call);
+            return call;
+        }, new Callback<String>() {
+            @Override
+            public void onResponse(Call<String> call, Response<String> response) {
+                results.add(response.body());
+            }
+
+            @Override
+            public void onFailure(Call<String> call, Throwable t) {
+                results.add("error");
+            }
+        });
+    }
+
+    /**
+     * 由测试手动完成的请求
+     */
+    private static class FakeCall implements Call<String> {
+        private Callback<String> callback;
+
+        void complete(String body) {
+            callback.onResponse(this, Response.success(body));
+        }
+
+        @Override
+        public Response<String> execute() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void enqueue(Callback<String> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return callback != null;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return false;
+        }
+
+        @Override
+        public Call<String> clone() {
+            return new FakeCall();
+        }
+
+        @Override
+        public Request request() {
+            return new Request.Builder().url("http://localhost/").build();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.damors.zuji.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+
+import okhttp3.CacheControl;
+import okhttp3.FormBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * 响应缓存拦截器测试：离线（only-if-cached）时使用过期缓存、没有缓存时返回504，
+ * 不缓存的接口去掉该请求头后照常请求，只缓存业务成功（code为200）的响应
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ResponseCacheInterceptorTest {
+
+    private static final String BODY = "{\"code\":200,\"data\":{\"total\":0,\"records\":[]}}";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private ResponseCacheInterceptor cache;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        cache = new ResponseCacheInterceptor(tempFolder.newFolder("api_responses"), 1024 * 1024);
+        cache.setTtl(ApiConfig.Endpoints.GET_MSG_LIST, 30 * 1000);
+        client = new OkHttpClient.Builder().addInterceptor(cache).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void offlineServesExpiredCacheWithoutRequest() throws IOException {
+        server.enqueue(new MockResponse().setBody(BODY));
+        execute(ApiConfig.Endpoints.GET_MSG_LIST, "1", false).close();
+        // 下拉刷新等操作让缓存过期
+        cache.expire(ApiConfig.Endpoints.GET_MSG_LIST);
+
+        try (Response response = execute(ApiConfig.Endpoints.GET_MSG_LIST, "1", true)) {
+            assertEquals(200, response.code());
+            assertEquals(BODY, response.body().string());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertTrue(cache.getStats().contains("离线命中: 1"));
+    }
+
+    @Test
+    public void offlineWithoutCacheReturns504() throws IOException {
+        server.enqueue(new MockResponse().setBody(BODY));
+        execute(ApiConfig.Endpoints.GET_MSG_LIST, "1", false).close();
+
+        // 第2页没有缓存
+        try (Response response = execute(ApiConfig.Endpoints.GET_MSG_LIST, "2", true)) {
+            assertEquals(504, response.code());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertTrue(cache.getStats().contains("离线未命中: 1"));
+    }
+
+    @Test
+    public void uncachedEndpointIgnoresOnlyIfCached() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setBody(BODY));
+
+        try (Response response = execute(ApiConfig.Endpoints.GET_MSG_LIST_BY_BOUNDS, "1", true)) {
+            assertEquals(200, response.code());
+        }
+        assertNull(server.takeRequest().getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void cachesOnlyBusinessSuccess() throws IOException {
+        // code在data之后且以字符串表示
+        server.enqueue(new MockResponse().setBody("{\"data\":{\"records\":[{\"code\":500}]},\"code\":\"200\"}"));
+        server.enqueue(new MockResponse().setBody("{\"code\":500,\"msg\":\"error\"}"));
+        server.enqueue(new MockResponse().setBody("{\"code\":500,\"msg\":\"error\"}"));
+
+        execute(ApiConfig.Endpoints.GET_MSG_LIST, "1", false).close();
+        execute(ApiConfig.Endpoints.GET_MSG_LIST, "1", false).close();
+        assertEquals(1, server.getRequestCount());
+
+        // 业务失败的响应不缓存，再次请求仍访问服务端
+        execute(ApiConfig.Endpoints.GET_MSG_LIST, "2", false).close();
+        execute(ApiConfig.Endpoints.GET_MSG_LIST, "2", false).close();
+        assertEquals(3, server.getRequestCount());
+    }
+
+    private Response execute(String endpoint, String pageNum, boolean offline) throws IOException {
+        Request.Builder builder = new Request.Builder()
+                .url(server.url("/" + endpoint))
+                .post(new FormBody.Builder().add("pageNum", pageNum).build());
+        if (offline) {
+            builder.cacheControl(CacheControl.FORCE_CACHE);
+        }
+        return client.newCall(builder.build()).execute();
+    }
+}
@@ -0,0 +1,106 @@
+package com.damors.zuji.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * 重试拦截器测试：只有服务端故障计入熔断，熔断中拒绝请求时抛出OpenException
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RetryInterceptorTest {
+
+    private MockWebServer server;
+    private CircuitBreaker circuitBreaker;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        circuitBreaker = new CircuitBreaker(2, 60000);
+        client = new OkHttpClient.Builder()
+                .readTimeout(200, TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(false)
+                .addInterceptor(new RetryInterceptor(Collections.emptySet(), circuitBreaker, 0, 0, 1, 0))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void serverErrorsOpenCircuit() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        execute().close();
+        execute().close();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        try {
+            execute();
+            fail("熔断中应直接拒绝请求");
+        } catch (CircuitBreaker.OpenException e) {
+            assertEquals(2, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void readTimeoutsCountAsFailures() {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+
+        executeExpectingError();
+        executeExpectingError();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void clientNetworkErrorsDoNotOpenCircuit() throws IOException {
+        server.shutdown();
+        for (int i = 0; i < 5; i++) {
+            try {
+                execute();
+                fail("服务端已关闭，请求应失败");
+            } catch (CircuitBreaker.OpenException e) {
+                fail("客户端网络错误不应触发熔断");
+            } catch (IOException expected) {
+                // 连接被拒绝
+            }
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private Response execute() throws IOException {
+        return client.newCall(new Request.Builder().url(server.url("/getMsgList")).build()).execute();
+    }
+
+    private void executeExpectingError() {
+        try {
+            execute().close();
+            fail("服务端未响应，请求应超时");
+        } catch (IOException expected) {
+            // 读取超时
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.damors.zuji.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.damors.zuji.model.FootprintMessage;
+import com.damors.zuji.model.response.BaseResponse;
+import com.damors.zuji.model.response.FootprintMessageResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * 地图可视区域加载器测试：区域接口由MockWebServer模拟，验证实际发出的区域请求
+ * 缩放级别11对应瓦片级别10，瓦片边长0.3515625度；经度101.25、纬度33.046875为瓦片(800, 350)的左下角
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ViewportMarkLoaderTest {
+
+    private static final double TILE_SIZE = 0.3515625;
+
+    private MockWebServer server;
+    private ViewportMarkLoader loader;
+    private final List<List<FootprintMessage>> delivered = new ArrayList<>();
+    // 模拟本地过滤或离线缓存得到的近似结果
+    private boolean approximate;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        ApiService apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiService.class);
+
+        // 同步请求，回调直接在测试线程执行
+        ViewportMarkLoader.MarkFetcher fetcher = (minLat, minLng, maxLat, maxLng, limit, callback) -> {
+            try {
+                Response<BaseResponse<FootprintMessageResponse.Data>> response =
+                        apiService.getMsgListByBounds(minLat, minLng, maxLat, maxLng, 1, limit).execute();
+                FootprintMessageResponse.Data data = response.body().getData();
+                if (approximate) {
+                    callback.onApproximateResult(data.getRecords());
+                    return;
+                }
+                callback.onResult(data.getRecords(), data.getTotal() > data.getRecords().size());
+            } catch (IOException e) {
+                callback.onError(e.getMessage());
+            }
+        };
+        loader = new ViewportMarkLoader(fetcher, new ViewportMarkLoader.Listener() {
+            @Override
+            public void onMarksLoaded(List<FootprintMessage> marks) {
+                delivered.add(marks);
+            }
+
+            @Override
+            public void onLoadError(String errorMessage) {
+                throw new AssertionError(errorMessage);
+            }
+        }, new Handler(Looper.getMainLooper()), 0);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        loader.release();
+        server.shutdown();
+    }
+
+    @Test
+    public void truncatedAreaIsRefetchedInHalves() throws InterruptedException {
+        server.enqueue(page(1000));
+        server.enqueue(page(1, mark(1, 33.1, 101.3)));
+        server.enqueue(page(1, mark(2, 33.1, 101.7)));
+
+        // 瓦片(800, 350)和(801, 350)
+        loader.loadNow(33.1, 101.3, 33.2, 101.9, 11);
+
+        assertEquals(3, server.getRequestCount());
+        assertBounds(server.takeRequest(), 800, 802);
+        assertBounds(server.takeRequest(), 800, 801);
+        assertBounds(server.takeRequest(), 801, 802);
+        assertEquals(2, delivered.get(delivered.size() - 1).size());
+    }
+
+    @Test
+    public void cachedTilesAreNotRequestedAgain() throws InterruptedException {
+        server.enqueue(page(0));
+        server.enqueue(page(0));
+
+        loader.loadNow(33.1, 101.3, 33.2, 101.9, 11);
+        // 向东扩大可视区域，瓦片800、801已缓存
+        loader.loadNow(33.1, 101.3, 33.2, 102.6, 11);
+
+        assertEquals(2, server.getRequestCount());
+        assertBounds(server.takeRequest(), 800, 802);
+        assertBounds(server.takeRequest(), 802, 804);
+    }
+
+    @Test
+    public void cachedTilesSplitMissingArea() throws InterruptedException {
+        server.enqueue(page(0));
+        server.enqueue(page(0));
+        server.enqueue(page(0));
+
+        // 先加载中间的瓦片801，再加载800到802，两侧的缺失瓦片分开请求
+        loader.loadNow(33.1, 101.65, 33.2, 101.9, 11);
+        loader.loadNow(33.1, 101.3, 33.2, 102.2, 11);
+
+        assertEquals(3, server.getRequestCount());
+        assertBounds(server.takeRequest(), 801, 802);
+        assertBounds(server.takeRequest(), 800, 801);
+        assertBounds(server.takeRequest(), 802, 803);
+    }
+
+    @Test
+    public void truncatedTileDoesNotCoverChildTiles() throws InterruptedException {
+        server.enqueue(page(1000, mark(1, 33.1, 101.3)));
+        server.enqueue(page(1, mark(2, 33.1, 101.31)));
+
+        loader.loadNow(33.1, 101.3, 33.2, 101.5, 11);
+        // 同一级别再次加载时使用缓存
+        loader.loadNow(33.1, 101.3, 33.2, 101.5, 11);
+        assertEquals(1, server.getRequestCount());
+
+        // 放大一级，不完整的上级瓦片不能覆盖下级瓦片
+        loader.loadNow(33.1, 101.3, 33.15, 101.4, 12);
+        assertEquals(2, server.getRequestCount());
+        RecordedRequest first = server.takeRequest();
+        RecordedRequest second = server.takeRequest();
+        assertBounds(first, 800, 801);
+        assertTrue(formFields(second).get("maxLng") - formFields(second).get("minLng") < TILE_SIZE);
+    }
+
+    @Test
+    public void approximateResultIsNotSplit() throws InterruptedException {
+        approximate = true;
+        server.enqueue(page(1000, mark(1, 33.1, 101.3)));
+        server.enqueue(page(1, mark(2, 33.1, 101.31)));
+
+        // 近似结果不拆分重新请求，同一级别再次加载时使用缓存
+        loader.loadNow(33.1, 101.3, 33.2, 101.9, 11);
+        loader.loadNow(33.1, 101.3, 33.2, 101.9, 11);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, delivered.get(delivered.size() - 1).size());
+
+        // 近似结果标记为不完整，放大后重新请求
+        loader.loadNow(33.1, 101.3, 33.15, 101.4, 12);
+        assertEquals(2, server.getRequestCount());
+        assertBounds(server.takeRequest(), 800, 802);
+    }
+
+    private static FootprintMessage mark(int id, double lat, double lng) {
+        FootprintMessage message = new FootprintMessage();
+        message.setId(id);
+        message.setLat(lat);
+        message.setLng(lng);
+        return message;
+    }
+
+    private static MockResponse page(int total, FootprintMessage... records) {
+        StringBuilder json = new StringBuilder("{\"code\":200,\"data\":{\"total\":").append(total).append(",\"records\":[");
+        for (int i = 0; i < records.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(records[i].getId())
+                    .append(",\"lat\":").append(records[i].getLat())
+                    .append(",\"lng\":").append(records[i].getLng()).append('}');
+        }
+        json.append("]}}");
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(json.toString());
+    }
+
+    /**
+     * 断言请求的经度范围为瓦片列[fromX, toX)
+     */
+    private static void assertBounds(RecordedRequest request, int fromX, int toX) {
+        assertEquals("/getMsgListByBounds", request.getPath());
+        Map<String, Double> fields = formFields(request);
+        assertEquals(-180 + fromX * TILE_SIZE, fields.get("minLng"), 1e-9);
+        assertEquals(-180 + toX * TILE_SIZE, fields.get("maxLng"), 1e-9);
+    }
+
+    private static Map<String, Double> formFields(RecordedRequest request) {
+        Map<String, Double> fields = new HashMap<>();
+        for (String pair : request.getBody().clone().readUtf8().split("&")) {
+            String[] parts = pair.split("=", 2);
+            fields.put(parts[0], Double.parseDouble(URLDecoder.decode(parts[1], StandardCharsets.UTF_8)));
+        }
+        return fields;
+    }
+}
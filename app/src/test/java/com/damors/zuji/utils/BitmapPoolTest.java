@@ -0,0 +1,130 @@
+package com.damors.zuji.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bitmap复用池测试：按分配大小复用、容量淘汰，以及批量处理照片时的像素内存分配次数
+ * 100x100的ARGB_8888 Bitmap分配40000字节
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BitmapPoolTest {
+
+    private static final int SMALL_BYTES = 100 * 100 * 4;
+
+    @Test
+    public void reusesBitmapThatFitsRequest() {
+        BitmapPool pool = new BitmapPool(SMALL_BYTES * 10);
+        Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+        pool.put(bitmap);
+
+        // 需求为分配大小的1/4时仍可复用
+        assertSame(bitmap, pool.get(SMALL_BYTES / 4));
+        assertNull(pool.get(SMALL_BYTES / 4));
+        assertTrue(pool.getStats().contains("复用命中: 1"));
+    }
+
+    @Test
+    public void rejectsBitmapsTooSmallOrTooLarge() {
+        BitmapPool pool = new BitmapPool(SMALL_BYTES * 10);
+        pool.put(Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+
+        assertNull(pool.get(SMALL_BYTES + 1));
+        // 超过需求4倍的Bitmap不用于小图
+        assertNull(pool.get(SMALL_BYTES / 4 - 1));
+        assertTrue(pool.getStats().contains("未命中: 2"));
+    }
+
+    @Test
+    public void getDirtyReconfiguresPooledBitmap() {
+        BitmapPool pool = new BitmapPool(SMALL_BYTES * 10);
+        Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+        pool.put(bitmap);
+
+        Bitmap reused = pool.getDirty(80, 50, Bitmap.Config.ARGB_8888);
+
+        assertSame(bitmap, reused);
+        assertEquals(80, reused.getWidth());
+        assertEquals(50, reused.getHeight());
+    }
+
+    @Test
+    public void immutableAndOversizedBitmapsAreRecycled() {
+        BitmapPool pool = new BitmapPool(SMALL_BYTES);
+        Bitmap immutable = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888).copy(Bitmap.Config.ARGB_8888, false);
+        // 超过容量一半
+        Bitmap oversized = Bitmap.createBitmap(100, 60, Bitmap.Config.ARGB_8888);
+
+        pool.put(immutable);
+        pool.put(oversized);
+
+        assertTrue(immutable.isRecycled());
+        assertTrue(oversized.isRecycled());
+        assertTrue(pool.getStats().contains("归还: 0"));
+    }
+
+    @Test
+    public void evictsSmallestBucketsFirstWhenFull() {
+        BitmapPool pool = new BitmapPool(SMALL_BYTES * 2);
+        Bitmap tiny = Bitmap.createBitmap(50, 50, Bitmap.Config.ARGB_8888);
+        Bitmap first = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+        Bitmap second = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+
+        pool.put(tiny);
+        pool.put(first);
+        pool.put(second);
+
+        assertTrue(tiny.isRecycled());
+        assertFalse(first.isRecycled());
+        assertFalse(second.isRecycled());
+        assertTrue(pool.getStats().contains("淘汰: 1"));
+
+        pool.clear();
+        assertTrue(first.isRecycled());
+        assertTrue(second.isRecycled());
+        assertTrue(pool.getStats().contains("当前: 0KB"));
+    }
+
+    @Test
+    public void batchReusesPixelMemory() {
+        // 模拟ImageUploadPipeline：每张照片取出解码目标和缩放目标，编码后归还
+        BitmapPool pool = new BitmapPool(SMALL_BYTES * 10);
+        List<Bitmap> allocated = new ArrayList<>();
+        for (int photo = 0; photo < 20; photo++) {
+            Bitmap decoded = pool.getDirty(100, 100, Bitmap.Config.ARGB_8888);
+            Bitmap scaled = pool.getDirty(100, 75, Bitmap.Config.ARGB_8888);
+            for (Bitmap bitmap : new Bitmap[]{decoded, scaled}) {
+                if (!containsInstance(allocated, bitmap)) {
+                    allocated.add(bitmap);
+                }
+            }
+            pool.put(scaled);
+            pool.put(decoded);
+        }
+
+        // 20张照片只分配了第一张的两个Bitmap
+        assertEquals(2, allocated.size());
+        assertTrue(pool.getStats().contains("复用命中: 38"));
+    }
+
+    private static boolean containsInstance(List<Bitmap> bitmaps, Bitmap bitmap) {
+        for (Bitmap existing : bitmaps) {
+            if (existing == bitmap) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
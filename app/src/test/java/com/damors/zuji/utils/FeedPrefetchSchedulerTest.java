@@ -0,0 +1,230 @@
+package com.damors.zuji.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+import android.view.View;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.damors.zuji.data.MessageFeedRepository;
+import com.damors.zuji.model.FootprintMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 动态预取调度器测试：用模拟的滚动轨迹驱动调度器，仓库的分页请求由测试手动完成
+ * 每页10条，条目高度100像素，每次滚动事件间隔16毫秒
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FeedPrefetchSchedulerTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final List<Request> requests = new ArrayList<>();
+    private final List<Integer> readyPages = new ArrayList<>();
+    private final List<Integer> failedPages = new ArrayList<>();
+    private RecyclerView recyclerView;
+    private LinearLayoutManager layoutManager;
+    private FeedPrefetchScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        MessageFeedRepository repository = mock(MessageFeedRepository.class);
+        doAnswer(invocation -> {
+            requests.add(new Request(invocation.getArgument(0), invocation.getArgument(3)));
+            return null;
+        }).when(repository).loadMessagePage(anyInt(), anyInt(), anyBoolean(), any());
+
+        View child = mock(View.class);
+        when(child.getHeight()).thenReturn(100);
+        layoutManager = mock(LinearLayoutManager.class);
+        when(layoutManager.getChildCount()).thenReturn(8);
+        when(layoutManager.getChildAt(anyInt())).thenReturn(child);
+        recyclerView = mock(RecyclerView.class);
+        when(recyclerView.getLayoutManager()).thenReturn(layoutManager);
+
+        scheduler = new FeedPrefetchScheduler(repository, PAGE_SIZE, new FeedPrefetchScheduler.Listener() {
+            @Override
+            public boolean isLoadingPage() {
+                return false;
+            }
+
+            @Override
+            public void onPageReady(int page, List<FootprintMessage> messages, boolean endReached) {
+                readyPages.add(page);
+            }
+
+            @Override
+            public void onPrefetchFailed(int page, String errorMessage) {
+                failedPages.add(page);
+            }
+        });
+        scheduler.onPageDisplayed(1, false);
+    }
+
+    @Test
+    public void steadyScrollAppendsFromBufferWithoutWaiting() {
+        // 匀速向下滚动，第1页展示中即开始预取第2页
+        scroll(3, 10, 2);
+        assertEquals(1, requests.size());
+        assertEquals(2, requests.get(0).page);
+        requests.get(0).succeed(false);
+
+        // 继续滚动时补充缓冲区，最多缓冲两页
+        scroll(4, 10, 2);
+        assertEquals(2, requests.size());
+        assertEquals(3, requests.get(1).page);
+        requests.get(1).succeed(false);
+        scroll(5, 10, 2);
+        assertEquals(2, requests.size());
+        assertTrue(readyPages.isEmpty());
+
+        // 接近末尾时直接追加缓冲的第2页，并预取第4页
+        scroll(7, 10, 2);
+        assertEquals(List.of(2), readyPages);
+        assertEquals(3, requests.size());
+        assertEquals(4, requests.get(2).page);
+        assertTrue(scheduler.getStats().contains("缓冲命中: 1"));
+        assertTrue(scheduler.getStats().contains("缓冲未命中: 0"));
+    }
+
+    @Test
+    public void fastFlingPrefetchesFurtherAhead() {
+        // 已展示3页，慢速滚动时预测位置还未进入最后一页
+        scheduler.onPageDisplayed(3, false);
+        scroll(12, 30, 1);
+        assertTrue(requests.isEmpty());
+
+        // 快速滑动（每16毫秒60像素），预测500毫秒后越过第20条
+        scroll(12, 30, 60);
+        scroll(13, 30, 60);
+        assertEquals(1, requests.size());
+        assertEquals(4, requests.get(0).page);
+    }
+
+    @Test
+    public void reachingEndWithEmptyBufferAppendsWhenLoaded() {
+        // 一次滚动到末尾，缓冲区为空
+        scroll(9, 10, 0);
+        assertEquals(1, requests.size());
+        assertTrue(readyPages.isEmpty());
+
+        requests.get(0).succeed(false);
+        assertEquals(List.of(2), readyPages);
+        assertTrue(scheduler.getStats().contains("缓冲未命中: 1"));
+    }
+
+    @Test
+    public void failedPrefetchBacksOffBeforeRetrying() {
+        scroll(9, 10, 2);
+        requests.get(0).fail();
+        assertEquals(List.of(2), failedPages);
+
+        // 退避期间继续滚动不发出请求
+        for (int i = 0; i < 30; i++) {
+            scroll(9, 10, 2);
+        }
+        assertEquals(1, requests.size());
+
+        // 1秒后自动重试
+        idle(1000 - 30 * 16);
+        assertEquals(2, requests.size());
+        assertEquals(2, requests.get(1).page);
+
+        // 再次失败，等待时间翻倍
+        requests.get(1).fail();
+        idle(1999);
+        assertEquals(2, requests.size());
+        idle(1);
+        assertEquals(3, requests.size());
+
+        // 成功后退避清零，下一次失败重新从1秒开始
+        requests.get(2).succeed(false);
+        scroll(9, 10, 2);
+        assertEquals(List.of(2), readyPages);
+        assertEquals(4, requests.size());
+        requests.get(3).fail();
+        idle(1000);
+        assertEquals(5, requests.size());
+        assertTrue(scheduler.getStats().contains("失败: 3"));
+    }
+
+    @Test
+    public void releaseDropsInFlightResultAndPendingRetry() {
+        scroll(9, 10, 2);
+        requests.get(0).fail();
+        idle(1000);
+        assertEquals(2, requests.size());
+
+        scheduler.release();
+        requests.get(1).succeed(false);
+        idle(60000);
+        scroll(9, 10, 2);
+
+        assertTrue(readyPages.isEmpty());
+        assertEquals(2, requests.size());
+    }
+
+    /**
+     * 模拟一次滚动事件
+     * @param lastVisible 最后一个可见条目
+     * @param itemCount 已展示条目数
+     * @param dy 本次滚动的像素
+     */
+    private void scroll(int lastVisible, int itemCount, int dy) {
+        idle(16);
+        when(layoutManager.findLastVisibleItemPosition()).thenReturn(lastVisible);
+        when(layoutManager.getItemCount()).thenReturn(itemCount);
+        scheduler.onScrolled(recyclerView, 0, dy);
+    }
+
+    private static void idle(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+    }
+
+    private static List<FootprintMessage> page(int size) {
+        List<FootprintMessage> messages = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            messages.add(new FootprintMessage());
+        }
+        return messages;
+    }
+
+    /**
+     * 一次分页请求
+     */
+    private static class Request {
+        final int page;
+        final MessageFeedRepository.PageCallback callback;
+
+        Request(int page, MessageFeedRepository.PageCallback callback) {
+            this.page = page;
+            this.callback = callback;
+        }
+
+        void succeed(boolean endReached) {
+            callback.onRemotePage(page(PAGE_SIZE), endReached);
+        }
+
+        void fail() {
+            callback.onError("网络错误", false);
+        }
+    }
+}
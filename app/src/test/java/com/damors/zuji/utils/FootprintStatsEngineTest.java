@@ -0,0 +1,225 @@
+package com.damors.zuji.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.damors.zuji.data.FootprintEntity;
+import com.sun.management.ThreadMXBean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * 足迹统计引擎测试：与改造前基于SimpleDateFormat和Calendar的逐项统计结果对比，并比较两者的内存分配量
+ * 使用有夏令时的时区，覆盖1970年以前、跨年和近期的足迹
+ */
+public class FootprintStatsEngineTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final String[] CATEGORIES = {"旅游", "美食", "购物", "未分类", "", null};
+    private static final String[] CITIES = {"北京", "上海", "杭州", "成都", "未知城市", "", null};
+
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void matchesPreviousImplementation() {
+        long now = System.currentTimeMillis();
+        List<FootprintEntity> footprints = randomFootprints(20_000, now, new Random(7));
+
+        FootprintStatsEngine engine = new FootprintStatsEngine(30, now);
+        engine.acceptAll(footprints);
+
+        assertEquals(footprints.size(), engine.getTotal());
+        assertEquals(legacyCount(footprints, true), engine.getCategoryCounts());
+        assertEquals(legacyCount(footprints, false), engine.getCityCounts());
+        assertEquals(legacyCountByMonth(footprints), engine.getMonthCounts());
+        assertEquals(legacyActivityStats(footprints, 30, now), engine.getDailyCounts());
+
+        Date[] span = FootprintStatsUtil.getTimeSpan(footprints);
+        assertEquals(span[0].getTime(), engine.getEarliestTime());
+        assertEquals(span[1].getTime(), engine.getLatestTime());
+    }
+
+    @Test
+    public void dayBoundariesAroundDaylightSavingChange() {
+        // 2024-03-10 纽约进入夏令时，当天只有23小时
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2024, Calendar.MARCH, 11, 0, 0, 0);
+        long now = calendar.getTimeInMillis() + 12 * 60 * 60 * 1000;
+        List<FootprintEntity> footprints = new ArrayList<>();
+        for (long t = calendar.getTimeInMillis() - 3 * DAY; t < now; t += 30 * 60 * 1000) {
+            footprints.add(footprint(t, null, null));
+        }
+        // 恰好在午夜和午夜前1毫秒
+        footprints.add(footprint(calendar.getTimeInMillis(), null, null));
+        footprints.add(footprint(calendar.getTimeInMillis() - 1, null, null));
+
+        FootprintStatsEngine engine = new FootprintStatsEngine(5, now);
+        engine.acceptAll(footprints);
+
+        assertEquals(legacyActivityStats(footprints, 5, now), engine.getDailyCounts());
+        assertEquals(legacyCountByMonth(footprints), engine.getMonthCounts());
+    }
+
+    @Test
+    public void allocatesLessThanPreviousImplementation() {
+        long now = System.currentTimeMillis();
+        List<FootprintEntity> footprints = randomFootprints(100_000, now, new Random(11));
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        // 分配字节数不受JIT和机器负载影响，预热一次排除类加载
+        runLegacy(footprints, now);
+        runEngine(footprints, now);
+        long start = threads.getThreadAllocatedBytes(threadId);
+        runLegacy(footprints, now);
+        long legacyBytes = threads.getThreadAllocatedBytes(threadId) - start;
+        start = threads.getThreadAllocatedBytes(threadId);
+        runEngine(footprints, now);
+        long engineBytes = threads.getThreadAllocatedBytes(threadId) - start;
+
+        // 逐条格式化日期会为每条足迹分配Date、StringBuffer和String，统计引擎只在分桶时分配
+        assertTrue("统计引擎分配" + engineBytes + "字节，逐项统计分配" + legacyBytes + "字节",
+                engineBytes * 10 < legacyBytes);
+    }
+
+    private static void runLegacy(List<FootprintEntity> footprints, long now) {
+        legacyCount(footprints, true);
+        legacyCount(footprints, false);
+        legacyCountByMonth(footprints);
+        legacyActivityStats(footprints, 30, now);
+    }
+
+    private static void runEngine(List<FootprintEntity> footprints, long now) {
+        FootprintStatsEngine engine = new FootprintStatsEngine(30, now);
+        engine.acceptAll(footprints);
+        engine.getCategoryCounts();
+        engine.getCityCounts();
+        engine.getMonthCounts();
+        engine.getDailyCounts();
+    }
+
+    private static List<FootprintEntity> randomFootprints(int count, long now, Random random) {
+        List<FootprintEntity> footprints = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long timestamp;
+            if (i % 4 == 0) {
+                // 近40天，部分落在活跃度统计范围之外
+                timestamp = now - (long) (random.nextDouble() * 40 * DAY);
+            } else {
+                // 1960年到2030年
+                timestamp = -315_619_200_000L + (long) (random.nextDouble() * 2_208_988_800_000L);
+            }
+            footprints.add(footprint(timestamp, CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    CITIES[random.nextInt(CITIES.length)]));
+        }
+        return footprints;
+    }
+
+    private static FootprintEntity footprint(long timestamp, String category, String city) {
+        FootprintEntity footprint = new FootprintEntity();
+        footprint.setTimestamp(timestamp);
+        footprint.setCategory(category);
+        footprint.setCityName(city);
+        return footprint;
+    }
+
+    /**
+     * 改造前的分类、城市统计
+     */
+    private static Map<String, Integer> legacyCount(List<FootprintEntity> footprints, boolean byCategory) {
+        Map<String, Integer> stats = new HashMap<>();
+        for (FootprintEntity footprint : footprints) {
+            String name = byCategory ? footprint.getCategory() : footprint.getCityName();
+            if (name == null || name.isEmpty()) {
+                name = byCategory ? "未分类" : "未知城市";
+            }
+            if (stats.containsKey(name)) {
+                stats.put(name, stats.get(name) + 1);
+            } else {
+                stats.put(name, 1);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 改造前的月份统计
+     */
+    private static Map<String, Integer> legacyCountByMonth(List<FootprintEntity> footprints) {
+        Map<String, Integer> monthStats = new HashMap<>();
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM", Locale.getDefault());
+        for (FootprintEntity footprint : footprints) {
+            String month = sdf.format(new Date(footprint.getTimestamp()));
+            if (monthStats.containsKey(month)) {
+                monthStats.put(month, monthStats.get(month) + 1);
+            } else {
+                monthStats.put(month, 1);
+            }
+        }
+        return monthStats;
+    }
+
+    /**
+     * 改造前的活跃度统计，"今天"由now确定
+     */
+    private static Map<String, Integer> legacyActivityStats(List<FootprintEntity> footprints, int days, long now) {
+        Map<String, Integer> activityStats = new HashMap<>();
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        long todayStart = calendar.getTimeInMillis();
+        for (int i = 0; i < days; i++) {
+            activityStats.put(sdf.format(calendar.getTime()), 0);
+            calendar.add(Calendar.DAY_OF_MONTH, -1);
+        }
+
+        calendar.setTimeInMillis(todayStart);
+        calendar.add(Calendar.DAY_OF_MONTH, -(days - 1));
+        long startTime = calendar.getTimeInMillis();
+
+        for (FootprintEntity footprint : footprints) {
+            long timestamp = footprint.getTimestamp();
+            if (timestamp >= startTime && timestamp <= todayStart + DAY) {
+                String dateStr = sdf.format(new Date(timestamp));
+                if (activityStats.containsKey(dateStr)) {
+                    activityStats.put(dateStr, activityStats.get(dateStr) + 1);
+                }
+            }
+        }
+        return activityStats;
+    }
+}
@@ -0,0 +1,43 @@
+package com.damors.zuji.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * 网格间距装饰器测试：重复设置不叠加，参数变化时替换
+ */
+@RunWith(RobolectricTestRunner.class)
+public class GridSpacingItemDecorationTest {
+
+    @Test
+    public void applyTwiceKeepsSingleDecoration() {
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.getApplication());
+
+        GridSpacingItemDecoration.apply(recyclerView, 3, 4, true);
+        RecyclerView.ItemDecoration first = recyclerView.getItemDecorationAt(0);
+        GridSpacingItemDecoration.apply(recyclerView, 3, 4, true);
+
+        assertEquals(1, recyclerView.getItemDecorationCount());
+        assertSame(first, recyclerView.getItemDecorationAt(0));
+    }
+
+    @Test
+    public void applyWithNewParametersReplacesDecoration() {
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.getApplication());
+
+        GridSpacingItemDecoration.apply(recyclerView, 3, 4, true);
+        RecyclerView.ItemDecoration first = recyclerView.getItemDecorationAt(0);
+        GridSpacingItemDecoration.apply(recyclerView, 2, 4, true);
+
+        assertEquals(1, recyclerView.getItemDecorationCount());
+        assertNotSame(first, recyclerView.getItemDecorationAt(0));
+    }
+}